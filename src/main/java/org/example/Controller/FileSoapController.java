@@ -5,17 +5,22 @@ import jakarta.jws.WebMethod;
 import jakarta.jws.WebParam;
 import jakarta.jws.WebService;
 import org.example.application.Dto.FileDTO;
+import org.example.application.Dto.FileRangeDTO;
 import org.example.application.Dto.OperationResponse;
+import org.example.application.Dto.UploadSessionDTO;
 import org.example.application.service.FileService;
+import org.example.application.service.UploadSessionService;
 
 @WebService(serviceName = "FileService")
 public class FileSoapController {
 
 
     private final FileService fileService;
+    private final UploadSessionService uploadSessionService;
 
-    public FileSoapController(FileService fileService) {
+    public FileSoapController(FileService fileService, UploadSessionService uploadSessionService) {
         this.fileService = fileService;
+        this.uploadSessionService = uploadSessionService;
     }
 
     @WebMethod
@@ -58,6 +63,105 @@ public class FileSoapController {
         }
     }
 
+    /**
+     * Abre una sesión de subida por bloques (reanudable).
+     */
+    @WebMethod
+    public UploadSessionDTO beginUploadSession(
+            @WebParam(name = "userId") Long userId,
+            @WebParam(name = "directoryId") Long directoryId,
+            @WebParam(name = "fileName") String fileName,
+            @WebParam(name = "totalSize") long totalSize) {
+        try {
+
+            if (userId == null) {
+                return UploadSessionDTO.error("Usuario no autenticado", "UNAUTHORIZED");
+            }
+
+            // Delegar al servicio
+            return uploadSessionService.beginSession(directoryId, fileName, totalSize, userId);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return UploadSessionDTO.error("Error al abrir sesión de subida: " + e.getMessage(), "INTERNAL_ERROR");
+        }
+    }
+
+    @WebMethod
+    public OperationResponse uploadSessionChunk(
+            @WebParam(name = "userId") Long userId,
+            @WebParam(name = "sessionId") String sessionId,
+            @WebParam(name = "chunkIndex") int chunkIndex,
+            @WebParam(name = "content") byte[] content) {
+        try {
+
+            if (userId == null) {
+                return OperationResponse.error("Usuario no autenticado", "UNAUTHORIZED");
+            }
+
+            // Delegar al servicio
+            return uploadSessionService.putChunk(sessionId, chunkIndex, content, userId);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return OperationResponse.error("Error al subir bloque: " + e.getMessage(), "INTERNAL_ERROR");
+        }
+    }
+
+    @WebMethod
+    public UploadSessionDTO getUploadSessionStatus(
+            @WebParam(name = "userId") Long userId,
+            @WebParam(name = "sessionId") String sessionId) {
+        try {
+
+            if (userId == null) {
+                return UploadSessionDTO.error("Usuario no autenticado", "UNAUTHORIZED");
+            }
+
+            return uploadSessionService.getStatus(sessionId, userId);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return UploadSessionDTO.error("Error al consultar sesión de subida: " + e.getMessage(), "INTERNAL_ERROR");
+        }
+    }
+
+    @WebMethod
+    public OperationResponse commitUploadSession(
+            @WebParam(name = "userId") Long userId,
+            @WebParam(name = "sessionId") String sessionId) {
+        try {
+
+            if (userId == null) {
+                return OperationResponse.error("Usuario no autenticado", "UNAUTHORIZED");
+            }
+
+            return uploadSessionService.commitSession(sessionId, userId);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return OperationResponse.error("Error al confirmar subida: " + e.getMessage(), "INTERNAL_ERROR");
+        }
+    }
+
+    @WebMethod
+    public OperationResponse abortUploadSession(
+            @WebParam(name = "userId") Long userId,
+            @WebParam(name = "sessionId") String sessionId) {
+        try {
+
+            if (userId == null) {
+                return OperationResponse.error("Usuario no autenticado", "UNAUTHORIZED");
+            }
+
+            return uploadSessionService.abortSession(sessionId, userId);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return OperationResponse.error("Error al cancelar subida: " + e.getMessage(), "INTERNAL_ERROR");
+        }
+    }
+
     @WebMethod
     public OperationResponse uploadFiles(
             @WebParam(name = "userId") Long userId,
@@ -182,6 +286,43 @@ public class FileSoapController {
 
     }
 
+    /**
+     * Descarga un rango de bytes de un archivo (reanudar descargas, lecturas parciales).
+     */
+    @WebMethod
+    public FileRangeDTO downloadFileRange(
+            @WebParam(name = "userId") Long userId,
+            @WebParam(name = "fileUuid") String fileUuid,
+            @WebParam(name = "offset") long offset,
+            @WebParam(name = "length") int length) {
+        try {
+
+            if (userId == null) {
+                System.err.println("downloadFileRange: Usuario no autenticado");
+                return createErrorFileRangeDTO();
+            }
+
+            // Validar parámetros
+            if (fileUuid == null || fileUuid.trim().isEmpty()) {
+                System.err.println("downloadFileRange: fileUuid vacío");
+                return createErrorFileRangeDTO();
+            }
+
+            // Delegar al servicio
+            FileRangeDTO result = fileService.downloadFileRange(fileUuid, offset, length, userId);
+
+            if (result == null) {
+                return createErrorFileRangeDTO();
+            }
+
+            return result;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return createErrorFileRangeDTO();
+        }
+    }
+
 
     /**
      * Mueve un archivo de un directorio a otro.
@@ -393,4 +534,14 @@ public class FileSoapController {
         error.setContent(null);
         return error;
     }
-}
\ No newline at end of file
+
+    /**
+     * Método auxiliar para crear un FileRangeDTO de error
+     */
+    private FileRangeDTO createErrorFileRangeDTO() {
+        FileRangeDTO error = new FileRangeDTO();
+        error.setFileName("ERROR");
+        error.setContent(null);
+        return error;
+    }
+}
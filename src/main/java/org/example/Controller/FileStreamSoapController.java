@@ -0,0 +1,141 @@
+package org.example.Controller;
+
+import com.sun.xml.ws.developer.StreamingAttachment;
+import com.sun.xml.ws.developer.StreamingDataHandler;
+import jakarta.activation.DataHandler;
+import jakarta.jws.WebMethod;
+import jakarta.jws.WebParam;
+import jakarta.jws.WebService;
+import jakarta.xml.bind.annotation.XmlMimeType;
+import jakarta.xml.ws.soap.MTOM;
+import org.example.application.Dto.FileStreamDTO;
+import org.example.application.Dto.OperationResponse;
+import org.example.application.service.FileService;
+
+import java.io.InputStream;
+
+/**
+ * Endpoint SOAP con MTOM/XOP para transferir archivos grandes como stream.
+ * El contenido viaja como adjunto binario (sin base64) y se procesa por bloques,
+ * sin materializar el archivo completo en memoria.
+ */
+@MTOM
+@StreamingAttachment(parseEagerly = false, memoryThreshold = 4 * 1024 * 1024)
+@WebService(serviceName = "FileStreamService")
+public class FileStreamSoapController {
+
+    private final FileService fileService;
+
+    public FileStreamSoapController(FileService fileService) {
+        this.fileService = fileService;
+    }
+
+    @WebMethod
+    public OperationResponse uploadFileStream(
+            @WebParam(name = "userId") Long userId,
+            @WebParam(name = "directoryId") Long directoryId,
+            @WebParam(name = "fileName") String fileName,
+            @WebParam(name = "fileSize") Long fileSize,
+            @WebParam(name = "content") @XmlMimeType("application/octet-stream") DataHandler content) {
+        try {
+
+            if (userId == null) {
+                return OperationResponse.error("Usuario no autenticado", "UNAUTHORIZED");
+            }
+
+            if (content == null) {
+                return OperationResponse.error("El contenido del archivo no puede estar vacío", "INVALID_CONTENT");
+            }
+
+            // Leer el adjunto una sola vez, directo desde la conexión
+            try (InputStream in = (content instanceof StreamingDataHandler)
+                    ? ((StreamingDataHandler) content).readOnce()
+                    : content.getInputStream()) {
+
+                // Delegar al servicio
+                return fileService.uploadFileStream(directoryId, fileName, in, fileSize, userId);
+            } finally {
+                if (content instanceof StreamingDataHandler) {
+                    ((StreamingDataHandler) content).close();
+                }
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return OperationResponse.error("Error al subir archivo: " + e.getMessage(), "INTERNAL_ERROR");
+        }
+    }
+
+    @WebMethod
+    public FileStreamDTO downloadFileStream(
+            @WebParam(name = "userId") Long userId,
+            @WebParam(name = "fileUuid") String fileUuid) {
+        try {
+
+            if (userId == null) {
+                System.err.println("downloadFileStream: Usuario no autenticado");
+                return createErrorFileStreamDTO();
+            }
+
+            // Validar parámetros
+            if (fileUuid == null || fileUuid.trim().isEmpty()) {
+                System.err.println("downloadFileStream: fileUuid vacío");
+                return createErrorFileStreamDTO();
+            }
+
+            // Delegar al servicio
+            FileStreamDTO result = fileService.openFileStream(fileUuid, userId);
+
+            if (result == null) {
+                return createErrorFileStreamDTO();
+            }
+
+            return result;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return createErrorFileStreamDTO();
+        }
+    }
+
+    @WebMethod
+    public FileStreamDTO exportDirectoryZip(
+            @WebParam(name = "userId") Long userId,
+            @WebParam(name = "directoryId") Long directoryId) {
+        try {
+
+            if (userId == null) {
+                System.err.println("exportDirectoryZip: Usuario no autenticado");
+                return createErrorFileStreamDTO();
+            }
+
+            if (directoryId == null) {
+                System.err.println("exportDirectoryZip: directoryId vacío");
+                return createErrorFileStreamDTO();
+            }
+
+            // Delegar al servicio (el ZIP se genera mientras se envía)
+            FileStreamDTO result = fileService.exportDirectoryZip(directoryId, userId);
+
+            if (result == null) {
+                return createErrorFileStreamDTO();
+            }
+
+            return result;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return createErrorFileStreamDTO();
+        }
+    }
+
+    /**
+     * Método auxiliar para crear un FileStreamDTO de error
+     */
+    private FileStreamDTO createErrorFileStreamDTO() {
+        FileStreamDTO error = new FileStreamDTO();
+        error.setFileName("ERROR");
+        error.setContent(null);
+        return error;
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.Controller;
+
+import jakarta.jws.WebMethod;
+import jakarta.jws.WebParam;
+import jakarta.jws.WebService;
+import org.example.application.Dto.OperationResponse;
+import org.example.application.service.NodeMembershipService;
+
+import java.util.List;
+
+/**
+ * Endpoint SOAP para que los nodos de almacenamiento se unan o se retiren del clúster en caliente.
+ * Si se configura -Dnodes.registration.token, las llamadas deben incluirlo.
+ */
+@WebService(serviceName = "NodeService")
+public class NodeSoapController {
+
+    private final NodeMembershipService membershipService;
+    private final String registrationToken;
+
+    public NodeSoapController(NodeMembershipService membershipService) {
+        this.membershipService = membershipService;
+        this.registrationToken = System.getProperty("nodes.registration.token");
+    }
+
+    @WebMethod
+    public OperationResponse registerNode(
+            @WebParam(name = "host") String host,
+            @WebParam(name = "port") Integer port,
+            @WebParam(name = "token") String token) {
+        try {
+            if (!isAuthorized(token)) {
+                return OperationResponse.error("Token de registro inválido", "UNAUTHORIZED");
+            }
+            if (host == null || host.isBlank() || port == null || port <= 0 || port > 65535) {
+                return OperationResponse.error("Host o puerto inválidos", "INVALID_PARAMETERS");
+            }
+
+            List<Long> nodeIds = membershipService.registerNode(host.trim(), port);
+            if (nodeIds.isEmpty()) {
+                return OperationResponse.error("No se encontró ningún servicio de nodo en " + host + ":" + port,
+                        "NODE_NOT_REACHABLE");
+            }
+            return OperationResponse.success("Nodo(s) registrado(s): " + nodeIds);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return OperationResponse.error("Error al registrar nodo: " + e.getMessage(), "INTERNAL_ERROR");
+        }
+    }
+
+    @WebMethod
+    public OperationResponse deregisterNode(
+            @WebParam(name = "nodeId") Long nodeId,
+            @WebParam(name = "token") String token) {
+        try {
+            if (!isAuthorized(token)) {
+                return OperationResponse.error("Token de registro inválido", "UNAUTHORIZED");
+            }
+            if (nodeId == null) {
+                return OperationResponse.error("nodeId es obligatorio", "INVALID_PARAMETERS");
+            }
+
+            if (!membershipService.deregisterNode(nodeId)) {
+                return OperationResponse.error("El nodo " + nodeId + " no es miembro del clúster", "NODE_NOT_FOUND");
+            }
+            return OperationResponse.success("Nodo " + nodeId + " retirado");
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return OperationResponse.error("Error al retirar nodo: " + e.getMessage(), "INTERNAL_ERROR");
+        }
+    }
+
+    private boolean isAuthorized(String token) {
+        return registrationToken == null || registrationToken.isEmpty() || registrationToken.equals(token);
+    }
+}
@@ -2,16 +2,22 @@ package org.example;
 
 import jakarta.xml.ws.Endpoint;
 import org.example.Controller.FileSoapController;
+import org.example.Controller.FileStreamSoapController;
+import org.example.Controller.NodeSoapController;
 import org.example.Controller.UserSoapController;
 import org.example.application.queue.TaskQueue;
+import org.example.application.cache.DiskContentCache;
+import org.example.application.cache.FileContentCache;
 import org.example.application.service.*;
 import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.remote.TunedRMISocketFactory;
 import org.example.infrastructure.repository.DbConnection;
 import org.example.infrastructure.repository.FileRepository;
 import org.example.infrastructure.repository.UserRepository;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -37,12 +43,19 @@ public class SoapBootstrap {
         // Pool de conexiones
         System.setProperty("sun.rmi.transport.tcp.maxConnectionThreads", "100");
 
+        // Mantener libres más tiempo las conexiones RMI para reutilizarlas entre llamadas
+        System.setProperty("sun.rmi.transport.connectionTimeout", "60000");
+
+        // Sockets RMI con buffers grandes, sin Nagle, keep-alive y timeouts reales de conexión y escritura
+        TunedRMISocketFactory.installFromSystemProperties();
+
         System.out.println("═".repeat(60));
         System.out.println("RMI Timeouts Configurados:");
         System.out.println("  - responseTimeout: 30000ms (30s)");
         System.out.println("  - handshakeTimeout: 30000ms (30s)");
-        System.out.println("  - connectTimeout: 60000ms (60s)");
+        System.out.println("  - connectTimeout: " + Integer.getInteger("rmi.socket.connectTimeoutMs", 10_000) + "ms");
         System.out.println("  - soTimeout: 60000ms (60s)");
+        System.out.println("  - writeTimeout: " + Integer.getInteger("rmi.socket.writeTimeoutMs", 60_000) + "ms");
         System.out.println("═".repeat(60));
 
         // 1. Conexión a BD
@@ -50,13 +63,22 @@ public class SoapBootstrap {
         FileRepository fileRepository = new FileRepository(connection);
 
         // 2. Descubrir nodos RMI
-        List<String> hosts = List.of("localhost");
-        List<Integer> ports = List.of(1200);
+        List<String> hosts = new ArrayList<>();
+        List<Integer> ports = new ArrayList<>();
+        for (String endpoint : NodeMembershipService.configuredEndpoints()) {
+            int separator = endpoint.lastIndexOf(':');
+            hosts.add(endpoint.substring(0, separator));
+            ports.add(Integer.parseInt(endpoint.substring(separator + 1)));
+        }
 
         System.out.println("\nDescubriendo nodos RMI...");
         NodeService nodeService = new NodeService(fileRepository);
         Map<Long, NodeFileService> nodeMap = nodeService.registerDiscoveredNodes(hosts, ports);
-        NodeSelector nodeSelector = new NodeSelector(nodeMap, fileRepository);
+        StoragePolicy storagePolicy = StoragePolicy.fromSystemProperties();
+        NodeSelector nodeSelector = new NodeSelector(nodeMap, fileRepository, storagePolicy);
+        NodeHealthMonitor.fromSystemProperties(nodeSelector).start();
+        NodeMembershipService membershipService = NodeMembershipService.fromSystemProperties(nodeService, nodeSelector);
+        membershipService.start();
 
         // 3. Servicios de autenticación
         UserRepository userRepository = new UserRepository();
@@ -66,8 +88,16 @@ public class SoapBootstrap {
         // 4. Servicios de archivos
         TaskQueue taskQueue = new TaskQueue();
         PermissionService permissionService = new PermissionService(fileRepository);
-        FileService fileService = new FileService(taskQueue, fileRepository, nodeSelector, permissionService, nodeService);
-        FileSoapController fileController = new FileSoapController(fileService);
+        ReplicationMonitor replicationMonitor = new ReplicationMonitor();
+        ReadLatencyTracker readLatencyTracker = new ReadLatencyTracker(storagePolicy.getHedgePercentile());
+        FileService fileService = new FileService(taskQueue, fileRepository, nodeSelector, permissionService, nodeService,
+                storagePolicy, replicationMonitor, readLatencyTracker, FileContentCache.fromSystemProperties(),
+                DiskContentCache.fromSystemProperties());
+        UploadSessionService uploadSessionService = new UploadSessionService(taskQueue, fileRepository, nodeSelector,
+                permissionService, storagePolicy);
+        FileSoapController fileController = new FileSoapController(fileService, uploadSessionService);
+        FileStreamSoapController fileStreamController = new FileStreamSoapController(fileService);
+        NodeSoapController nodeController = new NodeSoapController(membershipService);
 
         // 5. Publicar endpoints SOAP
         System.out.println("\nPublicando SOAP endpoints...");
@@ -77,6 +107,12 @@ public class SoapBootstrap {
         Endpoint.publish("http://localhost:8080/ws/files", fileController);
         System.out.println("✓ FileEndpoint publicado en: http://localhost:8080/ws/files");
 
+        Endpoint.publish("http://localhost:8080/ws/files/stream", fileStreamController);
+        System.out.println("✓ FileStreamEndpoint (MTOM) publicado en: http://localhost:8080/ws/files/stream");
+
+        Endpoint.publish("http://localhost:8080/ws/nodes", nodeController);
+        System.out.println("✓ NodeEndpoint publicado en: http://localhost:8080/ws/nodes");
+
         System.out.println("\n" + "═".repeat(60));
         System.out.println("SOAP SERVER LISTO");
         System.out.println("═".repeat(60));
@@ -0,0 +1,59 @@
+package org.example.application.Dto;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlType;
+
+import java.io.Serializable;
+
+@XmlType(name = "FileRangeDTO")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class FileRangeDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String fileName;
+    private long offset;
+    private long totalSize;
+    private byte[] content;
+
+    public FileRangeDTO() {}
+
+    public FileRangeDTO(String fileName, long offset, long totalSize, byte[] content) {
+        this.fileName = fileName;
+        this.offset = offset;
+        this.totalSize = totalSize;
+        this.content = content;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.application.Dto;
+
+import jakarta.activation.DataHandler;
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlMimeType;
+import jakarta.xml.bind.annotation.XmlType;
+
+@XmlType(name = "FileStreamDTO")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class FileStreamDTO {
+    private String fileName;
+    private long size;
+
+    @XmlMimeType("application/octet-stream")
+    private DataHandler content;
+
+    public FileStreamDTO() {}
+
+    public FileStreamDTO(String fileName, long size, DataHandler content) {
+        this.fileName = fileName;
+        this.size = size;
+        this.content = content;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public DataHandler getContent() {
+        return content;
+    }
+
+    public void setContent(DataHandler content) {
+        this.content = content;
+    }
+}
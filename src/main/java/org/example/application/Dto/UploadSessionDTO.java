@@ -0,0 +1,94 @@
+package org.example.application.Dto;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlType;
+
+@XmlType(name = "UploadSessionDTO")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class UploadSessionDTO {
+    private boolean success;
+    private String message;
+    private String errorCode;
+    private String sessionId;
+    private int chunkSize;
+    private int totalChunks;
+    private int[] missingChunks;
+
+    public UploadSessionDTO() {}
+
+    // Factory methods
+    public static UploadSessionDTO of(String sessionId, int chunkSize, int totalChunks, int[] missingChunks) {
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.success = true;
+        dto.sessionId = sessionId;
+        dto.chunkSize = chunkSize;
+        dto.totalChunks = totalChunks;
+        dto.missingChunks = missingChunks;
+        return dto;
+    }
+
+    public static UploadSessionDTO error(String message, String errorCode) {
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.success = false;
+        dto.message = message;
+        dto.errorCode = errorCode;
+        return dto;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public void setTotalChunks(int totalChunks) {
+        this.totalChunks = totalChunks;
+    }
+
+    public int[] getMissingChunks() {
+        return missingChunks;
+    }
+
+    public void setMissingChunks(int[] missingChunks) {
+        this.missingChunks = missingChunks;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.application.cache;
+
+import jakarta.activation.DataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * DataSource de solo lectura respaldado por una entrada de la caché en disco.
+ * Cada llamada a getInputStream mapea el fichero de nuevo (y vuelve a verificar su CRC).
+ */
+public class DiskCachedDataSource implements DataSource {
+
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    private final DiskContentCache cache;
+    private final String key;
+    private final String name;
+
+    public DiskCachedDataSource(DiskContentCache cache, String key, String name) {
+        this.cache = cache;
+        this.key = key;
+        this.name = name;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        InputStream in = cache.openStream(key);
+        if (in == null) {
+            throw new IOException("La entrada " + key + " ya no está en la caché en disco");
+        }
+        return in;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        throw new IOException("DiskCachedDataSource es de solo lectura");
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
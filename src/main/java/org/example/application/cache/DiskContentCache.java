@@ -0,0 +1,421 @@
+package org.example.application.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+/**
+ * Caché de segundo nivel en disco local para el contenido que se lee de los nodos.
+ * Cada archivo se guarda tal como lo devuelve el nodo (comprimido si lo está) en su propio fichero
+ * y los aciertos se leen con FileChannel/MappedByteBuffer, fuera del heap. El índice (clave, tamaño,
+ * CRC32C) se persiste periódicamente y se recarga al arrancar; el CRC se verifica en cada lectura y
+ * una entrada corrupta se descarta como fallo. Se desaloja por LRU según el presupuesto de disco.
+ *
+ *   -Dcache.disk.dir=/var/cache/storage   (por defecto java.io.tmpdir/storage-cache)
+ *   -Dcache.disk.bytes=1073741824         (0 desactiva la caché)
+ *
+ * Las claves son ids de almacenamiento (uuid o blob deduplicado), que nunca cambian de contenido.
+ */
+public class DiskContentCache {
+
+    private static final Logger LOGGER = Logger.getLogger(DiskContentCache.class.getName());
+
+    private static final String INDEX_FILE = "index.dat";
+    private static final String ENTRY_SUFFIX = ".bin";
+    private static final long INDEX_FLUSH_SECONDS = 10;
+
+    // Las claves se usan como nombre de fichero
+    private static final Pattern VALID_KEY = Pattern.compile("[A-Za-z0-9_.-]{1,128}");
+
+    private static final class IndexEntry {
+        private final long size;
+        private final long crc;
+
+        private IndexEntry(long size, long crc) {
+            this.size = size;
+            this.crc = crc;
+        }
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Protegidos por this
+    private final LinkedHashMap<String, IndexEntry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+    private boolean indexDirty;
+
+    // Métricas
+    private long hits;
+    private long misses;
+    private long corrupted;
+    private long evictions;
+
+    // Escrituras e índice fuera del camino de lectura
+    private final ScheduledExecutorService writer;
+
+    public DiskContentCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+
+        if (maxBytes <= 0) {
+            this.writer = null;
+            return;
+        }
+
+        Files.createDirectories(directory);
+        loadIndex();
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "DiskContentCache-Writer");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::flushIndex, INDEX_FLUSH_SECONDS, INDEX_FLUSH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Crea la caché a partir de las propiedades del sistema.
+     * Si el directorio no se puede usar, la caché queda desactivada.
+     */
+    public static DiskContentCache fromSystemProperties() {
+        Path directory = Paths.get(System.getProperty("cache.disk.dir",
+                Paths.get(System.getProperty("java.io.tmpdir"), "storage-cache").toString()));
+        long maxBytes = Long.getLong("cache.disk.bytes", 1024L * 1024 * 1024);
+
+        try {
+            DiskContentCache cache = new DiskContentCache(directory, maxBytes);
+            LOGGER.info("DiskContentCache: " + (cache.isEnabled()
+                    ? directory + ", presupuesto " + (maxBytes >> 20) + " MB, " + cache.index.size() + " entrada(s) recuperadas"
+                    : "desactivada"));
+            return cache;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "No se pudo usar " + directory + " para la caché en disco, queda desactivada", e);
+            try {
+                return new DiskContentCache(directory, 0);
+            } catch (IOException impossible) {
+                throw new IllegalStateException(impossible);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Indica si hay una entrada para la clave (sin verificarla ni contar acierto).
+     */
+    public synchronized boolean contains(String key) {
+        return isEnabled() && index.containsKey(key);
+    }
+
+    /**
+     * Lee una entrada completa.
+     * @return null si no está o si no supera la verificación de CRC
+     */
+    public byte[] get(String key) {
+        MappedByteBuffer mapped = map(key);
+        if (mapped == null) {
+            return null;
+        }
+        byte[] content = new byte[mapped.remaining()];
+        mapped.get(content);
+        return content;
+    }
+
+    /**
+     * Abre una entrada como stream sobre el fichero mapeado, sin copiarla al heap.
+     * @return null si no está o si no supera la verificación de CRC
+     */
+    public InputStream openStream(String key) {
+        MappedByteBuffer mapped = map(key);
+        return mapped != null ? new ByteBufferInputStream(mapped) : null;
+    }
+
+    /**
+     * Guarda una entrada en segundo plano (no bloquea la lectura que la trajo del nodo).
+     */
+    public void putAsync(String key, byte[] content) {
+        if (!isEnabled() || content == null || content.length > maxBytes || !VALID_KEY.matcher(key).matches()) {
+            return;
+        }
+        synchronized (this) {
+            if (index.containsKey(key)) {
+                return;
+            }
+        }
+        writer.execute(() -> write(key, content));
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Imprime estadísticas de la caché.
+     */
+    public synchronized void printStats() {
+        long total = hits + misses;
+        LOGGER.info(String.format("Caché en disco: %d entrada(s), %.1f/%.1f MB, aciertos=%d, fallos=%d (%.1f%%), " +
+                        "corruptas=%d, desalojadas=%d",
+                index.size(), usedBytes / 1048576.0, maxBytes / 1048576.0, hits, misses,
+                total > 0 ? hits * 100.0 / total : 0.0, corrupted, evictions));
+    }
+
+    /**
+     * Mapea una entrada y verifica su CRC.
+     */
+    private MappedByteBuffer map(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        IndexEntry entry;
+        synchronized (this) {
+            entry = index.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(entryPath(key), StandardOpenOption.READ)) {
+            if (channel.size() != entry.size) {
+                throw new IOException("tamaño " + channel.size() + " en disco, " + entry.size + " en el índice");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, entry.size);
+            if (checksum(mapped.duplicate()) != entry.crc) {
+                throw new IOException("CRC no coincide");
+            }
+            synchronized (this) {
+                hits++;
+            }
+            return mapped;
+
+        } catch (NoSuchFileException e) {
+            // Desalojada entre la consulta al índice y la apertura
+            remove(key, false);
+            return null;
+        } catch (IOException e) {
+            LOGGER.warning("Entrada de caché en disco descartada (" + key + "): " + e.getMessage());
+            remove(key, true);
+            return null;
+        }
+    }
+
+    /**
+     * Escribe una entrada (hilo writer): fichero temporal + move atómico, después índice y desalojo.
+     */
+    private void write(String key, byte[] content) {
+        Path target = entryPath(key);
+        Path temp = directory.resolve(key + ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "No se pudo escribir " + key + " en la caché en disco", e);
+            deleteQuietly(temp);
+            return;
+        }
+
+        List<String> victims = new ArrayList<>();
+        synchronized (this) {
+            IndexEntry previous = index.put(key, new IndexEntry(content.length, checksum(ByteBuffer.wrap(content))));
+            if (previous != null) {
+                usedBytes -= previous.size;
+            }
+            usedBytes += content.length;
+            indexDirty = true;
+
+            // Desalojar por LRU hasta volver al presupuesto (nunca la entrada recién escrita)
+            Iterator<Map.Entry<String, IndexEntry>> it = index.entrySet().iterator();
+            while (usedBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, IndexEntry> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                it.remove();
+                usedBytes -= eldest.getValue().size;
+                victims.add(eldest.getKey());
+                evictions++;
+            }
+        }
+
+        for (String victim : victims) {
+            deleteQuietly(entryPath(victim));
+        }
+    }
+
+    private void remove(String key, boolean corrupt) {
+        synchronized (this) {
+            IndexEntry removed = index.remove(key);
+            if (removed != null) {
+                usedBytes -= removed.size;
+                indexDirty = true;
+            }
+            misses++;
+            if (corrupt) {
+                corrupted++;
+            }
+        }
+        if (corrupt) {
+            deleteQuietly(entryPath(key));
+        }
+    }
+
+    /**
+     * Carga el índice persistido; descarta entradas sin fichero y ficheros sin entrada.
+     */
+    private void loadIndex() throws IOException {
+        Path indexPath = directory.resolve(INDEX_FILE);
+        if (Files.exists(indexPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(indexPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split(" ");
+                    if (parts.length != 3 || !VALID_KEY.matcher(parts[0]).matches()) {
+                        continue;
+                    }
+                    try {
+                        long size = Long.parseLong(parts[1]);
+                        if (Files.size(entryPath(parts[0])) == size) {
+                            index.put(parts[0], new IndexEntry(size, Long.parseLong(parts[2])));
+                            usedBytes += size;
+                        }
+                    } catch (NumberFormatException | IOException e) {
+                        LOGGER.fine("Entrada de índice ignorada: " + line);
+                    }
+                }
+            }
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean indexed = name.endsWith(ENTRY_SUFFIX)
+                        && index.containsKey(name.substring(0, name.length() - ENTRY_SUFFIX.length()));
+                if (!indexed && !name.equals(INDEX_FILE)) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Persiste el índice si cambió (orden LRU incluido: se recarga igual).
+     */
+    private void flushIndex() {
+        StringBuilder sb = new StringBuilder();
+        synchronized (this) {
+            if (!indexDirty) {
+                return;
+            }
+            for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                sb.append(entry.getKey()).append(' ').append(entry.getValue().size)
+                        .append(' ').append(entry.getValue().crc).append('\n');
+            }
+            indexDirty = false;
+        }
+
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(sb.toString());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "No se pudo guardar el índice de la caché en disco", e);
+            synchronized (this) {
+                indexDirty = true;
+            }
+            return;
+        }
+        try {
+            Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "No se pudo guardar el índice de la caché en disco", e);
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + ENTRY_SUFFIX);
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "No se pudo borrar " + path, e);
+        }
+    }
+
+    /**
+     * InputStream sobre un ByteBuffer (el fichero mapeado).
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
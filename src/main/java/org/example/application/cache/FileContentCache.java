@@ -0,0 +1,205 @@
+package org.example.application.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Caché en memoria del contenido de los archivos más leídos, por uuid.
+ * Está limitada por un presupuesto de bytes y desaloja por LRU, pero solo admite un archivo
+ * nuevo si su frecuencia de acceso reciente (estimada con TinyLFU) supera la de todos los
+ * archivos que tendría que desalojar: un recorrido puntual por archivos fríos no vacía la caché.
+ *
+ *   -Dcache.content.bytes=268435456   (0 desactiva la caché)
+ *   -Dcache.content.maxEntry=33554432 (archivos más grandes no se cachean)
+ *
+ * Los archivos nunca cambian de contenido, pero sí de nombre: FileService invalida las entradas
+ * al borrar, mover o renombrar. Una descarga que empezó antes de una invalidación no se guarda.
+ */
+public class FileContentCache {
+
+    private static final Logger LOGGER = Logger.getLogger(FileContentCache.class.getName());
+
+    // Tamaño medio supuesto para dimensionar el sketch
+    private static final int AVERAGE_ENTRY_BYTES = 64 * 1024;
+
+    /**
+     * Contenido cacheado de un archivo.
+     */
+    public static final class CachedFile {
+        private final String name;
+        private final byte[] content;
+
+        private CachedFile(String name, byte[] content) {
+            this.name = name;
+            this.content = content;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+    }
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // Protegidos por this
+    private final LinkedHashMap<String, CachedFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long usedBytes;
+    private long epoch;
+
+    // Métricas
+    private long hits;
+    private long misses;
+    private long admissions;
+    private long rejections;
+    private long evictions;
+
+    public FileContentCache(long maxBytes, long maxEntryBytes) {
+        if (maxBytes < 0 || maxEntryBytes < 0) {
+            throw new IllegalArgumentException("Tamaños de caché inválidos: " + maxBytes + "/" + maxEntryBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE / 4, Math.max(1, maxBytes / AVERAGE_ENTRY_BYTES)));
+    }
+
+    /**
+     * Crea la caché a partir de las propiedades del sistema.
+     */
+    public static FileContentCache fromSystemProperties() {
+        long maxBytes = Long.getLong("cache.content.bytes", 256L * 1024 * 1024);
+        long maxEntryBytes = Long.getLong("cache.content.maxEntry", maxBytes / 8);
+        FileContentCache cache = new FileContentCache(maxBytes, maxEntryBytes);
+
+        LOGGER.info("FileContentCache: " + (maxBytes > 0
+                ? "presupuesto " + (maxBytes >> 20) + " MB, máximo por archivo " + (cache.maxEntryBytes >> 20) + " MB"
+                : "desactivada"));
+        return cache;
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Busca un archivo y registra el acceso para la política de admisión.
+     * @return null si no está en caché
+     */
+    public synchronized CachedFile get(String fileUuid) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        sketch.increment(fileUuid);
+        CachedFile cached = entries.get(fileUuid);
+        if (cached != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return cached;
+    }
+
+    /**
+     * Marca de invalidaciones a tomar antes de descargar un archivo que luego se pasará a put.
+     */
+    public synchronized long currentEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Ofrece a la caché un archivo recién descargado.
+     * @param epochAtLoad valor de currentEpoch() antes de empezar la descarga
+     * @return true si el archivo quedó en caché
+     */
+    public synchronized boolean put(String fileUuid, String name, byte[] content, long epochAtLoad) {
+        if (!isEnabled() || content == null) {
+            return false;
+        }
+
+        // Hubo una invalidación mientras se descargaba: el nombre puede estar desactualizado
+        if (epochAtLoad != epoch || content.length > maxEntryBytes) {
+            rejections++;
+            return false;
+        }
+
+        CachedFile previous = entries.remove(fileUuid);
+        if (previous != null) {
+            usedBytes -= previous.content.length;
+        }
+
+        // Elegir víctimas por LRU; el candidato debe ser más frecuente que todas ellas
+        long needed = usedBytes + content.length - maxBytes;
+        if (needed > 0) {
+            int candidateFrequency = sketch.frequency(fileUuid);
+            List<String> victims = new ArrayList<>();
+            long freed = 0;
+            for (Iterator<Map.Entry<String, CachedFile>> it = entries.entrySet().iterator(); it.hasNext() && freed < needed; ) {
+                Map.Entry<String, CachedFile> victim = it.next();
+                if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                    rejections++;
+                    return false;
+                }
+                victims.add(victim.getKey());
+                freed += victim.getValue().content.length;
+            }
+
+            for (String victim : victims) {
+                usedBytes -= entries.remove(victim).content.length;
+                evictions++;
+            }
+        }
+
+        entries.put(fileUuid, new CachedFile(name, content));
+        usedBytes += content.length;
+        admissions++;
+        return true;
+    }
+
+    /**
+     * Elimina un archivo de la caché (borrado, movido o renombrado).
+     */
+    public synchronized void invalidate(String fileUuid) {
+        epoch++;
+        CachedFile removed = entries.remove(fileUuid);
+        if (removed != null) {
+            usedBytes -= removed.content.length;
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Imprime estadísticas de la caché.
+     */
+    public synchronized void printStats() {
+        LOGGER.info(String.format("Caché de contenido: %d archivo(s), %.1f/%.1f MB, aciertos=%d, fallos=%d (%.1f%%), " +
+                        "admitidos=%d, rechazados=%d, desalojados=%d",
+                entries.size(), usedBytes / 1048576.0, maxBytes / 1048576.0, hits, misses, getHitRate() * 100,
+                admissions, rejections, evictions));
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.application.cache;
+
+/**
+ * Count-min sketch de contadores de 4 bits para estimar la frecuencia de acceso reciente (TinyLFU).
+ * Cada clave incrementa un contador por fila; la estimación es el mínimo de las filas.
+ * Cuando el número de incrementos llega a sampleSize todos los contadores se dividen a la mitad,
+ * de modo que la popularidad antigua se va olvidando.
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedEntries número aproximado de claves distintas a seguir
+     */
+    FrequencySketch(int expectedEntries) {
+        int width = Integer.highestOneBit(Math.max(1024, expectedEntries * 2 - 1));
+        this.counters = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+    }
+
+    void increment(String key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+                added = true;
+            }
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(String key) {
+        int hash = key.hashCode();
+        int min = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[row][indexOf(hash, row)]);
+        }
+        return min;
+    }
+
+    private void reset() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (byte) (row[i] >>> 1);
+            }
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9E3779B1;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.application.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrupa cargas concurrentes de la misma clave: el primer llamador (líder) ejecuta la carga
+ * y los que llegan mientras está en curso esperan y reciben su mismo resultado (o su misma excepción).
+ * En cuanto la carga termina la clave se libera, así que no guarda resultados: eso es cosa de la caché.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long waitTimeoutMillis;
+
+    // Métricas
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param waitTimeoutMillis tiempo máximo que un llamador espera la carga de otro
+     */
+    public SingleFlight(long waitTimeoutMillis) {
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * Ejecuta loader para la clave, o se une a la carga que ya esté en curso.
+     */
+    public V execute(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        loads.incrementAndGet();
+        try {
+            V value = loader.call();
+            own.complete(value);
+            return value;
+        } catch (Throwable t) {
+            own.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private V await(CompletableFuture<V> flight) throws Exception {
+        try {
+            return flight.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Propagar la misma excepción que recibió el líder
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            throw new TimeoutException("Timeout esperando una carga en curso");
+        }
+    }
+
+    /**
+     * Cargas ejecutadas realmente.
+     */
+    public long getLoads() {
+        return loads.get();
+    }
+
+    /**
+     * Llamadas que se resolvieron con la carga de otro llamador.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}
@@ -0,0 +1,216 @@
+package org.example.application.placement;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Colocación por hashing consistente: cada nodo ocupa varios puntos (nodos virtuales) en un
+ * anillo de 64 bits, en número proporcional a su capacidad. Un archivo va al primer nodo a partir
+ * del hash de su uuid y sus réplicas a los siguientes nodos distintos del anillo.
+ * La colocación solo depende del uuid y de los miembros: al entrar o salir un nodo solo cambia
+ * de sitio ~1/N de las claves, y cada elección es una búsqueda binaria en vez de ordenar todos los nodos.
+ * Los nodos caídos o saturados se saltan y se pasa al siguiente del anillo.
+ */
+public class ConsistentHashPlacementStrategy implements PlacementStrategy {
+
+    private static final Logger LOGGER = Logger.getLogger(ConsistentHashPlacementStrategy.class.getName());
+
+    public static final String NAME = "ring";
+
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+    private static final int MIN_VIRTUAL_NODES = 8;
+
+    /**
+     * Anillo inmutable: points ordenado, owners[i] es el nodo del punto i.
+     * positions guarda la posición de cada nodo en la lista con la que se construyó.
+     */
+    private static final class Ring {
+        private final long[] points;
+        private final long[] owners;
+        private final Map<Long, Integer> positions;
+        private final String signature;
+
+        private Ring(long[] points, long[] owners, Map<Long, Integer> positions, String signature) {
+            this.points = points;
+            this.owners = owners;
+            this.positions = positions;
+            this.signature = signature;
+        }
+    }
+
+    private final int virtualNodes;
+    private volatile Ring ring;
+
+    public ConsistentHashPlacementStrategy() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * @param virtualNodes puntos en el anillo de un nodo de capacidad media
+     */
+    public ConsistentHashPlacementStrategy(int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("El número de nodos virtuales debe ser al menos 1");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Reconstruye el anillo si cambiaron los miembros o sus capacidades.
+     */
+    @Override
+    public void updateMembership(List<NodeLoad> nodes) {
+        String signature = signatureOf(nodes);
+        Ring current = ring;
+        if (current != null && current.signature.equals(signature)) {
+            return;
+        }
+        ring = buildRing(nodes, signature);
+        LOGGER.info("Anillo de colocación reconstruido: " + nodes.size() + " nodo(s), " + ring.points.length + " punto(s)");
+    }
+
+    @Override
+    public List<Long> selectNodes(String placementKey, long fileSize, int count, List<NodeLoad> nodes) {
+        Ring current = ring;
+        if (current == null) {
+            updateMembership(nodes);
+            current = ring;
+        }
+        if (current.points.length == 0) {
+            return new ArrayList<>();
+        }
+
+        // Recorrer el anillo en sentido horario desde el hash de la clave
+        int start = Arrays.binarySearch(current.points, hash(placementKey));
+        if (start < 0) {
+            start = -start - 1;
+        }
+
+        Set<Long> selected = new LinkedHashSet<>();
+        Set<Long> visited = new LinkedHashSet<>();
+        for (int i = 0; i < current.points.length && selected.size() < count; i++) {
+            long owner = current.owners[(start + i) % current.points.length];
+            if (!visited.add(owner)) {
+                continue;
+            }
+            NodeLoad load = loadOf(current, nodes, owner);
+            if (load != null && load.isAvailable() && !load.isSaturated()) {
+                selected.add(owner);
+            }
+        }
+
+        // Todos saturados: usar los primeros del anillo igualmente
+        if (selected.isEmpty()) {
+            for (Long owner : visited) {
+                if (selected.size() == count) {
+                    break;
+                }
+                NodeLoad load = loadOf(current, nodes, owner);
+                if (load != null && load.isAvailable()) {
+                    selected.add(owner);
+                }
+            }
+        }
+
+        LOGGER.fine("Anillo: " + placementKey + " -> " + selected);
+        return new ArrayList<>(selected);
+    }
+
+    /**
+     * Carga de un nodo del anillo en la vista actual (null si ya no es miembro).
+     */
+    private static NodeLoad loadOf(Ring ring, List<NodeLoad> nodes, long nodeId) {
+        Integer position = ring.positions.get(nodeId);
+        if (position != null && position < nodes.size()) {
+            NodeLoad load = nodes.get(position);
+            if (load.getNodeId() == nodeId) {
+                return load;
+            }
+        }
+        // La vista cambió de orden desde que se construyó el anillo
+        for (NodeLoad load : nodes) {
+            if (load.getNodeId() == nodeId) {
+                return load;
+            }
+        }
+        return null;
+    }
+
+    private Ring buildRing(List<NodeLoad> nodes, String signature) {
+        int[] vnodes = virtualNodeCounts(nodes);
+        int total = Arrays.stream(vnodes).sum();
+
+        long[][] pairs = new long[total][];
+        Map<Long, Integer> positions = new HashMap<>();
+        int n = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            Long nodeId = nodes.get(i).getNodeId();
+            positions.put(nodeId, i);
+            for (int v = 0; v < vnodes[i]; v++) {
+                pairs[n++] = new long[]{hash("Node-" + nodeId + "#" + v), nodeId};
+            }
+        }
+        Arrays.sort(pairs, (a, b) -> Long.compare(a[0], b[0]));
+
+        long[] points = new long[total];
+        long[] owners = new long[total];
+        for (int i = 0; i < total; i++) {
+            points[i] = pairs[i][0];
+            owners[i] = pairs[i][1];
+        }
+        return new Ring(points, owners, positions, signature);
+    }
+
+    /**
+     * Puntos por nodo proporcionales a su capacidad respecto a la media.
+     */
+    private int[] virtualNodeCounts(List<NodeLoad> nodes) {
+        double averageCapacity = nodes.stream().mapToLong(NodeLoad::getCapacity).filter(c -> c > 0).average().orElse(0);
+
+        int[] counts = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            long capacity = nodes.get(i).getCapacity();
+            double share = averageCapacity > 0 && capacity > 0 ? capacity / averageCapacity : 1.0;
+            counts[i] = (int) Math.max(MIN_VIRTUAL_NODES, Math.min(4L * virtualNodes, Math.round(virtualNodes * share)));
+        }
+        return counts;
+    }
+
+    private static String signatureOf(List<NodeLoad> nodes) {
+        StringBuilder sb = new StringBuilder();
+        nodes.stream()
+                .sorted((a, b) -> Long.compare(a.getNodeId(), b.getNodeId()))
+                .forEach(node -> sb.append(node.getNodeId()).append(':').append(node.getCapacity()).append(','));
+        return sb.toString();
+    }
+
+    /**
+     * Primeros 64 bits del MD5: buena dispersión y estable entre ejecuciones.
+     */
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) {
+                h = (h << 8) | (digest[i] & 0xFF);
+            }
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.application.placement;
+
+import org.example.domain.model.NodeTopology;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reparte las réplicas de un archivo entre dominios de fallo distintos.
+ * Recibe los nodos en orden de preferencia de la estrategia de colocación y elige, respetando ese
+ * orden, primero nodos de zonas nuevas, después de racks nuevos, después de máquinas nuevas y por
+ * último cualquiera. El primer nodo de la lista sigue siendo el primario.
+ */
+public final class FailureDomains {
+
+    private FailureDomains() {
+    }
+
+    /**
+     * @param preferred nodos candidatos en orden de preferencia (sin repetidos)
+     * @param count réplicas a elegir
+     * @param topologyOf topología de cada nodo
+     */
+    public static List<Long> spread(List<Long> preferred, int count, Function<Long, NodeTopology> topologyOf) {
+        Set<Long> selected = new LinkedHashSet<>();
+        Set<String> zones = new HashSet<>();
+        Set<String> racks = new HashSet<>();
+        Set<String> hosts = new HashSet<>();
+
+        // Nivel 0: zona nueva, 1: rack nuevo, 2: máquina nueva, 3: cualquiera
+        for (int level = 0; level < 4 && selected.size() < count; level++) {
+            for (Long nodeId : preferred) {
+                if (selected.size() >= count) {
+                    break;
+                }
+                if (selected.contains(nodeId)) {
+                    continue;
+                }
+                NodeTopology topology = topologyOf.apply(nodeId);
+                boolean accept;
+                switch (level) {
+                    case 0:
+                        accept = !zones.contains(topology.getZone());
+                        break;
+                    case 1:
+                        accept = !racks.contains(topology.getRackKey());
+                        break;
+                    case 2:
+                        accept = !hosts.contains(topology.getHost());
+                        break;
+                    default:
+                        accept = true;
+                }
+                if (accept) {
+                    selected.add(nodeId);
+                    zones.add(topology.getZone());
+                    racks.add(topology.getRackKey());
+                    hosts.add(topology.getHost());
+                }
+            }
+        }
+        return new ArrayList<>(selected);
+    }
+
+    /**
+     * Número de zonas distintas entre los nodos dados.
+     */
+    public static int distinctZones(List<Long> nodeIds, Function<Long, NodeTopology> topologyOf) {
+        Set<String> zones = new HashSet<>();
+        for (Long nodeId : nodeIds) {
+            zones.add(topologyOf.apply(nodeId).getZone());
+        }
+        return zones.size();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.application.placement;
+
+/**
+ * Carga de un nodo en el momento de elegir dónde colocar un archivo.
+ */
+public final class NodeLoad {
+
+    private final Long nodeId;
+    private final long capacity;
+    private final long spaceUsed;
+    private final int activeTasks;
+    private final boolean saturated;
+    private final boolean available;
+
+    public NodeLoad(Long nodeId, long capacity, long spaceUsed, int activeTasks, boolean saturated, boolean available) {
+        this.nodeId = nodeId;
+        this.capacity = capacity;
+        this.spaceUsed = spaceUsed;
+        this.activeTasks = activeTasks;
+        this.saturated = saturated;
+        this.available = available;
+    }
+
+    public Long getNodeId() {
+        return nodeId;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getSpaceUsed() {
+        return spaceUsed;
+    }
+
+    public int getActiveTasks() {
+        return activeTasks;
+    }
+
+    /**
+     * true si el nodo tiene demasiadas tareas activas para recibir más réplicas.
+     */
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    /**
+     * false si el nodo está caído (circuito abierto): nunca debe recibir réplicas.
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Fracción de la capacidad ocupada (0.0 - 1.0).
+     */
+    public double getLoadRatio() {
+        return capacity > 0 ? (double) spaceUsed / capacity : 0.0;
+    }
+}
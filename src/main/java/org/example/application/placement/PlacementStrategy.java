@@ -0,0 +1,36 @@
+package org.example.application.placement;
+
+import java.util.List;
+
+/**
+ * Estrategia para decidir en qué nodos se guardan las réplicas de un archivo nuevo.
+ * NodeSelector le pasa una vista de todos los nodos cuya carga se calcula al acceder a cada
+ * elemento (una estrategia puede mirar solo unos pocos), y se encarga de reservar las tareas
+ * activas de los nodos elegidos.
+ * Los nodos no disponibles no se eligen nunca; los saturados solo si no hay ningún nodo
+ * disponible sin saturar.
+ */
+public interface PlacementStrategy {
+
+    /**
+     * Nombre con el que se configura en storage.placement.
+     */
+    String getName();
+
+    /**
+     * Elige los nodos para un archivo.
+     * @param placementKey clave de colocación (el uuid del archivo)
+     * @param fileSize tamaño del archivo en bytes
+     * @param count número máximo de nodos distintos a devolver
+     * @param nodes todos los nodos (vista de acceso aleatorio)
+     * @return ids de los nodos elegidos; el primero es el primario
+     */
+    List<Long> selectNodes(String placementKey, long fileSize, int count, List<NodeLoad> nodes);
+
+    /**
+     * Informa de todos los nodos del clúster (también los saturados) y su capacidad.
+     * Se llama al cargar las métricas y cada vez que se sincronizan.
+     */
+    default void updateMembership(List<NodeLoad> nodes) {
+    }
+}
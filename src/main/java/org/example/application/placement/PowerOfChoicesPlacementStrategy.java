@@ -0,0 +1,112 @@
+package org.example.application.placement;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Power of d choices: para cada réplica se toman d nodos al azar y se elige el de menor peso
+ * (el mismo que WeightedPlacementStrategy). Solo consulta la carga de los nodos muestreados,
+ * así que el coste de elegir no crece con el tamaño del clúster y aun así evita los nodos cargados.
+ * En clústeres pequeños, donde muestrear no ahorra nada, recorre todos los nodos.
+ */
+public class PowerOfChoicesPlacementStrategy implements PlacementStrategy {
+
+    private static final Logger LOGGER = Logger.getLogger(PowerOfChoicesPlacementStrategy.class.getName());
+
+    public static final String NAME = "p2c";
+
+    // Intentos de muestreo por réplica antes de recorrer todos los nodos
+    private static final int MAX_SAMPLE_ATTEMPTS = 32;
+
+    private final int choices;
+    private final WeightedPlacementStrategy fullScan = new WeightedPlacementStrategy();
+
+    /**
+     * @param choices nodos muestreados por réplica (d)
+     */
+    public PowerOfChoicesPlacementStrategy(int choices) {
+        if (choices < 1) {
+            throw new IllegalArgumentException("El número de candidatos por réplica debe ser al menos 1");
+        }
+        this.choices = choices;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<Long> selectNodes(String placementKey, long fileSize, int count, List<NodeLoad> nodes) {
+        if (nodes.size() <= 2 * count + choices) {
+            return fullScan.selectNodes(placementKey, fileSize, count, nodes);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Long> selected = new ArrayList<>();
+        Set<Long> used = new HashSet<>();
+
+        for (int replica = 0; replica < count; replica++) {
+            NodeLoad best = null;
+            int sampled = 0;
+            for (int attempt = 0; attempt < MAX_SAMPLE_ATTEMPTS && sampled < choices; attempt++) {
+                NodeLoad candidate = nodes.get(random.nextInt(nodes.size()));
+                if (!candidate.isAvailable() || candidate.isSaturated() || used.contains(candidate.getNodeId())) {
+                    continue;
+                }
+                sampled++;
+                if (best == null || WeightedPlacementStrategy.weightOf(candidate) < WeightedPlacementStrategy.weightOf(best)) {
+                    best = candidate;
+                }
+            }
+
+            // Casi todo saturado o caído: buscar en todos los nodos
+            if (best == null) {
+                best = leastLoaded(nodes, used);
+                if (best == null) {
+                    break;
+                }
+            }
+
+            selected.add(best.getNodeId());
+            used.add(best.getNodeId());
+
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine((replica == 0 ? "Nodo PRIMARIO" : "RÉPLICA-" + replica) + ": Node-" + best.getNodeId() +
+                        " (peso: " + String.format("%.3f", WeightedPlacementStrategy.weightOf(best)) +
+                        ", " + sampled + " candidato(s))");
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Nodo no usado de menor peso, prefiriendo los no saturados. Solo si muestrear no encontró ninguno.
+     * Un nodo saturado solo se devuelve si no queda ningún nodo sin saturar en todo el clúster.
+     */
+    private NodeLoad leastLoaded(List<NodeLoad> nodes, Set<Long> used) {
+        NodeLoad best = null;
+        boolean anyUnsaturated = false;
+        for (NodeLoad node : nodes) {
+            if (!node.isAvailable()) {
+                continue;
+            }
+            anyUnsaturated |= !node.isSaturated();
+            if (used.contains(node.getNodeId())) {
+                continue;
+            }
+            if (best == null
+                    || (best.isSaturated() && !node.isSaturated())
+                    || (best.isSaturated() == node.isSaturated()
+                        && WeightedPlacementStrategy.weightOf(node) < WeightedPlacementStrategy.weightOf(best))) {
+                best = node;
+            }
+        }
+        return best != null && best.isSaturated() && anyUnsaturated ? null : best;
+    }
+}
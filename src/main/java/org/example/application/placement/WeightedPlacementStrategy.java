@@ -0,0 +1,61 @@
+package org.example.application.placement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Estrategia híbrida original: carga relativa (usado/capacidad) + tareas activas.
+ * Calcula un peso por nodo, ordena y se queda con los de menor peso. Recorre todos los nodos
+ * en cada elección: pensada para clústeres pequeños.
+ */
+public class WeightedPlacementStrategy implements PlacementStrategy {
+
+    private static final Logger LOGGER = Logger.getLogger(WeightedPlacementStrategy.class.getName());
+
+    public static final String NAME = "weighted";
+
+    private static final double ACTIVE_TASKS_WEIGHT = 0.05;
+
+    /**
+     * Peso combinado de un nodo. Peso menor = mejor candidato.
+     */
+    public static double weightOf(NodeLoad node) {
+        return node.getLoadRatio() + (ACTIVE_TASKS_WEIGHT * node.getActiveTasks());
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<Long> selectNodes(String placementKey, long fileSize, int count, List<NodeLoad> nodes) {
+        // Filtrar nodos caídos y saturados (si están saturados todos, usar todos los disponibles)
+        List<NodeLoad> sorted = new ArrayList<>();
+        List<NodeLoad> saturated = new ArrayList<>();
+        for (NodeLoad node : nodes) {
+            if (node.isAvailable()) {
+                (node.isSaturated() ? saturated : sorted).add(node);
+            }
+        }
+        if (sorted.isEmpty()) {
+            sorted = saturated;
+        }
+        sorted.sort(Comparator.comparingDouble(WeightedPlacementStrategy::weightOf));
+
+        List<Long> selected = new ArrayList<>();
+        for (int i = 0; i < count && i < sorted.size(); i++) {
+            NodeLoad node = sorted.get(i);
+            selected.add(node.getNodeId());
+
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine((i == 0 ? "Nodo PRIMARIO" : "RÉPLICA-" + i) + ": Node-" + node.getNodeId() +
+                        " (peso: " + String.format("%.3f", weightOf(node)) + ")");
+            }
+        }
+        return selected;
+    }
+}
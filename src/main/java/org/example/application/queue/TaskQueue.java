@@ -7,9 +7,30 @@ import java.util.concurrent.*;
 
 public class TaskQueue {
 
+    private static final int FAN_OUT_THREADS = 16;
+    private static final int HEDGE_THREADS = 4;
+
     private final Queue<StorageCommand<?>> queue = new ConcurrentLinkedQueue<>();
     private final ExecutorService executor = Executors.newFixedThreadPool(5);
 
+    // Pool separado para las subtareas que lanza un comando (p. ej. escrituras a réplicas), para que
+    // no compitan con los comandos por los hilos de la cola. El comando que las espera sí sigue
+    // ocupando su hilo de la cola hasta que terminan (o vence su timeout).
+    private final ExecutorService fanOutExecutor = Executors.newFixedThreadPool(FAN_OUT_THREADS, r -> {
+        Thread t = new Thread(r, "TaskQueue-FanOut");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Pool propio para las lecturas de cobertura (hedge): no esperan detrás de las subtareas del
+    // fan-out ni les quitan hilos. Sin cola: si están todos ocupados el hedge se rechaza y no se lanza.
+    private final ThreadPoolExecutor hedgeExecutor = new ThreadPoolExecutor(
+            HEDGE_THREADS, HEDGE_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+        Thread t = new Thread(r, "TaskQueue-Hedge");
+        t.setDaemon(true);
+        return t;
+    });
+
     public TaskQueue() {
         startBackgroundProcessor();
     }
@@ -61,7 +82,23 @@ public class TaskQueue {
         return future;
     }
 
+    /**
+     * Executor para subtareas paralelas dentro de un comando.
+     */
+    public Executor getFanOutExecutor() {
+        return fanOutExecutor;
+    }
+
+    /**
+     * Executor para las lecturas de cobertura; rechaza la tarea (RejectedExecutionException) si está lleno.
+     */
+    public Executor getHedgeExecutor() {
+        return hedgeExecutor;
+    }
+
     public void shutdown() {
         executor.shutdown();
+        fanOutExecutor.shutdown();
+        hedgeExecutor.shutdown();
     }
 }
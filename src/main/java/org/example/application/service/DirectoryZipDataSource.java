@@ -0,0 +1,257 @@
+package org.example.application.service;
+
+import jakarta.activation.DataSource;
+import org.example.domain.model.File;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * DataSource que genera al vuelo un ZIP con los archivos de un árbol de directorios.
+ * Un hilo productor escribe el ZIP en un pipe que lee JAX-WS al enviar el adjunto MTOM, así que
+ * nunca se materializa el archivo completo. Los archivos pequeños se descargan por adelantado en
+ * paralelo dentro de una ventana acotada (en número y en bytes); los grandes se leen por bloques
+ * del nodo cuando les toca. Los archivos que no se pueden leer se listan en ERRORES.txt.
+ */
+public class DirectoryZipDataSource implements DataSource {
+
+    private static final Logger LOGGER = Logger.getLogger(DirectoryZipDataSource.class.getName());
+
+    private static final String CONTENT_TYPE = "application/zip";
+
+    // Ventana de descarga anticipada
+    private static final int MAX_PREFETCH_FILES = 8;
+    private static final long MAX_PREFETCH_BYTES = 64L * 1024 * 1024;
+
+    private static final long FILE_TIMEOUT_SECONDS = 60;
+    private static final int PIPE_BUFFER = 1024 * 1024;
+    private static final int COPY_BUFFER = 64 * 1024;
+
+    /**
+     * Obtiene el contenido de los archivos del export.
+     */
+    public interface ContentLoader {
+        /**
+         * Descarga el archivo completo.
+         */
+        byte[] load(File file) throws Exception;
+
+        /**
+         * Abre el archivo para leerlo por bloques.
+         */
+        InputStream open(File file) throws Exception;
+    }
+
+    /**
+     * Archivo del export con su ruta dentro del ZIP.
+     */
+    public static final class Entry {
+        private final String path;
+        private final File file;
+        private final boolean streamed;
+
+        /**
+         * @param streamed true para leerlo por bloques en vez de descargarlo por adelantado
+         */
+        public Entry(String path, File file, boolean streamed) {
+            this.path = path;
+            this.file = file;
+            this.streamed = streamed;
+        }
+
+        private long prefetchBytes() {
+            return streamed ? 0 : file.getSize();
+        }
+    }
+
+    private final String name;
+    private final List<Entry> entries;
+    private final ContentLoader loader;
+    private final Executor prefetchExecutor;
+
+    public DirectoryZipDataSource(String name, List<Entry> entries, ContentLoader loader, Executor prefetchExecutor) {
+        this.name = name;
+        this.entries = entries;
+        this.loader = loader;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        PipedInputStream in = new PipedInputStream(PIPE_BUFFER);
+        PipedOutputStream out = new PipedOutputStream(in);
+
+        Thread producer = new Thread(() -> writeZip(out), "ZipExport-" + name);
+        producer.setDaemon(true);
+        producer.start();
+        return in;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        throw new IOException("DirectoryZipDataSource es de solo lectura");
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Escribe el ZIP completo en out. Se ejecuta en el hilo productor.
+     */
+    private void writeZip(OutputStream out) {
+        Deque<Pending> window = new ArrayDeque<>();
+        List<String> failures = new ArrayList<>();
+        long windowBytes = 0;
+        int next = 0;
+        long start = System.currentTimeMillis();
+
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, COPY_BUFFER))) {
+            // Prima velocidad sobre ratio: muchos archivos ya vienen comprimidos
+            zip.setLevel(Deflater.BEST_SPEED);
+
+            while (next < entries.size() || !window.isEmpty()) {
+                // 1. Llenar la ventana de descargas anticipadas
+                while (next < entries.size() && window.size() < MAX_PREFETCH_FILES) {
+                    Entry entry = entries.get(next);
+                    if (!window.isEmpty() && windowBytes + entry.prefetchBytes() > MAX_PREFETCH_BYTES) {
+                        break;
+                    }
+                    window.add(new Pending(entry, entry.streamed ? null : prefetch(entry)));
+                    windowBytes += entry.prefetchBytes();
+                    next++;
+                }
+
+                // 2. Escribir el siguiente archivo en orden
+                Pending pending = window.poll();
+                windowBytes -= pending.entry.prefetchBytes();
+                if (pending.content != null) {
+                    writePrefetched(zip, pending, failures);
+                } else {
+                    writeStreamed(zip, pending.entry, failures);
+                }
+            }
+
+            if (!failures.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("ERRORES.txt"));
+                zip.write(String.join("\n", failures).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+
+            LOGGER.info("Export " + name + ": " + (entries.size() - failures.size()) + " de " + entries.size() +
+                    " archivo(s) en " + (System.currentTimeMillis() - start) + "ms");
+
+        } catch (IOException e) {
+            // El cliente cerró la conexión o falló la escritura: no seguir descargando
+            LOGGER.log(Level.WARNING, "Export " + name + " interrumpido", e);
+            for (Pending pending : window) {
+                if (pending.content != null) {
+                    pending.content.cancel(true);
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<byte[]> prefetch(Entry entry) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.load(entry.file);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, prefetchExecutor);
+    }
+
+    private void writePrefetched(ZipOutputStream zip, Pending pending, List<String> failures) throws IOException {
+        byte[] data;
+        try {
+            data = pending.content.get(FILE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrumpido", e);
+        } catch (ExecutionException | TimeoutException e) {
+            data = null;
+            LOGGER.log(Level.WARNING, "Export " + name + ": no se pudo leer " + pending.entry.path, e);
+        }
+
+        if (data == null) {
+            failures.add(pending.entry.path + ": no se pudo descargar");
+            return;
+        }
+
+        zip.putNextEntry(new ZipEntry(pending.entry.path));
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    private void writeStreamed(ZipOutputStream zip, Entry entry, List<String> failures) throws IOException {
+        InputStream in;
+        try {
+            in = loader.open(entry.file);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Export " + name + ": no se pudo abrir " + entry.path, e);
+            failures.add(entry.path + ": no se pudo descargar");
+            return;
+        }
+
+        // Los errores de lectura del nodo marcan el archivo como incompleto; los de escritura abortan el export
+        try (InputStream source = in) {
+            zip.putNextEntry(new ZipEntry(entry.path));
+            byte[] buffer = new byte[COPY_BUFFER];
+            while (true) {
+                int read;
+                try {
+                    read = source.read(buffer);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Export " + name + ": lectura interrumpida de " + entry.path, e);
+                    failures.add(entry.path + ": incompleto (" + e.getMessage() + ")");
+                    break;
+                }
+                if (read < 0) {
+                    break;
+                }
+                zip.write(buffer, 0, read);
+            }
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Archivo en la ventana (content null si se lee por bloques).
+     */
+    private static final class Pending {
+        private final Entry entry;
+        private final CompletableFuture<byte[]> content;
+
+        private Pending(Entry entry, CompletableFuture<byte[]> content) {
+            this.entry = entry;
+            this.content = content;
+        }
+    }
+}
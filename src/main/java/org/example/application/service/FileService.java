@@ -1,18 +1,50 @@
 package org.example.application.service;
 
+import com.sun.xml.ws.util.ByteArrayDataSource;
+import jakarta.activation.DataHandler;
 import org.example.application.Dto.FileDTO;
+import org.example.application.Dto.FileRangeDTO;
+import org.example.application.Dto.FileStreamDTO;
 import org.example.application.Dto.OperationResponse;
+import org.example.application.cache.DiskCachedDataSource;
+import org.example.application.cache.DiskContentCache;
+import org.example.application.cache.FileContentCache;
+import org.example.application.cache.SingleFlight;
 import org.example.application.queue.TaskQueue;
 import org.example.domain.command.*;
+import org.example.domain.chunking.FastCdcChunker;
+import org.example.domain.compression.ContentCompressor;
+import org.example.domain.erasure.ReedSolomonCodec;
+import org.example.domain.model.ContentBlob;
+import org.example.domain.model.File;
+import org.example.domain.model.FileChunk;
+import org.example.domain.model.FileCompression;
+import org.example.domain.model.FileLayout;
+import org.example.domain.port.AssembledDownload;
+import org.example.infrastructure.remote.NodeFileDataSource;
+import org.example.infrastructure.remote.NodeFileInputStream;
 import org.example.infrastructure.remote.NodeFileService;
 import org.example.infrastructure.repository.FileRepository;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
@@ -23,19 +55,65 @@ public class FileService {
 
     private static final Logger LOGGER = Logger.getLogger(FileService.class.getName());
 
+    // Los uploads por stream pueden ser de varios GB
+    private static final long STREAM_UPLOAD_TIMEOUT_MINUTES = 30;
+    // Van en su propio pool y con un máximo simultáneo (-Dupload.stream.maxConcurrent): unos pocos
+    // clientes lentos no pueden ocupar los hilos de la cola de comandos
+    private static final int MAX_STREAM_UPLOADS = Integer.getInteger("upload.stream.maxConcurrent", 4);
+    private static final long STREAM_UPLOAD_SLOT_WAIT_SECONDS = 10;
+
+    // Tamaño máximo de un rango por llamada (viaja como byte[] en el mensaje SOAP)
+    private static final int MAX_RANGE_LENGTH = 16 * 1024 * 1024;
+
+    // En un export ZIP, los archivos replicados a partir de este tamaño se leen por bloques
+    private static final long EXPORT_STREAM_THRESHOLD = 8L * 1024 * 1024;
+    private static final int EXPORT_THREADS = 8;
+
     private final TaskQueue taskQueue;
     private final FileRepository fileRepository;
     private final NodeSelector nodeSelector;
     private final PermissionService permissionService;
     private final NodeService nodeService;
+    private final StoragePolicy storagePolicy;
+    private final ReplicationMonitor replicationMonitor;
+    private final ContentCompressor compressor;
+    private final ReadLatencyTracker readLatencyTracker;
+    private final FileContentCache contentCache;
+    private final DiskContentCache diskCache;
+
+    // Descargas concurrentes del mismo archivo comparten una sola lectura de los nodos
+    private final SingleFlight<String, FileDTO> downloadFlights = new SingleFlight<>(TimeUnit.SECONDS.toMillis(60));
+
+    // Descargas anticipadas de los exports ZIP (separado del fan-out que usan los comandos)
+    private final ExecutorService exportExecutor = Executors.newFixedThreadPool(EXPORT_THREADS, r -> {
+        Thread t = new Thread(r, "FileService-Export");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Semaphore streamUploadSlots = new Semaphore(MAX_STREAM_UPLOADS);
+    private final ExecutorService streamUploadExecutor = Executors.newFixedThreadPool(MAX_STREAM_UPLOADS, r -> {
+        Thread t = new Thread(r, "FileService-StreamUpload");
+        t.setDaemon(true);
+        return t;
+    });
 
     public FileService(TaskQueue taskQueue, FileRepository fileRepository, NodeSelector nodeSelector,
-                       PermissionService permissionService, NodeService nodeService) {
+                       PermissionService permissionService, NodeService nodeService,
+                       StoragePolicy storagePolicy, ReplicationMonitor replicationMonitor,
+                       ReadLatencyTracker readLatencyTracker, FileContentCache contentCache,
+                       DiskContentCache diskCache) {
         this.taskQueue = taskQueue;
         this.fileRepository = fileRepository;
         this.nodeSelector = nodeSelector;
         this.permissionService = permissionService;
         this.nodeService = nodeService;
+        this.storagePolicy = storagePolicy;
+        this.replicationMonitor = replicationMonitor;
+        this.compressor = new ContentCompressor(storagePolicy.getCompressionLevel(), storagePolicy.getCompressionMaxSize());
+        this.readLatencyTracker = readLatencyTracker;
+        this.contentCache = contentCache;
+        this.diskCache = diskCache;
     }
 
     public OperationResponse createDirectory(String path, Long ownerId) {
@@ -94,47 +172,82 @@ public class FileService {
                 return OperationResponse.error("No se pudo determinar el propietario del directorio", "OWNER_NOT_FOUND");
             }
 
+            // Directorios con erasure coding: shards de datos + paridad en lugar de copias completas
+            if (storagePolicy.isErasureCoded(directoryId)) {
+                return uploadFileErasureCoded(directoryId, fileName, content, ownerId);
+            }
+
             long fileSize = content.length;
+            int writeQuorum = storagePolicy.getWriteQuorum(directoryId);
 
-            // Seleccionar múltiples nodos para redundancia (NUEVO)
-            List<Map.Entry<Long, NodeFileService>> selectedNodes = nodeSelector.selectNodesForUpload(fileSize);
+            // Directorios con chunking: solo se suben los chunks que no existen todavía
+            if (storagePolicy.isChunked(directoryId)) {
+                return uploadFileChunked(directoryId, fileName, content, ownerId, writeQuorum);
+            }
+
+            // Deduplicación: si el mismo contenido ya está almacenado, solo se registra la metadata
+            String contentHash = sha256Hex(content);
+            ContentBlob blob = fileRepository.findBlobByHash(contentHash);
+            if (blob != null && blob.getSize() == fileSize) {
+                OperationResponse deduplicated = registerDuplicateFile(blob, directoryId, fileName, ownerId);
+                if (deduplicated != null) {
+                    return deduplicated;
+                }
+            }
+
+            // Seleccionar múltiples nodos para redundancia a partir del uuid del archivo
+            String fileUuid = UUID.randomUUID().toString();
+            List<Map.Entry<Long, NodeFileService>> selectedNodes = nodeSelector.selectNodesForUpload(fileUuid, fileSize);
             if (selectedNodes.isEmpty()) {
                 LOGGER.severe("No hay nodos disponibles para upload");
                 return OperationResponse.error("No hay nodos disponibles", "NO_NODES_AVAILABLE");
             }
 
+            if (selectedNodes.size() < writeQuorum) {
+                releaseNodes(selectedNodes);
+                return OperationResponse.error("Solo hay " + selectedNodes.size() + " nodo(s) disponibles y se requieren " +
+                        writeQuorum + " réplicas", "INSUFFICIENT_REPLICAS");
+            }
+
             // Crear comando con múltiples nodos (NUEVO)
             UploadFileCommand command = new UploadFileCommand(
+                    fileUuid,
                     selectedNodes,
                     fileName,
                     content,
                     ownerId,
                     directoryId,
                     fileRepository,
-                    nodeSelector  // Pasar nodeSelector para gestionar tareas activas
+                    nodeSelector,  // Pasar nodeSelector para gestionar tareas activas
+                    taskQueue.getFanOutExecutor(),  // Escrituras a réplicas en paralelo
+                    replicationMonitor,
+                    writeQuorum,
+                    compressor  // Compresión transparente si el contenido lo permite
             );
 
             Future<Boolean> future = taskQueue.enqueue(command);
             Boolean result = future.get(100, TimeUnit.SECONDS);
 
             if (Boolean.TRUE.equals(result)) {
-                // Actualizar métricas de cada nodo (NUEVO)
-                for (Map.Entry<Long, NodeFileService> node : selectedNodes) {
-                    nodeSelector.recordFileUpload(node.getKey(), fileSize);
-                }
+                // Las métricas de cada nodo las actualiza el comando al confirmar cada réplica
+
+                // Indexar el contenido para deduplicar futuras subidas
+                registerContentBlob(contentHash, command.getFileUuid(), ownerId, fileSize);
 
                 // Log de éxito
                 LOGGER.info("Archivo subido exitosamente: " + fileName + " (" + formatBytes(fileSize) +
-                        ") en " + selectedNodes.size() + " nodo(s)");
+                        ", " + formatBytes(command.getStoredSize()) + " en disco) confirmado por " + command.getAcknowledgedReplicas() + " de " +
+                        selectedNodes.size() + " nodo(s)");
 
                 // Mostrar estadísticas (NUEVO)
                 if (LOGGER.isLoggable(Level.FINE)) {
-                    nodeSelector.printNodeStats();
+                    printStats();
                 }
 
                 return OperationResponse.success(
-                        "Archivo '" + fileName + "' subido exitosamente con " +
-                                2 + " réplicas (" + formatBytes(fileSize) + ")"
+                        "Archivo '" + fileName + "' subido exitosamente: " + command.getAcknowledgedReplicas() +
+                                " de " + selectedNodes.size() + " réplicas confirmadas, quórum " + writeQuorum +
+                                " (" + formatBytes(fileSize) + ", " + formatBytes(command.getStoredSize()) + " en disco)"
                 );
             } else {
                 LOGGER.warning("Fallo al subir archivo: " + fileName);
@@ -155,6 +268,275 @@ public class FileService {
         }
     }
 
+    /**
+     * Sube un archivo dividido en chunks definidos por contenido.
+     * Los chunks que ya existen en el sistema no se vuelven a enviar.
+     */
+    private OperationResponse uploadFileChunked(Long directoryId, String fileName, byte[] content, Long ownerId,
+                                                int writeQuorum) throws Exception {
+        List<Map.Entry<Long, NodeFileService>> selectedNodes = nodeSelector.selectNodesForUpload(content.length);
+        if (selectedNodes.isEmpty()) {
+            LOGGER.severe("No hay nodos disponibles para upload");
+            return OperationResponse.error("No hay nodos disponibles", "NO_NODES_AVAILABLE");
+        }
+
+        if (selectedNodes.size() < writeQuorum) {
+            releaseNodes(selectedNodes);
+            return OperationResponse.error("Solo hay " + selectedNodes.size() + " nodo(s) disponibles y se requieren " +
+                    writeQuorum + " réplicas", "INSUFFICIENT_REPLICAS");
+        }
+
+        UploadChunkedFileCommand command = new UploadChunkedFileCommand(
+                selectedNodes,
+                fileName,
+                content,
+                ownerId,
+                directoryId,
+                fileRepository,
+                nodeSelector,
+                taskQueue.getFanOutExecutor(),  // Chunks nuevos en paralelo
+                new FastCdcChunker(storagePolicy.getChunkAvgSize()),
+                writeQuorum
+        );
+
+        Future<Boolean> future = taskQueue.enqueue(command);
+        Boolean result = future.get(100, TimeUnit.SECONDS);
+
+        if (!Boolean.TRUE.equals(result)) {
+            LOGGER.warning("Fallo al subir archivo por chunks: " + fileName);
+            return OperationResponse.error("No se pudo subir el archivo '" + fileName + "'", "UPLOAD_FAILED");
+        }
+
+        LOGGER.info("Archivo subido por chunks: " + fileName + " (" + formatBytes(content.length) + "), " +
+                command.getReusedChunks() + " de " + command.getTotalChunks() + " chunks reutilizados, " +
+                formatBytes(command.getUploadedBytes()) + " enviados");
+
+        return OperationResponse.success(
+                "Archivo '" + fileName + "' subido exitosamente: " + command.getTotalChunks() + " chunks, " +
+                        command.getReusedChunks() + " ya almacenados (" + formatBytes(content.length) + ")"
+        );
+    }
+
+    /**
+     * Registra un archivo que reutiliza un contenido ya almacenado.
+     * @return null si no se pudo deduplicar (se debe subir el contenido completo)
+     */
+    private OperationResponse registerDuplicateFile(ContentBlob blob, Long directoryId, String fileName, Long ownerId)
+            throws Exception {
+        RegisterDuplicateFileCommand command = new RegisterDuplicateFileCommand(
+                blob, fileName, ownerId, directoryId, fileRepository);
+        Future<Boolean> future = taskQueue.enqueue(command);
+        Boolean result = future.get(30, TimeUnit.SECONDS);
+
+        if (!Boolean.TRUE.equals(result)) {
+            return null;
+        }
+
+        LOGGER.info("Archivo deduplicado: " + fileName + " (" + formatBytes(blob.getSize()) +
+                ") reutiliza el contenido " + blob.getStorageUuid() + " en " + command.getReplicas() + " nodo(s)");
+        return OperationResponse.success(
+                "Archivo '" + fileName + "' subido exitosamente: contenido ya almacenado en " +
+                        command.getReplicas() + " réplica(s) (" + formatBytes(blob.getSize()) + ")"
+        );
+    }
+
+    /**
+     * Registra el contenido recién subido en el índice de deduplicación.
+     * Si otra subida registró el mismo hash a la vez, este archivo simplemente conserva su propia copia.
+     */
+    private void registerContentBlob(String contentHash, String fileUuid, Long ownerId, long size) {
+        try {
+            fileRepository.registerBlob(contentHash, fileUuid, ownerId, size);
+            fileRepository.registerFileBlob(fileUuid, contentHash);
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "No se indexó el contenido de " + fileUuid + " para deduplicación", e);
+        }
+    }
+
+    private static String sha256Hex(byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    /**
+     * Sube un archivo con erasure coding: k shards de datos + m de paridad, uno por nodo.
+     */
+    private OperationResponse uploadFileErasureCoded(Long directoryId, String fileName, byte[] content, Long ownerId)
+            throws Exception {
+        ReedSolomonCodec codec = new ReedSolomonCodec(storagePolicy.getDataShards(), storagePolicy.getParityShards());
+        int shardSize = codec.shardSize(content.length);
+
+        List<Map.Entry<Long, NodeFileService>> shardNodes =
+                nodeSelector.selectNodesForShards(codec.getTotalShards(), shardSize);
+        if (shardNodes.isEmpty()) {
+            LOGGER.severe("No hay nodos disponibles para upload");
+            return OperationResponse.error("No hay nodos disponibles", "NO_NODES_AVAILABLE");
+        }
+
+        UploadErasureCodedCommand command = new UploadErasureCodedCommand(
+                shardNodes,
+                fileName,
+                content,
+                ownerId,
+                directoryId,
+                fileRepository,
+                nodeSelector,
+                taskQueue.getFanOutExecutor(),  // Escrituras de shards en paralelo
+                codec
+        );
+
+        Future<Boolean> future = taskQueue.enqueue(command);
+        Boolean result = future.get(100, TimeUnit.SECONDS);
+
+        if (!Boolean.TRUE.equals(result)) {
+            LOGGER.warning("Fallo al subir archivo con erasure coding: " + fileName);
+            return OperationResponse.error("No se pudo subir el archivo '" + fileName + "'", "UPLOAD_FAILED");
+        }
+
+        LOGGER.info("Archivo subido con erasure coding: " + fileName + " (" + formatBytes(content.length) +
+                ") en " + command.getStoredShards() + " shards de " + formatBytes(shardSize));
+
+        return OperationResponse.success(
+                "Archivo '" + fileName + "' subido exitosamente: " + command.getStoredShards() + " de " +
+                        codec.getTotalShards() + " shards (k=" + codec.getDataShards() + ", m=" +
+                        codec.getParityShards() + ") (" + formatBytes(content.length) + ")"
+        );
+    }
+
+    /**
+     * Sube un archivo leyendo el contenido como stream (MTOM), sin cargarlo completo en memoria.
+     * @param sizeHint tamaño estimado en bytes (solo para la selección de nodos, puede ser null)
+     */
+    public OperationResponse uploadFileStream(Long directoryId, String fileName, InputStream content,
+                                              Long sizeHint, Long userId) {
+        try {
+            // Validaciones
+            if (directoryId == null) {
+                return OperationResponse.error("El directoryId no puede ser null", "INVALID_DIRECTORY");
+            }
+
+            if (fileName == null || fileName.trim().isEmpty()) {
+                return OperationResponse.error("El nombre del archivo no puede estar vacío", "INVALID_FILENAME");
+            }
+
+            if (content == null) {
+                return OperationResponse.error("El contenido del archivo no puede estar vacío", "INVALID_CONTENT");
+            }
+
+            if (userId == null) {
+                return OperationResponse.error("El userId no puede ser null", "INVALID_USER");
+            }
+
+            // Verificar permisos
+            if (!permissionService.canWriteToDirectory(userId, directoryId)) {
+                return OperationResponse.error(
+                        "El usuario no tiene permisos para escribir en este directorio",
+                        "PERMISSION_DENIED"
+                );
+            }
+
+            // Obtener owner del directorio
+            Long ownerId = permissionService.resolveOwnerOfDirectory(directoryId);
+            if (ownerId == null) {
+                return OperationResponse.error("No se pudo determinar el propietario del directorio", "OWNER_NOT_FOUND");
+            }
+
+            if (!streamUploadSlots.tryAcquire(STREAM_UPLOAD_SLOT_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                return OperationResponse.error("Hay " + MAX_STREAM_UPLOADS + " subidas por stream en curso, " +
+                        "reintente más tarde", "TOO_MANY_UPLOADS");
+            }
+            return runStreamUpload(directoryId, fileName, content, sizeHint, ownerId);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return OperationResponse.error("Operación interrumpida", "INTERRUPTED");
+        } catch (SQLException e) {
+            return OperationResponse.error("Error de base de datos: " + e.getMessage(), "DATABASE_ERROR");
+        } catch (Exception e) {
+            return OperationResponse.error("Error inesperado: " + e.getMessage(), "UNKNOWN_ERROR");
+        }
+    }
+
+    /**
+     * Ejecuta una subida por stream ya validada; el llamador tiene uno de los streamUploadSlots,
+     * que se libera al terminar el comando (o aquí mismo si ni siquiera llega a lanzarse).
+     */
+    private OperationResponse runStreamUpload(Long directoryId, String fileName, InputStream content,
+                                              Long sizeHint, Long ownerId) {
+        boolean submitted = false;
+        Future<Boolean> future = null;
+        try {
+            long expectedSize = (sizeHint != null && sizeHint > 0) ? sizeHint : 0;
+            int writeQuorum = storagePolicy.getWriteQuorum(directoryId);
+
+            List<Map.Entry<Long, NodeFileService>> selectedNodes = nodeSelector.selectNodesForUpload(expectedSize);
+            if (selectedNodes.isEmpty()) {
+                LOGGER.severe("No hay nodos disponibles para upload");
+                return OperationResponse.error("No hay nodos disponibles", "NO_NODES_AVAILABLE");
+            }
+
+            if (selectedNodes.size() < writeQuorum) {
+                releaseNodes(selectedNodes);
+                return OperationResponse.error("Solo hay " + selectedNodes.size() + " nodo(s) disponibles y se requieren " +
+                        writeQuorum + " réplicas", "INSUFFICIENT_REPLICAS");
+            }
+
+            UploadFileStreamCommand command = new UploadFileStreamCommand(
+                    selectedNodes,
+                    fileName,
+                    content,
+                    ownerId,
+                    directoryId,
+                    fileRepository,
+                    nodeSelector,
+                    writeQuorum
+            );
+
+            future = streamUploadExecutor.submit(() -> {
+                try {
+                    return command.execute();
+                } finally {
+                    streamUploadSlots.release();
+                }
+            });
+            submitted = true;
+            Boolean result = future.get(STREAM_UPLOAD_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+
+            if (Boolean.TRUE.equals(result)) {
+                long fileSize = command.getBytesWritten();
+                for (Long nodeId : command.getSuccessfulNodes()) {
+                    nodeSelector.recordFileUpload(nodeId, fileSize);
+                }
+
+                LOGGER.info("Archivo subido por stream: " + fileName + " (" + formatBytes(fileSize) +
+                        ") en " + command.getSuccessfulNodes().size() + " nodo(s)");
+
+                return OperationResponse.success(
+                        "Archivo '" + fileName + "' subido exitosamente con " +
+                                command.getSuccessfulNodes().size() + " réplicas (" + formatBytes(fileSize) + ")"
+                );
+            } else {
+                LOGGER.warning("Fallo al subir archivo por stream: " + fileName);
+                return OperationResponse.error("No se pudo subir el archivo '" + fileName + "'", "UPLOAD_FAILED");
+            }
+
+        } catch (TimeoutException e) {
+            // Interrumpir la lectura del stream: el comando limpia los bloques parciales y libera su hueco
+            future.cancel(true);
+            return OperationResponse.error("Timeout al subir el archivo", "TIMEOUT");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return OperationResponse.error("Operación interrumpida", "INTERRUPTED");
+        } catch (ExecutionException e) {
+            return OperationResponse.error("Error al subir archivo: " + e.getCause().getMessage(), "EXECUTION_ERROR");
+        } catch (Exception e) {
+            return OperationResponse.error("Error inesperado: " + e.getMessage(), "UNKNOWN_ERROR");
+        } finally {
+            if (!submitted) {
+                streamUploadSlots.release();
+            }
+        }
+    }
+
     public FileDTO downloadFile(String fileUuid, Long userId) {
         try {
             // Validaciones
@@ -174,61 +556,526 @@ public class FileService {
                 return null;
             }
 
-            // Obtener nodos disponibles (puede haber múltiples por redundancia)
+            // Archivos populares: se sirven desde la caché sin ir a los nodos
+            FileContentCache.CachedFile cached = contentCache.get(fileUuid);
+            if (cached != null) {
+                LOGGER.fine("downloadFile: " + fileUuid + " servido desde caché");
+                return new FileDTO(cached.getName(), cached.getContent());
+            }
+
+            // Si ya hay una descarga en curso de este archivo, esperar su resultado en vez de repetirla
+            return downloadFlights.execute(fileUuid, () -> {
+                long cacheEpoch = contentCache.currentEpoch();
+                FileDTO dto = downloadFromNodes(fileUuid);
+                if (dto != null) {
+                    contentCache.put(fileUuid, dto.getFileName(), dto.getContent(), cacheEpoch);
+                }
+                return dto;
+            });
+
+        } catch (TimeoutException e) {
+            System.err.println("downloadFile: Timeout al descargar archivo");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("downloadFile: Operación interrumpida");
+            return null;
+        } catch (ExecutionException e) {
+            System.err.println("downloadFile: Error en ejecución - " + e.getCause().getMessage());
+            return null;
+        } catch (SQLException e) {
+            System.err.println("downloadFile: Error de base de datos - " + e.getMessage());
+            return null;
+        } catch (Exception e) {
+            System.err.println("downloadFile: Error inesperado - " + e.getMessage());
+            return null;
+        }
+    }
+
+
+    /**
+     * Descarga un archivo desde los nodos según cómo esté almacenado.
+     * @return null si no se pudo descargar
+     */
+    private FileDTO downloadFromNodes(String fileUuid) throws Exception {
+        // Archivos con erasure coding o por chunks: reconstruir en memoria
+        AssembledDownload assembled = assembledDownloadFor(fileUuid);
+        if (assembled != null) {
+            return runAssembledDownload(assembled)
+                    ? new FileDTO(assembled.getMetadata().getName(), assembled.getContent())
+                    : null;
+        }
+
+        // Obtener nodos disponibles (puede haber múltiples por redundancia)
+        List<Long> nodeIds = nodeService.getNodeIdsByFile(fileUuid);
+        if (nodeIds.isEmpty()) {
+            LOGGER.warning("No hay nodos para archivo: " + fileUuid);
+            return null;
+        }
+
+        LOGGER.fine("Archivo encontrado en " + nodeIds.size() + " nodo(s)");
+
+        // Con quórum de lectura R > 1 se leen y comparan R réplicas
+        int readQuorum = storagePolicy.getReadQuorum(fileRepository.getDirectoryIdByFile(fileUuid));
+        if (readQuorum > 1) {
+            return downloadFileWithQuorum(fileUuid, nodeIds, readQuorum);
+        }
+
+        // Leer de las réplicas con failover y hedging, empezando por la más rápida
+        List<Map.Entry<Long, NodeFileService>> replicas = nodeSelector.rankReplicasForRead(nodeIds, expectedReadSize(fileUuid));
+        if (replicas.isEmpty()) {
+            LOGGER.warning("No se encontró stub para ningún nodo de: " + fileUuid);
+            return null;
+        }
+
+        ReplicaDownloadFileCommand command = replicaDownloadFor(replicas, fileUuid);
+        Future<Boolean> future = taskQueue.enqueue(command);
+        Boolean success = future.get(30, TimeUnit.SECONDS);
+
+        if (!Boolean.TRUE.equals(success)) {
+            System.err.println("downloadFile: Falló la descarga del archivo " + fileUuid);
+            return null;
+        }
+
+        // Construir DTO
+        FileDTO dto = new FileDTO();
+        dto.setFileName(command.getMetadata().getName());
+        dto.setContent(command.getContent());
+
+        System.out.println("downloadFile: Archivo descargado exitosamente - " + dto.getFileName());
+        return dto;
+    }
+
+    /**
+     * Descarga un archivo leyendo readQuorum réplicas y verificando que coinciden.
+     */
+    private FileDTO downloadFileWithQuorum(String fileUuid, List<Long> nodeIds, int readQuorum) throws Exception {
+        // Las R réplicas más rápidas
+        List<NodeFileService> replicas = new ArrayList<>();
+        for (Map.Entry<Long, NodeFileService> replica : nodeSelector.rankReplicasForRead(nodeIds, expectedReadSize(fileUuid))) {
+            replicas.add(replica.getValue());
+        }
+
+        QuorumDownloadFileCommand command = new QuorumDownloadFileCommand(
+                replicas, fileRepository, taskQueue.getFanOutExecutor(), fileUuid, readQuorum);
+        Future<Boolean> future = taskQueue.enqueue(command);
+        Boolean success = future.get(30, TimeUnit.SECONDS);
+
+        if (!Boolean.TRUE.equals(success)) {
+            System.err.println("downloadFile: No se alcanzó el quórum de lectura (R=" + readQuorum + ") para " + fileUuid);
+            return null;
+        }
+
+        FileDTO dto = new FileDTO();
+        dto.setFileName(command.getMetadata().getName());
+        dto.setContent(command.getContent());
+
+        System.out.println("downloadFile: Archivo descargado con quórum R=" + readQuorum + " - " + dto.getFileName());
+        return dto;
+    }
+
+    /**
+     * Crea el comando de descarga para archivos que no están guardados como copias completas
+     * en los nodos (erasure coding o chunks).
+     * @return null si el archivo está replicado
+     */
+    private AssembledDownload assembledDownloadFor(String fileUuid) throws SQLException {
+        FileLayout layout = fileRepository.findFileLayout(fileUuid);
+        if (layout != null) {
+            return new DownloadErasureCodedCommand(layout, fileRepository, nodeSelector, taskQueue.getFanOutExecutor());
+        }
+
+        List<FileChunk> chunks = fileRepository.findFileChunks(fileUuid);
+        if (!chunks.isEmpty()) {
+            return new DownloadChunkedFileCommand(fileUuid, chunks, fileRepository, nodeSelector, taskQueue.getFanOutExecutor());
+        }
+
+        return null;
+    }
+
+    /**
+     * Como assembledDownloadFor, pero para un rango: solo se leen los shards o chunks que lo cubren.
+     * @return null si el archivo está replicado
+     */
+    private AssembledDownload assembledRangeFor(String fileUuid, long offset, int length) throws SQLException {
+        FileLayout layout = fileRepository.findFileLayout(fileUuid);
+        if (layout != null) {
+            return new DownloadErasureCodedRangeCommand(layout, fileRepository, nodeSelector, taskQueue.getFanOutExecutor(),
+                    offset, length);
+        }
+
+        List<FileChunk> chunks = fileRepository.findFileChunks(fileUuid);
+        if (!chunks.isEmpty()) {
+            return new DownloadChunkedRangeCommand(fileUuid, chunks, fileRepository, nodeSelector, taskQueue.getFanOutExecutor(),
+                    offset, length);
+        }
+
+        return null;
+    }
+
+    /**
+     * Recorta un rango de un archivo que ya está completo en memoria.
+     */
+    private FileRangeDTO sliceRange(String name, byte[] fullContent, long offset, int length) {
+        int from = (int) Math.min(offset, fullContent.length);
+        int to = (int) Math.min((long) from + length, fullContent.length);
+        return new FileRangeDTO(name, offset, fullContent.length, Arrays.copyOfRange(fullContent, from, to));
+    }
+
+    /**
+     * Como assembledDownloadFor, pero también para archivos replicados comprimidos:
+     * los bytes en los nodos no coinciden con los offsets lógicos, así que las lecturas por rango
+     * y por stream descargan el archivo completo y lo descomprimen. Solo se comprimen archivos de
+     * hasta storage.compression.maxBytes (ver StoragePolicy), así que esa descarga está acotada.
+     * @return null si el archivo se puede leer directamente de los nodos
+     */
+    private AssembledDownload wholeFileDownloadFor(String fileUuid) throws SQLException {
+        AssembledDownload assembled = assembledDownloadFor(fileUuid);
+        if (assembled != null || fileRepository.findFileCompression(fileUuid) == null) {
+            return assembled;
+        }
+
+        List<Map.Entry<Long, NodeFileService>> replicas = nodeSelector.rankReplicasForRead(
+                nodeService.getNodeIdsByFile(fileUuid), expectedReadSize(fileUuid));
+        if (replicas.isEmpty()) {
+            return null;
+        }
+        return replicaDownloadFor(replicas, fileUuid);
+    }
+
+    /**
+     * Descarga con failover y hedging sobre las réplicas dadas, pasando por la caché en disco.
+     */
+    private ReplicaDownloadFileCommand replicaDownloadFor(List<Map.Entry<Long, NodeFileService>> replicas, String fileUuid) {
+        return new ReplicaDownloadFileCommand(replicas, fileRepository, nodeSelector, taskQueue.getFanOutExecutor(),
+                taskQueue.getHedgeExecutor(), readLatencyTracker, diskCache, fileUuid);
+    }
+
+    /**
+     * Bytes que se leerán de una réplica (tamaño físico si el archivo está comprimido).
+     */
+    private long expectedReadSize(String fileUuid) throws SQLException {
+        FileCompression compression = fileRepository.findFileCompression(fileUuid);
+        if (compression != null) {
+            return compression.getPhysicalSize();
+        }
+        File metadata = fileRepository.findByUuid(fileUuid);
+        return metadata != null ? metadata.getSize() : 0;
+    }
+
+    /**
+     * Ejecuta en la cola la reconstrucción de un archivo.
+     * @return true si el contenido quedó disponible en el comando
+     */
+    private boolean runAssembledDownload(AssembledDownload command) throws Exception {
+        Future<Boolean> future = taskQueue.enqueue(command);
+        Boolean success = future.get(30, TimeUnit.SECONDS);
+
+        if (!Boolean.TRUE.equals(success)) {
+            LOGGER.warning("No se pudo reconstruir el archivo desde los nodos");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Descarga un rango de bytes de un archivo.
+     * El rango se recorta al tamaño del archivo; un offset al final devuelve contenido vacío.
+     */
+    public FileRangeDTO downloadFileRange(String fileUuid, long offset, int length, Long userId) {
+        try {
+            // Validaciones
+            if (fileUuid == null || fileUuid.trim().isEmpty()) {
+                System.err.println("downloadFileRange: fileUuid vacío");
+                return null;
+            }
+
+            if (userId == null) {
+                System.err.println("downloadFileRange: userId es null");
+                return null;
+            }
+
+            if (offset < 0 || length <= 0 || length > MAX_RANGE_LENGTH) {
+                System.err.println("downloadFileRange: rango inválido offset=" + offset + ", length=" + length);
+                return null;
+            }
+
+            // Verificar permisos
+            if (!permissionService.canReadFile(userId, fileUuid)) {
+                System.err.println("downloadFileRange: El usuario " + userId + " no tiene permisos para leer el archivo " + fileUuid);
+                return null;
+            }
+
+            // Archivos en caché: recortar el rango sin ir a los nodos
+            FileContentCache.CachedFile cached = contentCache.get(fileUuid);
+            if (cached != null) {
+                return sliceRange(cached.getName(), cached.getContent(), offset, length);
+            }
+
+            // Archivos con erasure coding o por chunks: leer solo los shards o chunks del rango
+            AssembledDownload assembled = assembledRangeFor(fileUuid, offset, length);
+            if (assembled != null) {
+                if (!runAssembledDownload(assembled)) {
+                    return null;
+                }
+                File metadata = assembled.getMetadata();
+                return new FileRangeDTO(metadata.getName(), offset, metadata.getSize(), assembled.getContent());
+            }
+
+            // Archivos comprimidos: descomprimir el archivo completo y recortar el rango
+            assembled = wholeFileDownloadFor(fileUuid);
+            if (assembled != null) {
+                if (!runAssembledDownload(assembled)) {
+                    return null;
+                }
+                return sliceRange(assembled.getMetadata().getName(), assembled.getContent(), offset, length);
+            }
+
             List<Long> nodeIds = nodeService.getNodeIdsByFile(fileUuid);
             if (nodeIds.isEmpty()) {
                 LOGGER.warning("No hay nodos para archivo: " + fileUuid);
                 return null;
             }
 
-            LOGGER.fine("Archivo encontrado en " + nodeIds.size() + " nodo(s)");
-
-            // Intentar descargar desde el primer nodo disponible
-            Long nodeId = nodeIds.get(0);
-            NodeFileService stub = nodeSelector.getStubById(nodeId);
-            if (stub == null) {
-                LOGGER.warning("No se encontró stub para nodo: " + nodeId);
+            // Réplicas ordenadas (las de circuito abierto al final), con failover entre ellas
+            List<Map.Entry<Long, NodeFileService>> replicas = nodeSelector.rankReplicasForRead(nodeIds, length);
+            if (replicas.isEmpty()) {
+                LOGGER.warning("No se encontró stub para ningún nodo de: " + fileUuid);
                 return null;
             }
 
             // Crear y ejecutar comando
-            DownloadFileCommand command = new DownloadFileCommand(stub, fileRepository, fileUuid);
+            DownloadFileRangeCommand command = new DownloadFileRangeCommand(replicas, fileRepository, fileUuid, offset, length);
             Future<Boolean> future = taskQueue.enqueue(command);
             Boolean success = future.get(30, TimeUnit.SECONDS);
 
             if (!Boolean.TRUE.equals(success)) {
-                System.err.println("downloadFile: Falló la descarga del archivo " + fileUuid);
+                System.err.println("downloadFileRange: Falló la descarga del rango de " + fileUuid);
                 return null;
             }
 
-            // Construir DTO
-            FileDTO dto = new FileDTO();
-            dto.setFileName(command.getMetadata().getName());
-            dto.setContent(command.getContent());
-
-            System.out.println("downloadFile: Archivo descargado exitosamente - " + dto.getFileName());
-            return dto;
+            File metadata = command.getMetadata();
+            return new FileRangeDTO(metadata.getName(), offset, metadata.getSize(), command.getContent());
 
         } catch (TimeoutException e) {
-            System.err.println("downloadFile: Timeout al descargar archivo");
+            System.err.println("downloadFileRange: Timeout al descargar rango");
             return null;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            System.err.println("downloadFile: Operación interrumpida");
+            System.err.println("downloadFileRange: Operación interrumpida");
             return null;
         } catch (ExecutionException e) {
-            System.err.println("downloadFile: Error en ejecución - " + e.getCause().getMessage());
+            System.err.println("downloadFileRange: Error en ejecución - " + e.getCause().getMessage());
             return null;
         } catch (SQLException e) {
-            System.err.println("downloadFile: Error de base de datos - " + e.getMessage());
+            System.err.println("downloadFileRange: Error de base de datos - " + e.getMessage());
             return null;
         } catch (Exception e) {
-            System.err.println("downloadFile: Error inesperado - " + e.getMessage());
+            System.err.println("downloadFileRange: Error inesperado - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Prepara la descarga de un archivo como stream (MTOM).
+     * El contenido no se lee aquí: el DataHandler lo trae del nodo por bloques
+     * mientras JAX-WS escribe la respuesta.
+     */
+    public FileStreamDTO openFileStream(String fileUuid, Long userId) {
+        try {
+            // Validaciones
+            if (fileUuid == null || fileUuid.trim().isEmpty()) {
+                LOGGER.warning("openFileStream: fileUuid vacío");
+                return null;
+            }
+
+            if (userId == null) {
+                LOGGER.warning("openFileStream: userId es null");
+                return null;
+            }
+
+            // Verificar permisos
+            if (!permissionService.canReadFile(userId, fileUuid)) {
+                LOGGER.warning("openFileStream: el usuario " + userId + " no tiene permisos para leer " + fileUuid);
+                return null;
+            }
+
+            File metadata = fileRepository.findByUuid(fileUuid);
+            if (metadata == null) {
+                LOGGER.warning("openFileStream: no existe metadata para " + fileUuid);
+                return null;
+            }
+
+            // Archivos con erasure coding, por chunks o comprimidos: se reconstruyen en memoria antes de enviarlos
+            AssembledDownload assembled = wholeFileDownloadFor(fileUuid);
+            if (assembled != null) {
+                if (!runAssembledDownload(assembled)) {
+                    return null;
+                }
+                DataHandler content = new DataHandler(new ByteArrayDataSource(assembled.getContent(), "application/octet-stream"));
+                return new FileStreamDTO(metadata.getName(), metadata.getSize(), content);
+            }
+
+            // Los archivos deduplicados se leen del blob compartido
+            String storageUuid = fileRepository.resolveStorageUuid(fileUuid);
+
+            // En la caché en disco: se envía directamente desde el fichero mapeado
+            if (diskCache.contains(storageUuid)) {
+                LOGGER.info("openFileStream: " + metadata.getName() + " (" + formatBytes(metadata.getSize()) +
+                        ") desde la caché en disco");
+                return new FileStreamDTO(metadata.getName(), metadata.getSize(),
+                        new DataHandler(new DiskCachedDataSource(diskCache, storageUuid, metadata.getName())));
+            }
+
+            List<Long> nodeIds = nodeService.getNodeIdsByFile(fileUuid);
+            if (nodeIds.isEmpty()) {
+                LOGGER.warning("No hay nodos para archivo: " + fileUuid);
+                return null;
+            }
+
+            // Réplicas ordenadas (las de circuito abierto al final), con failover al abrir y por bloque
+            List<Map.Entry<Long, NodeFileService>> replicas = nodeSelector.rankReplicasForRead(nodeIds, metadata.getSize());
+            if (replicas.isEmpty()) {
+                LOGGER.warning("No se encontró stub para ningún nodo de: " + fileUuid);
+                return null;
+            }
+            List<NodeFileDataSource.Replica> sources = new ArrayList<>();
+            for (Map.Entry<Long, NodeFileService> replica : replicas) {
+                sources.add(new NodeFileDataSource.Replica(replica.getValue(), nodeSelector.getBulkClient(replica.getKey())));
+            }
+
+            NodeFileDataSource dataSource = new NodeFileDataSource(sources, storageUuid, metadata.getName(), metadata.getSize());
+
+            LOGGER.info("openFileStream: " + metadata.getName() + " (" + formatBytes(metadata.getSize()) +
+                    ") desde Node-" + replicas.get(0).getKey());
+            return new FileStreamDTO(metadata.getName(), metadata.getSize(), new DataHandler(dataSource));
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error BD en openFileStream", e);
+            return null;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error inesperado en openFileStream", e);
             return null;
         }
     }
 
 
+    /**
+     * Exporta un directorio completo (con sus subdirectorios) como un ZIP que se genera al vuelo
+     * mientras se envía por MTOM. El tamaño del DTO es -1 porque no se conoce de antemano.
+     */
+    public FileStreamDTO exportDirectoryZip(Long directoryId, Long userId) {
+        try {
+            // Validaciones
+            if (directoryId == null || userId == null) {
+                LOGGER.warning("exportDirectoryZip: directoryId o userId es null");
+                return null;
+            }
+
+            if (!permissionService.canReadDirectory(userId, directoryId)) {
+                LOGGER.warning("exportDirectoryZip: el usuario " + userId + " no tiene acceso al directorio " + directoryId);
+                return null;
+            }
+
+            String rootName = fileRepository.getDirectoryName(directoryId);
+            if (rootName == null) {
+                LOGGER.warning("exportDirectoryZip: no existe el directorio " + directoryId);
+                return null;
+            }
+
+            // 1. Recorrer el árbol y resolver la ruta de cada subdirectorio
+            List<File> files = fileRepository.getAllFilesInDirectory(directoryId);
+            Set<Long> directoryIds = new HashSet<>();
+            for (File file : files) {
+                directoryIds.add(file.getDirectoryId());
+            }
+            Map<Long, String> paths = fileRepository.getRelativeDirectoryPaths(directoryId, directoryIds);
+
+            // 2. Construir las entradas del ZIP (quien no es dueño solo exporta lo que puede leer)
+            boolean owner = permissionService.isOwnerDirectory(userId, directoryId);
+            Set<String> usedPaths = new HashSet<>();
+            List<DirectoryZipDataSource.Entry> entries = new ArrayList<>();
+            for (File file : files) {
+                String directoryPath = paths.get(file.getDirectoryId());
+                if (directoryPath == null || (!owner && !permissionService.canReadFile(userId, file.getId()))) {
+                    continue;
+                }
+                String path = uniqueZipPath(directoryPath.isEmpty() ? file.getName() : directoryPath + "/" + file.getName(), usedPaths);
+                entries.add(new DirectoryZipDataSource.Entry(path, file, isStreamableForExport(file)));
+            }
+
+            DirectoryZipDataSource dataSource = new DirectoryZipDataSource(rootName + ".zip", entries,
+                    new ExportContentLoader(), exportExecutor);
+
+            LOGGER.info("exportDirectoryZip: " + rootName + " con " + entries.size() + " archivo(s)");
+            return new FileStreamDTO(rootName + ".zip", -1, new DataHandler(dataSource));
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error BD en exportDirectoryZip", e);
+            return null;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error inesperado en exportDirectoryZip", e);
+            return null;
+        }
+    }
+
+    /**
+     * Los archivos replicados grandes y sin comprimir se leen por bloques del nodo;
+     * el resto se descarga completo por adelantado.
+     */
+    private boolean isStreamableForExport(File file) throws SQLException {
+        return file.getSize() >= EXPORT_STREAM_THRESHOLD
+                && assembledDownloadFor(file.getId()) == null
+                && fileRepository.findFileCompression(file.getId()) == null;
+    }
+
+    /**
+     * Evita entradas repetidas en el ZIP añadiendo " (n)" antes de la extensión.
+     */
+    private String uniqueZipPath(String path, Set<String> usedPaths) {
+        String candidate = path;
+        int dot = path.lastIndexOf('.');
+        boolean hasExtension = dot > path.lastIndexOf('/') + 1;
+        for (int n = 2; !usedPaths.add(candidate); n++) {
+            candidate = hasExtension
+                    ? path.substring(0, dot) + " (" + n + ")" + path.substring(dot)
+                    : path + " (" + n + ")";
+        }
+        return candidate;
+    }
+
+    /**
+     * Lee el contenido de los archivos de un export con las mismas rutas que las descargas normales.
+     */
+    private class ExportContentLoader implements DirectoryZipDataSource.ContentLoader {
+
+        @Override
+        public byte[] load(File file) throws Exception {
+            String fileUuid = file.getId();
+            AssembledDownload command = wholeFileDownloadFor(fileUuid);
+            if (command == null) {
+                List<Map.Entry<Long, NodeFileService>> replicas = nodeSelector.rankReplicasForRead(
+                        nodeService.getNodeIdsByFile(fileUuid), expectedReadSize(fileUuid));
+                command = replicaDownloadFor(replicas, fileUuid);
+            }
+            return Boolean.TRUE.equals(command.execute()) ? command.getContent() : null;
+        }
+
+        @Override
+        public InputStream open(File file) throws Exception {
+            List<Map.Entry<Long, NodeFileService>> replicas = nodeSelector.rankReplicasForRead(
+                    nodeService.getNodeIdsByFile(file.getId()), file.getSize());
+            if (replicas.isEmpty()) {
+                throw new IllegalStateException("No hay nodos disponibles para " + file.getId());
+            }
+            List<NodeFileService> nodes = new ArrayList<>();
+            for (Map.Entry<Long, NodeFileService> replica : replicas) {
+                nodes.add(replica.getValue());
+            }
+            return new NodeFileInputStream(nodes, fileRepository.resolveStorageUuid(file.getId()), file.getSize());
+        }
+    }
+
     public FileDTO[] downloadFiles(String[] fileUuids, Long userId) {
         try {
             // Validaciones
@@ -257,73 +1104,91 @@ public class FileService {
                 return new FileDTO[0];
             }
 
-            // NUEVO: Agrupar archivos por nodo donde están
-            Map<Long, List<String>> filesByNode = new HashMap<>();
+            // Archivos con erasure coding o por chunks: se encolan todos y se reconstruyen en paralelo;
+            // el resto se agrupa por nodo en un único comando de lote
+            Map<String, AssembledDownload> assembledDownloads = new HashMap<>();
+            Map<String, Future<Boolean>> assembledFutures = new HashMap<>();
+            Map<String, List<Map.Entry<Long, NodeFileService>>> replicasByUuid = new LinkedHashMap<>();
+            Map<String, FileDTO> downloaded = new HashMap<>();
+            long cacheEpoch = contentCache.currentEpoch();
 
             for (String uuid : permittedUuids) {
-                try {
-                    // Obtener nodos donde está este archivo
-                    List<Long> nodeIds = nodeService.getNodeIdsByFile(uuid);
+                if (downloaded.containsKey(uuid) || assembledDownloads.containsKey(uuid) || replicasByUuid.containsKey(uuid)) {
+                    continue;
+                }
+
+                FileContentCache.CachedFile cached = contentCache.get(uuid);
+                if (cached != null) {
+                    downloaded.put(uuid, new FileDTO(cached.getName(), cached.getContent()));
+                    continue;
+                }
 
-                    if (nodeIds.isEmpty()) {
-                        LOGGER.warning("Archivo " + uuid + " no está en ningún nodo");
+                try {
+                    AssembledDownload assembled = assembledDownloadFor(uuid);
+                    if (assembled != null) {
+                        assembledDownloads.put(uuid, assembled);
+                        assembledFutures.put(uuid, taskQueue.enqueue(assembled));
                         continue;
                     }
 
-                    // Usar el primer nodo disponible para este archivo
-                    Long nodeId = nodeIds.get(0);
-                    filesByNode.computeIfAbsent(nodeId, k -> new ArrayList<>()).add(uuid);
-
-                    LOGGER.fine("Archivo " + uuid + " encontrado en Node-" + nodeId);
+                    // Obtener nodos donde está este archivo, de la réplica más rápida a la más lenta
+                    List<Long> nodeIds = nodeService.getNodeIdsByFile(uuid);
+                    List<Map.Entry<Long, NodeFileService>> replicas =
+                            nodeSelector.rankReplicasForRead(nodeIds, expectedReadSize(uuid));
+                    if (replicas.isEmpty()) {
+                        LOGGER.warning("Archivo " + uuid + " no está en ningún nodo disponible");
+                        continue;
+                    }
+                    replicasByUuid.put(uuid, replicas);
 
-                } catch (SQLException e) {
+                } catch (Exception e) {
                     LOGGER.log(Level.WARNING, "Error al obtener nodos para archivo: " + uuid, e);
                 }
             }
 
-            if (filesByNode.isEmpty()) {
+            if (replicasByUuid.isEmpty() && assembledFutures.isEmpty() && downloaded.isEmpty()) {
                 LOGGER.warning("Ninguno de los archivos está disponible en los nodos");
                 return new FileDTO[0];
             }
 
-            // Descargar archivos agrupados por nodo
-            List<FileDTO> allResults = new ArrayList<>();
-
-            for (Map.Entry<Long, List<String>> entry : filesByNode.entrySet()) {
-                Long nodeId = entry.getKey();
-                List<String> uuidsForNode = entry.getValue();
-
-                LOGGER.fine("Descargando " + uuidsForNode.size() + " archivo(s) desde Node-" + nodeId);
-
+            // Todos los nodos se consultan a la vez; los grupos fallidos se reintentan en otras réplicas
+            if (!replicasByUuid.isEmpty()) {
+                BatchDownloadFilesCommand command = new BatchDownloadFilesCommand(
+                        replicasByUuid, fileRepository, nodeSelector, taskQueue.getFanOutExecutor());
                 try {
-                    // Obtener stub del nodo
-                    NodeFileService stub = nodeSelector.getStubById(nodeId);
-                    if (stub == null) {
-                        LOGGER.warning("No se encontró stub para Node-" + nodeId);
-                        // Intentar con siguiente nodo para estos archivos
-                        continue;
+                    taskQueue.enqueue(command).get(60, TimeUnit.SECONDS);
+                    for (Map.Entry<String, FileDTO> result : command.getResults().entrySet()) {
+                        downloaded.put(result.getKey(), result.getValue());
+                        contentCache.put(result.getKey(), result.getValue().getFileName(), result.getValue().getContent(), cacheEpoch);
                     }
+                } catch (TimeoutException e) {
+                    LOGGER.log(Level.WARNING, "Timeout en la descarga por lotes", e);
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "Error en la descarga por lotes", e);
+                }
+            }
 
-                    // Crear y ejecutar comando
-                    DownloadFilesCommand command = new DownloadFilesCommand(stub, fileRepository, uuidsForNode);
-                    Future<Boolean> future = taskQueue.enqueue(command);
-                    Boolean success = future.get(60, TimeUnit.SECONDS);
-
-                    if (Boolean.TRUE.equals(success)) {
-                        List<FileDTO> nodeResults = command.getResults();
-                        allResults.addAll(nodeResults);
-                        LOGGER.info("Descargados " + nodeResults.size() + " archivo(s) desde Node-" + nodeId);
+            for (Map.Entry<String, Future<Boolean>> entry : assembledFutures.entrySet()) {
+                String uuid = entry.getKey();
+                try {
+                    if (Boolean.TRUE.equals(entry.getValue().get(30, TimeUnit.SECONDS))) {
+                        AssembledDownload assembled = assembledDownloads.get(uuid);
+                        downloaded.put(uuid, new FileDTO(assembled.getMetadata().getName(), assembled.getContent()));
+                        contentCache.put(uuid, assembled.getMetadata().getName(), assembled.getContent(), cacheEpoch);
                     } else {
-                        LOGGER.warning("Fallo al descargar desde Node-" + nodeId);
+                        LOGGER.warning("No se pudo reconstruir el archivo " + uuid);
                     }
+                } catch (TimeoutException | ExecutionException e) {
+                    LOGGER.log(Level.WARNING, "Error reconstruyendo el archivo " + uuid, e);
+                }
+            }
 
-                } catch (TimeoutException e) {
-                    LOGGER.log(Level.WARNING, "Timeout descargando desde Node-" + nodeId, e);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    LOGGER.log(Level.WARNING, "Descarga interrumpida en Node-" + nodeId, e);
-                } catch (ExecutionException e) {
-                    LOGGER.log(Level.SEVERE, "Error en ejecución desde Node-" + nodeId, e);
+            // Resultados en el orden pedido (los archivos que fallaron se omiten)
+            List<FileDTO> allResults = new ArrayList<>();
+            for (String uuid : permittedUuids) {
+                FileDTO dto = downloaded.get(uuid);
+                if (dto != null) {
+                    allResults.add(dto);
                 }
             }
 
@@ -360,6 +1225,7 @@ public class FileService {
             boolean success = fileRepository.moveFileByPath(sourcePath, fileName, destinationPath, userId);
 
             if (success) {
+                contentCache.invalidate(fileUuid);
                 LOGGER.info("Archivo movido: " + fileName + " de " + sourcePath + " a " + destinationPath);
                 return OperationResponse.success("Archivo movido exitosamente");
             } else {
@@ -398,6 +1264,7 @@ public class FileService {
             boolean success = fileRepository.renameFileByPath(directoryPath, oldFileName, newFileName, userId);
 
             if (success) {
+                contentCache.invalidate(fileUuid);
                 LOGGER.info("Archivo renombrado: " + oldFileName + " -> " + newFileName);
                 return OperationResponse.success("Archivo renombrado exitosamente");
             } else {
@@ -509,6 +1376,7 @@ public class FileService {
             Boolean result = future.get(30, TimeUnit.SECONDS);
 
             // 4. Eliminar metadata de BD
+            contentCache.invalidate(fileUuid);
             if (Boolean.TRUE.equals(result)) {
                 fileRepository.deleteFileByPath(directoryPath, fileName, userId);
                 return OperationResponse.success("Archivo eliminado exitosamente");
@@ -546,6 +1414,9 @@ public class FileService {
             // Ejecutar en cola
             Future<Integer> future = taskQueue.enqueue(command);
             Integer filesDeletedFromNodes = future.get(60, TimeUnit.SECONDS);
+            for (String fileUuid : command.getDeletedFileUuids()) {
+                contentCache.invalidate(fileUuid);
+            }
 
             if (filesDeletedFromNodes >= 0) {
                 LOGGER.info("Directorio eliminado: " + filesDeletedFromNodes + " archivos limpiados");
@@ -632,7 +1503,30 @@ public class FileService {
         }
     }
 
-    // Método auxiliar
+    /**
+     * Imprime las estadísticas de nodos, replicación, lecturas y cachés.
+     */
+    public void printStats() {
+        nodeSelector.printNodeStats();
+        replicationMonitor.printStats();
+        readLatencyTracker.printStats();
+        contentCache.printStats();
+        diskCache.printStats();
+        LOGGER.info("Descargas concurrentes del mismo archivo: cargas=" + downloadFlights.getLoads() +
+                ", combinadas=" + downloadFlights.getCoalesced());
+    }
+
+    // Métodos auxiliares
+
+    /**
+     * Libera las tareas activas reservadas por selectNodesForUpload cuando no se llega a subir.
+     */
+    private void releaseNodes(List<Map.Entry<Long, NodeFileService>> nodes) {
+        for (Map.Entry<Long, NodeFileService> node : nodes) {
+            nodeSelector.completeTask(node.getKey());
+        }
+    }
+
     private String formatBytes(long bytes) {
         if (bytes < 1024) return bytes + " B";
         if (bytes < 1024 * 1024) return String.format("%.2f KB", bytes / 1024.0);
@@ -0,0 +1,113 @@
+package org.example.application.service;
+
+import org.example.infrastructure.remote.CircuitBreaker;
+import org.example.infrastructure.remote.NodeFileService;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Prober de salud de los nodos: cada intervalo llama a exists("/") en el stub real de cada nodo
+ * (sin pasar por su circuit breaker) con un timeout corto. Un nodo que no responde abre su
+ * circuito en el acto, de modo que las subidas y lecturas dejan de ir a él sin esperar a los
+ * timeouts de RMI; un nodo abierto que vuelve a responder pasa a HALF_OPEN y, si sigue respondiendo
+ * en el siguiente intervalo, se cierra y recupera tráfico.
+ *
+ *   -Dnode.health.intervalMs=5000
+ *   -Dnode.health.timeoutMs=2000
+ */
+public class NodeHealthMonitor {
+
+    private static final Logger LOGGER = Logger.getLogger(NodeHealthMonitor.class.getName());
+
+    private final NodeSelector nodeSelector;
+    private final long intervalMillis;
+    private final long timeoutMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "NodeHealthMonitor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Las sondas a un nodo colgado pueden tardar lo que el timeout de RMI: hilos aparte
+    private final ExecutorService probeExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "NodeHealthMonitor-Probe");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Nodos con una sonda todavía en curso (no se lanza otra)
+    private final Set<Long> probing = ConcurrentHashMap.newKeySet();
+
+    public NodeHealthMonitor(NodeSelector nodeSelector, long intervalMillis, long timeoutMillis) {
+        this.nodeSelector = nodeSelector;
+        this.intervalMillis = intervalMillis;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Crea el monitor a partir de las propiedades del sistema.
+     */
+    public static NodeHealthMonitor fromSystemProperties(NodeSelector nodeSelector) {
+        return new NodeHealthMonitor(nodeSelector,
+                Long.getLong("node.health.intervalMs", 5000),
+                Long.getLong("node.health.timeoutMs", 2000));
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::probeAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        LOGGER.info("NodeHealthMonitor: sondeo cada " + intervalMillis + "ms, timeout " + timeoutMillis + "ms");
+    }
+
+    /**
+     * Lanza una sonda a cada nodo.
+     */
+    void probeAll() {
+        for (Map.Entry<Long, NodeFileService> node : nodeSelector.getRawStubs().entrySet()) {
+            Long nodeId = node.getKey();
+            CircuitBreaker breaker = nodeSelector.getCircuitBreaker(nodeId);
+            if (breaker == null || !probing.add(nodeId)) {
+                continue;
+            }
+
+            NodeFileService stub = node.getValue();
+            CompletableFuture
+                    .supplyAsync(() -> probe(nodeId, stub), probeExecutor)
+                    .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                    .whenComplete((ok, error) -> {
+                        if (error == null && Boolean.TRUE.equals(ok)) {
+                            breaker.onProbeSuccess();
+                        } else {
+                            LOGGER.log(Level.FINE, "Sonda fallida a Node-" + nodeId, error);
+                            breaker.onProbeFailure();
+                        }
+                    });
+        }
+    }
+
+    private boolean probe(Long nodeId, NodeFileService stub) {
+        try {
+            stub.exists("/");
+            return true;
+        } catch (Exception e) {
+            return false;
+        } finally {
+            // La marca se libera cuando termina la llamada RMI, no cuando vence el timeout
+            probing.remove(nodeId);
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        probeExecutor.shutdownNow();
+    }
+}
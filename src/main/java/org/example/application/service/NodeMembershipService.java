@@ -0,0 +1,161 @@
+package org.example.application.service;
+
+import org.example.infrastructure.remote.NodeFileService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Miembros del clúster en caliente, sin reiniciar el servidor SOAP.
+ * Los nodos se unen llamando a registerNode (desde NodeSoapController) o porque aparecen en un
+ * re-escaneo periódico de los registros RMI conocidos; se retiran con deregisterNode.
+ * El re-escaneo también vuelve a buscar el stub de los miembros con el circuito abierto, por si
+ * el nodo se reinició y su stub anterior ya no es válido.
+ *
+ *   -Dnodes.registry=localhost:1200,10.0.1.5:1200   (registros RMI iniciales)
+ *   -Dnodes.rescanSeconds=30                        (0 desactiva el re-escaneo)
+ */
+public class NodeMembershipService {
+
+    private static final Logger LOGGER = Logger.getLogger(NodeMembershipService.class.getName());
+
+    private final NodeService nodeService;
+    private final NodeSelector nodeSelector;
+    private final long rescanSeconds;
+
+    // Registros RMI a re-escanear ("host:puerto") y registro del que vino cada nodo
+    private final Set<String> endpoints = ConcurrentHashMap.newKeySet();
+    private final Map<Long, String> endpointByNode = new ConcurrentHashMap<>();
+
+    // Nodos retirados con deregisterNode: el re-escaneo no los vuelve a añadir aunque su
+    // registro siga publicado (p. ej. comparte registro con otros nodos que siguen siendo miembros)
+    private final Set<Long> deregistered = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "NodeMembership-Rescan");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public NodeMembershipService(NodeService nodeService, NodeSelector nodeSelector, List<String> endpoints, long rescanSeconds) {
+        this.nodeService = nodeService;
+        this.nodeSelector = nodeSelector;
+        this.endpoints.addAll(endpoints);
+        this.rescanSeconds = rescanSeconds;
+    }
+
+    /**
+     * Crea el servicio a partir de las propiedades del sistema.
+     */
+    public static NodeMembershipService fromSystemProperties(NodeService nodeService, NodeSelector nodeSelector) {
+        return new NodeMembershipService(nodeService, nodeSelector, configuredEndpoints(),
+                Long.getLong("nodes.rescanSeconds", 30));
+    }
+
+    /**
+     * Registros RMI configurados en nodes.registry ("host:puerto" separados por comas).
+     */
+    public static List<String> configuredEndpoints() {
+        List<String> result = new ArrayList<>();
+        for (String entry : System.getProperty("nodes.registry", "localhost:1200").split(",")) {
+            if (entry.isBlank()) continue;
+            if (parsePort(entry.trim()) < 0) {
+                LOGGER.warning("Entrada inválida en nodes.registry: '" + entry + "'");
+                continue;
+            }
+            result.add(entry.trim());
+        }
+        return result;
+    }
+
+    public void start() {
+        if (rescanSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::rescan, rescanSeconds, rescanSeconds, TimeUnit.SECONDS);
+        }
+        LOGGER.info("NodeMembershipService: " + endpoints.size() + " registro(s)" +
+                (rescanSeconds > 0 ? ", re-escaneo cada " + rescanSeconds + "s" : ", sin re-escaneo"));
+    }
+
+    /**
+     * Une al clúster los nodos publicados en el registro RMI de host:port, también los que
+     * se habían retirado con deregisterNode.
+     * @return ids de los nodos registrados (vacío si el registro no respondió)
+     */
+    public List<Long> registerNode(String host, int port) {
+        String endpoint = host + ":" + port;
+        Map<Long, NodeFileService> discovered = nodeService.discoverNode(host, port);
+
+        List<Long> registered = new ArrayList<>();
+        for (Map.Entry<Long, NodeFileService> node : discovered.entrySet()) {
+            deregistered.remove(node.getKey());
+            nodeSelector.addNode(node.getKey(), node.getValue());
+            endpointByNode.put(node.getKey(), endpoint);
+            registered.add(node.getKey());
+        }
+        if (!registered.isEmpty()) {
+            endpoints.add(endpoint);
+        }
+        return registered;
+    }
+
+    /**
+     * Retira un nodo del clúster. El re-escaneo lo ignora hasta que vuelva a registrarse con
+     * registerNode; su registro deja de re-escanearse si no publica otros miembros.
+     * @return false si el nodo no era miembro
+     */
+    public boolean deregisterNode(Long nodeId) {
+        deregistered.add(nodeId);
+        boolean removed = nodeSelector.removeNode(nodeId);
+        String endpoint = endpointByNode.remove(nodeId);
+        if (endpoint != null && !endpointByNode.containsValue(endpoint)) {
+            endpoints.remove(endpoint);
+        }
+        return removed;
+    }
+
+    /**
+     * Re-escanea los registros conocidos: añade los nodos nuevos y renueva el stub de los
+     * miembros con el circuito abierto. Los nodos retirados con deregisterNode se ignoran.
+     */
+    void rescan() {
+        for (String endpoint : endpoints) {
+            try {
+                String host = endpoint.substring(0, endpoint.lastIndexOf(':'));
+                Map<Long, NodeFileService> discovered = nodeService.discoverNode(host, parsePort(endpoint));
+                for (Map.Entry<Long, NodeFileService> node : discovered.entrySet()) {
+                    Long nodeId = node.getKey();
+                    if (deregistered.contains(nodeId)) {
+                        continue;
+                    }
+                    endpointByNode.putIfAbsent(nodeId, endpoint);
+                    if (!nodeSelector.isMember(nodeId) || !nodeSelector.isAvailable(nodeId)) {
+                        nodeSelector.addNode(nodeId, node.getValue());
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Error re-escaneando " + endpoint, e);
+            }
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static int parsePort(String endpoint) {
+        int separator = endpoint.lastIndexOf(':');
+        try {
+            return separator > 0 ? Integer.parseInt(endpoint.substring(separator + 1)) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
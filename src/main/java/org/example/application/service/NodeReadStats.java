@@ -0,0 +1,94 @@
+package org.example.application.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rendimiento de lectura observado en un nodo.
+ * Mantiene medias móviles exponenciales (EWMA) de la latencia de las lecturas pequeñas y del
+ * throughput de las grandes, más el número de lecturas en curso.
+ */
+class NodeReadStats {
+
+    // Peso de cada muestra nueva en la media móvil
+    private static final double ALPHA = 0.2;
+
+    // Las lecturas pequeñas miden latencia, no ancho de banda
+    static final long THROUGHPUT_MIN_BYTES = 64 * 1024;
+
+    // Latencia que se imputa a una lectura fallida para que el nodo baje en el ranking
+    private static final long FAILURE_PENALTY_MILLIS = 1000;
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    // Medias móviles (protegidas por this; -1 = sin muestras)
+    private double latencyMillis = -1;
+    private double bytesPerMilli = -1;
+    private long samples;
+    private long failures;
+
+    void begin() {
+        inFlight.incrementAndGet();
+    }
+
+    synchronized void end(long bytes, long elapsedNanos, boolean success) {
+        inFlight.decrementAndGet();
+        double elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0, 0.001);
+
+        if (!success) {
+            failures++;
+            latencyMillis = ewma(latencyMillis, Math.max(elapsedMillis, FAILURE_PENALTY_MILLIS));
+            if (bytesPerMilli > 0) {
+                bytesPerMilli /= 2;
+            }
+            return;
+        }
+
+        samples++;
+        // Las lecturas grandes miden el throughput; en la latencia solo cuentan si aún no hay otra muestra
+        if (bytes < THROUGHPUT_MIN_BYTES || latencyMillis < 0) {
+            latencyMillis = ewma(latencyMillis, elapsedMillis);
+        }
+        if (bytes >= THROUGHPUT_MIN_BYTES) {
+            bytesPerMilli = ewma(bytesPerMilli, bytes / elapsedMillis);
+        }
+    }
+
+    /**
+     * Tiempo estimado de leer expectedBytes de este nodo, escalado por las lecturas en curso.
+     * Un nodo sin muestras estima 0 para que reciba lecturas y se pueda medir.
+     */
+    synchronized double estimateMillis(long expectedBytes) {
+        if (latencyMillis < 0) {
+            return 0;
+        }
+        double estimate = latencyMillis;
+        if (expectedBytes >= THROUGHPUT_MIN_BYTES && bytesPerMilli > 0) {
+            estimate = Math.max(estimate, expectedBytes / bytesPerMilli);
+        }
+        return estimate * (1 + inFlight.get());
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    synchronized double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    /**
+     * Throughput medio en bytes por segundo (-1 sin muestras).
+     */
+    synchronized double getBytesPerSecond() {
+        return bytesPerMilli < 0 ? -1 : bytesPerMilli * 1000;
+    }
+
+    synchronized long getFailures() {
+        return failures;
+    }
+
+    private static double ewma(double current, double sample) {
+        return current < 0 ? sample : ALPHA * sample + (1 - ALPHA) * current;
+    }
+}
@@ -1,6 +1,19 @@
 package org.example.application.service;
 
+import org.example.application.placement.ConsistentHashPlacementStrategy;
+import org.example.application.placement.FailureDomains;
+import org.example.application.placement.NodeLoad;
+import org.example.application.placement.PlacementStrategy;
+import org.example.application.placement.PowerOfChoicesPlacementStrategy;
+import org.example.application.placement.WeightedPlacementStrategy;
+import org.example.domain.model.NodeTopology;
+import org.example.domain.model.NodeUsage;
+import org.example.infrastructure.remote.BulkNodeFileService;
+import org.example.infrastructure.remote.BulkTransferClient;
+import org.example.infrastructure.remote.CircuitBreaker;
+import org.example.infrastructure.remote.CircuitBreakingNodeFileService;
 import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.remote.TunedRMISocketFactory;
 import org.example.infrastructure.repository.FileRepository;
 
 import java.sql.SQLException;
@@ -18,13 +31,46 @@ import java.util.stream.Collectors;
  * - Carga relativa (usado/capacidad)
  * - Tareas activas en tiempo real
  * - Redundancia configurable
+ * Qué nodos reciben las réplicas lo decide la PlacementStrategy configurada en storage.placement,
+ * y entre sus candidatos se eligen réplicas en zonas, racks y máquinas distintas.
+ * Para lecturas ordena las réplicas por la latencia y el throughput observados en cada nodo,
+ * prefiriendo las de la zona de este servidor.
+ * Cada stub pasa por un circuit breaker por nodo (ver NodeHealthMonitor); los nodos con el
+ * circuito abierto no reciben réplicas y quedan los últimos para lectura:
+ *
+ *   -Dnode.breaker.failures=5      (fallos seguidos para abrir el circuito)
+ *   -Dnode.breaker.openMs=10000    (tiempo abierto antes de dejar pasar una llamada de prueba)
+ *
+ * Las métricas de los nodos (capacidad, espacio usado y archivos) se cargan con una sola consulta
+ * agrupada por nodo; los nodos sin fila arrancan con valores por defecto.
+ *
+ * Si los nodos tienen activo el transporte binario (BulkTransferServer), los bytes de subidas y
+ * descargas van por él y el control sigue por RMI:
+ *
+ *   -Dstorage.bulk.port=0                  (puerto del transporte en cada nodo; 0 lo desactiva)
+ *   -Dstorage.bulk.token=...               (secreto compartido con los nodos, ver BulkTransferServer)
+ *   -Dstorage.bulk.connectTimeoutMs=2000
+ *   -Dstorage.bulk.ioTimeoutMs=60000       (plazo de cada lectura/escritura en el socket; 0 sin límite)
+ *
+ * Los miembros pueden cambiar en caliente (addNode/removeNode): la lista de nodos es inmutable y
+ * se reemplaza entera en cada cambio, así que las selecciones en curso trabajan sobre una foto.
  */
 public class NodeSelector {
 
     private static final Logger LOGGER = Logger.getLogger(NodeSelector.class.getName());
 
-    private final List<Map.Entry<Long, NodeFileService>> nodes;
+    // Foto inmutable de los miembros (copy-on-write, protegida por membershipLock al escribir)
+    private volatile List<Map.Entry<Long, NodeFileService>> nodes;
+    private final Object membershipLock = new Object();
+    private final Map<Long, NodeFileService> stubsById = new ConcurrentHashMap<>();
+    private final Map<Long, NodeFileService> rawStubs = new ConcurrentHashMap<>();
+    private final Map<Long, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    // Endpoint RMI (host:puerto) de cada nodo, para sus estadísticas de conexiones
+    private final Map<Long, String> nodeEndpoints = new ConcurrentHashMap<>();
+    private final Map<Long, BulkTransferClient> bulkClients = new ConcurrentHashMap<>();
     private final FileRepository fileRepository;
+    private final StoragePolicy storagePolicy;
+    private final PlacementStrategy placementStrategy;
     private final ScheduledExecutorService syncScheduler;
 
     // Métricas de balanceo
@@ -32,36 +78,52 @@ public class NodeSelector {
     private final Map<Long, AtomicLong> nodeSpaceUsed = new ConcurrentHashMap<>();
     private final Map<Long, Long> nodeCapacity = new ConcurrentHashMap<>();
     private final Map<Long, AtomicInteger> nodeActiveTasks = new ConcurrentHashMap<>();
+    private final Map<Long, NodeReadStats> nodeReadStats = new ConcurrentHashMap<>();
+    private final Map<Long, NodeTopology> nodeTopology = new ConcurrentHashMap<>();
 
-    // Configuración
-    private static final int REPLICATION_FACTOR = 2;
+    // Configuración (el factor de replicación viene de StoragePolicy)
     private static final int MAX_ACTIVE_TASKS = 100;
-    private static final double ACTIVE_TASKS_WEIGHT = 0.05;
+    // Candidatos por réplica que se piden a la estrategia para poder repartir entre dominios de fallo
+    private static final int SPREAD_CANDIDATES_PER_REPLICA = 3;
+    private static final int BREAKER_FAILURES = Integer.getInteger("node.breaker.failures", 5);
+    private static final long BREAKER_OPEN_MILLIS = Long.getLong("node.breaker.openMs", 10_000);
     private static final long SYNC_INTERVAL_MINUTES = 5;
+    private static final int BULK_PORT = Integer.getInteger("storage.bulk.port", 0);
+    private static final String BULK_TOKEN = System.getProperty("storage.bulk.token", "");
+    private static final int BULK_CONNECT_TIMEOUT_MILLIS = Integer.getInteger("storage.bulk.connectTimeoutMs", 2000);
+    private static final int BULK_IO_TIMEOUT_MILLIS = Integer.getInteger("storage.bulk.ioTimeoutMs", 60_000);
+    private static final long DEFAULT_CAPACITY = 10L * 1024 * 1024 * 1024; // 10GB
 
     // Control de inicialización
     private final AtomicBoolean initialized = new AtomicBoolean(false);
     private final CountDownLatch initLatch = new CountDownLatch(1);
 
-    public NodeSelector(Map<Long, NodeFileService> nodeMap, FileRepository fileRepository) {
-        if (nodeMap == null || nodeMap.isEmpty()) {
-            throw new IllegalArgumentException("El mapa de nodos no puede estar vacío");
+    public NodeSelector(Map<Long, NodeFileService> nodeMap, FileRepository fileRepository, StoragePolicy storagePolicy) {
+        // Puede empezar sin miembros: los nodos se unen después con addNode (NodeMembershipService)
+        if (nodeMap == null) {
+            throw new IllegalArgumentException("El mapa de nodos no puede ser null");
+        }
+        if (nodeMap.isEmpty()) {
+            LOGGER.warning("NodeSelector sin nodos iniciales: se esperan registros en caliente");
         }
 
-        this.nodes = new ArrayList<>(nodeMap.entrySet());
+        // Todas las llamadas a los nodos pasan por su circuit breaker
+        List<Map.Entry<Long, NodeFileService>> initialNodes = new ArrayList<>();
+        for (Map.Entry<Long, NodeFileService> node : nodeMap.entrySet()) {
+            initialNodes.add(guard(node.getKey(), node.getValue()));
+        }
+        this.nodes = List.copyOf(initialNodes);
         this.fileRepository = fileRepository;
+        this.storagePolicy = storagePolicy;
+        this.placementStrategy = createPlacementStrategy(storagePolicy);
         this.syncScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "NodeSelector-Sync");
             t.setDaemon(true);
             return t;
         });
 
-        // Inicializar contadores de tareas activas
-        for (Long nodeId : nodeMap.keySet()) {
-            nodeActiveTasks.put(nodeId, new AtomicInteger(0));
-        }
-
-        LOGGER.info("NodeSelector inicializado con " + nodes.size() + " nodos, factor replicación: " + REPLICATION_FACTOR);
+        LOGGER.info("NodeSelector inicializado con " + nodes.size() + " nodos, factor replicación: " +
+                storagePolicy.getReplicationFactor() + ", colocación: " + placementStrategy.getName());
 
         // Inicializar métricas en background
         initializeAsync();
@@ -78,31 +140,9 @@ public class NodeSelector {
             try {
                 LOGGER.info("Iniciando carga de métricas de nodos...");
 
-                for (Map.Entry<Long, NodeFileService> node : nodes) {
-                    Long nodeId = node.getKey();
-
-                    try {
-                        // Cargar métricas desde BD
-                        long capacity = fileRepository.getNodeCapacity(nodeId);
-                        long spaceUsed = fileRepository.getNodeSpaceUsed(nodeId);
-                        int fileCount = fileRepository.countFilesByNode(nodeId);
-
-                        nodeCapacity.put(nodeId, capacity);
-                        nodeSpaceUsed.put(nodeId, new AtomicLong(spaceUsed));
-                        nodeFileCount.put(nodeId, new AtomicInteger(fileCount));
-
-                        LOGGER.fine("Node-" + nodeId + " -> Capacidad: " + formatBytes(capacity) +
-                                ", Usado: " + formatBytes(spaceUsed) + ", Archivos: " + fileCount);
-
-                    } catch (SQLException e) {
-                        LOGGER.log(Level.WARNING, "Error al cargar métricas de Node-" + nodeId + ", usando valores por defecto", e);
-                        // Valores por defecto
-                        nodeCapacity.put(nodeId, 10L * 1024 * 1024 * 1024); // 10GB
-                        nodeSpaceUsed.put(nodeId, new AtomicLong(0));
-                        nodeFileCount.put(nodeId, new AtomicInteger(0));
-                    }
-                }
+                loadAllNodeMetrics(nodes);
 
+                placementStrategy.updateMembership(loadsOf(nodes));
                 initialized.set(true);
                 initLatch.countDown();
                 LOGGER.info("Métricas de nodos cargadas exitosamente");
@@ -116,6 +156,205 @@ public class NodeSelector {
         });
     }
 
+    /**
+     * Carga las métricas de todos los nodos: la topología y el uso, una consulta cada una.
+     */
+    private void loadAllNodeMetrics(List<Map.Entry<Long, NodeFileService>> members) {
+        try {
+            nodeTopology.putAll(fileRepository.findAllNodeTopologies());
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error al cargar la topología de los nodos", e);
+        }
+
+        Map<Long, NodeUsage> usage = Collections.emptyMap();
+        try {
+            usage = fileRepository.findAllNodeUsage();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error al cargar métricas de los nodos, usando valores por defecto", e);
+        }
+
+        for (Map.Entry<Long, NodeFileService> node : members) {
+            NodeUsage nodeUsage = usage.get(node.getKey());
+            if (nodeUsage != null) {
+                applyUsage(node.getKey(), nodeUsage);
+            } else {
+                applyDefaultMetrics(node.getKey());
+            }
+        }
+    }
+
+    /**
+     * Carga desde la BD la capacidad, el uso y la topología de un nodo.
+     */
+    private void loadNodeMetrics(Long nodeId) {
+        loadNodeUsage(nodeId);
+
+        try {
+            NodeTopology topology = fileRepository.findNodeTopology(nodeId);
+            if (topology != null) {
+                nodeTopology.put(nodeId, topology);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error al cargar la topología de Node-" + nodeId, e);
+        }
+    }
+
+    /**
+     * Carga desde la BD la capacidad y el uso de un nodo.
+     */
+    private void loadNodeUsage(Long nodeId) {
+        try {
+            // Cargar métricas desde BD
+            applyUsage(nodeId, new NodeUsage(fileRepository.getNodeCapacity(nodeId),
+                    fileRepository.getNodeSpaceUsed(nodeId), fileRepository.countFilesByNode(nodeId)));
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error al cargar métricas de Node-" + nodeId + ", usando valores por defecto", e);
+            applyDefaultMetrics(nodeId);
+        }
+    }
+
+    private void applyUsage(Long nodeId, NodeUsage usage) {
+        // Los contadores se actualizan en sitio: una carga tardía no pisa los registros de subidas
+        nodeCapacity.put(nodeId, usage.getCapacity());
+        nodeSpaceUsed.computeIfAbsent(nodeId, id -> new AtomicLong()).set(usage.getSpaceUsed());
+        nodeFileCount.computeIfAbsent(nodeId, id -> new AtomicInteger()).set(usage.getFileCount());
+
+        LOGGER.fine("Node-" + nodeId + " -> Capacidad: " + formatBytes(usage.getCapacity()) +
+                ", Usado: " + formatBytes(usage.getSpaceUsed()) + ", Archivos: " + usage.getFileCount());
+    }
+
+    /**
+     * Valores por defecto para un nodo cuyas métricas no se pudieron cargar (no pisa valores ya cargados).
+     */
+    private void applyDefaultMetrics(Long nodeId) {
+        nodeCapacity.putIfAbsent(nodeId, DEFAULT_CAPACITY);
+        nodeSpaceUsed.putIfAbsent(nodeId, new AtomicLong(0));
+        nodeFileCount.putIfAbsent(nodeId, new AtomicInteger(0));
+    }
+
+    /**
+     * Envuelve el stub de un nodo con un circuit breaker nuevo y prepara sus contadores.
+     */
+    private Map.Entry<Long, NodeFileService> guard(Long nodeId, NodeFileService stub) {
+        String endpoint = TunedRMISocketFactory.endpointOf(stub);
+        if (endpoint != null) {
+            nodeEndpoints.put(nodeId, endpoint);
+        } else {
+            nodeEndpoints.remove(nodeId);
+        }
+
+        // Los bytes van por el transporte binario si está activo; el breaker cubre ambos caminos
+        NodeFileService transport = stub;
+        shutdownBulkClient(nodeId);
+        if (BULK_PORT > 0 && endpoint != null) {
+            BulkTransferClient bulkClient = new BulkTransferClient(endpoint.substring(0, endpoint.lastIndexOf(':')),
+                    BULK_PORT, BULK_TOKEN, BULK_CONNECT_TIMEOUT_MILLIS, BULK_IO_TIMEOUT_MILLIS);
+            bulkClients.put(nodeId, bulkClient);
+            transport = BulkNodeFileService.wrap(nodeId, stub, bulkClient);
+        }
+
+        CircuitBreaker breaker = new CircuitBreaker("Node-" + nodeId, BREAKER_FAILURES, BREAKER_OPEN_MILLIS);
+        NodeFileService guarded = CircuitBreakingNodeFileService.wrap(nodeId, transport, breaker);
+        rawStubs.put(nodeId, stub);
+        circuitBreakers.put(nodeId, breaker);
+        stubsById.put(nodeId, guarded);
+        nodeActiveTasks.putIfAbsent(nodeId, new AtomicInteger(0));
+        nodeReadStats.putIfAbsent(nodeId, new NodeReadStats());
+        return Map.entry(nodeId, guarded);
+    }
+
+    /**
+     * Añade un nodo en caliente (o reemplaza su stub si ya era miembro, p. ej. tras reiniciarse).
+     * Sus métricas se cargan antes de publicarlo, así que la siguiente selección ya puede elegirlo.
+     * @return true si el nodo no era miembro
+     */
+    public boolean addNode(Long nodeId, NodeFileService stub) {
+        synchronized (membershipLock) {
+            boolean isNew = !stubsById.containsKey(nodeId);
+            if (isNew) {
+                loadNodeMetrics(nodeId);
+            }
+            Map.Entry<Long, NodeFileService> entry = guard(nodeId, stub);
+
+            List<Map.Entry<Long, NodeFileService>> updated = new ArrayList<>();
+            for (Map.Entry<Long, NodeFileService> node : nodes) {
+                if (!node.getKey().equals(nodeId)) {
+                    updated.add(node);
+                }
+            }
+            updated.add(entry);
+            nodes = List.copyOf(updated);
+
+            if (initialized.get()) {
+                placementStrategy.updateMembership(loadsOf(nodes));
+            }
+            LOGGER.info((isNew ? "Nodo añadido: Node-" : "Stub reemplazado: Node-") + nodeId +
+                    " [" + getTopology(nodeId) + "], miembros: " + nodes.size());
+            return isNew;
+        }
+    }
+
+    /**
+     * Retira un nodo: deja de recibir réplicas y de usarse para leer. Sus archivos siguen
+     * registrados en File_Node y se leen del resto de réplicas.
+     * @return false si el nodo no era miembro
+     */
+    public boolean removeNode(Long nodeId) {
+        synchronized (membershipLock) {
+            if (stubsById.remove(nodeId) == null) {
+                return false;
+            }
+            rawStubs.remove(nodeId);
+            circuitBreakers.remove(nodeId);
+            nodeEndpoints.remove(nodeId);
+            shutdownBulkClient(nodeId);
+
+            List<Map.Entry<Long, NodeFileService>> updated = new ArrayList<>(nodes);
+            updated.removeIf(node -> node.getKey().equals(nodeId));
+            nodes = List.copyOf(updated);
+
+            if (initialized.get()) {
+                placementStrategy.updateMembership(loadsOf(nodes));
+            }
+            LOGGER.info("Nodo retirado: Node-" + nodeId + ", miembros: " + nodes.size());
+            return true;
+        }
+    }
+
+    /**
+     * Cierra las conexiones libres del cliente de transporte de un nodo y lo olvida.
+     */
+    private void shutdownBulkClient(Long nodeId) {
+        BulkTransferClient bulkClient = bulkClients.remove(nodeId);
+        if (bulkClient != null) {
+            bulkClient.shutdown();
+        }
+    }
+
+    /**
+     * Estadísticas de las conexiones RMI al nodo.
+     * @return null si no hay TunedRMISocketFactory instalada o aún no se conectó al nodo
+     */
+    public TunedRMISocketFactory.EndpointStats getTransportStats(Long nodeId) {
+        TunedRMISocketFactory socketFactory = TunedRMISocketFactory.getInstalled();
+        return socketFactory != null && nodeId != null ? socketFactory.getStats(nodeEndpoints.get(nodeId)) : null;
+    }
+
+    /**
+     * Cliente del transporte binario del nodo, para leer archivos en streaming.
+     * @return null si el transporte está desactivado para el nodo
+     */
+    public BulkTransferClient getBulkClient(Long nodeId) {
+        return nodeId != null ? bulkClients.get(nodeId) : null;
+    }
+
+    /**
+     * Indica si un nodo es miembro actualmente.
+     */
+    public boolean isMember(Long nodeId) {
+        return nodeId != null && stubsById.containsKey(nodeId);
+    }
+
     /**
      * Programa tarea de sincronización periódica con la BD.
      */
@@ -131,106 +370,186 @@ public class NodeSelector {
 
     /**
      * Selecciona múltiples nodos para subir archivo con redundancia.
-     * Estrategia híbrida: carga relativa + tareas activas
+     * Para subidas cuyo uuid todavía no se conoce: la clave de colocación es aleatoria.
      */
     public List<Map.Entry<Long, NodeFileService>> selectNodesForUpload(long fileSize) {
-        // Esperar inicialización (timeout 10 segundos)
-        try {
-            if (!initLatch.await(30, TimeUnit.SECONDS)) {
-                LOGGER.warning("Timeout esperando inicialización, usando valores por defecto");
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            LOGGER.warning("Inicialización interrumpida");
-        }
+        return selectNodesForUpload(UUID.randomUUID().toString(), fileSize);
+    }
+
+    /**
+     * Selecciona múltiples nodos para subir archivo con redundancia.
+     * @param placementKey uuid del archivo (determina la colocación en las estrategias por hash)
+     */
+    public List<Map.Entry<Long, NodeFileService>> selectNodesForUpload(String placementKey, long fileSize) {
+        awaitInitialization();
 
-        if (nodes.size() == 1) {
-            return Collections.singletonList(nodes.get(0));
+        List<Map.Entry<Long, NodeFileService>> members = nodes;
+        if (members.isEmpty()) {
+            LOGGER.warning("No hay nodos miembros para subir " + formatBytes(fileSize));
+            return new ArrayList<>();
+        }
+        if (members.size() == 1) {
+            return isAvailable(members.get(0).getKey()) ? Collections.singletonList(members.get(0)) : Collections.emptyList();
         }
 
-        List<Map.Entry<Long, NodeFileService>> selectedNodes = new ArrayList<>();
+        // La estrategia descarta los nodos sobresaturados; la carga se calcula solo de los nodos que consulta
+        List<NodeLoad> nodeLoads = new AbstractList<NodeLoad>() {
+            @Override
+            public NodeLoad get(int index) {
+                return loadOf(members.get(index).getKey());
+            }
 
-        // Calcular peso combinado para cada nodo
-        Map<Long, Double> nodeWeights = calculateNodeWeights();
+            @Override
+            public int size() {
+                return members.size();
+            }
+        };
+        int count = Math.min(storagePolicy.getReplicationFactor(), members.size());
 
-        // Filtrar nodos sobresaturados
-        List<Map.Entry<Long, NodeFileService>> availableNodes = nodes.stream()
-                .filter(e -> nodeActiveTasks.get(e.getKey()).get() < MAX_ACTIVE_TASKS)
-                .collect(Collectors.toList());
+        // Pedir más candidatos de los necesarios y quedarse con los que cubren más dominios de fallo
+        List<Long> candidates = placementStrategy.selectNodes(placementKey, fileSize,
+                Math.min(members.size(), count * SPREAD_CANDIDATES_PER_REPLICA), nodeLoads);
+        List<Long> selectedIds = FailureDomains.spread(candidates, count, this::getTopology);
 
-        // Fallback si todos están saturados: usar todos
-        if (availableNodes.isEmpty()) {
-            LOGGER.warning("Todos los nodos exceden MAX_ACTIVE_TASKS, usando fallback");
-            availableNodes = new ArrayList<>(nodes);
+        List<Map.Entry<Long, NodeFileService>> selectedNodes = new ArrayList<>();
+        for (Long nodeId : selectedIds) {
+            selectedNodes.add(Map.entry(nodeId, getStubById(nodeId)));
+        }
+        if (selectedNodes.isEmpty()) {
+            LOGGER.warning("Ningún nodo disponible para subir " + formatBytes(fileSize));
+            return selectedNodes;
         }
 
-        // Seleccionar nodo primario: menor peso
-        Map.Entry<Long, NodeFileService> primaryNode = availableNodes.stream()
-                .min(Comparator.comparingDouble(e -> nodeWeights.get(e.getKey())))
-                .orElse(nodes.get(0));
+        // Incrementar tareas activas para nodos seleccionados
+        for (Map.Entry<Long, NodeFileService> node : selectedNodes) {
+            nodeActiveTasks.get(node.getKey()).incrementAndGet();
+        }
 
-        selectedNodes.add(primaryNode);
+        LOGGER.info("Seleccionados " + selectedNodes.size() + " nodos en " +
+                FailureDomains.distinctZones(selectedIds, this::getTopology) + " zona(s) para archivo de " + formatBytes(fileSize));
 
-        if (LOGGER.isLoggable(Level.FINE)) {
-            LOGGER.fine("Nodo PRIMARIO: Node-" + primaryNode.getKey() +
-                    " (peso: " + String.format("%.3f", nodeWeights.get(primaryNode.getKey())) + ")");
-        }
+        return selectedNodes;
+    }
 
-        // Seleccionar réplicas
-        int replicasNeeded = Math.min(REPLICATION_FACTOR - 1, availableNodes.size() - 1);
-        Set<Long> usedNodeIds = new HashSet<>();
-        usedNodeIds.add(primaryNode.getKey());
+    /**
+     * Selecciona un nodo por cada shard de un archivo con erasure coding.
+     * Los shards se reparten entre los nodos de menor peso; si hay menos nodos que shards,
+     * algunos nodos reciben más de uno y el archivo tolera menos fallos.
+     * Cada shard cuenta como una tarea activa en su nodo.
+     */
+    public List<Map.Entry<Long, NodeFileService>> selectNodesForShards(int shardCount, long shardSize) {
+        awaitInitialization();
 
+        List<Map.Entry<Long, NodeFileService>> availableNodes = getAvailableNodes();
+        Map<Long, Double> nodeWeights = calculateNodeWeights(availableNodes);
         List<Map.Entry<Long, NodeFileService>> sortedNodes = availableNodes.stream()
-                .filter(e -> !usedNodeIds.contains(e.getKey()))
                 .sorted(Comparator.comparingDouble(e -> nodeWeights.get(e.getKey())))
                 .collect(Collectors.toList());
 
-        for (int i = 0; i < replicasNeeded && i < sortedNodes.size(); i++) {
-            Map.Entry<Long, NodeFileService> replicaNode = sortedNodes.get(i);
-            selectedNodes.add(replicaNode);
-
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine("RÉPLICA-" + (i + 1) + ": Node-" + replicaNode.getKey() +
-                        " (peso: " + String.format("%.3f", nodeWeights.get(replicaNode.getKey())) + ")");
-            }
+        if (sortedNodes.isEmpty()) {
+            LOGGER.warning("No hay nodos miembros para " + shardCount + " shards");
+            return new ArrayList<>();
+        }
+        if (sortedNodes.size() < shardCount) {
+            LOGGER.warning("Solo hay " + sortedNodes.size() + " nodos para " + shardCount +
+                    " shards: algunos nodos guardarán más de un shard");
         }
 
-        // Incrementar tareas activas para nodos seleccionados
-        for (Map.Entry<Long, NodeFileService> node : selectedNodes) {
+        List<Map.Entry<Long, NodeFileService>> selectedNodes = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            Map.Entry<Long, NodeFileService> node = sortedNodes.get(i % sortedNodes.size());
+            selectedNodes.add(node);
             nodeActiveTasks.get(node.getKey()).incrementAndGet();
         }
 
-        LOGGER.info("Seleccionados " + selectedNodes.size() + " nodos para archivo de " + formatBytes(fileSize));
+        LOGGER.info("Seleccionados " + selectedNodes.size() + " shards de " + formatBytes(shardSize) +
+                " sobre " + Math.min(shardCount, sortedNodes.size()) + " nodos");
 
         return selectedNodes;
     }
 
     /**
-     * Calcula el peso de cada nodo combinando carga y tareas activas.
-     * Peso menor = mejor candidato
+     * Espera a que terminen de cargarse las métricas iniciales.
      */
-    private Map<Long, Double> calculateNodeWeights() {
-        Map<Long, Double> weights = new HashMap<>();
+    private void awaitInitialization() {
+        // Esperar inicialización (timeout 30 segundos)
+        try {
+            if (!initLatch.await(30, TimeUnit.SECONDS)) {
+                LOGGER.warning("Timeout esperando inicialización, usando valores por defecto");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warning("Inicialización interrumpida");
+        }
+    }
 
-        for (Map.Entry<Long, NodeFileService> node : nodes) {
-            Long nodeId = node.getKey();
+    /**
+     * Nodos que no exceden MAX_ACTIVE_TASKS (todos, si están todos saturados).
+     */
+    private List<Map.Entry<Long, NodeFileService>> getAvailableNodes() {
+        List<Map.Entry<Long, NodeFileService>> members = nodes;
+        List<Map.Entry<Long, NodeFileService>> reachableNodes = members.stream()
+                .filter(e -> isAvailable(e.getKey()))
+                .collect(Collectors.toList());
+        if (reachableNodes.isEmpty()) {
+            LOGGER.warning("Todos los nodos tienen el circuito abierto");
+            reachableNodes = new ArrayList<>(members);
+        }
 
-            // Carga relativa (0.0 - 1.0)
-            long used = nodeSpaceUsed.get(nodeId).get();
-            long capacity = nodeCapacity.get(nodeId);
-            double loadRatio = capacity > 0 ? (double) used / capacity : 0.0;
+        List<Map.Entry<Long, NodeFileService>> availableNodes = reachableNodes.stream()
+                .filter(e -> nodeActiveTasks.get(e.getKey()).get() < MAX_ACTIVE_TASKS)
+                .collect(Collectors.toList());
 
-            // Tareas activas (normalizado)
-            int activeTasks = nodeActiveTasks.get(nodeId).get();
+        // Fallback si todos están saturados: usar todos los alcanzables
+        if (availableNodes.isEmpty()) {
+            LOGGER.warning("Todos los nodos exceden MAX_ACTIVE_TASKS, usando fallback");
+            availableNodes = reachableNodes;
+        }
+        return availableNodes;
+    }
 
-            // Peso combinado
-            double weight = loadRatio + (ACTIVE_TASKS_WEIGHT * activeTasks);
+    /**
+     * Calcula el peso de cada nodo combinando carga y tareas activas.
+     * Peso menor = mejor candidato
+     */
+    private Map<Long, Double> calculateNodeWeights(List<Map.Entry<Long, NodeFileService>> nodeList) {
+        Map<Long, Double> weights = new HashMap<>();
+        for (NodeLoad load : loadsOf(nodeList)) {
+            weights.put(load.getNodeId(), WeightedPlacementStrategy.weightOf(load));
+        }
+        return weights;
+    }
 
-            weights.put(nodeId, weight);
+    /**
+     * Carga actual de los nodos dados, para la estrategia de colocación.
+     */
+    private List<NodeLoad> loadsOf(List<Map.Entry<Long, NodeFileService>> nodeList) {
+        List<NodeLoad> loads = new ArrayList<>(nodeList.size());
+        for (Map.Entry<Long, NodeFileService> node : nodeList) {
+            loads.add(loadOf(node.getKey()));
         }
+        return loads;
+    }
 
-        return weights;
+    private NodeLoad loadOf(Long nodeId) {
+        int activeTasks = nodeActiveTasks.get(nodeId).get();
+        return new NodeLoad(nodeId, nodeCapacity.get(nodeId), nodeSpaceUsed.get(nodeId).get(), activeTasks,
+                activeTasks >= MAX_ACTIVE_TASKS, isAvailable(nodeId));
+    }
+
+    private static PlacementStrategy createPlacementStrategy(StoragePolicy storagePolicy) {
+        String name = storagePolicy.getPlacementStrategy();
+        switch (name) {
+            case WeightedPlacementStrategy.NAME:
+                return new WeightedPlacementStrategy();
+            case ConsistentHashPlacementStrategy.NAME:
+                return new ConsistentHashPlacementStrategy();
+            case PowerOfChoicesPlacementStrategy.NAME:
+                return new PowerOfChoicesPlacementStrategy(storagePolicy.getPlacementChoices());
+            default:
+                LOGGER.warning("Estrategia de colocación desconocida '" + name + "', usando " + WeightedPlacementStrategy.NAME);
+                return new WeightedPlacementStrategy();
+        }
     }
 
     /**
@@ -244,6 +563,96 @@ public class NodeSelector {
         }
     }
 
+    /**
+     * Ordena las réplicas de un archivo para leerlo: primero la de menor tiempo estimado
+     * según la EWMA de latencia y throughput del nodo y sus lecturas en curso.
+     * Las réplicas de otra zona suman storage.read.crossZonePenaltyMs a su estimación y las de
+     * nodos con el circuito abierto van al final (fallan al instante si se llega a ellas).
+     * Los nodos sin stub conocido se descartan; a igual estimación se respeta el orden recibido.
+     */
+    public List<Map.Entry<Long, NodeFileService>> rankReplicasForRead(List<Long> nodeIds, long expectedBytes) {
+        List<Map.Entry<Long, NodeFileService>> replicas = new ArrayList<>();
+        for (Long nodeId : nodeIds) {
+            NodeFileService stub = getStubById(nodeId);
+            if (stub != null) {
+                replicas.add(Map.entry(nodeId, stub));
+            } else {
+                LOGGER.fine("No se encontró stub para nodo: " + nodeId);
+            }
+        }
+
+        Map<Long, Double> estimates = new HashMap<>();
+        for (Map.Entry<Long, NodeFileService> replica : replicas) {
+            double estimate = nodeReadStats.get(replica.getKey()).estimateMillis(expectedBytes);
+            if (isRemoteZone(replica.getKey())) {
+                estimate += storagePolicy.getCrossZonePenaltyMillis();
+            }
+            estimates.put(replica.getKey(), estimate);
+        }
+        replicas.sort(Comparator.<Map.Entry<Long, NodeFileService>, Boolean>comparing(e -> !isAvailable(e.getKey()))
+                .thenComparingDouble(e -> estimates.get(e.getKey())));
+
+        if (LOGGER.isLoggable(Level.FINEST)) {
+            LOGGER.finest("Réplicas para lectura de " + formatBytes(expectedBytes) + ": " + estimates);
+        }
+        return replicas;
+    }
+
+    /**
+     * Topología de un nodo (zona y rack "default" y un host propio si no tiene ninguna registrada).
+     */
+    public NodeTopology getTopology(Long nodeId) {
+        NodeTopology topology = nodeTopology.get(nodeId);
+        return topology != null ? topology : NodeTopology.parse(null, "node-" + nodeId);
+    }
+
+    /**
+     * true si el nodo puede recibir tráfico (su circuito está cerrado).
+     */
+    public boolean isAvailable(Long nodeId) {
+        CircuitBreaker breaker = nodeId != null ? circuitBreakers.get(nodeId) : null;
+        return breaker != null && breaker.isClosed();
+    }
+
+    /**
+     * Stubs sin circuit breaker, para el prober de salud.
+     */
+    Map<Long, NodeFileService> getRawStubs() {
+        return Collections.unmodifiableMap(rawStubs);
+    }
+
+    CircuitBreaker getCircuitBreaker(Long nodeId) {
+        return circuitBreakers.get(nodeId);
+    }
+
+    private boolean isRemoteZone(Long nodeId) {
+        String localZone = storagePolicy.getLocalZone();
+        return localZone != null && !localZone.equals(getTopology(nodeId).getZone());
+    }
+
+    /**
+     * Tiempo estimado (ms) de leer expectedBytes de un nodo según sus EWMA y sus lecturas en curso.
+     * @return 0 si el nodo aún no tiene muestras
+     */
+    public double estimateReadMillis(Long nodeId, long expectedBytes) {
+        NodeReadStats stats = nodeReadStats.get(nodeId);
+        return stats != null ? stats.estimateMillis(expectedBytes) : 0;
+    }
+
+    /**
+     * Marca el inicio de una lectura RMI en un nodo.
+     */
+    public void beginRead(Long nodeId) {
+        nodeReadStats.get(nodeId).begin();
+    }
+
+    /**
+     * Registra el fin de una lectura RMI iniciada con beginRead.
+     */
+    public void endRead(Long nodeId, long bytes, long elapsedNanos, boolean success) {
+        nodeReadStats.get(nodeId).end(bytes, elapsedNanos, success);
+    }
+
     /**
      * Registra la subida exitosa de un archivo.
      */
@@ -268,11 +677,7 @@ public class NodeSelector {
      * Obtiene stub de un nodo por ID.
      */
     public NodeFileService getStubById(Long nodeId) {
-        return nodes.stream()
-                .filter(e -> e.getKey().equals(nodeId))
-                .map(Map.Entry::getValue)
-                .findFirst()
-                .orElse(null);
+        return nodeId != null ? stubsById.get(nodeId) : null;
     }
 
     /**
@@ -293,6 +698,7 @@ public class NodeSelector {
             long used = nodeSpaceUsed.get(nodeId).get();
             long capacity = nodeCapacity.get(nodeId);
             int activeTasks = nodeActiveTasks.get(nodeId).get();
+            NodeReadStats readStats = nodeReadStats.get(nodeId);
             double percent = calculateUsagePercent(used, capacity);
 
             totalFiles += files;
@@ -302,10 +708,24 @@ public class NodeSelector {
 
             String taskIndicator = activeTasks > 50 ? "⚠" : activeTasks > 0 ? "●" : "○";
 
-            sb.append(String.format("║ Node-%d: %s                                                       ║%n", nodeId, taskIndicator));
+            sb.append(String.format("║ Node-%d: %s  [%s] circuito %s%n", nodeId, taskIndicator, getTopology(nodeId),
+                    Optional.ofNullable(circuitBreakers.get(nodeId)).map(CircuitBreaker::getState).orElse(null)));
             sb.append(String.format("║   Archivos: %4d | Espacio: %8s / %8s (%5.1f%%)          ║%n",
                     files, formatBytes(used), formatBytes(capacity), percent));
-            sb.append(String.format("║   %s | Tareas activas: %3d              ║%n", activeTasks));
+            double bytesPerSecond = readStats.getBytesPerSecond();
+            sb.append(String.format("║   Lectura: %7.1f ms | %10s/s | en curso: %2d | Tareas activas: %3d ║%n",
+                    Math.max(readStats.getLatencyMillis(), 0), bytesPerSecond < 0 ? "-" : formatBytes((long) bytesPerSecond),
+                    readStats.getInFlight(), activeTasks));
+            TunedRMISocketFactory.EndpointStats transport = getTransportStats(nodeId);
+            if (transport != null) {
+                sb.append(String.format("║   RMI %s: %d conexión(es), %d activa(s), %.1f llamadas/conexión, %.1f ms por conexión%n",
+                        transport.getEndpoint(), transport.getOpened(), transport.getActive(),
+                        transport.getReuseRatio(), transport.getAverageConnectMillis()));
+            }
+            BulkTransferClient bulkClient = bulkClients.get(nodeId);
+            if (bulkClient != null) {
+                sb.append(String.format("║   Transporte %s%n", bulkClient));
+            }
         }
 
         sb.append("╠════════════════════════════════════════════════════════════════════╣\n");
@@ -333,21 +753,23 @@ public class NodeSelector {
     private void syncWithDatabaseInternal() {
         LOGGER.fine("Sincronizando métricas con BD...");
 
-        for (Map.Entry<Long, NodeFileService> node : nodes) {
-            Long nodeId = node.getKey();
-
-            try {
-                long spaceUsed = fileRepository.getNodeSpaceUsed(nodeId);
-                int fileCount = fileRepository.countFilesByNode(nodeId);
-
-                nodeSpaceUsed.get(nodeId).set(spaceUsed);
-                nodeFileCount.get(nodeId).set(fileCount);
+        Map<Long, NodeUsage> usage;
+        try {
+            usage = fileRepository.findAllNodeUsage();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error sincronizando métricas de los nodos", e);
+            return;
+        }
 
-            } catch (SQLException e) {
-                LOGGER.log(Level.WARNING, "Error sincronizando Node-" + nodeId, e);
+        for (Map.Entry<Long, NodeFileService> node : nodes) {
+            NodeUsage nodeUsage = usage.get(node.getKey());
+            if (nodeUsage != null) {
+                nodeSpaceUsed.get(node.getKey()).set(nodeUsage.getSpaceUsed());
+                nodeFileCount.get(node.getKey()).set(nodeUsage.getFileCount());
             }
         }
 
+        placementStrategy.updateMembership(loadsOf(nodes));
         LOGGER.fine("Sincronización completada");
     }
 
@@ -365,6 +787,7 @@ public class NodeSelector {
             syncScheduler.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        bulkClients.keySet().forEach(this::shutdownBulkClient);
     }
 
     // Métodos auxiliares
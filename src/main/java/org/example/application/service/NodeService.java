@@ -1,17 +1,39 @@
 package org.example.application.service;
 
+import org.example.domain.model.NodeTopology;
 import org.example.infrastructure.remote.NodeFileService;
 import org.example.infrastructure.repository.FileRepository;
 
+import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Registro y descubrimiento de nodos.
+ * La topología de cada nodo (zona/rack/host) se configura por host:puerto y se guarda junto al nodo:
+ *
+ *   -Dstorage.topology=10.0.1.5:1200=zona-a/rack-1/srv-01,10.0.2.7:1200=zona-b/rack-4
+ *
+ * Los nodos sin etiqueta quedan en la zona y el rack "default", con su IP como host.
+ *
+ *   -Dnodes.discovery.timeoutMs=5000   (plazo para que respondan los registros RMI al descubrir)
+ */
 public class NodeService {
 
+    private static final long DISCOVERY_TIMEOUT_MILLIS = Long.getLong("nodes.discovery.timeoutMs", 5000);
+    private static final int MAX_DISCOVERY_THREADS = 64;
 
     private final FileRepository fileRepository;
 
@@ -26,6 +48,31 @@ public class NodeService {
         return fileRepository.upsertNode(ip, port);
     }
 
+    /**
+     * Registra un nodo junto con su topología.
+     */
+    public Long upsertNode(String ip, int port, NodeTopology topology) throws SQLException {
+        Long nodeId = fileRepository.upsertNode(ip, port);
+        if (nodeId != null) {
+            fileRepository.upsertNodeTopology(nodeId, topology);
+        }
+        return nodeId;
+    }
+
+    /**
+     * Topología configurada para un nodo en storage.topology.
+     */
+    public static NodeTopology topologyFor(String host, int port) {
+        String configured = System.getProperty("storage.topology", "");
+        for (String entry : configured.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator > 0 && entry.substring(0, separator).trim().equals(host + ":" + port)) {
+                return NodeTopology.parse(entry.substring(separator + 1), host);
+            }
+        }
+        return NodeTopology.parse(null, host);
+    }
+
     /**
      * Asocia un archivo con un nodo en la BD.
      */
@@ -42,53 +89,131 @@ public class NodeService {
 
     /**
      * Registra todos los stubs descubiertos en la BD y devuelve un mapa nodeId → stub.
+     * @throws IllegalStateException si no se encontró ningún nodo
      */
     public Map<Long, NodeFileService> registerDiscoveredNodes(List<String> hosts, List<Integer> ports) {
+        Map<Long, NodeFileService> nodeMap = discoverNodes(hosts, ports);
+
+        if (nodeMap.isEmpty()) {
+            throw new IllegalStateException("No se pudo conectar a ningún nodo RMI. Verifica que los nodos estén activos.");
+        }
+
+        System.out.println("Total de nodos descubiertos: " + nodeMap.size());
+        return nodeMap;
+    }
+
+    /**
+     * Como registerDiscoveredNodes, pero sin fallar si no encuentra ninguno (para los re-escaneos).
+     * Los registros se consultan en paralelo con un plazo común (nodes.discovery.timeoutMs): un host
+     * que no responde a tiempo se omite y lo recoge el re-escaneo de NodeMembershipService.
+     * El registro en la BD se hace después, en el hilo que llama, solo para los nodos que respondieron.
+     */
+    public Map<Long, NodeFileService> discoverNodes(List<String> hosts, List<Integer> ports) {
         if (hosts.size() != ports.size()) {
             throw new IllegalArgumentException("El número de hosts debe coincidir con el número de puertos");
         }
 
         Map<Long, NodeFileService> nodeMap = new HashMap<>();
+        if (hosts.isEmpty()) {
+            return nodeMap;
+        }
 
-        for (int i = 0; i < hosts.size(); i++) {
-            System.out.println("Descubriendo nodo RMI en " + hosts.get(i) + ":" + ports.get(i));
-            String host = hosts.get(i);
-            int port = ports.get(i);
-
-            try {
-                Registry registry = LocateRegistry.getRegistry(host, port);
-                String[] boundNames = registry.list();
+        ExecutorService discoveryExecutor = Executors.newFixedThreadPool(Math.min(hosts.size(), MAX_DISCOVERY_THREADS), r -> {
+            Thread t = new Thread(r, "NodeDiscovery");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            List<Future<Map<String, NodeFileService>>> lookups = new ArrayList<>();
+            for (int i = 0; i < hosts.size(); i++) {
+                String host = hosts.get(i);
+                int port = ports.get(i);
+                lookups.add(discoveryExecutor.submit(() -> lookupServices(host, port)));
+            }
 
-                if (boundNames.length == 0) {
-                    System.err.println("No hay servicios registrados en " + host + ":" + port);
-                    continue;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DISCOVERY_TIMEOUT_MILLIS);
+            for (int i = 0; i < hosts.size(); i++) {
+                String host = hosts.get(i);
+                int port = ports.get(i);
+                try {
+                    Map<String, NodeFileService> services = lookups.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    nodeMap.putAll(registerServices(host, port, services));
+
+                } catch (TimeoutException e) {
+                    lookups.get(i).cancel(true);
+                    System.err.println("Timeout descubriendo nodo en " + host + ":" + port + " (" + DISCOVERY_TIMEOUT_MILLIS + " ms)");
+                } catch (ExecutionException e) {
+                    System.err.println("Error descubriendo nodo en " + host + ":" + port + ": " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 }
+            }
+        } finally {
+            discoveryExecutor.shutdownNow();
+        }
+        return nodeMap;
+    }
 
-                for (String name : boundNames) {
-                    try {
-                        NodeFileService stub = (NodeFileService) registry.lookup(name);
+    /**
+     * Busca los servicios publicados en el registro RMI de host:port y los registra en la BD.
+     * @return nodeId → stub (vacío si el registro no responde o no tiene servicios)
+     */
+    public Map<Long, NodeFileService> discoverNode(String host, int port) {
+        try {
+            return registerServices(host, port, lookupServices(host, port));
+        } catch (Exception e) {
+            System.err.println("Error descubriendo nodo en " + host + ":" + port + ": " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
 
-                        // Registrar en BD
-                        Long nodeId = upsertNode(host, port);
-                        nodeMap.put(nodeId, stub);
+    /**
+     * Consulta el registro RMI de host:port (sin tocar la BD).
+     * @return nombre → stub de los servicios publicados
+     */
+    private Map<String, NodeFileService> lookupServices(String host, int port) throws RemoteException {
+        Map<String, NodeFileService> services = new LinkedHashMap<>();
+        System.out.println("Descubriendo nodo RMI en " + host + ":" + port);
 
-                        System.out.println("Nodo registrado: " + host + ":" + port + " | service=" + name + " | id=" + nodeId);
+        Registry registry = LocateRegistry.getRegistry(host, port);
+        String[] boundNames = registry.list();
 
-                    } catch (Exception e) {
-                        System.err.println("Error al obtener stub '" + name + "' en " + host + ":" + port + ": " + e.getMessage());
-                    }
-                }
+        if (boundNames.length == 0) {
+            System.err.println("No hay servicios registrados en " + host + ":" + port);
+            return services;
+        }
 
+        for (String name : boundNames) {
+            try {
+                services.put(name, (NodeFileService) registry.lookup(name));
             } catch (Exception e) {
-                System.err.println("Error descubriendo nodo en " + host + ":" + port + ": " + e.getMessage());
+                System.err.println("Error al obtener stub '" + name + "' en " + host + ":" + port + ": " + e.getMessage());
             }
         }
+        return services;
+    }
 
-        if (nodeMap.isEmpty()) {
-            throw new IllegalStateException("No se pudo conectar a ningún nodo RMI. Verifica que los nodos estén activos.");
-        }
+    /**
+     * Registra en la BD los servicios encontrados en host:port.
+     */
+    private Map<Long, NodeFileService> registerServices(String host, int port, Map<String, NodeFileService> services) {
+        Map<Long, NodeFileService> nodeMap = new HashMap<>();
+        for (Map.Entry<String, NodeFileService> service : services.entrySet()) {
+            try {
+                // Registrar en BD
+                NodeTopology topology = topologyFor(host, port);
+                Long nodeId = upsertNode(host, port, topology);
+                nodeMap.put(nodeId, service.getValue());
 
-        System.out.println("Total de nodos descubiertos: " + nodeMap.size());
+                System.out.println("Nodo registrado: " + host + ":" + port + " | service=" + service.getKey() + " | id=" + nodeId +
+                        " | topología=" + topology);
+
+            } catch (Exception e) {
+                System.err.println("Error al registrar '" + service.getKey() + "' en " + host + ":" + port + ": " + e.getMessage());
+            }
+        }
         return nodeMap;
     }
 
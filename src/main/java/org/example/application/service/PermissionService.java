@@ -23,6 +23,11 @@ public class PermissionService {
     }
 
 
+    public boolean canReadDirectory(Long userId, Long directoryId) throws SQLException {
+        // Mismo criterio que la escritura: dueño o carpeta compartida
+        return canWriteToDirectory(userId, directoryId);
+    }
+
     public boolean isOwnerDirectory(Long userId, Long directoryId) throws SQLException {
         // 1. Verificar si userId es owner de la carpeta
         if (fileRepository.isDirectoryOwner(userId, directoryId)) {
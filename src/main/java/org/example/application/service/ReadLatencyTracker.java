@@ -0,0 +1,162 @@
+package org.example.application.service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Latencias recientes de lectura de réplicas.
+ * Guarda las últimas SAMPLE_WINDOW lecturas exitosas en buffers circulares: la latencia en ms
+ * (para las estadísticas) y la relación entre el tiempo observado y el estimado por
+ * NodeSelector.estimateReadMillis para ese nodo y ese tamaño. El hedge se lanza cuando la lectura
+ * en curso supera su propia estimación multiplicada por el percentil configurado de esa relación,
+ * así un archivo grande no dispara el hedge por ser más lento que la latencia típica de uno pequeño.
+ */
+public class ReadLatencyTracker {
+
+    private static final Logger LOGGER = Logger.getLogger(ReadLatencyTracker.class.getName());
+
+    private static final int SAMPLE_WINDOW = 1024;
+
+    // Sin suficientes muestras el percentil no es representativo y no se hace hedging
+    private static final int MIN_SAMPLES = 20;
+
+    // Evita duplicar lecturas cuando todas las latencias son muy bajas
+    private static final long MIN_HEDGE_DELAY_MILLIS = 10;
+
+    private final double hedgePercentile;
+
+    // Buffers circulares (protegidos por this)
+    private final long[] samples = new long[SAMPLE_WINDOW];
+    private int count;
+    private int next;
+    private final double[] slowdowns = new double[SAMPLE_WINDOW];
+    private int slowdownCount;
+    private int nextSlowdown;
+
+    private final AtomicLong reads = new AtomicLong(0);
+    private final AtomicLong hedgedReads = new AtomicLong(0);
+    private final AtomicLong hedgeWins = new AtomicLong(0);
+    private final AtomicLong failovers = new AtomicLong(0);
+
+    /**
+     * @param hedgePercentile percentil (0-100) a partir del cual se lanza el hedge; 0 lo desactiva
+     */
+    public ReadLatencyTracker(double hedgePercentile) {
+        if (hedgePercentile < 0 || hedgePercentile >= 100) {
+            throw new IllegalArgumentException("El percentil de hedging debe estar en [0, 100): " + hedgePercentile);
+        }
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    /**
+     * Registra una lectura exitosa.
+     * @param expectedMillis tiempo estimado antes de lanzarla (0 si el nodo no tenía muestras)
+     */
+    public synchronized void recordLatency(long millis, double expectedMillis) {
+        samples[next] = millis;
+        next = (next + 1) % SAMPLE_WINDOW;
+        if (count < SAMPLE_WINDOW) {
+            count++;
+        }
+
+        if (expectedMillis > 0) {
+            slowdowns[nextSlowdown] = millis / expectedMillis;
+            nextSlowdown = (nextSlowdown + 1) % SAMPLE_WINDOW;
+            if (slowdownCount < SAMPLE_WINDOW) {
+                slowdownCount++;
+            }
+        }
+    }
+
+    /**
+     * Percentil p (0-100) de las latencias registradas.
+     * @return -1 si aún no hay muestras
+     */
+    public long percentile(double p) {
+        long[] sorted;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        return sorted[percentileIndex(p, sorted.length)];
+    }
+
+    /**
+     * Percentil p (0-100) de la relación entre el tiempo observado y el estimado.
+     * @return -1 si no hay muestras suficientes
+     */
+    public double slowdownPercentile(double p) {
+        double[] sorted;
+        synchronized (this) {
+            if (slowdownCount < MIN_SAMPLES) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(slowdowns, slowdownCount);
+        }
+        Arrays.sort(sorted);
+        return sorted[percentileIndex(p, sorted.length)];
+    }
+
+    private static int percentileIndex(double p, int length) {
+        int index = (int) Math.ceil(p / 100.0 * length) - 1;
+        return Math.max(0, Math.min(index, length - 1));
+    }
+
+    /**
+     * Tiempo a esperar a una réplica antes de lanzar el hedge.
+     * @param expectedMillis tiempo estimado de la lectura en esa réplica (NodeSelector.estimateReadMillis)
+     * @return -1 si el hedging está desactivado, no hay estimación o no hay muestras suficientes
+     */
+    public long getHedgeDelayMillis(double expectedMillis) {
+        if (hedgePercentile <= 0 || expectedMillis <= 0) {
+            return -1;
+        }
+        double slowdown = slowdownPercentile(hedgePercentile);
+        if (slowdown < 0) {
+            return -1;
+        }
+        return Math.max(MIN_HEDGE_DELAY_MILLIS, Math.round(expectedMillis * slowdown));
+    }
+
+    /**
+     * Registra el resultado de una lectura completa.
+     * @param hedged si se lanzó una lectura de cobertura
+     * @param servedByHedge si la respuesta la dio la réplica de cobertura
+     * @param failedReplicas réplicas que fallaron antes de obtener el contenido
+     */
+    public void recordRead(boolean hedged, boolean servedByHedge, int failedReplicas) {
+        reads.incrementAndGet();
+        if (hedged) {
+            hedgedReads.incrementAndGet();
+        }
+        if (servedByHedge) {
+            hedgeWins.incrementAndGet();
+        }
+        failovers.addAndGet(failedReplicas);
+    }
+
+    public long getHedgedReads() {
+        return hedgedReads.get();
+    }
+
+    public long getFailovers() {
+        return failovers.get();
+    }
+
+    /**
+     * Imprime estadísticas de lectura.
+     */
+    public void printStats() {
+        LOGGER.info("Lecturas: total=" + reads.get() +
+                ", p50=" + percentile(50) + "ms" +
+                ", p99=" + percentile(99) + "ms" +
+                ", hedge a " + String.format("%.2f", slowdownPercentile(hedgePercentile)) + "x la estimación" +
+                ", con hedge=" + hedgedReads.get() +
+                " (ganó el hedge " + hedgeWins.get() + ")" +
+                ", failovers=" + failovers.get());
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.application.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Métricas de replicación en segundo plano.
+ * Una subida confirma al alcanzar W réplicas; las restantes terminan después.
+ * El lag es el tiempo entre la confirmación y la finalización de cada réplica pendiente.
+ */
+public class ReplicationMonitor {
+
+    private static final Logger LOGGER = Logger.getLogger(ReplicationMonitor.class.getName());
+
+    private final AtomicInteger pendingReplicas = new AtomicInteger(0);
+    private final AtomicLong completedReplicas = new AtomicLong(0);
+    private final AtomicLong failedReplicas = new AtomicLong(0);
+    private final AtomicLong totalLagMillis = new AtomicLong(0);
+    private final AtomicLong maxLagMillis = new AtomicLong(0);
+
+    /**
+     * Registra réplicas que siguen en curso cuando la subida ya fue confirmada.
+     */
+    public void replicasPending(int count) {
+        pendingReplicas.addAndGet(count);
+    }
+
+    /**
+     * Registra el fin de una réplica pendiente.
+     * @param lagMillis tiempo transcurrido desde la confirmación de la subida
+     */
+    public void replicaCompleted(String fileUuid, Long nodeId, boolean success, long lagMillis) {
+        pendingReplicas.decrementAndGet();
+
+        if (success) {
+            completedReplicas.incrementAndGet();
+            totalLagMillis.addAndGet(lagMillis);
+            maxLagMillis.accumulateAndGet(lagMillis, Math::max);
+        } else {
+            failedReplicas.incrementAndGet();
+            LOGGER.warning("Archivo " + fileUuid + " sub-replicado: falló la réplica en Node-" + nodeId);
+        }
+    }
+
+    public int getPendingReplicas() {
+        return pendingReplicas.get();
+    }
+
+    public long getFailedReplicas() {
+        return failedReplicas.get();
+    }
+
+    public long getAverageLagMillis() {
+        long completed = completedReplicas.get();
+        return completed > 0 ? totalLagMillis.get() / completed : 0;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis.get();
+    }
+
+    /**
+     * Imprime estadísticas de replicación.
+     */
+    public void printStats() {
+        LOGGER.info("Replicación: pendientes=" + getPendingReplicas() +
+                ", completadas en segundo plano=" + completedReplicas.get() +
+                ", fallidas=" + getFailedReplicas() +
+                ", lag promedio=" + getAverageLagMillis() + "ms" +
+                ", lag máximo=" + getMaxLagMillis() + "ms");
+    }
+}
@@ -0,0 +1,320 @@
+package org.example.application.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Política de almacenamiento: factor de replicación (N) y quórums de escritura (W) y lectura (R).
+ * Los valores por defecto se toman de propiedades del sistema y se pueden sobrescribir por directorio:
+ *
+ *   -Dstorage.replication.factor=3
+ *   -Dstorage.quorum.write=2
+ *   -Dstorage.quorum.read=1
+ *   -Dstorage.quorum.directories=12:3/1,40:1/1   (directoryId:W/R)
+ *
+ * W y R siempre se ajustan al rango [1, N].
+ *
+ * Los directorios listados en storage.erasure.directories guardan sus archivos con
+ * erasure coding (k shards de datos + m de paridad) en lugar de copias completas:
+ *
+ *   -Dstorage.erasure.data=4
+ *   -Dstorage.erasure.parity=2
+ *   -Dstorage.erasure.directories=7,15
+ *
+ * Los directorios listados en storage.chunking.directories dividen sus archivos en chunks
+ * definidos por contenido, guardados una sola vez por hash:
+ *
+ *   -Dstorage.chunking.avg=262144   (tamaño medio en bytes, potencia de 2)
+ *   -Dstorage.chunking.directories=9
+ *
+ * Las subidas replicadas se comprimen si el contenido es comprimible (0 desactiva la compresión).
+ * Un archivo comprimido se lee por rango o por stream descargándolo y descomprimiéndolo entero,
+ * así que los archivos mayores que storage.compression.maxBytes se guardan sin comprimir:
+ *
+ *   -Dstorage.compression.level=6
+ *   -Dstorage.compression.maxBytes=8388608
+ *
+ * Las lecturas de una réplica que superan su tiempo estimado (según el nodo y el tamaño) multiplicado
+ * por el percentil indicado de lo que suelen desviarse de él lanzan una lectura de cobertura contra
+ * otra réplica (0 desactiva el hedging):
+ *
+ *   -Dstorage.read.hedge.percentile=95
+ *
+ * Estrategia de colocación de las réplicas nuevas (ver PlacementStrategy):
+ *
+ *   -Dstorage.placement=weighted   (weighted | ring | p2c)
+ *   -Dstorage.placement.choices=2  (nodos muestreados por réplica en p2c)
+ *
+ * Las réplicas se reparten entre zonas, racks y máquinas distintas (ver NodeService para la
+ * topología). Las lecturas prefieren réplicas de la zona de este servidor salvo que una remota
+ * sea más rápida por más de la penalización indicada:
+ *
+ *   -Dstorage.zone=zona-a
+ *   -Dstorage.read.crossZonePenaltyMs=25
+ */
+public class StoragePolicy {
+
+    private static final Logger LOGGER = Logger.getLogger(StoragePolicy.class.getName());
+
+    private final int replicationFactor;
+    private final int defaultWriteQuorum;
+    private final int defaultReadQuorum;
+    private final Map<Long, int[]> directoryQuorums = new ConcurrentHashMap<>();
+
+    // Erasure coding
+    private final int dataShards;
+    private final int parityShards;
+    private final Set<Long> erasureCodedDirectories = ConcurrentHashMap.newKeySet();
+
+    // Chunking por contenido
+    private int chunkAvgSize = 256 * 1024;
+    private final Set<Long> chunkedDirectories = ConcurrentHashMap.newKeySet();
+
+    // Compresión (nivel de Deflater, 0 = desactivada) y tamaño máximo de archivo a comprimir
+    private int compressionLevel = 6;
+    private int compressionMaxSize = 8 * 1024 * 1024;
+
+    // Hedging de lecturas (percentil de latencia, 0 = desactivado)
+    private double hedgePercentile = 95;
+
+    // Colocación de réplicas
+    private String placementStrategy = "weighted";
+    private int placementChoices = 2;
+
+    // Zona de este servidor (null = sin preferencia) y penalización de leer de otra zona
+    private String localZone;
+    private double crossZonePenaltyMillis = 25;
+
+    public StoragePolicy(int replicationFactor, int writeQuorum, int readQuorum) {
+        this(replicationFactor, writeQuorum, readQuorum, 4, 2);
+    }
+
+    public StoragePolicy(int replicationFactor, int writeQuorum, int readQuorum, int dataShards, int parityShards) {
+        if (replicationFactor < 1) {
+            throw new IllegalArgumentException("El factor de replicación debe ser al menos 1");
+        }
+        if (dataShards < 1 || parityShards < 0) {
+            throw new IllegalArgumentException("Configuración de erasure coding inválida: k=" + dataShards + ", m=" + parityShards);
+        }
+        this.replicationFactor = replicationFactor;
+        this.defaultWriteQuorum = clamp(writeQuorum);
+        this.defaultReadQuorum = clamp(readQuorum);
+        this.dataShards = dataShards;
+        this.parityShards = parityShards;
+    }
+
+    /**
+     * Crea la política a partir de las propiedades del sistema.
+     */
+    public static StoragePolicy fromSystemProperties() {
+        StoragePolicy policy = new StoragePolicy(
+                Integer.getInteger("storage.replication.factor", 2),
+                Integer.getInteger("storage.quorum.write", 1),
+                Integer.getInteger("storage.quorum.read", 1),
+                Integer.getInteger("storage.erasure.data", 4),
+                Integer.getInteger("storage.erasure.parity", 2)
+        );
+
+        String overrides = System.getProperty("storage.quorum.directories", "");
+        for (String entry : overrides.split(",")) {
+            if (entry.isBlank()) continue;
+            try {
+                String[] parts = entry.trim().split("[:/]");
+                policy.setDirectoryQuorum(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            } catch (RuntimeException e) {
+                LOGGER.warning("Entrada inválida en storage.quorum.directories: '" + entry + "'");
+            }
+        }
+
+        String erasureDirectories = System.getProperty("storage.erasure.directories", "");
+        for (String entry : erasureDirectories.split(",")) {
+            if (entry.isBlank()) continue;
+            try {
+                policy.setDirectoryErasureCoded(Long.parseLong(entry.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Entrada inválida en storage.erasure.directories: '" + entry + "'");
+            }
+        }
+
+        policy.setChunkAvgSize(Integer.getInteger("storage.chunking.avg", policy.chunkAvgSize));
+        String chunkedDirectories = System.getProperty("storage.chunking.directories", "");
+        for (String entry : chunkedDirectories.split(",")) {
+            if (entry.isBlank()) continue;
+            try {
+                policy.setDirectoryChunked(Long.parseLong(entry.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Entrada inválida en storage.chunking.directories: '" + entry + "'");
+            }
+        }
+
+        policy.setCompressionLevel(Integer.getInteger("storage.compression.level", policy.compressionLevel));
+        policy.setCompressionMaxSize(Integer.getInteger("storage.compression.maxBytes", policy.compressionMaxSize));
+
+        String hedgePercentile = System.getProperty("storage.read.hedge.percentile");
+        if (hedgePercentile != null) {
+            try {
+                policy.setHedgePercentile(Double.parseDouble(hedgePercentile.trim()));
+            } catch (RuntimeException e) {
+                LOGGER.warning("Valor inválido en storage.read.hedge.percentile: '" + hedgePercentile + "'");
+            }
+        }
+
+        policy.setPlacementStrategy(System.getProperty("storage.placement", policy.placementStrategy));
+        policy.setPlacementChoices(Integer.getInteger("storage.placement.choices", policy.placementChoices));
+        policy.setLocalZone(System.getProperty("storage.zone"));
+        policy.setCrossZonePenaltyMillis(Long.getLong("storage.read.crossZonePenaltyMs", (long) policy.crossZonePenaltyMillis));
+
+        LOGGER.info("StoragePolicy: N=" + policy.replicationFactor + ", W=" + policy.defaultWriteQuorum +
+                ", R=" + policy.defaultReadQuorum + ", overrides por directorio=" + policy.directoryQuorums.size() +
+                ", erasure coding k=" + policy.dataShards + "/m=" + policy.parityShards +
+                " en " + policy.erasureCodedDirectories.size() + " directorio(s)" +
+                ", chunking en " + policy.chunkedDirectories.size() + " directorio(s)" +
+                ", compresión nivel " + policy.compressionLevel + " hasta " + (policy.compressionMaxSize >> 20) + " MB" +
+                ", hedge en p" + policy.hedgePercentile +
+                ", colocación " + policy.placementStrategy +
+                (policy.localZone != null ? ", zona " + policy.localZone : ""));
+        return policy;
+    }
+
+    /**
+     * Define W y R para un directorio concreto.
+     */
+    public void setDirectoryQuorum(Long directoryId, int writeQuorum, int readQuorum) {
+        directoryQuorums.put(directoryId, new int[]{clamp(writeQuorum), clamp(readQuorum)});
+    }
+
+    public int getReplicationFactor() {
+        return replicationFactor;
+    }
+
+    public int getWriteQuorum(Long directoryId) {
+        int[] quorum = directoryId != null ? directoryQuorums.get(directoryId) : null;
+        return quorum != null ? quorum[0] : defaultWriteQuorum;
+    }
+
+    public int getReadQuorum(Long directoryId) {
+        int[] quorum = directoryId != null ? directoryQuorums.get(directoryId) : null;
+        return quorum != null ? quorum[1] : defaultReadQuorum;
+    }
+
+    /**
+     * Marca un directorio para almacenar sus archivos con erasure coding.
+     */
+    public void setDirectoryErasureCoded(Long directoryId) {
+        erasureCodedDirectories.add(directoryId);
+    }
+
+    public boolean isErasureCoded(Long directoryId) {
+        return directoryId != null && erasureCodedDirectories.contains(directoryId);
+    }
+
+    public int getDataShards() {
+        return dataShards;
+    }
+
+    public int getParityShards() {
+        return parityShards;
+    }
+
+    /**
+     * Marca un directorio para almacenar sus archivos por chunks.
+     */
+    public void setDirectoryChunked(Long directoryId) {
+        chunkedDirectories.add(directoryId);
+    }
+
+    public boolean isChunked(Long directoryId) {
+        return directoryId != null && chunkedDirectories.contains(directoryId);
+    }
+
+    public void setChunkAvgSize(int chunkAvgSize) {
+        if (chunkAvgSize < 256 || Integer.bitCount(chunkAvgSize) != 1) {
+            throw new IllegalArgumentException("storage.chunking.avg debe ser potencia de 2 y >= 256: " + chunkAvgSize);
+        }
+        this.chunkAvgSize = chunkAvgSize;
+    }
+
+    public int getChunkAvgSize() {
+        return chunkAvgSize;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("storage.compression.level debe estar entre 0 y 9: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionMaxSize(int compressionMaxSize) {
+        if (compressionMaxSize < 0) {
+            throw new IllegalArgumentException("storage.compression.maxBytes no puede ser negativo: " + compressionMaxSize);
+        }
+        this.compressionMaxSize = compressionMaxSize;
+    }
+
+    public int getCompressionMaxSize() {
+        return compressionMaxSize;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        if (hedgePercentile < 0 || hedgePercentile >= 100) {
+            throw new IllegalArgumentException("storage.read.hedge.percentile debe estar en [0, 100): " + hedgePercentile);
+        }
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setPlacementStrategy(String placementStrategy) {
+        this.placementStrategy = placementStrategy.trim().toLowerCase();
+    }
+
+    public String getPlacementStrategy() {
+        return placementStrategy;
+    }
+
+    public void setPlacementChoices(int placementChoices) {
+        if (placementChoices < 1) {
+            throw new IllegalArgumentException("storage.placement.choices debe ser al menos 1: " + placementChoices);
+        }
+        this.placementChoices = placementChoices;
+    }
+
+    public int getPlacementChoices() {
+        return placementChoices;
+    }
+
+    public void setLocalZone(String localZone) {
+        this.localZone = localZone == null || localZone.isBlank() ? null : localZone.trim();
+    }
+
+    /**
+     * Zona de este servidor, o null si no se configuró.
+     */
+    public String getLocalZone() {
+        return localZone;
+    }
+
+    public void setCrossZonePenaltyMillis(double crossZonePenaltyMillis) {
+        if (crossZonePenaltyMillis < 0) {
+            throw new IllegalArgumentException("storage.read.crossZonePenaltyMs no puede ser negativo: " + crossZonePenaltyMillis);
+        }
+        this.crossZonePenaltyMillis = crossZonePenaltyMillis;
+    }
+
+    public double getCrossZonePenaltyMillis() {
+        return crossZonePenaltyMillis;
+    }
+
+    private int clamp(int quorum) {
+        return Math.max(1, Math.min(quorum, replicationFactor));
+    }
+}
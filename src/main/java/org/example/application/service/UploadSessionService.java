@@ -0,0 +1,381 @@
+package org.example.application.service;
+
+import org.example.application.Dto.OperationResponse;
+import org.example.application.Dto.UploadSessionDTO;
+import org.example.application.queue.TaskQueue;
+import org.example.domain.command.CommitUploadSessionCommand;
+import org.example.domain.command.UploadChunkCommand;
+import org.example.domain.model.UploadSession;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Subidas reanudables por bloques: begin → put chunk N (en cualquier orden, con reintentos) → commit.
+ * Los bloques se escriben directamente en su posición final en los nodos seleccionados;
+ * la metadata solo se registra en el commit.
+ * Un bloque cuenta como recibido cuando está en el quórum de escritura del directorio (W nodos);
+ * los bloques que falten se informan al cliente para que los reenvíe, también si falla el commit.
+ * Las sesiones viven en memoria y expiran tras SESSION_TTL_MINUTES sin actividad.
+ * Una sesión confirmada se conserva hasta expirar, así el cliente que perdió la respuesta
+ * del commit (timeout) puede repetirlo y saber que el archivo quedó registrado.
+ */
+public class UploadSessionService {
+
+    private static final Logger LOGGER = Logger.getLogger(UploadSessionService.class.getName());
+
+    // Configuración
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024; // 4MB
+    private static final long SESSION_TTL_MINUTES = 60;
+    private static final long CLEANUP_INTERVAL_MINUTES = 5;
+    // Bloques que se enumeran en los mensajes de error (el resto se consulta con getStatus)
+    private static final int MAX_LISTED_CHUNKS = 20;
+
+    private final TaskQueue taskQueue;
+    private final FileRepository fileRepository;
+    private final NodeSelector nodeSelector;
+    private final PermissionService permissionService;
+    private final StoragePolicy storagePolicy;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService cleanupScheduler;
+
+    public UploadSessionService(TaskQueue taskQueue, FileRepository fileRepository,
+                                NodeSelector nodeSelector, PermissionService permissionService,
+                                StoragePolicy storagePolicy) {
+        this.taskQueue = taskQueue;
+        this.fileRepository = fileRepository;
+        this.nodeSelector = nodeSelector;
+        this.permissionService = permissionService;
+        this.storagePolicy = storagePolicy;
+        this.cleanupScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "UploadSession-Cleanup");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduleCleanupTask();
+    }
+
+    /**
+     * Abre una sesión de subida y reserva los nodos destino.
+     */
+    public UploadSessionDTO beginSession(Long directoryId, String fileName, long totalSize, Long userId) {
+        try {
+            // Validaciones
+            if (directoryId == null) {
+                return UploadSessionDTO.error("El directoryId no puede ser null", "INVALID_DIRECTORY");
+            }
+
+            if (fileName == null || fileName.trim().isEmpty()) {
+                return UploadSessionDTO.error("El nombre del archivo no puede estar vacío", "INVALID_FILENAME");
+            }
+
+            if (totalSize <= 0) {
+                return UploadSessionDTO.error("El tamaño del archivo debe ser mayor a 0", "INVALID_SIZE");
+            }
+
+            if (userId == null) {
+                return UploadSessionDTO.error("El userId no puede ser null", "INVALID_USER");
+            }
+
+            // Verificar permisos
+            if (!permissionService.canWriteToDirectory(userId, directoryId)) {
+                return UploadSessionDTO.error(
+                        "El usuario no tiene permisos para escribir en este directorio",
+                        "PERMISSION_DENIED"
+                );
+            }
+
+            Long ownerId = permissionService.resolveOwnerOfDirectory(directoryId);
+            if (ownerId == null) {
+                return UploadSessionDTO.error("No se pudo determinar el propietario del directorio", "OWNER_NOT_FOUND");
+            }
+
+            List<Map.Entry<Long, NodeFileService>> selectedNodes = nodeSelector.selectNodesForUpload(totalSize);
+            if (selectedNodes.isEmpty()) {
+                LOGGER.severe("No hay nodos disponibles para upload");
+                return UploadSessionDTO.error("No hay nodos disponibles", "NO_NODES_AVAILABLE");
+            }
+
+            int writeQuorum = storagePolicy.getWriteQuorum(directoryId);
+            if (selectedNodes.size() < writeQuorum) {
+                for (Map.Entry<Long, NodeFileService> entry : selectedNodes) {
+                    nodeSelector.completeTask(entry.getKey());
+                }
+                return UploadSessionDTO.error("Solo hay " + selectedNodes.size() + " nodo(s) disponibles y se requieren " +
+                        writeQuorum + " réplicas", "INSUFFICIENT_REPLICAS");
+            }
+
+            String sessionId = UUID.randomUUID().toString();
+            UploadSession session = new UploadSession(sessionId, userId, ownerId, directoryId, fileName,
+                    totalSize, CHUNK_SIZE, writeQuorum, selectedNodes);
+            sessions.put(sessionId, session);
+
+            LOGGER.info("Sesión de subida " + sessionId + " abierta: " + fileName + " (" +
+                    session.getTotalChunks() + " bloques) en " + selectedNodes.size() + " nodo(s)");
+
+            return UploadSessionDTO.of(sessionId, CHUNK_SIZE, session.getTotalChunks(), session.getMissingChunks());
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error BD en beginSession", e);
+            return UploadSessionDTO.error("Error de base de datos: " + e.getMessage(), "DATABASE_ERROR");
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error inesperado en beginSession", e);
+            return UploadSessionDTO.error("Error inesperado: " + e.getMessage(), "UNKNOWN_ERROR");
+        }
+    }
+
+    /**
+     * Escribe el bloque chunkIndex de la sesión. Reenviar un bloque es seguro.
+     */
+    public OperationResponse putChunk(String sessionId, int chunkIndex, byte[] content, Long userId) {
+        try {
+            UploadSession session = findSession(sessionId, userId);
+            if (session == null) {
+                return OperationResponse.error("Sesión de subida no encontrada", "SESSION_NOT_FOUND");
+            }
+
+            if (session.isCommitting() || session.isCommitted()) {
+                return OperationResponse.error("La sesión ya se está confirmando", "SESSION_COMMITTED");
+            }
+
+            if (chunkIndex < 0 || chunkIndex >= session.getTotalChunks()) {
+                return OperationResponse.error("Índice de bloque fuera de rango: " + chunkIndex, "INVALID_CHUNK");
+            }
+
+            int expectedLength = session.expectedChunkLength(chunkIndex);
+            if (content == null || content.length != expectedLength) {
+                return OperationResponse.error("El bloque " + chunkIndex + " debe tener " + expectedLength + " bytes",
+                        "INVALID_CHUNK_SIZE");
+            }
+
+            session.touch();
+
+            UploadChunkCommand command = new UploadChunkCommand(session, chunkIndex, content);
+            Future<Boolean> future = taskQueue.enqueue(command);
+            Boolean result = future.get(60, TimeUnit.SECONDS);
+
+            if (Boolean.TRUE.equals(result)) {
+                return OperationResponse.success("Bloque " + chunkIndex + " recibido");
+            } else {
+                return OperationResponse.error("No se pudo almacenar el bloque " + chunkIndex, "CHUNK_FAILED");
+            }
+
+        } catch (TimeoutException e) {
+            return OperationResponse.error("Timeout al subir el bloque", "TIMEOUT");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return OperationResponse.error("Operación interrumpida", "INTERRUPTED");
+        } catch (ExecutionException e) {
+            return OperationResponse.error("Error al subir bloque: " + e.getCause().getMessage(), "EXECUTION_ERROR");
+        } catch (Exception e) {
+            return OperationResponse.error("Error inesperado: " + e.getMessage(), "UNKNOWN_ERROR");
+        }
+    }
+
+    /**
+     * Devuelve el estado de la sesión, incluidos los bloques que faltan (para reanudar).
+     */
+    public UploadSessionDTO getStatus(String sessionId, Long userId) {
+        UploadSession session = findSession(sessionId, userId);
+        if (session == null) {
+            return UploadSessionDTO.error("Sesión de subida no encontrada", "SESSION_NOT_FOUND");
+        }
+        session.touch();
+        return UploadSessionDTO.of(sessionId, session.getChunkSize(), session.getTotalChunks(), session.getMissingChunks());
+    }
+
+    /**
+     * Cierra la sesión y registra el archivo. Falla si todavía faltan bloques.
+     * La sesión sigue registrada mientras se confirma: si la espera vence, el commit continúa
+     * en la cola y el cliente puede consultar o repetir el commit con el mismo sessionId.
+     */
+    public OperationResponse commitSession(String sessionId, Long userId) {
+        try {
+            UploadSession session = findSession(sessionId, userId);
+            if (session == null) {
+                return OperationResponse.error("Sesión de subida no encontrada", "SESSION_NOT_FOUND");
+            }
+
+            if (session.isCommitted()) {
+                return OperationResponse.success("Archivo '" + session.getFileName() + "' ya registrado");
+            }
+
+            int[] missing = session.getMissingChunks();
+            if (missing.length > 0) {
+                return incompleteUpload(missing);
+            }
+
+            // Evitar dos commits simultáneos de la misma sesión
+            if (!session.beginCommit()) {
+                return OperationResponse.error("La sesión ya se está confirmando", "COMMIT_IN_PROGRESS");
+            }
+            session.touch();
+
+            CommitUploadSessionCommand command = new CommitUploadSessionCommand(session, fileRepository,
+                    session.getWriteQuorum());
+            Future<Boolean> future;
+            try {
+                future = taskQueue.enqueue(() -> finishCommit(session, command));
+            } catch (RuntimeException e) {
+                session.endCommit(false);
+                throw e;
+            }
+            Boolean result = future.get(60, TimeUnit.SECONDS);
+
+            if (Boolean.TRUE.equals(result)) {
+                return OperationResponse.success("Archivo '" + session.getFileName() + "' subido exitosamente con " +
+                        command.getSuccessfulNodes().size() + " réplicas");
+            }
+
+            // La sesión sigue abierta: el cliente reenvía lo que falte y repite el commit
+            missing = session.getMissingChunks();
+            if (missing.length > 0) {
+                return incompleteUpload(missing);
+            }
+            return OperationResponse.error("No se pudo registrar el archivo '" + session.getFileName() + "' en " +
+                    session.getWriteQuorum() + " nodos, reintente el commit", "UPLOAD_FAILED");
+
+        } catch (TimeoutException e) {
+            return OperationResponse.error("Timeout al confirmar la subida, consulte el estado de la sesión", "TIMEOUT");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return OperationResponse.error("Operación interrumpida", "INTERRUPTED");
+        } catch (ExecutionException e) {
+            return OperationResponse.error("Error al confirmar subida: " + e.getCause().getMessage(), "EXECUTION_ERROR");
+        } catch (Exception e) {
+            return OperationResponse.error("Error inesperado: " + e.getMessage(), "UNKNOWN_ERROR");
+        }
+    }
+
+    /**
+     * Ejecuta el commit en la cola y deja la sesión en su estado final, haya esperado el cliente o no.
+     * Si falla, la sesión y sus bloques se conservan para reintentar (o hasta abortar/expirar).
+     */
+    private boolean finishCommit(UploadSession session, CommitUploadSessionCommand command) {
+        boolean committed = false;
+        try {
+            committed = Boolean.TRUE.equals(command.execute());
+        } finally {
+            session.endCommit(committed);
+        }
+
+        if (committed) {
+            releaseNodes(session);
+            for (Long nodeId : command.getSuccessfulNodes()) {
+                nodeSelector.recordFileUpload(nodeId, session.getTotalSize());
+            }
+            LOGGER.info("Sesión " + session.getSessionId() + " confirmada: " + session.getFileName() +
+                    " en " + command.getSuccessfulNodes().size() + " nodo(s)");
+        }
+        return committed;
+    }
+
+    /**
+     * Cancela la sesión y elimina los bloques ya escritos.
+     */
+    public OperationResponse abortSession(String sessionId, Long userId) {
+        UploadSession session = findSession(sessionId, userId);
+        if (session == null) {
+            return OperationResponse.error("Sesión de subida no encontrada", "SESSION_NOT_FOUND");
+        }
+
+        // Los bloques de una sesión que se está confirmando (o ya confirmada) son el archivo final
+        if (session.isCommitting() || session.isCommitted()) {
+            return OperationResponse.error("La sesión ya se está confirmando", "SESSION_COMMITTED");
+        }
+
+        if (!sessions.remove(sessionId, session)) {
+            return OperationResponse.error("Sesión de subida no encontrada", "SESSION_NOT_FOUND");
+        }
+
+        deletePartialFiles(session);
+        releaseNodes(session);
+        LOGGER.info("Sesión de subida " + sessionId + " cancelada");
+        return OperationResponse.success("Sesión de subida cancelada");
+    }
+
+    /**
+     * Cierra recursos del servicio.
+     */
+    public void shutdown() {
+        cleanupScheduler.shutdownNow();
+    }
+
+    // Métodos auxiliares
+
+    private OperationResponse incompleteUpload(int[] missing) {
+        StringBuilder sb = new StringBuilder("Faltan " + missing.length + " bloque(s) por subir: ");
+        for (int i = 0; i < Math.min(missing.length, MAX_LISTED_CHUNKS); i++) {
+            sb.append(i > 0 ? ", " : "").append(missing[i]);
+        }
+        if (missing.length > MAX_LISTED_CHUNKS) {
+            sb.append("...");
+        }
+        return OperationResponse.error(sb.toString(), "INCOMPLETE_UPLOAD");
+    }
+
+    private UploadSession findSession(String sessionId, Long userId) {
+        if (sessionId == null || userId == null) {
+            return null;
+        }
+        UploadSession session = sessions.get(sessionId);
+        if (session == null || !session.getUserId().equals(userId)) {
+            return null;
+        }
+        return session;
+    }
+
+    private void scheduleCleanupTask() {
+        cleanupScheduler.scheduleAtFixedRate(() -> {
+            try {
+                long expiration = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(SESSION_TTL_MINUTES);
+                for (UploadSession session : sessions.values()) {
+                    if (session.getLastActivity() >= expiration || session.isCommitting()) {
+                        continue;
+                    }
+                    if (sessions.remove(session.getSessionId(), session)) {
+                        if (session.isCommitted()) {
+                            // Los bloques ya son el archivo registrado y los nodos se liberaron al confirmar
+                            continue;
+                        }
+                        LOGGER.info("Sesión de subida expirada: " + session.getSessionId());
+                        deletePartialFiles(session);
+                        releaseNodes(session);
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Error limpiando sesiones expiradas", e);
+            }
+        }, CLEANUP_INTERVAL_MINUTES, CLEANUP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private void deletePartialFiles(UploadSession session) {
+        String fileIdWithUser = session.getOwnerId() + "-" + session.getSessionId();
+        for (Map.Entry<Long, NodeFileService> entry : session.getNodes()) {
+            try {
+                entry.getValue().deleteFile(fileIdWithUser);
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "No se pudo limpiar archivo parcial en Node-" + entry.getKey(), e);
+            }
+        }
+    }
+
+    private void releaseNodes(UploadSession session) {
+        for (Map.Entry<Long, NodeFileService> entry : session.getNodes()) {
+            try {
+                nodeSelector.completeTask(entry.getKey());
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Error al decrementar tareas activas", e);
+            }
+        }
+    }
+}
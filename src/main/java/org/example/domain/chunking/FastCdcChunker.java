@@ -0,0 +1,110 @@
+package org.example.domain.chunking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Chunking definido por contenido (FastCDC con normalización).
+ * Los cortes dependen solo de los bytes cercanos (gear hash), así que insertar o borrar
+ * datos en un archivo solo cambia los chunks alrededor de la edición y el resto se comparte.
+ *
+ * IMPORTANTE: la tabla GEAR se genera con semilla fija; si cambia, los cortes de los
+ * archivos nuevos dejan de coincidir con los ya almacenados y se pierde la deduplicación.
+ */
+public class FastCdcChunker {
+
+    private static final long GEAR_SEED = 0x5EEDCDCL;
+    private static final long[] GEAR = new long[256];
+
+    static {
+        Random random = new Random(GEAR_SEED);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+
+    // Máscara exigente antes del tamaño medio y permisiva después (normalización)
+    private final long maskSmall;
+    private final long maskLarge;
+
+    /**
+     * @param avgSize tamaño medio objetivo (potencia de 2); mínimo avg/4 y máximo avg*4
+     */
+    public FastCdcChunker(int avgSize) {
+        if (avgSize < 256 || Integer.bitCount(avgSize) != 1) {
+            throw new IllegalArgumentException("El tamaño medio debe ser potencia de 2 y >= 256: " + avgSize);
+        }
+        this.avgSize = avgSize;
+        this.minSize = avgSize / 4;
+        this.maxSize = avgSize * 4;
+
+        int bits = Integer.numberOfTrailingZeros(avgSize);
+        this.maskSmall = mask(bits + 1);
+        this.maskLarge = mask(bits - 1);
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getAvgSize() {
+        return avgSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Divide el contenido en chunks.
+     * @return longitudes de los chunks, en orden (suman content.length)
+     */
+    public List<Integer> split(byte[] content) {
+        List<Integer> lengths = new ArrayList<>();
+        int offset = 0;
+        while (offset < content.length) {
+            int length = cut(content, offset, content.length - offset);
+            lengths.add(length);
+            offset += length;
+        }
+        return lengths;
+    }
+
+    private int cut(byte[] data, int offset, int remaining) {
+        if (remaining <= minSize) {
+            return remaining;
+        }
+
+        int limit = Math.min(remaining, maxSize);
+        int normal = Math.min(avgSize, limit);
+        long hash = 0;
+        int i = minSize;
+
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[data[offset + i] & 0xFF];
+            if ((hash & maskSmall) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data[offset + i] & 0xFF];
+            if ((hash & maskLarge) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Máscara con los bits más altos: con el desplazamiento del gear hash,
+     * cada corte depende de los últimos 64 bytes.
+     */
+    private static long mask(int bits) {
+        return ((1L << bits) - 1) << (64 - bits);
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.domain.command;
+
+import org.example.application.Dto.FileDTO;
+import org.example.application.service.NodeSelector;
+import org.example.domain.port.StorageCommand;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para descargar un lote de archivos replicados desde varios nodos a la vez.
+ * Agrupa los archivos por su réplica preferida y lanza un DownloadFilesCommand por nodo en paralelo,
+ * de modo que la latencia del lote es la del nodo más lento y no la suma de todos.
+ * Los archivos de un grupo que falla se reagrupan y se reintentan contra su siguiente réplica
+ * en cuanto termina ese grupo, sin esperar al resto.
+ */
+public class BatchDownloadFilesCommand implements StorageCommand<Boolean> {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchDownloadFilesCommand.class.getName());
+
+    private static final long BATCH_TIMEOUT_SECONDS = 55;
+
+    private final Map<String, List<Map.Entry<Long, NodeFileService>>> replicasByUuid;
+    private final FileRepository fileRepository;
+    private final NodeSelector nodeSelector;
+    private final Executor readExecutor;
+
+    // Resultado: uuid -> archivo descargado (solo los que se pudieron leer)
+    private final Map<String, FileDTO> results = new ConcurrentHashMap<>();
+
+    // Siguiente réplica a probar por archivo (solo lo toca el hilo del comando)
+    private final Map<String, Integer> attempts = new HashMap<>();
+
+    /**
+     * @param replicasByUuid réplicas de cada archivo, ordenadas por preferencia de lectura
+     */
+    public BatchDownloadFilesCommand(Map<String, List<Map.Entry<Long, NodeFileService>>> replicasByUuid,
+                                     FileRepository fileRepository, NodeSelector nodeSelector, Executor readExecutor) {
+        this.replicasByUuid = replicasByUuid;
+        this.fileRepository = fileRepository;
+        this.nodeSelector = nodeSelector;
+        this.readExecutor = readExecutor;
+    }
+
+    @Override
+    public Boolean execute() {
+        BlockingQueue<GroupRead> completed = new LinkedBlockingQueue<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(BATCH_TIMEOUT_SECONDS);
+
+        for (String uuid : replicasByUuid.keySet()) {
+            attempts.put(uuid, 0);
+        }
+        int inFlight = launchGroups(new ArrayList<>(replicasByUuid.keySet()), completed);
+
+        try {
+            while (inFlight > 0) {
+                long remaining = deadline - System.nanoTime();
+                GroupRead group = remaining > 0 ? completed.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (group == null) {
+                    LOGGER.warning("BatchDownloadFilesCommand: timeout con " + inFlight + " grupo(s) pendiente(s)");
+                    break;
+                }
+                inFlight--;
+
+                // Guardar lo descargado y reintentar el resto contra la siguiente réplica
+                List<String> failed = new ArrayList<>();
+                for (int i = 0; i < group.uuids.size(); i++) {
+                    FileDTO dto = i < group.results.size() ? group.results.get(i) : null;
+                    if (dto != null) {
+                        results.put(group.uuids.get(i), dto);
+                    } else {
+                        failed.add(group.uuids.get(i));
+                    }
+                }
+
+                if (!failed.isEmpty()) {
+                    LOGGER.warning("Node-" + group.nodeId + ": " + failed.size() + " de " + group.uuids.size() +
+                            " archivo(s) fallaron, reintentando en réplicas alternativas");
+                    for (String uuid : failed) {
+                        attempts.merge(uuid, 1, Integer::sum);
+                    }
+                    inFlight += launchGroups(failed, completed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        LOGGER.fine("BatchDownloadFilesCommand: " + results.size() + " de " + replicasByUuid.size() + " archivo(s) descargados");
+        return !results.isEmpty();
+    }
+
+    /**
+     * Agrupa los archivos por la réplica que les toca y lanza un grupo por nodo.
+     * Los archivos sin más réplicas que probar se descartan.
+     * @return grupos lanzados
+     */
+    private int launchGroups(List<String> uuids, BlockingQueue<GroupRead> completed) {
+        Map<Long, List<String>> filesByNode = new LinkedHashMap<>();
+        Map<Long, NodeFileService> stubs = new HashMap<>();
+
+        for (String uuid : uuids) {
+            List<Map.Entry<Long, NodeFileService>> replicas = replicasByUuid.get(uuid);
+            int attempt = attempts.get(uuid);
+            if (attempt >= replicas.size()) {
+                LOGGER.warning("Archivo " + uuid + " no se pudo leer de ninguna de sus " + replicas.size() + " réplica(s)");
+                continue;
+            }
+            Map.Entry<Long, NodeFileService> replica = replicas.get(attempt);
+            filesByNode.computeIfAbsent(replica.getKey(), k -> new ArrayList<>()).add(uuid);
+            stubs.put(replica.getKey(), replica.getValue());
+        }
+
+        for (Map.Entry<Long, List<String>> entry : filesByNode.entrySet()) {
+            Long nodeId = entry.getKey();
+            List<String> uuidsForNode = entry.getValue();
+            DownloadFilesCommand command = new DownloadFilesCommand(
+                    nodeId, stubs.get(nodeId), nodeSelector, fileRepository, uuidsForNode);
+
+            LOGGER.fine("Descargando " + uuidsForNode.size() + " archivo(s) desde Node-" + nodeId);
+            CompletableFuture
+                    .supplyAsync(command::execute, readExecutor)
+                    .whenComplete((success, error) -> {
+                        if (error != null) {
+                            LOGGER.log(Level.WARNING, "Error descargando desde Node-" + nodeId, error);
+                        }
+                        List<FileDTO> groupResults = (error == null && Boolean.TRUE.equals(success))
+                                ? command.getResults()
+                                : Collections.emptyList();
+                        completed.add(new GroupRead(nodeId, uuidsForNode, groupResults));
+                    });
+        }
+        return filesByNode.size();
+    }
+
+    /**
+     * Resultado de la descarga de un grupo (results alineado con uuids).
+     */
+    private static final class GroupRead {
+        private final Long nodeId;
+        private final List<String> uuids;
+        private final List<FileDTO> results;
+
+        private GroupRead(Long nodeId, List<String> uuids, List<FileDTO> results) {
+            this.nodeId = nodeId;
+            this.uuids = uuids;
+            this.results = results;
+        }
+    }
+
+    /**
+     * Archivos descargados por uuid (los que fallaron en todas sus réplicas no aparecen).
+     */
+    public Map<String, FileDTO> getResults() {
+        return results;
+    }
+}
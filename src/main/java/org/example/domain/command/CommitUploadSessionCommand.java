@@ -0,0 +1,158 @@
+package org.example.domain.command;
+
+import org.example.domain.model.File;
+import org.example.domain.model.UploadSession;
+import org.example.domain.port.StorageCommand;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para cerrar una sesión de subida: registra la metadata en la BD
+ * y asocia el archivo solo con los nodos que recibieron todos los bloques.
+ * Si hay menos de writeQuorum nodos completos, completa primero los que más bloques tienen
+ * copiándoles los que les faltan desde otro nodo de la sesión.
+ * Si aun así no llega al quórum falla sin borrar nada: la sesión sigue abierta para reenviar
+ * los bloques que falten y reintentar el commit.
+ */
+public class CommitUploadSessionCommand implements StorageCommand<Boolean> {
+
+    private static final Logger LOGGER = Logger.getLogger(CommitUploadSessionCommand.class.getName());
+
+    private final UploadSession session;
+    private final FileRepository fileRepository;
+    private final int writeQuorum;
+
+    // Resultado
+    private final List<Long> successfulNodes = new ArrayList<>();
+
+    public CommitUploadSessionCommand(UploadSession session, FileRepository fileRepository, int writeQuorum) {
+        this.session = session;
+        this.fileRepository = fileRepository;
+        this.writeQuorum = writeQuorum;
+    }
+
+    @Override
+    public Boolean execute() {
+        String uuid = session.getSessionId();
+        String fileIdWithUser = session.getOwnerId() + "-" + uuid;
+
+        try {
+            // 1. Separar nodos completos de los incompletos
+            List<Map.Entry<Long, NodeFileService>> completeNodes = new ArrayList<>();
+            List<Map.Entry<Long, NodeFileService>> incompleteNodes = new ArrayList<>();
+            for (Map.Entry<Long, NodeFileService> entry : session.getNodes()) {
+                if (session.isNodeComplete(entry.getKey())) {
+                    completeNodes.add(entry);
+                } else {
+                    incompleteNodes.add(entry);
+                }
+            }
+
+            // 2. Completar nodos hasta el quórum, empezando por los que tienen más bloques
+            incompleteNodes.sort(Comparator.comparingInt(
+                    (Map.Entry<Long, NodeFileService> entry) -> session.countChunks(entry.getKey())).reversed());
+            Iterator<Map.Entry<Long, NodeFileService>> it = incompleteNodes.iterator();
+            while (completeNodes.size() < writeQuorum && it.hasNext()) {
+                Map.Entry<Long, NodeFileService> entry = it.next();
+                if (fillMissingChunks(entry, fileIdWithUser)) {
+                    completeNodes.add(entry);
+                    it.remove();
+                }
+            }
+
+            if (completeNodes.size() < writeQuorum) {
+                LOGGER.severe("FALLO: solo " + completeNodes.size() + " de " + writeQuorum +
+                        " réplicas requeridas tienen el archivo completo para la sesión " + uuid);
+                return false;
+            }
+
+            // 3. Registrar metadata
+            File file = new File(uuid, session.getFileName(), session.getTotalSize(),
+                    session.getOwnerId(), session.getDirectoryId());
+            if (!fileRepository.uploadFile(file)) {
+                LOGGER.severe("FALLO: No se pudo registrar la metadata en la BD");
+                return false;
+            }
+
+            // 4. Descartar los bloques de los nodos que quedaron incompletos
+            for (Map.Entry<Long, NodeFileService> entry : incompleteNodes) {
+                LOGGER.warning("Node-" + entry.getKey() + " no tiene todos los bloques de " + uuid + ", se descarta");
+                deletePartial(entry, fileIdWithUser);
+            }
+
+            // 5. Registrar cada nodo completo en File_Node (UUID SIN prefijo)
+            for (Map.Entry<Long, NodeFileService> entry : completeNodes) {
+                try {
+                    fileRepository.registerFileNode(uuid, entry.getKey());
+                    successfulNodes.add(entry.getKey());
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Error registrando File_Node para Node-" + entry.getKey(), e);
+                }
+            }
+
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error crítico al cerrar la sesión " + uuid, e);
+            return false;
+        }
+    }
+
+    /**
+     * Copia al nodo los bloques que le faltan desde otro nodo de la sesión que los tenga.
+     * @return true si el nodo quedó completo
+     */
+    private boolean fillMissingChunks(Map.Entry<Long, NodeFileService> target, String fileIdWithUser) {
+        Long targetId = target.getKey();
+        for (int chunk = 0; chunk < session.getTotalChunks(); chunk++) {
+            if (!session.hasChunk(targetId, chunk) && !copyChunk(chunk, target, fileIdWithUser)) {
+                LOGGER.warning("No se pudo completar Node-" + targetId + " con el bloque " + chunk +
+                        " de " + session.getSessionId());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean copyChunk(int chunk, Map.Entry<Long, NodeFileService> target, String fileIdWithUser) {
+        long offset = (long) chunk * session.getChunkSize();
+        int length = session.expectedChunkLength(chunk);
+        for (Map.Entry<Long, NodeFileService> source : session.getNodes()) {
+            if (source == target || !session.hasChunk(source.getKey(), chunk)) {
+                continue;
+            }
+            try {
+                byte[] content = source.getValue().downloadFileRange(fileIdWithUser, offset, length);
+                if (content != null && content.length == length &&
+                        target.getValue().uploadFileChunk(fileIdWithUser, offset, content)) {
+                    session.markChunk(target.getKey(), chunk);
+                    return true;
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Error copiando el bloque " + chunk + " de Node-" + source.getKey() +
+                        " a Node-" + target.getKey(), e);
+            }
+        }
+        return false;
+    }
+
+    private void deletePartial(Map.Entry<Long, NodeFileService> entry, String fileIdWithUser) {
+        try {
+            entry.getValue().deleteFile(fileIdWithUser);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "No se pudo limpiar archivo parcial en Node-" + entry.getKey(), e);
+        }
+    }
+
+    public List<Long> getSuccessfulNodes() {
+        return successfulNodes;
+    }
+}
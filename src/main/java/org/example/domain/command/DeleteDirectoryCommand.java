@@ -2,6 +2,8 @@ package org.example.domain.command;
 
 import org.example.application.service.NodeSelector;
 import org.example.domain.model.File;
+import org.example.domain.model.FileChunk;
+import org.example.domain.model.FileLayout;
 import org.example.domain.port.StorageCommand;
 import org.example.infrastructure.remote.NodeFileService;
 import org.example.infrastructure.repository.FileRepository;
@@ -32,6 +34,9 @@ public class DeleteDirectoryCommand implements StorageCommand<Integer> {
     private final Long directoryId;
     private final Long userId;
 
+    // Archivos que contenía el directorio (para invalidar cachés)
+    private final List<String> deletedFileUuids = new ArrayList<>();
+
     public DeleteDirectoryCommand(Long directoryId, Long userId,
                                   FileRepository fileRepository,
                                   NodeSelector nodeSelector) {
@@ -63,6 +68,12 @@ public class DeleteDirectoryCommand implements StorageCommand<Integer> {
                 return -1;
             }
 
+            if (allFilesInDirectory != null) {
+                for (File file : allFilesInDirectory) {
+                    deletedFileUuids.add(file.getId());
+                }
+            }
+
             // Si no hay archivos, solo eliminar el directorio vacío
             if (allFilesInDirectory == null || allFilesInDirectory.isEmpty()) {
                 LOGGER.info("Directorio está vacío, solo eliminar de BD");
@@ -78,9 +89,25 @@ public class DeleteDirectoryCommand implements StorageCommand<Integer> {
             // PASO 2: OBTENER NODOS PARA CADA ARCHIVO (ANTES de eliminar de BD)
             // ========================================
             Map<String, List<Long>> fileUuidToNodes = new HashMap<>();
+            Map<String, FileLayout> fileUuidToLayout = new HashMap<>();
+            Map<String, List<FileChunk>> fileUuidToChunks = new HashMap<>();
 
             for (File file : allFilesInDirectory) {
                 try {
+                    FileLayout layout = fileRepository.findFileLayout(file.getId());
+                    if (layout != null) {
+                        fileUuidToLayout.put(file.getId(), layout);
+                        LOGGER.fine("Archivo " + file.getId() + " en " + layout.getShardNodes().size() + " shards");
+                        continue;
+                    }
+
+                    List<FileChunk> chunks = fileRepository.findFileChunks(file.getId());
+                    if (!chunks.isEmpty()) {
+                        fileUuidToChunks.put(file.getId(), chunks);
+                        LOGGER.fine("Archivo " + file.getId() + " en " + chunks.size() + " chunks");
+                        continue;
+                    }
+
                     List<Long> nodeIds = fileRepository.getNodesByFile(file.getId());
                     fileUuidToNodes.put(file.getId(), nodeIds);
                     LOGGER.fine("Archivo " + file.getId() + " en " + nodeIds.size() + " nodos");
@@ -101,12 +128,36 @@ public class DeleteDirectoryCommand implements StorageCommand<Integer> {
                     LOGGER.info("Procesando archivo: " + file.getName() +
                             " (uuid=" + fileUuid + ")");
 
+                    FileLayout layout = fileUuidToLayout.get(fileUuid);
+                    if (layout != null) {
+                        int deletedShards = DeleteFileCommand.deleteShards(file, layout, nodeSelector);
+                        if (deletedShards > 0 || layout.getShardNodes().isEmpty()) {
+                            totalFilesDeletedFromNodes++;
+                        }
+                        continue;
+                    }
+
+                    List<FileChunk> chunks = fileUuidToChunks.get(fileUuid);
+                    if (chunks != null) {
+                        DeleteFileCommand.releaseChunks(DeleteFileCommand.distinctChunks(chunks), fileRepository, nodeSelector);
+                        totalFilesDeletedFromNodes++;
+                        continue;
+                    }
+
                     if (nodeIds == null || nodeIds.isEmpty()) {
                         LOGGER.fine("Archivo no estaba en ningún nodo");
                         totalFilesDeletedFromNodes++;
                         continue;
                     }
 
+                    // Archivos deduplicados: el contenido solo se borra al soltar la última referencia
+                    String storageIdWithUser = DeleteFileCommand.releaseContent(file, fileRepository);
+                    if (storageIdWithUser == null) {
+                        LOGGER.fine("Contenido compartido con otros archivos, no se borra de los nodos");
+                        totalFilesDeletedFromNodes++;
+                        continue;
+                    }
+
                     int successfulDeletions = 0;
                     int failedDeletions = 0;
 
@@ -120,11 +171,10 @@ public class DeleteDirectoryCommand implements StorageCommand<Integer> {
                                 continue;
                             }
 
-                            String fileIdWithUser = file.getOwnerId() + "-" + fileUuid;
-                            LOGGER.info("→ RMI: deleteFile('" + fileIdWithUser +
+                            LOGGER.info("→ RMI: deleteFile('" + storageIdWithUser +
                                     "') en Node-" + nodeId);
 
-                            boolean deleted = stub.deleteFile(fileIdWithUser);
+                            boolean deleted = stub.deleteFile(storageIdWithUser);
 
                             if (deleted) {
                                 successfulDeletions++;
@@ -170,4 +220,8 @@ public class DeleteDirectoryCommand implements StorageCommand<Integer> {
             return -1;
         }
     }
-}
\ No newline at end of file
+
+    public List<String> getDeletedFileUuids() {
+        return deletedFileUuids;
+    }
+}
@@ -1,12 +1,19 @@
 package org.example.domain.command;
 
 import org.example.application.service.NodeSelector;
+import org.example.domain.model.ContentBlob;
 import org.example.domain.model.File;
+import org.example.domain.model.FileChunk;
+import org.example.domain.model.FileLayout;
 import org.example.domain.port.StorageCommand;
 import org.example.infrastructure.remote.NodeFileService;
 import org.example.infrastructure.repository.FileRepository;
 
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,6 +44,31 @@ public class DeleteFileCommand implements StorageCommand<Boolean> {
                 return false;
             }
 
+            // Archivos con erasure coding: eliminar cada shard de su nodo
+            FileLayout layout = fileRepository.findFileLayout(fileUuid);
+            if (layout != null) {
+                int deletedShards = deleteShards(file, layout, nodeSelector);
+                LOGGER.info("DeleteFileCommand completado: " + deletedShards + " de " +
+                        layout.getShardNodes().size() + " shards eliminados");
+                return deletedShards > 0 || layout.getShardNodes().isEmpty();
+            }
+
+            // Archivos por chunks: soltar cada chunk; solo se borran los que quedan sin referencias
+            List<FileChunk> chunks = fileRepository.findFileChunks(fileUuid);
+            if (!chunks.isEmpty()) {
+                int deletedChunks = releaseChunks(distinctChunks(chunks), fileRepository, nodeSelector);
+                LOGGER.info("DeleteFileCommand completado: " + deletedChunks + " chunk(s) sin referencias eliminados de los nodos");
+                return true;
+            }
+
+            // Archivos deduplicados: el contenido solo se borra al soltar la última referencia
+            String storageIdWithUser = releaseContent(file, fileRepository);
+            if (storageIdWithUser == null) {
+                LOGGER.info("DeleteFileCommand: el contenido de " + fileUuid +
+                        " sigue referenciado por otros archivos, no se borra de los nodos");
+                return true;
+            }
+
             long fileSize = file.getSize();
             int successfulDeletions = 0;
             int failedDeletions = 0;
@@ -51,9 +83,8 @@ public class DeleteFileCommand implements StorageCommand<Boolean> {
                         continue;
                     }
 
-                    // Construir el fileId con prefijo de usuario (mismo formato usado en upload)
-                    String fileIdWithUser = file.getOwnerId() + "-" + fileUuid;
-                    boolean deleted = stub.deleteFile(fileIdWithUser);
+                    // fileId con prefijo de usuario (mismo formato usado en upload)
+                    boolean deleted = stub.deleteFile(storageIdWithUser);
 
                     if (deleted) {
                         successfulDeletions++;
@@ -85,4 +116,94 @@ public class DeleteFileCommand implements StorageCommand<Boolean> {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Suelta la referencia del archivo a su contenido.
+     * @return id (con prefijo de usuario) del contenido a borrar de los nodos,
+     *         o null si otros archivos siguen usando el mismo contenido
+     */
+    static String releaseContent(File file, FileRepository fileRepository) throws SQLException {
+        ContentBlob blob = fileRepository.findBlobByFile(file.getId());
+        if (blob == null) {
+            return file.getOwnerId() + "-" + file.getId();
+        }
+        return fileRepository.releaseBlob(file.getId(), blob.getHash()) ? blob.getStorageIdWithOwner() : null;
+    }
+
+    /**
+     * Chunks de un archivo sin repetir (un archivo tiene una referencia por chunk distinto).
+     */
+    static Collection<FileChunk> distinctChunks(List<FileChunk> chunks) {
+        Map<String, FileChunk> distinct = new LinkedHashMap<>();
+        for (FileChunk chunk : chunks) {
+            distinct.putIfAbsent(chunk.getHash(), chunk);
+        }
+        return distinct.values();
+    }
+
+    /**
+     * Suelta una referencia a cada chunk y borra de los nodos los que quedan sin referencias.
+     * @return cantidad de chunks eliminados de los nodos
+     */
+    static int releaseChunks(Collection<FileChunk> chunks, FileRepository fileRepository, NodeSelector nodeSelector) {
+        int deletedChunks = 0;
+
+        for (FileChunk chunk : chunks) {
+            try {
+                if (!fileRepository.releaseChunk(chunk.getHash())) {
+                    continue; // Otros archivos siguen usando el chunk
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error liberando chunk " + chunk.getHash(), e);
+                continue;
+            }
+
+            for (Long nodeId : chunk.getNodeIds()) {
+                try {
+                    NodeFileService stub = nodeSelector.getStubById(nodeId);
+                    if (stub != null && stub.deleteFile(FileChunk.storageName(chunk.getHash()))) {
+                        nodeSelector.recordFileDeletion(nodeId, chunk.getSize());
+                    } else {
+                        LOGGER.warning("Fallo al eliminar chunk " + chunk.getHash() + " de Node-" + nodeId);
+                    }
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Error eliminando chunk " + chunk.getHash() + " de Node-" + nodeId, e);
+                }
+            }
+            deletedChunks++;
+        }
+
+        return deletedChunks;
+    }
+
+    /**
+     * Elimina de los nodos los shards de un archivo con erasure coding.
+     * @return cantidad de shards eliminados
+     */
+    static int deleteShards(File file, FileLayout layout, NodeSelector nodeSelector) {
+        String fileIdWithUser = file.getOwnerId() + "-" + file.getId();
+        int deletedShards = 0;
+
+        for (Map.Entry<Integer, Long> shard : layout.getShardNodes().entrySet()) {
+            Long nodeId = shard.getValue();
+            try {
+                NodeFileService stub = nodeSelector.getStubById(nodeId);
+                if (stub == null) {
+                    LOGGER.warning("DeleteFileCommand: no se encontró stub para Node-" + nodeId);
+                    continue;
+                }
+
+                if (stub.deleteFile(FileLayout.shardName(fileIdWithUser, shard.getKey()))) {
+                    deletedShards++;
+                    nodeSelector.recordFileDeletion(nodeId, layout.getShardSize());
+                } else {
+                    LOGGER.warning("Fallo al eliminar shard " + shard.getKey() + " de Node-" + nodeId);
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Error eliminando shard " + shard.getKey() + " de Node-" + nodeId, e);
+            }
+        }
+
+        return deletedShards;
+    }
+}
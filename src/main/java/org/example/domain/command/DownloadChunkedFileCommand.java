@@ -0,0 +1,134 @@
+package org.example.domain.command;
+
+import org.example.application.service.NodeSelector;
+import org.example.domain.model.File;
+import org.example.domain.model.FileChunk;
+import org.example.domain.port.AssembledDownload;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para descargar un archivo almacenado por chunks.
+ * Lee en paralelo cada chunk distinto (probando sus nodos en orden), verifica su SHA-256
+ * y arma el contenido en el orden registrado.
+ */
+public class DownloadChunkedFileCommand implements AssembledDownload {
+
+    private static final Logger LOGGER = Logger.getLogger(DownloadChunkedFileCommand.class.getName());
+
+    private final String fileUuid;
+    private final List<FileChunk> chunks;
+    private final FileRepository fileRepository;
+    private final NodeSelector nodeSelector;
+    private final Executor chunkExecutor;
+
+    // Resultado de la descarga
+    private byte[] content;
+    private File metadata;
+
+    public DownloadChunkedFileCommand(String fileUuid, List<FileChunk> chunks, FileRepository fileRepository,
+                                      NodeSelector nodeSelector, Executor chunkExecutor) {
+        this.fileUuid = fileUuid;
+        this.chunks = chunks;
+        this.fileRepository = fileRepository;
+        this.nodeSelector = nodeSelector;
+        this.chunkExecutor = chunkExecutor;
+    }
+
+    @Override
+    public Boolean execute() {
+        try {
+            // 1. Obtener metadatos desde la DB
+            metadata = fileRepository.findByUuid(fileUuid);
+            if (metadata == null) {
+                LOGGER.warning("DownloadChunkedFileCommand: no existe metadata para uuid=" + fileUuid);
+                return false;
+            }
+
+            // 2. Leer cada chunk distinto una sola vez, en paralelo
+            Map<String, CompletableFuture<byte[]>> reads = new HashMap<>();
+            for (FileChunk chunk : chunks) {
+                reads.computeIfAbsent(chunk.getHash(),
+                        hash -> CompletableFuture.supplyAsync(() -> readChunk(chunk, nodeSelector), chunkExecutor));
+            }
+
+            // 3. Armar el contenido en orden
+            byte[] assembled = new byte[(int) metadata.getSize()];
+            int offset = 0;
+            for (FileChunk chunk : chunks) {
+                byte[] data = reads.get(chunk.getHash()).join();
+                if (data == null) {
+                    LOGGER.severe("DownloadChunkedFileCommand: chunk " + chunk.getHash() + " no disponible en ningún nodo");
+                    return false;
+                }
+                if (offset + data.length > assembled.length) {
+                    LOGGER.severe("DownloadChunkedFileCommand: los chunks de " + fileUuid + " exceden el tamaño del archivo");
+                    return false;
+                }
+                System.arraycopy(data, 0, assembled, offset, data.length);
+                offset += data.length;
+            }
+
+            if (offset != assembled.length) {
+                LOGGER.severe("DownloadChunkedFileCommand: los chunks de " + fileUuid + " suman " + offset +
+                        " bytes, se esperaban " + assembled.length);
+                return false;
+            }
+
+            content = assembled;
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error en DownloadChunkedFileCommand para " + fileUuid, e);
+            content = null;
+            return false;
+        }
+    }
+
+    /**
+     * Lee un chunk probando sus nodos en orden; descarta copias corruptas.
+     * @return null si ningún nodo tiene una copia válida
+     */
+    static byte[] readChunk(FileChunk chunk, NodeSelector nodeSelector) {
+        for (Long nodeId : chunk.getNodeIds()) {
+            NodeFileService stub = nodeSelector.getStubById(nodeId);
+            if (stub == null) continue;
+
+            try {
+                byte[] data = stub.downloadFile(FileChunk.storageName(chunk.getHash()));
+                if (data != null && chunk.getHash().equals(sha256Hex(data))) {
+                    return data;
+                }
+                LOGGER.warning("✗ Node-" + nodeId + ": chunk " + chunk.getHash() + " ausente o corrupto");
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "✗ Node-" + nodeId + ": EXCEPCIÓN leyendo chunk " + chunk.getHash(), e);
+            }
+        }
+        return null;
+    }
+
+    private static String sha256Hex(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    // Getters para recuperar el resultado
+    @Override
+    public byte[] getContent() {
+        return content;
+    }
+
+    @Override
+    public File getMetadata() {
+        return metadata;
+    }
+}
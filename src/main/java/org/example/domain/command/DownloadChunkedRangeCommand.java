@@ -0,0 +1,137 @@
+package org.example.domain.command;
+
+import org.example.application.service.NodeSelector;
+import org.example.domain.model.File;
+import org.example.domain.model.FileChunk;
+import org.example.domain.port.AssembledDownload;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para leer un rango [offset, offset + length) de un archivo almacenado por chunks.
+ * Solo descarga (y verifica) los chunks que se solapan con el rango; el contenido resultante
+ * es el rango recortado al tamaño del archivo.
+ */
+public class DownloadChunkedRangeCommand implements AssembledDownload {
+
+    private static final Logger LOGGER = Logger.getLogger(DownloadChunkedRangeCommand.class.getName());
+
+    private final String fileUuid;
+    private final List<FileChunk> chunks;
+    private final FileRepository fileRepository;
+    private final NodeSelector nodeSelector;
+    private final Executor chunkExecutor;
+    private final long offset;
+    private final int length;
+
+    // Resultado de la descarga
+    private byte[] content;
+    private File metadata;
+    private int chunksRead;
+
+    public DownloadChunkedRangeCommand(String fileUuid, List<FileChunk> chunks, FileRepository fileRepository,
+                                       NodeSelector nodeSelector, Executor chunkExecutor, long offset, int length) {
+        this.fileUuid = fileUuid;
+        this.chunks = chunks;
+        this.fileRepository = fileRepository;
+        this.nodeSelector = nodeSelector;
+        this.chunkExecutor = chunkExecutor;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public Boolean execute() {
+        try {
+            // 1. Obtener metadatos desde la DB
+            metadata = fileRepository.findByUuid(fileUuid);
+            if (metadata == null) {
+                LOGGER.warning("DownloadChunkedRangeCommand: no existe metadata para uuid=" + fileUuid);
+                return false;
+            }
+
+            if (offset >= metadata.getSize()) {
+                content = new byte[0];
+                return true;
+            }
+            long end = offset + Math.min(length, metadata.getSize() - offset);
+
+            // 2. Chunks que se solapan con el rango, con su posición en el archivo
+            List<FileChunk> overlapping = new ArrayList<>();
+            List<Long> starts = new ArrayList<>();
+            long position = 0;
+            for (FileChunk chunk : chunks) {
+                if (position >= end) {
+                    break;
+                }
+                if (position + chunk.getSize() > offset) {
+                    overlapping.add(chunk);
+                    starts.add(position);
+                }
+                position += chunk.getSize();
+            }
+
+            // 3. Leer cada chunk distinto una sola vez, en paralelo
+            Map<String, CompletableFuture<byte[]>> reads = new HashMap<>();
+            for (FileChunk chunk : overlapping) {
+                reads.computeIfAbsent(chunk.getHash(), hash -> CompletableFuture.supplyAsync(
+                        () -> DownloadChunkedFileCommand.readChunk(chunk, nodeSelector), chunkExecutor));
+            }
+            chunksRead = reads.size();
+
+            // 4. Copiar la parte de cada chunk que cae dentro del rango
+            byte[] range = new byte[(int) (end - offset)];
+            for (int i = 0; i < overlapping.size(); i++) {
+                FileChunk chunk = overlapping.get(i);
+                byte[] data = reads.get(chunk.getHash()).join();
+                if (data == null || data.length != chunk.getSize()) {
+                    LOGGER.severe("DownloadChunkedRangeCommand: chunk " + chunk.getHash() + " no disponible en ningún nodo");
+                    return false;
+                }
+                long start = starts.get(i);
+                long from = Math.max(offset, start);
+                long to = Math.min(end, start + data.length);
+                System.arraycopy(data, (int) (from - start), range, (int) (from - offset), (int) (to - from));
+            }
+
+            if (position < end) {
+                LOGGER.severe("DownloadChunkedRangeCommand: los chunks de " + fileUuid + " no cubren el rango pedido");
+                return false;
+            }
+
+            content = range;
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error en DownloadChunkedRangeCommand para " + fileUuid, e);
+            content = null;
+            return false;
+        }
+    }
+
+    // Getters para recuperar el resultado
+    @Override
+    public byte[] getContent() {
+        return content;
+    }
+
+    @Override
+    public File getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Chunks distintos descargados para servir el rango.
+     */
+    public int getChunksRead() {
+        return chunksRead;
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.domain.command;
+
+import org.example.application.service.NodeSelector;
+import org.example.domain.erasure.ReedSolomonCodec;
+import org.example.domain.model.File;
+import org.example.domain.model.FileLayout;
+import org.example.domain.port.AssembledDownload;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para descargar un archivo almacenado con erasure coding.
+ * Primero lee en paralelo los k shards de datos; si alguno falta (nodo caído, shard corrupto)
+ * pide shards de paridad hasta juntar k y reconstruye el contenido (lectura degradada).
+ */
+public class DownloadErasureCodedCommand implements AssembledDownload {
+
+    private static final Logger LOGGER = Logger.getLogger(DownloadErasureCodedCommand.class.getName());
+
+    private static final long SHARD_TIMEOUT_SECONDS = 30;
+
+    private final FileLayout layout;
+    private final FileRepository fileRepository;
+    private final NodeSelector nodeSelector;
+    private final Executor shardExecutor;
+    private final String fileUuid;
+
+    // Resultado de la descarga
+    private byte[] content;
+    private File metadata;
+    private int rebuiltShards;
+
+    public DownloadErasureCodedCommand(FileLayout layout, FileRepository fileRepository,
+                                       NodeSelector nodeSelector, Executor shardExecutor) {
+        this.layout = layout;
+        this.fileRepository = fileRepository;
+        this.nodeSelector = nodeSelector;
+        this.shardExecutor = shardExecutor;
+        this.fileUuid = layout.getFileId();
+    }
+
+    @Override
+    public Boolean execute() {
+        try {
+            // 1. Obtener metadatos desde la DB
+            metadata = fileRepository.findByUuid(fileUuid);
+            if (metadata == null) {
+                LOGGER.warning("DownloadErasureCodedCommand: no existe metadata para uuid=" + fileUuid);
+                return false;
+            }
+
+            int dataShards = layout.getDataShards();
+            byte[][] shards = new byte[layout.getTotalShards()][];
+
+            // 2. Leer los shards de datos
+            List<Integer> pending = new ArrayList<>();
+            for (int i = 0; i < dataShards; i++) {
+                pending.add(i);
+            }
+            int available = readShards(pending, shards);
+
+            // 3. Lectura degradada: completar con shards de paridad
+            int nextParity = dataShards;
+            while (available < dataShards && nextParity < shards.length) {
+                pending.clear();
+                for (int needed = dataShards - available; needed > 0 && nextParity < shards.length; needed--) {
+                    pending.add(nextParity++);
+                }
+                available += readShards(pending, shards);
+            }
+
+            if (available < dataShards) {
+                LOGGER.severe("DownloadErasureCodedCommand: solo " + available + " de " + dataShards +
+                        " shards disponibles para " + fileUuid + ", no se puede reconstruir");
+                return false;
+            }
+
+            for (int i = 0; i < dataShards; i++) {
+                if (shards[i] == null) rebuiltShards++;
+            }
+
+            // 4. Decodificar
+            ReedSolomonCodec codec = new ReedSolomonCodec(dataShards, layout.getParityShards());
+            content = codec.decode(shards, (int) metadata.getSize());
+
+            if (rebuiltShards > 0) {
+                LOGGER.warning("Lectura degradada de " + fileUuid + ": " + rebuiltShards +
+                        " shard(s) de datos reconstruidos desde paridad");
+            }
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error en DownloadErasureCodedCommand para " + fileUuid, e);
+            content = null;
+            return false;
+        }
+    }
+
+    /**
+     * Lee en paralelo los shards indicados y los deja en shards[i].
+     * @return cuántos shards válidos se leyeron
+     */
+    private int readShards(List<Integer> indices, byte[][] shards) {
+        List<CompletableFuture<byte[]>> reads = new ArrayList<>();
+        for (int index : indices) {
+            reads.add(CompletableFuture
+                    .supplyAsync(() -> readShard(index), shardExecutor)
+                    .orTimeout(SHARD_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .exceptionally(error -> {
+                        LOGGER.log(Level.WARNING, "✗ Shard " + index + " de " + fileUuid + " no disponible", error);
+                        return null;
+                    }));
+        }
+
+        int read = 0;
+        for (int i = 0; i < indices.size(); i++) {
+            byte[] shard = reads.get(i).join();
+            if (shard != null && shard.length == layout.getShardSize()) {
+                shards[indices.get(i)] = shard;
+                read++;
+            } else if (shard != null) {
+                LOGGER.warning("✗ Shard " + indices.get(i) + " de " + fileUuid + " con tamaño inválido: " + shard.length);
+            }
+        }
+        return read;
+    }
+
+    private byte[] readShard(int shardIndex) {
+        Long nodeId = layout.getShardNodes().get(shardIndex);
+        if (nodeId == null) {
+            return null; // El shard no llegó a almacenarse
+        }
+
+        NodeFileService stub = nodeSelector.getStubById(nodeId);
+        if (stub == null) {
+            LOGGER.warning("No se encontró stub para Node-" + nodeId);
+            return null;
+        }
+
+        try {
+            // Las lecturas usan el UUID sin prefijo de usuario
+            return stub.downloadFile(FileLayout.shardName(fileUuid, shardIndex));
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // Getters para recuperar el resultado
+    @Override
+    public byte[] getContent() {
+        return content;
+    }
+
+    @Override
+    public File getMetadata() {
+        return metadata;
+    }
+
+    public int getRebuiltShards() {
+        return rebuiltShards;
+    }
+}
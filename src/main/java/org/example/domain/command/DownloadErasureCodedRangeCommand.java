@@ -0,0 +1,165 @@
+package org.example.domain.command;
+
+import org.example.application.service.NodeSelector;
+import org.example.domain.model.File;
+import org.example.domain.model.FileLayout;
+import org.example.domain.port.AssembledDownload;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para leer un rango [offset, offset + length) de un archivo con erasure coding.
+ * Los shards de datos guardan el contenido en tramos contiguos de shardSize bytes, así que el rango
+ * se pide directamente a los nodos de los shards de datos que lo cubren, en paralelo.
+ * Si alguno de esos shards no responde, se hace la lectura degradada completa
+ * (DownloadErasureCodedCommand) y se recorta el rango.
+ */
+public class DownloadErasureCodedRangeCommand implements AssembledDownload {
+
+    private static final Logger LOGGER = Logger.getLogger(DownloadErasureCodedRangeCommand.class.getName());
+
+    private static final long SHARD_TIMEOUT_SECONDS = 30;
+
+    private final FileLayout layout;
+    private final FileRepository fileRepository;
+    private final NodeSelector nodeSelector;
+    private final Executor shardExecutor;
+    private final String fileUuid;
+    private final long offset;
+    private final int length;
+
+    // Resultado de la descarga
+    private byte[] content;
+    private File metadata;
+    private boolean degraded;
+
+    public DownloadErasureCodedRangeCommand(FileLayout layout, FileRepository fileRepository, NodeSelector nodeSelector,
+                                            Executor shardExecutor, long offset, int length) {
+        this.layout = layout;
+        this.fileRepository = fileRepository;
+        this.nodeSelector = nodeSelector;
+        this.shardExecutor = shardExecutor;
+        this.fileUuid = layout.getFileId();
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public Boolean execute() {
+        try {
+            // 1. Obtener metadatos desde la DB
+            metadata = fileRepository.findByUuid(fileUuid);
+            if (metadata == null) {
+                LOGGER.warning("DownloadErasureCodedRangeCommand: no existe metadata para uuid=" + fileUuid);
+                return false;
+            }
+
+            if (offset >= metadata.getSize()) {
+                content = new byte[0];
+                return true;
+            }
+            long end = offset + Math.min(length, metadata.getSize() - offset);
+
+            // 2. Leer de cada shard de datos solo la parte que cae dentro del rango
+            long shardSize = layout.getShardSize();
+            byte[] range = new byte[(int) (end - offset)];
+            List<CompletableFuture<Boolean>> reads = new ArrayList<>();
+            for (int shard = (int) (offset / shardSize); shard <= (end - 1) / shardSize; shard++) {
+                int index = shard;
+                long from = Math.max(offset, index * shardSize);
+                long to = Math.min(end, (index + 1) * shardSize);
+                reads.add(CompletableFuture
+                        .supplyAsync(() -> readShardRange(index, from - index * shardSize, (int) (to - from),
+                                range, (int) (from - offset)), shardExecutor)
+                        .orTimeout(SHARD_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                        .exceptionally(error -> {
+                            LOGGER.log(Level.WARNING, "✗ Shard " + index + " de " + fileUuid + " no disponible", error);
+                            return false;
+                        }));
+            }
+
+            boolean complete = true;
+            for (CompletableFuture<Boolean> read : reads) {
+                complete &= read.join();
+            }
+            if (complete) {
+                content = range;
+                return true;
+            }
+
+            // 3. Lectura degradada: reconstruir el archivo con paridad y recortar
+            degraded = true;
+            LOGGER.warning("Rango de " + fileUuid + " con shards de datos no disponibles, reconstruyendo el archivo");
+            DownloadErasureCodedCommand full = new DownloadErasureCodedCommand(layout, fileRepository, nodeSelector, shardExecutor);
+            if (!Boolean.TRUE.equals(full.execute())) {
+                return false;
+            }
+            content = Arrays.copyOfRange(full.getContent(), (int) offset, (int) end);
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error en DownloadErasureCodedRangeCommand para " + fileUuid, e);
+            content = null;
+            return false;
+        }
+    }
+
+    /**
+     * Lee length bytes del shard desde shardOffset y los copia en target[targetOffset].
+     * @return false si el shard no está disponible o devolvió menos bytes
+     */
+    private boolean readShardRange(int shardIndex, long shardOffset, int length, byte[] target, int targetOffset) {
+        Long nodeId = layout.getShardNodes().get(shardIndex);
+        if (nodeId == null) {
+            return false; // El shard no llegó a almacenarse
+        }
+
+        NodeFileService stub = nodeSelector.getStubById(nodeId);
+        if (stub == null) {
+            LOGGER.warning("No se encontró stub para Node-" + nodeId);
+            return false;
+        }
+
+        byte[] data;
+        try {
+            // Las lecturas usan el UUID sin prefijo de usuario
+            data = stub.downloadFileRange(FileLayout.shardName(fileUuid, shardIndex), shardOffset, length);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+        if (data == null || data.length != length) {
+            LOGGER.warning("✗ Shard " + shardIndex + " de " + fileUuid + " incompleto en Node-" + nodeId);
+            return false;
+        }
+        System.arraycopy(data, 0, target, targetOffset, length);
+        return true;
+    }
+
+    // Getters para recuperar el resultado
+    @Override
+    public byte[] getContent() {
+        return content;
+    }
+
+    @Override
+    public File getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * true si hubo que reconstruir el archivo completo para servir el rango.
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+}
@@ -1,14 +1,18 @@
 package org.example.domain.command;
 
+import org.example.application.cache.DiskContentCache;
+import org.example.domain.compression.ContentCompressor;
 import org.example.domain.model.File;
-import org.example.domain.port.StorageCommand;
+import org.example.domain.model.FileCompression;
+import org.example.domain.port.AssembledDownload;
 import org.example.infrastructure.remote.NodeFileService;
 import org.example.infrastructure.repository.FileRepository;
 
-public class DownloadFileCommand implements StorageCommand {
+public class DownloadFileCommand implements AssembledDownload {
 
     private final NodeFileService node;
     private final FileRepository fileRepository;
+    private final DiskContentCache diskCache;
     private final String fileUuid;
 
     // Resultado de la descarga
@@ -16,8 +20,13 @@ public class DownloadFileCommand implements StorageCommand {
     private File metadata;
 
     public DownloadFileCommand( NodeFileService node, FileRepository fileRepository, String fileUuid) {
+        this(node, fileRepository, null, fileUuid);
+    }
+
+    public DownloadFileCommand(NodeFileService node, FileRepository fileRepository, DiskContentCache diskCache, String fileUuid) {
         this.node = node;
         this.fileRepository = fileRepository;
+        this.diskCache = diskCache;
         this.fileUuid = fileUuid;
     }
 
@@ -31,11 +40,24 @@ public class DownloadFileCommand implements StorageCommand {
                 return false;
             }
 
-            // 2. Descargar bytes desde el nodo
-            content = node.downloadFile(fileUuid);
+            // 2. Caché en disco o, si no está, bytes desde el nodo (los archivos deduplicados se leen del blob compartido)
+            String storageUuid = fileRepository.resolveStorageUuid(fileUuid);
+            content = diskCache != null ? diskCache.get(storageUuid) : null;
             if (content == null) {
-                System.err.println("DownloadFileCommand: no se pudo descargar contenido para uuid=" + fileUuid);
-                return false;
+                content = node.downloadFile(storageUuid);
+                if (content == null) {
+                    System.err.println("DownloadFileCommand: no se pudo descargar contenido para uuid=" + fileUuid);
+                    return false;
+                }
+                if (diskCache != null) {
+                    diskCache.putAsync(storageUuid, content);
+                }
+            }
+
+            // 3. Descomprimir si se guardó comprimido
+            FileCompression compression = fileRepository.findFileCompression(fileUuid);
+            if (compression != null) {
+                content = ContentCompressor.decompress(compression.getCodec(), content, metadata.getSize());
             }
 
             System.out.println("Archivo descargado: uuid=" + fileUuid + ", name=" + metadata.getName() + ", size=" + content.length);
@@ -48,10 +70,12 @@ public class DownloadFileCommand implements StorageCommand {
     }
 
     // Getters para recuperar el resultado
+    @Override
     public byte[] getContent() {
         return content;
     }
 
+    @Override
     public File getMetadata() {
         return metadata;
     }
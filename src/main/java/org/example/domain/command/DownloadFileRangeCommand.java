@@ -0,0 +1,88 @@
+package org.example.domain.command;
+
+import org.example.domain.model.File;
+import org.example.domain.port.StorageCommand;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comando para leer un rango de bytes [offset, offset + length) de un archivo.
+ * Permite reanudar descargas y traer partes de un archivo en paralelo.
+ * Prueba las réplicas en el orden recibido (el de NodeSelector.rankReplicasForRead) hasta que una
+ * devuelve el rango; una réplica con el circuito abierto falla al instante y se pasa a la siguiente.
+ */
+public class DownloadFileRangeCommand implements StorageCommand<Boolean> {
+
+    private final List<Map.Entry<Long, NodeFileService>> replicas;
+    private final FileRepository fileRepository;
+    private final String fileUuid;
+    private final long offset;
+    private final int length;
+
+    // Resultado de la descarga
+    private byte[] content;
+    private File metadata;
+
+    public DownloadFileRangeCommand(List<Map.Entry<Long, NodeFileService>> replicas, FileRepository fileRepository,
+                                    String fileUuid, long offset, int length) {
+        this.replicas = replicas;
+        this.fileRepository = fileRepository;
+        this.fileUuid = fileUuid;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public Boolean execute() {
+        try {
+            // 1. Obtener metadatos desde la DB
+            metadata = fileRepository.findByUuid(fileUuid);
+            if (metadata == null) {
+                System.err.println("DownloadFileRangeCommand: no existe metadata para uuid=" + fileUuid);
+                return false;
+            }
+
+            // 2. Rango fuera del archivo: respuesta vacía
+            if (offset >= metadata.getSize()) {
+                content = new byte[0];
+                return true;
+            }
+
+            // 3. Ajustar el rango al tamaño real y pedirlo a las réplicas en orden (failover)
+            int effectiveLength = (int) Math.min(length, metadata.getSize() - offset);
+            String storageUuid = fileRepository.resolveStorageUuid(fileUuid);
+            for (Map.Entry<Long, NodeFileService> replica : replicas) {
+                try {
+                    content = replica.getValue().downloadFileRange(storageUuid, offset, effectiveLength);
+                } catch (Exception e) {
+                    System.err.println("DownloadFileRangeCommand: Node-" + replica.getKey() + " falló - " + e.getMessage());
+                    content = null;
+                }
+                if (content != null) {
+                    System.out.println("Rango descargado de Node-" + replica.getKey() + ": uuid=" + fileUuid +
+                            ", offset=" + offset + ", size=" + content.length);
+                    return true;
+                }
+            }
+
+            System.err.println("DownloadFileRangeCommand: no se pudo descargar rango para uuid=" + fileUuid);
+            return false;
+
+        } catch (Exception e) {
+            System.err.println("Error en DownloadFileRangeCommand: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Getters para recuperar el resultado
+    public byte[] getContent() {
+        return content;
+    }
+
+    public File getMetadata() {
+        return metadata;
+    }
+}
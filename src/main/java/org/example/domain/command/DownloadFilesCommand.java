@@ -1,7 +1,10 @@
 package org.example.domain.command;
 
 import org.example.application.Dto.FileDTO;
+import org.example.application.service.NodeSelector;
+import org.example.domain.compression.ContentCompressor;
 import org.example.domain.model.File;
+import org.example.domain.model.FileCompression;
 import org.example.domain.port.StorageCommand;
 import org.example.infrastructure.remote.NodeFileService;
 import org.example.infrastructure.repository.FileRepository;
@@ -9,16 +12,21 @@ import org.example.infrastructure.repository.FileRepository;
 import java.util.ArrayList;
 import java.util.List;
 
-public class DownloadFilesCommand implements StorageCommand {
+public class DownloadFilesCommand implements StorageCommand<Boolean> {
 
+    private final Long nodeId;
     private final NodeFileService node;
+    private final NodeSelector nodeSelector;
     private final FileRepository fileRepository;
     private final List<String> fileUuids;
 
     private final List<FileDTO> results = new ArrayList<>();
 
-    public DownloadFilesCommand(NodeFileService node, FileRepository fileRepository, List<String> fileUuids) {
+    public DownloadFilesCommand(Long nodeId, NodeFileService node, NodeSelector nodeSelector,
+                                FileRepository fileRepository, List<String> fileUuids) {
+        this.nodeId = nodeId;
         this.node = node;
+        this.nodeSelector = nodeSelector;
         this.fileRepository = fileRepository;
         this.fileUuids = fileUuids;
     }
@@ -27,7 +35,11 @@ public class DownloadFilesCommand implements StorageCommand {
     public Boolean execute() {
         try {
             // 1. Descargar todos los contenidos en bloque desde el nodo
-            List<byte[]> contents = node.downloadFiles(fileUuids);
+            List<String> storageUuids = new ArrayList<>();
+            for (String uuid : fileUuids) {
+                storageUuids.add(fileRepository.resolveStorageUuid(uuid));
+            }
+            List<byte[]> contents = readFromNode(storageUuids);
 
             // 2. Reconstruir los DTOs
             for (int i = 0; i < fileUuids.size(); i++) {
@@ -35,14 +47,19 @@ public class DownloadFilesCommand implements StorageCommand {
                 byte[] content = (i < contents.size()) ? contents.get(i) : null;
 
                 File metadata = fileRepository.findByUuid(uuid);
-                String name = (metadata != null) ? metadata.getName() : "ERROR";
 
-                if (content == null) {
+                if (content == null || metadata == null) {
                     System.err.println("DownloadFilesCommand: no se pudo descargar contenido para uuid=" + uuid);
-                    results.add(new FileDTO("ERROR", new byte[0]));
-                } else {
-                    results.add(new FileDTO(name, content));
+                    results.add(null);
+                    continue;
+                }
+
+                // Descomprimir si se guardó comprimido
+                FileCompression compression = fileRepository.findFileCompression(uuid);
+                if (compression != null) {
+                    content = ContentCompressor.decompress(compression.getCodec(), content, metadata.getSize());
                 }
+                results.add(new FileDTO(metadata.getName(), content));
             }
 
             return true;
@@ -53,6 +70,29 @@ public class DownloadFilesCommand implements StorageCommand {
         }
     }
 
+    /**
+     * Lectura en bloque, medida para las métricas de lectura del nodo.
+     */
+    private List<byte[]> readFromNode(List<String> storageUuids) throws Exception {
+        nodeSelector.beginRead(nodeId);
+        long start = System.nanoTime();
+        long bytes = 0;
+        boolean success = false;
+        try {
+            List<byte[]> contents = node.downloadFiles(storageUuids);
+            for (byte[] content : contents) {
+                bytes += (content != null) ? content.length : 0;
+            }
+            success = true;
+            return contents;
+        } finally {
+            nodeSelector.endRead(nodeId, bytes, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Resultados en el mismo orden que los uuids recibidos (null si ese archivo falló).
+     */
     public List<FileDTO> getResults() {
         return results;
     }
@@ -0,0 +1,127 @@
+package org.example.domain.command;
+
+import org.example.domain.compression.ContentCompressor;
+import org.example.domain.model.File;
+import org.example.domain.model.FileCompression;
+import org.example.domain.port.StorageCommand;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para descargar un archivo con quórum de lectura R > 1.
+ * Lee el archivo de R réplicas en paralelo y solo lo devuelve si todas coinciden (SHA-256).
+ */
+public class QuorumDownloadFileCommand implements StorageCommand<Boolean> {
+
+    private static final Logger LOGGER = Logger.getLogger(QuorumDownloadFileCommand.class.getName());
+
+    private static final long READ_TIMEOUT_SECONDS = 30;
+
+    private final List<NodeFileService> replicas;
+    private final FileRepository fileRepository;
+    private final Executor readExecutor;
+    private final String fileUuid;
+    private final int readQuorum;
+
+    // Resultado de la descarga
+    private byte[] content;
+    private File metadata;
+
+    public QuorumDownloadFileCommand(List<NodeFileService> replicas, FileRepository fileRepository,
+                                     Executor readExecutor, String fileUuid, int readQuorum) {
+        this.replicas = replicas;
+        this.fileRepository = fileRepository;
+        this.readExecutor = readExecutor;
+        this.fileUuid = fileUuid;
+        this.readQuorum = readQuorum;
+    }
+
+    @Override
+    public Boolean execute() {
+        try {
+            // 1. Obtener metadatos desde la DB
+            metadata = fileRepository.findByUuid(fileUuid);
+            if (metadata == null) {
+                LOGGER.warning("QuorumDownloadFileCommand: no existe metadata para uuid=" + fileUuid);
+                return false;
+            }
+
+            if (replicas.size() < readQuorum) {
+                LOGGER.warning("QuorumDownloadFileCommand: solo hay " + replicas.size() + " réplica(s) para " +
+                        fileUuid + ", quórum de lectura " + readQuorum);
+                return false;
+            }
+
+            // 2. Leer de R réplicas en paralelo
+            String storageUuid = fileRepository.resolveStorageUuid(fileUuid);
+            List<CompletableFuture<byte[]>> reads = new ArrayList<>();
+            for (NodeFileService replica : replicas.subList(0, readQuorum)) {
+                reads.add(CompletableFuture
+                        .supplyAsync(() -> readReplica(replica, storageUuid), readExecutor)
+                        .orTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+
+            // 3. Verificar que todas las réplicas coinciden
+            byte[] expectedDigest = null;
+            for (CompletableFuture<byte[]> read : reads) {
+                byte[] replicaContent = read.join();
+                if (replicaContent == null) {
+                    LOGGER.warning("QuorumDownloadFileCommand: una réplica no devolvió contenido para " + fileUuid);
+                    return false;
+                }
+
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(replicaContent);
+                if (expectedDigest == null) {
+                    expectedDigest = digest;
+                    content = replicaContent;
+                } else if (!Arrays.equals(expectedDigest, digest)) {
+                    LOGGER.severe("QuorumDownloadFileCommand: réplicas divergentes para " + fileUuid);
+                    content = null;
+                    return false;
+                }
+            }
+
+            // 4. Descomprimir si se guardó comprimido (las réplicas se comparan comprimidas)
+            FileCompression compression = fileRepository.findFileCompression(fileUuid);
+            if (compression != null) {
+                content = ContentCompressor.decompress(compression.getCodec(), content, metadata.getSize());
+            }
+
+            LOGGER.fine("Archivo leído con quórum " + readQuorum + ": " + fileUuid);
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error en QuorumDownloadFileCommand para " + fileUuid, e);
+            content = null;
+            return false;
+        }
+    }
+
+    private byte[] readReplica(NodeFileService replica, String storageUuid) {
+        try {
+            return replica.downloadFile(storageUuid);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // Getters para recuperar el resultado
+    public byte[] getContent() {
+        return content;
+    }
+
+    public File getMetadata() {
+        return metadata;
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.domain.command;
+
+import org.example.domain.model.ContentBlob;
+import org.example.domain.model.File;
+import org.example.domain.model.FileCompression;
+import org.example.domain.port.StorageCommand;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para registrar un archivo cuyo contenido ya está almacenado (mismo SHA-256).
+ * No envía bytes a los nodos: crea la metadata, suma una referencia al blob y
+ * registra en File_Node las réplicas existentes del contenido.
+ */
+public class RegisterDuplicateFileCommand implements StorageCommand<Boolean> {
+
+    private static final Logger LOGGER = Logger.getLogger(RegisterDuplicateFileCommand.class.getName());
+
+    private final ContentBlob blob;
+    private final String name;
+    private final Long ownerId;
+    private final Long directoryId;
+    private final FileRepository fileRepository;
+
+    // Resultado
+    private String fileUuid;
+    private int replicas;
+
+    public RegisterDuplicateFileCommand(ContentBlob blob, String name, Long ownerId, Long directoryId,
+                                        FileRepository fileRepository) {
+        this.blob = blob;
+        this.name = name;
+        this.ownerId = ownerId;
+        this.directoryId = directoryId;
+        this.fileRepository = fileRepository;
+    }
+
+    @Override
+    public Boolean execute() {
+        String uuid = UUID.randomUUID().toString();
+        boolean acquired = false;
+        boolean registered = false;
+
+        try {
+            // 1. Localizar las réplicas del contenido a través de un archivo que lo referencia
+            String referrer = fileRepository.findBlobReferrer(blob.getHash());
+            List<Long> nodeIds = (referrer != null) ? fileRepository.getNodesByFile(referrer) : List.of();
+            if (nodeIds.isEmpty()) {
+                LOGGER.warning("Blob " + blob.getHash() + " sin réplicas registradas, se sube el contenido completo");
+                return false;
+            }
+
+            // 2. Sumar la referencia (falla si el blob se liberó mientras tanto)
+            if (!fileRepository.acquireBlob(blob.getHash())) {
+                LOGGER.fine("Blob " + blob.getHash() + " liberado antes de deduplicar");
+                return false;
+            }
+            acquired = true;
+
+            // 3. Registrar metadata y apuntarla al blob
+            File file = new File(uuid, name, blob.getSize(), ownerId, directoryId);
+            if (!fileRepository.uploadFile(file)) {
+                LOGGER.severe("FALLO: No se pudo registrar la metadata en la BD");
+                releaseBlob(uuid);
+                return false;
+            }
+            registered = true;
+            fileRepository.registerFileBlob(uuid, blob.getHash());
+
+            // El contenido compartido conserva el codec con el que se guardó
+            FileCompression compression = fileRepository.findFileCompression(referrer);
+            if (compression != null) {
+                fileRepository.registerFileCompression(uuid, compression.getCodec(), compression.getPhysicalSize());
+            }
+
+            // 4. Las réplicas del contenido también sirven a este archivo
+            for (Long nodeId : nodeIds) {
+                fileRepository.registerFileNode(uuid, nodeId);
+            }
+
+            this.fileUuid = uuid;
+            this.replicas = nodeIds.size();
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error registrando archivo duplicado " + name, e);
+            if (acquired) {
+                releaseBlob(uuid);
+            }
+            if (registered) {
+                deleteMetadata(uuid);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Devuelve la referencia tomada cuando el registro no se completa.
+     */
+    private void releaseBlob(String uuid) {
+        try {
+            fileRepository.releaseBlob(uuid, blob.getHash());
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "No se pudo liberar la referencia al blob " + blob.getHash(), e);
+        }
+    }
+
+    /**
+     * Borra la metadata registrada cuando un paso posterior falla, para no dejar un archivo sin blob.
+     */
+    private void deleteMetadata(String uuid) {
+        try {
+            fileRepository.deleteFileMetadata(uuid);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "No se pudo borrar la metadata del archivo " + uuid, e);
+        }
+    }
+
+    // Getters para recuperar el resultado
+    public String getFileUuid() {
+        return fileUuid;
+    }
+
+    public int getReplicas() {
+        return replicas;
+    }
+}
@@ -0,0 +1,276 @@
+package org.example.domain.command;
+
+import org.example.application.cache.DiskContentCache;
+import org.example.application.service.NodeSelector;
+import org.example.application.service.ReadLatencyTracker;
+import org.example.domain.compression.ContentCompressor;
+import org.example.domain.model.File;
+import org.example.domain.model.FileCompression;
+import org.example.domain.port.AssembledDownload;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para descargar un archivo replicado tolerando réplicas lentas o caídas.
+ * Lee de las réplicas en el orden recibido (el de NodeSelector.rankReplicasForRead): si una falla
+ * pasa a la siguiente (failover), y si la primera tarda más que su tiempo estimado para el tamaño
+ * del archivo (escalado según ReadLatencyTracker) lanza una única lectura de cobertura (hedge) contra
+ * la siguiente réplica, en su propio pool; si ese pool está lleno no se hace hedge.
+ * Gana la primera respuesta válida; las demás se descartan.
+ * Cada lectura se reporta al NodeSelector para mantener sus métricas por nodo.
+ * Si hay caché en disco, se consulta antes de ir a las réplicas y se rellena tras una lectura válida.
+ */
+public class ReplicaDownloadFileCommand implements AssembledDownload {
+
+    private static final Logger LOGGER = Logger.getLogger(ReplicaDownloadFileCommand.class.getName());
+
+    private static final long READ_TIMEOUT_SECONDS = 25;
+
+    private final List<Map.Entry<Long, NodeFileService>> replicas;
+    private final FileRepository fileRepository;
+    private final NodeSelector nodeSelector;
+    private final Executor readExecutor;
+    private final Executor hedgeExecutor;
+    private final ReadLatencyTracker latencyTracker;
+    private final DiskContentCache diskCache;
+    private final String fileUuid;
+
+    // Resultado de la descarga
+    private byte[] content;
+    private File metadata;
+    private Long servedBy;
+
+    public ReplicaDownloadFileCommand(List<Map.Entry<Long, NodeFileService>> replicas, FileRepository fileRepository,
+                                      NodeSelector nodeSelector, Executor readExecutor, Executor hedgeExecutor,
+                                      ReadLatencyTracker latencyTracker, String fileUuid) {
+        this(replicas, fileRepository, nodeSelector, readExecutor, hedgeExecutor, latencyTracker, null, fileUuid);
+    }
+
+    /**
+     * @param diskCache caché en disco por id de almacenamiento (null para no usarla)
+     */
+    public ReplicaDownloadFileCommand(List<Map.Entry<Long, NodeFileService>> replicas, FileRepository fileRepository,
+                                      NodeSelector nodeSelector, Executor readExecutor, Executor hedgeExecutor,
+                                      ReadLatencyTracker latencyTracker, DiskContentCache diskCache, String fileUuid) {
+        this.replicas = replicas;
+        this.fileRepository = fileRepository;
+        this.nodeSelector = nodeSelector;
+        this.readExecutor = readExecutor;
+        this.hedgeExecutor = hedgeExecutor;
+        this.latencyTracker = latencyTracker;
+        this.diskCache = diskCache;
+        this.fileUuid = fileUuid;
+    }
+
+    @Override
+    public Boolean execute() {
+        try {
+            // 1. Obtener metadatos desde la DB
+            metadata = fileRepository.findByUuid(fileUuid);
+            if (metadata == null) {
+                LOGGER.warning("ReplicaDownloadFileCommand: no existe metadata para uuid=" + fileUuid);
+                return false;
+            }
+            // 2. Caché en disco (guarda los bytes tal como están en el nodo)
+            String storageUuid = fileRepository.resolveStorageUuid(fileUuid);
+            FileCompression compression = fileRepository.findFileCompression(fileUuid);
+            byte[] stored = diskCache != null ? diskCache.get(storageUuid) : null;
+
+            // 3. Si no está, leer de las réplicas con failover y, si procede, un hedge
+            if (stored == null) {
+                if (replicas.isEmpty()) {
+                    LOGGER.warning("ReplicaDownloadFileCommand: no hay réplicas disponibles para " + fileUuid);
+                    return false;
+                }
+                long expectedBytes = compression != null ? compression.getPhysicalSize() : metadata.getSize();
+                stored = readFromReplicas(storageUuid, expectedBytes);
+                if (stored == null) {
+                    LOGGER.warning("ReplicaDownloadFileCommand: ninguna de las " + replicas.size() +
+                            " réplica(s) devolvió contenido para " + fileUuid);
+                    return false;
+                }
+                if (diskCache != null) {
+                    diskCache.putAsync(storageUuid, stored);
+                }
+            }
+
+            // 4. Descomprimir si se guardó comprimido
+            content = compression != null
+                    ? ContentCompressor.decompress(compression.getCodec(), stored, metadata.getSize())
+                    : stored;
+
+            LOGGER.fine("Archivo descargado de " + (servedBy != null ? "Node-" + servedBy : "caché en disco") + ": " + fileUuid);
+            return true;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            content = null;
+            return false;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error en ReplicaDownloadFileCommand para " + fileUuid, e);
+            content = null;
+            return false;
+        }
+    }
+
+    /**
+     * Lanza lecturas hasta obtener una respuesta válida o agotar réplicas y tiempo.
+     * @return el contenido tal como está en el nodo, o null
+     */
+    private byte[] readFromReplicas(String storageUuid, long expectedBytes) throws InterruptedException {
+        BlockingQueue<ReplicaRead> completed = new LinkedBlockingQueue<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(READ_TIMEOUT_SECONDS);
+
+        int nextReplica = 0;
+        int inFlight = 0;
+        int failed = 0;
+        boolean hedged = false;
+
+        // El hedge se calcula sobre lo que debería tardar esta réplica en leer este tamaño
+        Map.Entry<Long, NodeFileService> first = replicas.get(nextReplica++);
+        double expectedMillis = nodeSelector.estimateReadMillis(first.getKey(), expectedBytes);
+        long hedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(latencyTracker.getHedgeDelayMillis(expectedMillis));
+
+        launch(first, expectedMillis, storageUuid, false, completed);
+        inFlight++;
+
+        while (inFlight > 0) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                LOGGER.warning("ReplicaDownloadFileCommand: timeout leyendo " + fileUuid);
+                break;
+            }
+
+            boolean canHedge = !hedged && hedgeDelayNanos > 0 && nextReplica < replicas.size();
+            ReplicaRead read = completed.poll(canHedge ? Math.min(remaining, hedgeDelayNanos) : remaining,
+                    TimeUnit.NANOSECONDS);
+
+            if (read == null) {
+                // La réplica en curso supera su estimación: lanzar el hedge sin cancelar la primera
+                if (canHedge) {
+                    Map.Entry<Long, NodeFileService> replica = replicas.get(nextReplica);
+                    if (launch(replica, nodeSelector.estimateReadMillis(replica.getKey(), expectedBytes),
+                            storageUuid, true, completed)) {
+                        LOGGER.fine("Hedge a Node-" + replica.getKey() + " para " + fileUuid);
+                        nextReplica++;
+                        inFlight++;
+                        hedged = true;
+                    } else {
+                        // Pool de hedge lleno: seguir esperando a la réplica en curso
+                        LOGGER.fine("Sin hilos para el hedge de " + fileUuid);
+                        hedgeDelayNanos = -1;
+                    }
+                }
+                continue;
+            }
+
+            inFlight--;
+            if (read.data != null) {
+                servedBy = read.nodeId;
+                latencyTracker.recordRead(hedged, read.hedge, failed);
+                return read.data;
+            }
+
+            // Failover: la réplica falló, probar con la siguiente
+            failed++;
+            if (nextReplica < replicas.size()) {
+                Map.Entry<Long, NodeFileService> replica = replicas.get(nextReplica++);
+                LOGGER.info("Failover de Node-" + read.nodeId + " a Node-" + replica.getKey() + " para " + fileUuid);
+                launch(replica, nodeSelector.estimateReadMillis(replica.getKey(), expectedBytes), storageUuid, false, completed);
+                inFlight++;
+            }
+        }
+
+        latencyTracker.recordRead(hedged, false, failed);
+        return null;
+    }
+
+    /**
+     * Lanza la lectura de una réplica; las de cobertura van al pool de hedge.
+     * @param expectedMillis tiempo estimado de la lectura, para alimentar el ReadLatencyTracker
+     * @return false si el pool de hedge no tenía hilos libres (no se lanzó nada)
+     */
+    private boolean launch(Map.Entry<Long, NodeFileService> replica, double expectedMillis, String storageUuid,
+                           boolean hedge, BlockingQueue<ReplicaRead> completed) {
+        Long nodeId = replica.getKey();
+        long start = System.nanoTime();
+
+        CompletableFuture<byte[]> read;
+        try {
+            read = CompletableFuture.supplyAsync(() -> {
+                nodeSelector.beginRead(nodeId);
+                return readReplica(replica.getValue(), storageUuid);
+            }, hedge ? hedgeExecutor : readExecutor);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+
+        read.whenComplete((data, error) -> {
+            long elapsed = System.nanoTime() - start;
+            nodeSelector.endRead(nodeId, data != null ? data.length : 0, elapsed, error == null && data != null);
+            if (error != null) {
+                LOGGER.log(Level.WARNING, "✗ Node-" + nodeId + ": error leyendo " + fileUuid, error);
+                data = null;
+            } else if (data != null) {
+                // También cuentan las lecturas que llegan tarde: alimentan el percentil
+                latencyTracker.recordLatency(TimeUnit.NANOSECONDS.toMillis(elapsed), expectedMillis);
+            }
+            completed.add(new ReplicaRead(nodeId, data, hedge));
+        });
+        return true;
+    }
+
+    private byte[] readReplica(NodeFileService replica, String storageUuid) {
+        try {
+            return replica.downloadFile(storageUuid);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Resultado de la lectura de una réplica (data null si falló).
+     */
+    private static final class ReplicaRead {
+        private final Long nodeId;
+        private final byte[] data;
+        private final boolean hedge;
+
+        private ReplicaRead(Long nodeId, byte[] data, boolean hedge) {
+            this.nodeId = nodeId;
+            this.data = data;
+            this.hedge = hedge;
+        }
+    }
+
+    // Getters para recuperar el resultado
+    @Override
+    public byte[] getContent() {
+        return content;
+    }
+
+    @Override
+    public File getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Nodo que sirvió el contenido (null si salió de la caché en disco).
+     */
+    public Long getServedBy() {
+        return servedBy;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.domain.command;
+
+import org.example.domain.model.UploadSession;
+import org.example.domain.port.StorageCommand;
+import org.example.infrastructure.remote.NodeFileService;
+
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para escribir un bloque de una sesión de subida en los nodos de la sesión.
+ * Solo escribe en los nodos que todavía no tienen ese bloque.
+ * Termina bien si el bloque queda en al menos writeQuorum nodos de la sesión.
+ */
+public class UploadChunkCommand implements StorageCommand<Boolean> {
+
+    private static final Logger LOGGER = Logger.getLogger(UploadChunkCommand.class.getName());
+
+    private final UploadSession session;
+    private final int chunkIndex;
+    private final byte[] content;
+
+    public UploadChunkCommand(UploadSession session, int chunkIndex, byte[] content) {
+        this.session = session;
+        this.chunkIndex = chunkIndex;
+        this.content = content;
+    }
+
+    @Override
+    public Boolean execute() {
+        String fileIdWithUser = session.getOwnerId() + "-" + session.getSessionId();
+        long offset = (long) chunkIndex * session.getChunkSize();
+        int stored = 0;
+
+        for (Map.Entry<Long, NodeFileService> entry : session.getNodes()) {
+            Long nodeId = entry.getKey();
+
+            if (session.hasChunk(nodeId, chunkIndex)) {
+                stored++;
+                continue;
+            }
+
+            try {
+                if (entry.getValue().uploadFileChunk(fileIdWithUser, offset, content)) {
+                    session.markChunk(nodeId, chunkIndex);
+                    stored++;
+                } else {
+                    LOGGER.warning("✗ Node-" + nodeId + ": rechazó bloque " + chunkIndex + " de " + session.getSessionId());
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "✗ Node-" + nodeId + ": EXCEPCIÓN en bloque " + chunkIndex, e);
+            }
+        }
+
+        if (stored < session.getWriteQuorum()) {
+            LOGGER.warning("Bloque " + chunkIndex + " de " + session.getSessionId() + " solo en " + stored +
+                    " de " + session.getWriteQuorum() + " nodos requeridos");
+            return false;
+        }
+        return true;
+    }
+}
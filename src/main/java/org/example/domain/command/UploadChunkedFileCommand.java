@@ -0,0 +1,207 @@
+package org.example.domain.command;
+
+import org.example.application.service.NodeSelector;
+import org.example.domain.chunking.FastCdcChunker;
+import org.example.domain.model.File;
+import org.example.domain.model.FileChunk;
+import org.example.domain.port.StorageCommand;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para subir un archivo dividido en chunks definidos por contenido (FastCDC).
+ * Cada chunk se identifica por su SHA-256 y se guarda una sola vez en los nodos;
+ * los chunks que ya existen (de este u otros archivos) solo suman una referencia.
+ * Un chunk nuevo debe quedar en al menos writeQuorum nodos.
+ */
+public class UploadChunkedFileCommand implements StorageCommand<Boolean> {
+
+    private static final Logger LOGGER = Logger.getLogger(UploadChunkedFileCommand.class.getName());
+
+    private final List<Map.Entry<Long, NodeFileService>> nodes;
+    private final FileRepository fileRepository;
+    private final NodeSelector nodeSelector;
+    private final Executor chunkExecutor;
+    private final FastCdcChunker chunker;
+    private final int writeQuorum;
+    private final String name;
+    private final byte[] content;
+    private final Long ownerId;
+    private final Long directoryId;
+
+    // Resultado
+    private String fileUuid;
+    private int totalChunks;
+    private int reusedChunks;
+    private long uploadedBytes;
+
+    public UploadChunkedFileCommand(
+            List<Map.Entry<Long, NodeFileService>> nodes,
+            String name,
+            byte[] content,
+            Long ownerId,
+            Long directoryId,
+            FileRepository fileRepository,
+            NodeSelector nodeSelector,
+            Executor chunkExecutor,
+            FastCdcChunker chunker,
+            int writeQuorum) {
+        this.nodes = nodes;
+        this.name = name;
+        this.content = content;
+        this.ownerId = ownerId;
+        this.directoryId = directoryId;
+        this.fileRepository = fileRepository;
+        this.nodeSelector = nodeSelector;
+        this.chunkExecutor = chunkExecutor;
+        this.chunker = chunker;
+        this.writeQuorum = writeQuorum;
+    }
+
+    @Override
+    public Boolean execute() {
+        // Referencias tomadas hasta ahora (para soltarlas si la subida falla)
+        List<FileChunk> acquired = new ArrayList<>();
+
+        try {
+            // 1. Dividir y calcular el hash de cada chunk
+            List<String> hashes = new ArrayList<>();
+            Map<String, int[]> distinct = new LinkedHashMap<>(); // hash -> {offset, length}
+            int offset = 0;
+            for (int length : chunker.split(content)) {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                digest.update(content, offset, length);
+                String hash = HexFormat.of().formatHex(digest.digest());
+                hashes.add(hash);
+                distinct.putIfAbsent(hash, new int[]{offset, length});
+                offset += length;
+            }
+            totalChunks = hashes.size();
+
+            // 2. Reutilizar los chunks que ya existen
+            List<FileChunk> missing = new ArrayList<>();
+            for (Map.Entry<String, int[]> entry : distinct.entrySet()) {
+                FileChunk chunk = new FileChunk(acquired.size() + missing.size(), entry.getKey(), entry.getValue()[1]);
+                if (fileRepository.acquireChunk(chunk.getHash())) {
+                    chunk.getNodeIds().addAll(fileRepository.getChunkNodes(chunk.getHash()));
+                    acquired.add(chunk);
+                    reusedChunks++;
+                } else {
+                    missing.add(chunk);
+                }
+            }
+
+            // 3. Subir los chunks nuevos en paralelo
+            List<CompletableFuture<Boolean>> uploads = new ArrayList<>();
+            for (FileChunk chunk : missing) {
+                int[] range = distinct.get(chunk.getHash());
+                byte[] data = Arrays.copyOfRange(content, range[0], range[0] + range[1]);
+                uploads.add(CompletableFuture.supplyAsync(() -> writeChunk(chunk, data), chunkExecutor));
+            }
+
+            boolean allStored = true;
+            for (int i = 0; i < uploads.size(); i++) {
+                FileChunk chunk = missing.get(i);
+                if (!uploads.get(i).join()) {
+                    allStored = false;
+                    continue;
+                }
+                fileRepository.registerChunk(chunk.getHash(), chunk.getSize());
+                acquired.add(chunk);
+                for (Long nodeId : chunk.getNodeIds()) {
+                    fileRepository.registerChunkNode(chunk.getHash(), nodeId);
+                    nodeSelector.recordFileUpload(nodeId, chunk.getSize());
+                }
+                uploadedBytes += chunk.getSize();
+            }
+
+            if (!allStored) {
+                LOGGER.severe("FALLO: no todos los chunks de " + name + " alcanzaron " + writeQuorum + " réplicas");
+                DeleteFileCommand.releaseChunks(acquired, fileRepository, nodeSelector);
+                return false;
+            }
+
+            // 4. Registrar metadata (tamaño lógico) y la lista de chunks
+            String uuid = UUID.randomUUID().toString();
+            File file = new File(uuid, name, content.length, ownerId, directoryId);
+            if (!fileRepository.uploadFile(file)) {
+                LOGGER.severe("FALLO: No se pudo registrar la metadata en la BD");
+                DeleteFileCommand.releaseChunks(acquired, fileRepository, nodeSelector);
+                return false;
+            }
+            fileRepository.registerFileChunks(uuid, hashes);
+
+            this.fileUuid = uuid;
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error crítico en upload por chunks de " + name, e);
+            DeleteFileCommand.releaseChunks(acquired, fileRepository, nodeSelector);
+            return false;
+
+        } finally {
+            // Decrementar tareas activas
+            for (Map.Entry<Long, NodeFileService> entry : nodes) {
+                try {
+                    nodeSelector.completeTask(entry.getKey());
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Error al decrementar tareas activas", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Escribe un chunk en todos los nodos seleccionados y anota en cuáles quedó.
+     * @return true si quedó en al menos writeQuorum nodos
+     */
+    private boolean writeChunk(FileChunk chunk, byte[] data) {
+        String storageName = FileChunk.storageName(chunk.getHash());
+
+        for (Map.Entry<Long, NodeFileService> entry : nodes) {
+            try {
+                if (entry.getValue().uploadFile(storageName, data)) {
+                    chunk.addNode(entry.getKey());
+                } else {
+                    LOGGER.warning("✗ Node-" + entry.getKey() + ": rechazó chunk " + chunk.getHash());
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "✗ Node-" + entry.getKey() + ": EXCEPCIÓN subiendo chunk " + chunk.getHash(), e);
+            }
+        }
+
+        // Sin quórum el chunk no se registra. Las copias sueltas no se borran: el nombre
+        // es compartido y otra subida concurrente del mismo contenido podría estar usándolas.
+        return chunk.getNodeIds().size() >= writeQuorum;
+    }
+
+    // Getters para recuperar el resultado
+    public String getFileUuid() {
+        return fileUuid;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public int getReusedChunks() {
+        return reusedChunks;
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+}
@@ -0,0 +1,210 @@
+package org.example.domain.command;
+
+import org.example.application.service.NodeSelector;
+import org.example.domain.erasure.ReedSolomonCodec;
+import org.example.domain.model.File;
+import org.example.domain.model.FileLayout;
+import org.example.domain.port.StorageCommand;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para subir un archivo con erasure coding (Reed-Solomon).
+ * El contenido se divide en k shards de datos + m de paridad y cada shard se envía
+ * en paralelo a su nodo. La metadata, el layout y el mapa shard -> nodo se registran
+ * al final, solo si se almacenaron al menos k+1 shards (se tolera al menos un fallo más).
+ */
+public class UploadErasureCodedCommand implements StorageCommand<Boolean> {
+
+    private static final Logger LOGGER = Logger.getLogger(UploadErasureCodedCommand.class.getName());
+
+    // Configuración
+    private static final long SHARD_TIMEOUT_SECONDS = 90;
+
+    private final List<Map.Entry<Long, NodeFileService>> shardNodes; // un nodo por shard
+    private final FileRepository fileRepository;
+    private final NodeSelector nodeSelector;
+    private final Executor shardExecutor;
+    private final ReedSolomonCodec codec;
+    private final String name;
+    private final byte[] content;
+    private final Long ownerId;
+    private final Long directoryId;
+
+    // Resultado
+    private String fileUuid;
+    private int storedShards;
+
+    public UploadErasureCodedCommand(
+            List<Map.Entry<Long, NodeFileService>> shardNodes,
+            String name,
+            byte[] content,
+            Long ownerId,
+            Long directoryId,
+            FileRepository fileRepository,
+            NodeSelector nodeSelector,
+            Executor shardExecutor,
+            ReedSolomonCodec codec) {
+        this.shardNodes = shardNodes;
+        this.name = name;
+        this.content = content;
+        this.ownerId = ownerId;
+        this.directoryId = directoryId;
+        this.fileRepository = fileRepository;
+        this.nodeSelector = nodeSelector;
+        this.shardExecutor = shardExecutor;
+        this.codec = codec;
+    }
+
+    @Override
+    public Boolean execute() {
+        String uuid = UUID.randomUUID().toString();
+        String fileIdWithUser = ownerId + "-" + uuid;
+        boolean dispatched = false;
+        boolean[] stored = new boolean[shardNodes.size()];
+
+        try {
+            // 1. Codificar el contenido
+            byte[][] shards = codec.encode(content);
+            int shardSize = shards[0].length;
+
+            // 2. Enviar cada shard a su nodo en paralelo
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            for (int i = 0; i < shardNodes.size(); i++) {
+                int shardIndex = i;
+                Map.Entry<Long, NodeFileService> entry = shardNodes.get(i);
+                String shardName = FileLayout.shardName(fileIdWithUser, shardIndex);
+
+                writes.add(CompletableFuture
+                        .supplyAsync(() -> writeShard(entry.getValue(), shardName, shards[shardIndex]), shardExecutor)
+                        .orTimeout(SHARD_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                        .handle((success, error) -> {
+                            stored[shardIndex] = onShardDone(entry.getKey(), shardIndex,
+                                    Boolean.TRUE.equals(success) && error == null, error);
+                            return null;
+                        }));
+            }
+            dispatched = true;
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+
+            for (boolean ok : stored) {
+                if (ok) storedShards++;
+            }
+
+            // 3. Verificar redundancia mínima
+            int minShards = codec.getDataShards() + Math.min(1, codec.getParityShards());
+            if (storedShards < minShards) {
+                LOGGER.severe("FALLO: solo " + storedShards + " de " + minShards +
+                        " shards requeridos se almacenaron para " + name);
+                cleanup(fileIdWithUser, stored);
+                return false;
+            }
+
+            // 4. Registrar metadata (tamaño lógico), layout y shards
+            File file = new File(uuid, name, content.length, ownerId, directoryId);
+            if (!fileRepository.uploadFile(file)) {
+                LOGGER.severe("FALLO: No se pudo registrar la metadata en la BD");
+                cleanup(fileIdWithUser, stored);
+                return false;
+            }
+            fileRepository.registerFileLayout(uuid, codec.getDataShards(), codec.getParityShards(), shardSize);
+
+            for (int i = 0; i < stored.length; i++) {
+                if (!stored[i]) continue;
+                Long nodeId = shardNodes.get(i).getKey();
+                fileRepository.registerFileShard(uuid, i, nodeId);
+                nodeSelector.recordFileUpload(nodeId, shardSize);
+            }
+
+            if (storedShards < shardNodes.size()) {
+                LOGGER.warning("Archivo " + uuid + " con redundancia reducida: " + storedShards + " de " +
+                        shardNodes.size() + " shards almacenados");
+            }
+
+            this.fileUuid = uuid;
+            return true;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error crítico en upload con erasure coding de " + name, e);
+            cleanup(fileIdWithUser, stored);
+            return false;
+
+        } finally {
+            // Si no se lanzaron las escrituras, liberar aquí las tareas activas
+            if (!dispatched) {
+                for (Map.Entry<Long, NodeFileService> entry : shardNodes) {
+                    completeTask(entry.getKey());
+                }
+            }
+        }
+    }
+
+    private Boolean writeShard(NodeFileService stub, String shardName, byte[] shard) {
+        try {
+            return stub.uploadFile(shardName, shard);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private boolean onShardDone(Long nodeId, int shardIndex, boolean success, Throwable error) {
+        try {
+            if (success) {
+                return true;
+            } else if (error instanceof TimeoutException) {
+                LOGGER.warning("✗ Node-" + nodeId + " (SHARD-" + shardIndex + "): TIMEOUT tras " + SHARD_TIMEOUT_SECONDS + "s");
+            } else if (error != null) {
+                LOGGER.log(Level.WARNING, "✗ Node-" + nodeId + " (SHARD-" + shardIndex + "): EXCEPCIÓN", error);
+            } else {
+                LOGGER.warning("✗ Node-" + nodeId + " (SHARD-" + shardIndex + "): FALLÓ");
+            }
+            return false;
+        } finally {
+            completeTask(nodeId);
+        }
+    }
+
+    /**
+     * Elimina los shards ya almacenados cuando la subida no se completa.
+     */
+    private void cleanup(String fileIdWithUser, boolean[] stored) {
+        for (int i = 0; i < stored.length; i++) {
+            if (!stored[i]) continue;
+            Map.Entry<Long, NodeFileService> entry = shardNodes.get(i);
+            try {
+                entry.getValue().deleteFile(FileLayout.shardName(fileIdWithUser, i));
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "No se pudo limpiar shard " + i + " en Node-" + entry.getKey(), e);
+            }
+        }
+    }
+
+    private void completeTask(Long nodeId) {
+        try {
+            nodeSelector.completeTask(nodeId);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error al decrementar tareas activas", e);
+        }
+    }
+
+    // Getters para recuperar el resultado
+    public String getFileUuid() {
+        return fileUuid;
+    }
+
+    public int getStoredShards() {
+        return storedShards;
+    }
+}
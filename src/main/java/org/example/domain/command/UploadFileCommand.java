@@ -1,6 +1,8 @@
 package org.example.domain.command;
 
 import org.example.application.service.NodeSelector;
+import org.example.application.service.ReplicationMonitor;
+import org.example.domain.compression.ContentCompressor;
 import org.example.domain.model.File;
 import org.example.domain.port.StorageCommand;
 import org.example.infrastructure.remote.NodeFileService;
@@ -9,37 +11,87 @@ import org.example.infrastructure.repository.FileRepository;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Comando para subir archivo con redundancia a múltiples nodos.
- * Gestiona tareas activas y realiza rollback en caso de fallo.
+ * Las escrituras a las réplicas se lanzan en paralelo, cada una con su propio timeout;
+ * el comando termina en cuanto confirman W réplicas (quórum de escritura) y el resto sigue en
+ * segundo plano, registrando su lag en el ReplicationMonitor.
+ * La metadata (File, compresión y File_Node) solo se registra al alcanzar el quórum: si no se
+ * alcanza, no queda nada en la BD y se borran las réplicas escritas, también las que terminen tarde.
+ * Mientras espera el quórum el comando ocupa un hilo de la TaskQueue.
+ * El timeout de cada réplica solo deja de esperarla: la llamada remota la corta el timeout de
+ * socket del transporte (rmi.socket.writeTimeoutMs y responseTimeout en RMI, storage.bulk.ioTimeoutMs
+ * en el transporte binario), que libera el hilo del pool de réplicas.
+ * El contenido se comprime antes de enviarlo cuando el ContentCompressor lo considera comprimible.
  */
 public class UploadFileCommand implements StorageCommand<Boolean> {
 
     private static final Logger LOGGER = Logger.getLogger(UploadFileCommand.class.getName());
 
+    // Configuración
+    private static final long REPLICA_TIMEOUT_SECONDS = 90;
+
+    /**
+     * Qué hacer con una réplica que termina: guardarla para registrarla al llegar al quórum,
+     * registrarla directamente (la metadata ya existe) o borrarla (la subida falló).
+     */
+    private enum Outcome { PENDING, REGISTERED, ABORTED }
+
+    private final String uuid;
     private final List<Map.Entry<Long, NodeFileService>> nodes;
     private final FileRepository fileRepository;
     private final NodeSelector nodeSelector;
+    private final Executor replicaExecutor;
+    private final ReplicationMonitor replicationMonitor;
+    private final int writeQuorum;
+    private final ContentCompressor compressor;
     private final String name;
     private final byte[] content;
     private final Long ownerId;
     private final Long directoryId;
+    private final String fileIdWithUser;
+
+    // Contenido tal como viaja a los nodos (comprimido o no)
+    private byte[] storedContent;
+
+    // Resultado
+    private String fileUuid;
+    private final AtomicInteger acknowledgedReplicas = new AtomicInteger(0);
+
+    // Estado del quórum (protegido por quorumLock)
+    private final Object quorumLock = new Object();
+    private final List<Long> storedNodes = new ArrayList<>();
+    private Outcome outcome = Outcome.PENDING;
+    private int finishedReplicas;
+    private long quorumReachedAt = -1;
 
     /**
      * Constructor con múltiples nodos para replicación.
+     * @param uuid uuid del archivo, generado antes para elegir los nodos a partir de él
      */
     public UploadFileCommand(
+            String uuid,
             List<Map.Entry<Long, NodeFileService>> nodes,
             String name,
             byte[] content,
             Long ownerId,
             Long directoryId,
             FileRepository fileRepository,
-            NodeSelector nodeSelector) {
+            NodeSelector nodeSelector,
+            Executor replicaExecutor,
+            ReplicationMonitor replicationMonitor,
+            int writeQuorum,
+            ContentCompressor compressor) {
+        this.uuid = uuid;
         this.nodes = nodes;
         this.name = name;
         this.content = content;
@@ -47,84 +99,266 @@ public class UploadFileCommand implements StorageCommand<Boolean> {
         this.directoryId = directoryId;
         this.fileRepository = fileRepository;
         this.nodeSelector = nodeSelector;
+        this.replicaExecutor = replicaExecutor;
+        this.replicationMonitor = replicationMonitor;
+        this.writeQuorum = writeQuorum;
+        this.compressor = compressor;
+        // CAMBIO CRÍTICO: Prefijo el userId al UUID
+        this.fileIdWithUser = ownerId + "-" + uuid;
     }
 
     @Override
     public Boolean execute() {
-        String uuid = null;
-        List<Long> successfulNodes = new ArrayList<>();
+        boolean dispatched = false;
 
         try {
 
-            uuid = UUID.randomUUID().toString();
+            // Compresión transparente (la metadata guarda el tamaño lógico)
+            ContentCompressor.Compressed compressed = compressor.compress(content);
+            storedContent = compressed.getData();
 
-            File file = new File(uuid, name, content.length, ownerId, directoryId);
-            if(!fileRepository.uploadFile(file)){
-                LOGGER.severe("FALLO: No se pudo registrar la metadata en la BD");
-                return false;
-            }
+            CompletableFuture<Boolean> quorum = new CompletableFuture<>();
 
-            // CAMBIO CRÍTICO: Prefijo el userId al UUID
-            String fileIdWithUser = ownerId + "-" + uuid;
-
-
-            // 1. Subir a todos los nodos seleccionados
+            // 1. Lanzar la escritura a todos los nodos seleccionados en paralelo
             for (int i = 0; i < nodes.size(); i++) {
                 Map.Entry<Long, NodeFileService> entry = nodes.get(i);
                 Long nodeId = entry.getKey();
                 NodeFileService stub = entry.getValue();
                 String nodeType = (i == 0) ? "PRIMARIO" : "REPLICA-" + i;
 
-                try {
+                CompletableFuture
+                        .supplyAsync(() -> writeReplica(stub), replicaExecutor)
+                        .orTimeout(REPLICA_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                        .whenComplete((success, error) -> onReplicaDone(quorum, nodeId, nodeType,
+                                Boolean.TRUE.equals(success) && error == null, error));
+            }
+            dispatched = true;
 
-                    // CAMBIO: Usar fileIdWithUser en lugar de solo uuid
-                    boolean success = stub.uploadFile(fileIdWithUser, content);
+            // 2. Esperar al quórum de escritura en este hilo de la cola (cada escritura tiene su propio timeout)
+            if (!quorum.join()) {
+                LOGGER.severe("FALLO: solo " + storedReplicas() + " de " + writeQuorum +
+                        " réplicas requeridas confirmaron " + name);
+                abort();
+                return false;
+            }
 
-                    if (success) {
-                        successfulNodes.add(nodeId);
-                    } else {
-                        LOGGER.warning("✗ Node-" + nodeId + " (" + nodeType + "): FALLÓ");
-                    }
+            // 3. Registrar metadata, ahora que el archivo está en W nodos
+            if (!registerMetadata(compressed)) {
+                abort();
+                return false;
+            }
 
-                } catch (Exception e) {
-                    LOGGER.log(Level.WARNING, "✗ Node-" + nodeId + " (" + nodeType + "): EXCEPCIÓN", e);
-                }
+            // 4. Registrar en File_Node las réplicas ya escritas; las que terminen después se registran solas
+            List<Long> replicas;
+            synchronized (quorumLock) {
+                outcome = Outcome.REGISTERED;
+                replicas = new ArrayList<>(storedNodes);
+            }
+            for (Long nodeId : replicas) {
+                registerReplica(nodeId);
             }
 
-            // 2. Verificar éxito mínimo
-            if (successfulNodes.isEmpty()) {
-                LOGGER.severe("FALLO TOTAL: No se pudo subir a ningún nodo");
+            if (acknowledgedReplicas.get() == 0) {
+                LOGGER.severe("FALLO: no se pudo registrar ninguna réplica de " + name + " en File_Node");
+                abort();
+                deleteMetadata();
                 return false;
             }
+            if (acknowledgedReplicas.get() < writeQuorum) {
+                LOGGER.warning(name + " registrado con " + acknowledgedReplicas.get() + " de " + writeQuorum +
+                        " réplicas requeridas (fallo al registrar File_Node)");
+            }
 
+            this.fileUuid = uuid;
+            return true;
 
-            // 4. Registrar cada nodo exitoso en File_Node
-            // IMPORTANTE: En File_Node almacenamos el UUID SIN prefijo
-            for (Long nodeId : successfulNodes) {
-                try {
-                    fileRepository.registerFileNode(uuid, nodeId);
-                } catch (Exception e) {
-                    LOGGER.log(Level.WARNING, "Error registrando File_Node para Node-" + nodeId, e);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error crítico en upload de " + name, e);
+            if (dispatched) {
+                abort();
+            }
+            return false;
+
+        } finally {
+            // Si no se lanzaron las escrituras, liberar aquí las tareas activas
+            if (!dispatched) {
+                for (Map.Entry<Long, NodeFileService> entry : nodes) {
+                    completeTask(entry.getKey());
                 }
             }
+        }
+    }
 
-            return true;
+    private Boolean writeReplica(NodeFileService stub) {
+        try {
+            // CAMBIO: Usar fileIdWithUser en lugar de solo uuid
+            return stub.uploadFile(fileIdWithUser, storedContent);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
 
+    /**
+     * Inserta la fila de File y, si el contenido va comprimido, su compresión.
+     * @return false si no se pudo (no deja filas a medias)
+     */
+    private boolean registerMetadata(ContentCompressor.Compressed compressed) {
+        try {
+            File file = new File(uuid, name, content.length, ownerId, directoryId);
+            if (!fileRepository.uploadFile(file)) {
+                LOGGER.severe("FALLO: No se pudo registrar la metadata en la BD");
+                return false;
+            }
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error crítico en upload de " + name, e);
+            LOGGER.log(Level.SEVERE, "FALLO: No se pudo registrar la metadata en la BD", e);
             return false;
+        }
 
+        if (compressed.isCompressed()) {
+            try {
+                fileRepository.registerFileCompression(uuid, compressed.getCodec(), storedContent.length);
+                LOGGER.fine(name + " comprimido con " + compressed.getCodec() + ": " + content.length +
+                        " -> " + storedContent.length + " bytes");
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "FALLO: No se pudo registrar la compresión de " + name, e);
+                deleteMetadata();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void deleteMetadata() {
+        try {
+            fileRepository.deleteFileMetadata(uuid);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "No se pudo deshacer la metadata de " + uuid, e);
+        }
+    }
+
+    /**
+     * Marca la subida como fallida y borra las réplicas ya escritas; las que terminen después se borran solas.
+     */
+    private void abort() {
+        List<Long> replicas;
+        synchronized (quorumLock) {
+            outcome = Outcome.ABORTED;
+            replicas = new ArrayList<>(storedNodes);
+            storedNodes.clear();
+        }
+        for (Long nodeId : replicas) {
+            deleteReplica(nodeId);
+        }
+    }
+
+    /**
+     * Resultado de una réplica (puede ocurrir después de que el comando terminó).
+     * Antes del quórum decide el resultado; después solo mide el lag de las réplicas restantes.
+     */
+    private void onReplicaDone(CompletableFuture<Boolean> quorum, Long nodeId, String nodeType,
+                               boolean success, Throwable error) {
+        try {
+            if (!success) {
+                if (error instanceof TimeoutException) {
+                    LOGGER.warning("✗ Node-" + nodeId + " (" + nodeType + "): TIMEOUT tras " + REPLICA_TIMEOUT_SECONDS + "s");
+                } else if (error != null) {
+                    LOGGER.log(Level.WARNING, "✗ Node-" + nodeId + " (" + nodeType + "): EXCEPCIÓN", error);
+                } else {
+                    LOGGER.warning("✗ Node-" + nodeId + " (" + nodeType + "): FALLÓ");
+                }
+            }
+
+            Outcome current;
+            long lagFrom;
+            synchronized (quorumLock) {
+                finishedReplicas++;
+                current = outcome;
+                lagFrom = quorumReachedAt;
+                if (success && current == Outcome.PENDING) {
+                    storedNodes.add(nodeId);
+                }
+
+                if (quorumReachedAt < 0) {
+                    if (storedNodes.size() >= writeQuorum) {
+                        quorumReachedAt = System.currentTimeMillis();
+                        replicationMonitor.replicasPending(nodes.size() - finishedReplicas);
+                        quorum.complete(true);
+                    } else if (finishedReplicas == nodes.size()) {
+                        quorum.complete(false);
+                    }
+                }
+            }
+
+            boolean stored = success;
+            if (success && current == Outcome.REGISTERED) {
+                stored = registerReplica(nodeId);
+            } else if (success && current == Outcome.ABORTED) {
+                deleteReplica(nodeId);
+                stored = false;
+            }
+            if (lagFrom >= 0) {
+                replicationMonitor.replicaCompleted(uuid, nodeId, stored, System.currentTimeMillis() - lagFrom);
+            }
         } finally {
-            // Decrementar tareas activas
-            for (Map.Entry<Long, NodeFileService> entry : nodes) {
+            completeTask(nodeId);
+        }
+    }
+
+    /**
+     * Registra una réplica escrita en File_Node (UUID SIN prefijo); si no se puede, la borra del nodo.
+     */
+    private boolean registerReplica(Long nodeId) {
+        try {
+            fileRepository.registerFileNode(uuid, nodeId);
+            nodeSelector.recordFileUpload(nodeId, storedContent.length);
+            acknowledgedReplicas.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error registrando File_Node para Node-" + nodeId, e);
+            deleteReplica(nodeId);
+            return false;
+        }
+    }
+
+    private void deleteReplica(Long nodeId) {
+        for (Map.Entry<Long, NodeFileService> entry : nodes) {
+            if (entry.getKey().equals(nodeId)) {
                 try {
-                    nodeSelector.completeTask(entry.getKey());
+                    entry.getValue().deleteFile(fileIdWithUser);
                 } catch (Exception e) {
-                    LOGGER.log(Level.WARNING, "Error al decrementar tareas activas", e);
+                    LOGGER.log(Level.FINE, "No se pudo borrar la réplica huérfana en Node-" + nodeId, e);
                 }
+                return;
             }
         }
     }
 
+    private int storedReplicas() {
+        synchronized (quorumLock) {
+            return storedNodes.size();
+        }
+    }
+
+    private void completeTask(Long nodeId) {
+        try {
+            nodeSelector.completeTask(nodeId);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error al decrementar tareas activas", e);
+        }
+    }
 
-}
\ No newline at end of file
+    public String getFileUuid() {
+        return fileUuid;
+    }
+
+    /**
+     * Bytes enviados a cada réplica (tamaño físico).
+     */
+    public long getStoredSize() {
+        return storedContent != null ? storedContent.length : 0;
+    }
+
+    public int getAcknowledgedReplicas() {
+        return acknowledgedReplicas.get();
+    }
+}
@@ -0,0 +1,202 @@
+package org.example.domain.command;
+
+import org.example.application.service.NodeSelector;
+import org.example.domain.model.File;
+import org.example.domain.port.StorageCommand;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Comando para subir un archivo leyendo el contenido como stream.
+ * El contenido se envía a los nodos en bloques de tamaño fijo, de modo que
+ * nunca se materializa el archivo completo en memoria.
+ * La metadata se registra al final, cuando se conoce el tamaño real, y solo si
+ * al menos writeQuorum nodos recibieron el archivo completo.
+ */
+public class UploadFileStreamCommand implements StorageCommand<Boolean> {
+
+    private static final Logger LOGGER = Logger.getLogger(UploadFileStreamCommand.class.getName());
+
+    // Tamaño de cada bloque enviado por RMI
+    public static final int CHUNK_SIZE = 1024 * 1024; // 1MB
+
+    private final List<Map.Entry<Long, NodeFileService>> nodes;
+    private final FileRepository fileRepository;
+    private final NodeSelector nodeSelector;
+    private final String name;
+    private final InputStream content;
+    private final Long ownerId;
+    private final Long directoryId;
+    private final int writeQuorum;
+
+    // Resultado de la subida
+    private String fileUuid;
+    private long bytesWritten;
+    private final List<Long> successfulNodes = new ArrayList<>();
+
+    public UploadFileStreamCommand(
+            List<Map.Entry<Long, NodeFileService>> nodes,
+            String name,
+            InputStream content,
+            Long ownerId,
+            Long directoryId,
+            FileRepository fileRepository,
+            NodeSelector nodeSelector,
+            int writeQuorum) {
+        this.nodes = nodes;
+        this.name = name;
+        this.content = content;
+        this.ownerId = ownerId;
+        this.directoryId = directoryId;
+        this.fileRepository = fileRepository;
+        this.nodeSelector = nodeSelector;
+        this.writeQuorum = writeQuorum;
+    }
+
+    @Override
+    public Boolean execute() {
+        String uuid = UUID.randomUUID().toString();
+        String fileIdWithUser = ownerId + "-" + uuid;
+        List<Map.Entry<Long, NodeFileService>> activeNodes = new ArrayList<>(nodes);
+
+        try {
+            // 1. Enviar bloques a todos los nodos seleccionados
+            byte[] buffer = new byte[CHUNK_SIZE];
+            long offset = 0;
+            int read;
+
+            while ((read = content.readNBytes(buffer, 0, buffer.length)) > 0) {
+                // Cancelado por timeout desde FileService: no seguir enviando bloques
+                if (Thread.currentThread().isInterrupted()) {
+                    LOGGER.warning("Upload stream de " + name + " cancelado en offset " + offset);
+                    cleanup(fileIdWithUser);
+                    return false;
+                }
+
+                // Solo el último bloque puede ser más corto que el buffer
+                byte[] chunk = (read == buffer.length) ? buffer : Arrays.copyOf(buffer, read);
+
+                Iterator<Map.Entry<Long, NodeFileService>> it = activeNodes.iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Long, NodeFileService> entry = it.next();
+                    Long nodeId = entry.getKey();
+                    try {
+                        if (!entry.getValue().uploadFileChunk(fileIdWithUser, offset, chunk)) {
+                            LOGGER.warning("✗ Node-" + nodeId + ": rechazó bloque en offset " + offset);
+                            it.remove();
+                        }
+                    } catch (Exception e) {
+                        LOGGER.log(Level.WARNING, "✗ Node-" + nodeId + ": EXCEPCIÓN en offset " + offset, e);
+                        it.remove();
+                    }
+                }
+
+                if (activeNodes.size() < writeQuorum) {
+                    LOGGER.severe("FALLO: solo " + activeNodes.size() + " de " + writeQuorum +
+                            " réplicas requeridas aceptan el stream de " + name);
+                    cleanup(fileIdWithUser);
+                    return false;
+                }
+
+                offset += read;
+            }
+
+            // 2. Verificar que se recibió contenido
+            if (offset == 0) {
+                LOGGER.warning("Stream vacío para " + name);
+                cleanup(fileIdWithUser);
+                return false;
+            }
+
+            // 3. Registrar metadata con el tamaño real
+            File file = new File(uuid, name, offset, ownerId, directoryId);
+            if (!fileRepository.uploadFile(file)) {
+                LOGGER.severe("FALLO: No se pudo registrar la metadata en la BD");
+                cleanup(fileIdWithUser);
+                return false;
+            }
+
+            // 4. Limpiar los nodos que quedaron fuera a mitad del stream
+            for (Map.Entry<Long, NodeFileService> entry : nodes) {
+                if (!activeNodes.contains(entry)) {
+                    deletePartial(entry, fileIdWithUser);
+                }
+            }
+
+            // 5. Registrar cada nodo exitoso en File_Node (UUID SIN prefijo)
+            for (Map.Entry<Long, NodeFileService> entry : activeNodes) {
+                try {
+                    fileRepository.registerFileNode(uuid, entry.getKey());
+                    successfulNodes.add(entry.getKey());
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Error registrando File_Node para Node-" + entry.getKey(), e);
+                }
+            }
+
+            this.fileUuid = uuid;
+            this.bytesWritten = offset;
+            return true;
+
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error leyendo el stream de " + name, e);
+            cleanup(fileIdWithUser);
+            return false;
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error crítico en upload stream de " + name, e);
+            cleanup(fileIdWithUser);
+            return false;
+
+        } finally {
+            // Decrementar tareas activas
+            for (Map.Entry<Long, NodeFileService> entry : nodes) {
+                try {
+                    nodeSelector.completeTask(entry.getKey());
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Error al decrementar tareas activas", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Elimina los bloques parciales que hayan quedado en los nodos.
+     */
+    private void cleanup(String fileIdWithUser) {
+        for (Map.Entry<Long, NodeFileService> entry : nodes) {
+            deletePartial(entry, fileIdWithUser);
+        }
+    }
+
+    private void deletePartial(Map.Entry<Long, NodeFileService> entry, String fileIdWithUser) {
+        try {
+            entry.getValue().deleteFile(fileIdWithUser);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "No se pudo limpiar archivo parcial en Node-" + entry.getKey(), e);
+        }
+    }
+
+    // Getters para recuperar el resultado
+    public String getFileUuid() {
+        return fileUuid;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public List<Long> getSuccessfulNodes() {
+        return successfulNodes;
+    }
+}
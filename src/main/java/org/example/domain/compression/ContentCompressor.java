@@ -0,0 +1,188 @@
+package org.example.domain.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresión transparente del contenido antes de enviarlo a los nodos.
+ * Antes de comprimir el archivo completo se descartan formatos ya comprimidos
+ * (por firma) y se comprimen unas muestras: si no reducen al menos un 10%, el
+ * archivo se guarda tal cual y no se gasta CPU en él.
+ * Tampoco se comprimen los archivos mayores que maxSize: el contenido comprimido no permite leer
+ * un rango sin descargar y descomprimir el archivo entero.
+ */
+public class ContentCompressor {
+
+    public static final String CODEC_NONE = "none";
+    public static final String CODEC_DEFLATE = "deflate";
+
+    // Archivos pequeños no compensan la compresión
+    private static final int MIN_SIZE = 4 * 1024;
+
+    // Muestreo: hasta 3 ventanas (inicio, medio y final)
+    private static final int SAMPLE_SIZE = 64 * 1024;
+    private static final double MAX_SAMPLE_RATIO = 0.9;
+
+    // Firmas de formatos ya comprimidos
+    private static final byte[][] COMPRESSED_SIGNATURES = {
+            {0x50, 0x4B, 0x03, 0x04},                         // zip, docx/xlsx/pptx, jar
+            {0x1F, (byte) 0x8B},                              // gzip
+            {(byte) 0x89, 0x50, 0x4E, 0x47},                  // png
+            {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF},          // jpeg
+            {0x47, 0x49, 0x46, 0x38},                         // gif
+            {0x37, 0x7A, (byte) 0xBC, (byte) 0xAF},           // 7z
+            {(byte) 0xFD, 0x37, 0x7A, 0x58, 0x5A},            // xz
+            {0x42, 0x5A, 0x68},                               // bzip2
+            {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD},           // zstd
+            {0x52, 0x61, 0x72, 0x21},                         // rar
+    };
+
+    private final int level;
+    private final int maxSize;
+
+    /**
+     * @param level nivel de Deflater (1-9); 0 desactiva la compresión
+     * @param maxSize tamaño máximo en bytes de un archivo a comprimir
+     */
+    public ContentCompressor(int level, int maxSize) {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("Nivel de compresión inválido: " + level);
+        }
+        this.level = level;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Contenido tal como se guarda en los nodos.
+     */
+    public static class Compressed {
+        private final String codec;
+        private final byte[] data;
+
+        Compressed(String codec, byte[] data) {
+            this.codec = codec;
+            this.data = data;
+        }
+
+        public String getCodec() {
+            return codec;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public boolean isCompressed() {
+            return !CODEC_NONE.equals(codec);
+        }
+    }
+
+    /**
+     * Comprime el contenido si vale la pena.
+     */
+    public Compressed compress(byte[] content) {
+        if (level == 0 || content.length < MIN_SIZE || content.length > maxSize
+                || hasCompressedSignature(content) || !samplesCompress(content)) {
+            return new Compressed(CODEC_NONE, content);
+        }
+
+        byte[] deflated = deflate(content, 0, content.length, level);
+        if (deflated.length >= content.length * MAX_SAMPLE_RATIO) {
+            return new Compressed(CODEC_NONE, content);
+        }
+        return new Compressed(CODEC_DEFLATE, deflated);
+    }
+
+    /**
+     * Devuelve el contenido original a partir de lo guardado en los nodos.
+     * @param codec codec registrado (null o "none" si se guardó sin comprimir)
+     * @param logicalSize tamaño original del archivo
+     */
+    public static byte[] decompress(String codec, byte[] data, long logicalSize) throws DataFormatException {
+        if (codec == null || CODEC_NONE.equals(codec)) {
+            return data;
+        }
+        if (!CODEC_DEFLATE.equals(codec)) {
+            throw new DataFormatException("Codec desconocido: " + codec);
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] content = new byte[(int) logicalSize];
+            int length = 0;
+            while (length < content.length && !inflater.finished()) {
+                int read = inflater.inflate(content, length, content.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != content.length) {
+                throw new DataFormatException("Se esperaban " + logicalSize + " bytes, se obtuvieron " + length);
+            }
+            return content;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static boolean hasCompressedSignature(byte[] content) {
+        for (byte[] signature : COMPRESSED_SIGNATURES) {
+            if (startsWith(content, signature, 0)) {
+                return true;
+            }
+        }
+        // mp4/mov/heic: "ftyp" en el offset 4
+        return startsWith(content, new byte[]{0x66, 0x74, 0x79, 0x70}, 4);
+    }
+
+    private static boolean startsWith(byte[] content, byte[] prefix, int offset) {
+        if (content.length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (content[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Comprime rápido hasta 3 ventanas del contenido y estima si el archivo es comprimible.
+     */
+    private static boolean samplesCompress(byte[] content) {
+        if (content.length <= 3 * SAMPLE_SIZE) {
+            return deflate(content, 0, content.length, Deflater.BEST_SPEED).length < content.length * MAX_SAMPLE_RATIO;
+        }
+
+        int[] offsets = {0, content.length / 2 - SAMPLE_SIZE / 2, content.length - SAMPLE_SIZE};
+        long sampled = 0;
+        long compressed = 0;
+        for (int offset : offsets) {
+            sampled += SAMPLE_SIZE;
+            compressed += deflate(content, offset, SAMPLE_SIZE, Deflater.BEST_SPEED).length;
+        }
+        return compressed < sampled * MAX_SAMPLE_RATIO;
+    }
+
+    private static byte[] deflate(byte[] content, int offset, int length, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(content, offset, length);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 2));
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(buffer);
+                out.write(buffer, 0, written);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
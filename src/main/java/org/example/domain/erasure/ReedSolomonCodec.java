@@ -0,0 +1,260 @@
+package org.example.domain.erasure;
+
+import java.util.Arrays;
+
+/**
+ * Codificador Reed-Solomon sistemático sobre GF(2^8).
+ * Divide el contenido en k shards de datos y calcula m shards de paridad;
+ * con cualquier combinación de k shards se reconstruye el contenido original.
+ *
+ * Los shards de datos son el contenido tal cual (el último se rellena con ceros),
+ * así que mientras estén todos disponibles la lectura no necesita decodificar.
+ */
+public class ReedSolomonCodec {
+
+    private static final int FIELD_SIZE = 256;
+    private static final int PRIMITIVE_POLYNOMIAL = 0x11D;
+
+    // Tablas del cuerpo GF(2^8)
+    private static final int[] EXP = new int[FIELD_SIZE * 2];
+    private static final int[] LOG = new int[FIELD_SIZE];
+    private static final byte[][] MUL = new byte[FIELD_SIZE][FIELD_SIZE];
+
+    static {
+        int x = 1;
+        for (int i = 0; i < FIELD_SIZE - 1; i++) {
+            EXP[i] = x;
+            LOG[x] = i;
+            x <<= 1;
+            if (x >= FIELD_SIZE) {
+                x ^= PRIMITIVE_POLYNOMIAL;
+            }
+        }
+        for (int i = FIELD_SIZE - 1; i < EXP.length; i++) {
+            EXP[i] = EXP[i - (FIELD_SIZE - 1)];
+        }
+        for (int a = 1; a < FIELD_SIZE; a++) {
+            for (int b = 1; b < FIELD_SIZE; b++) {
+                MUL[a][b] = (byte) EXP[LOG[a] + LOG[b]];
+            }
+        }
+    }
+
+    private final int dataShards;
+    private final int parityShards;
+
+    // Matriz de codificación (k+m) x k: identidad arriba, paridad abajo
+    private final int[][] encodeMatrix;
+
+    public ReedSolomonCodec(int dataShards, int parityShards) {
+        if (dataShards < 1 || parityShards < 0 || dataShards + parityShards > FIELD_SIZE) {
+            throw new IllegalArgumentException("Configuración inválida: k=" + dataShards + ", m=" + parityShards);
+        }
+        this.dataShards = dataShards;
+        this.parityShards = parityShards;
+        this.encodeMatrix = buildEncodeMatrix(dataShards, dataShards + parityShards);
+    }
+
+    public int getDataShards() {
+        return dataShards;
+    }
+
+    public int getParityShards() {
+        return parityShards;
+    }
+
+    public int getTotalShards() {
+        return dataShards + parityShards;
+    }
+
+    /**
+     * Tamaño de cada shard para un contenido de la longitud dada.
+     */
+    public int shardSize(int contentLength) {
+        return Math.max(1, (contentLength + dataShards - 1) / dataShards);
+    }
+
+    /**
+     * Divide el contenido en k shards de datos y calcula los m de paridad.
+     * @return k+m shards del mismo tamaño
+     */
+    public byte[][] encode(byte[] content) {
+        int shardSize = shardSize(content.length);
+        byte[][] shards = new byte[getTotalShards()][shardSize];
+
+        for (int i = 0; i < dataShards; i++) {
+            int from = i * shardSize;
+            if (from < content.length) {
+                System.arraycopy(content, from, shards[i], 0, Math.min(shardSize, content.length - from));
+            }
+        }
+
+        for (int row = dataShards; row < getTotalShards(); row++) {
+            combine(encodeMatrix[row], shards, 0, shards[row]);
+        }
+        return shards;
+    }
+
+    /**
+     * Reconstruye el contenido original a partir de los shards disponibles.
+     * @param shards arreglo de k+m posiciones; null en las que no se pudieron leer
+     * @param contentLength longitud original del contenido
+     * @throws IllegalArgumentException si hay menos de k shards
+     */
+    public byte[] decode(byte[][] shards, int contentLength) {
+        if (shards.length != getTotalShards()) {
+            throw new IllegalArgumentException("Se esperaban " + getTotalShards() + " shards, llegaron " + shards.length);
+        }
+
+        int shardSize = shardSize(contentLength);
+        int[] presentRows = new int[dataShards];
+        int present = 0;
+        for (int i = 0; i < shards.length && present < dataShards; i++) {
+            if (shards[i] != null) {
+                if (shards[i].length != shardSize) {
+                    throw new IllegalArgumentException("El shard " + i + " mide " + shards[i].length +
+                            " bytes, se esperaban " + shardSize);
+                }
+                presentRows[present++] = i;
+            }
+        }
+        if (present < dataShards) {
+            throw new IllegalArgumentException("Solo hay " + present + " shards, se requieren " + dataShards);
+        }
+
+        // Reconstruir los shards de datos que faltan
+        boolean missingData = false;
+        for (int i = 0; i < dataShards; i++) {
+            missingData |= shards[i] == null;
+        }
+
+        if (missingData) {
+            int[][] subMatrix = new int[dataShards][];
+            byte[][] inputs = new byte[dataShards][];
+            for (int i = 0; i < dataShards; i++) {
+                subMatrix[i] = encodeMatrix[presentRows[i]];
+                inputs[i] = shards[presentRows[i]];
+            }
+            int[][] decodeMatrix = invert(subMatrix);
+
+            for (int i = 0; i < dataShards; i++) {
+                if (shards[i] == null) {
+                    byte[] rebuilt = new byte[shardSize];
+                    combine(decodeMatrix[i], inputs, 0, rebuilt);
+                    shards[i] = rebuilt;
+                }
+            }
+        }
+
+        byte[] content = new byte[contentLength];
+        for (int i = 0; i < dataShards; i++) {
+            int from = i * shardSize;
+            if (from >= contentLength) break;
+            System.arraycopy(shards[i], 0, content, from, Math.min(shardSize, contentLength - from));
+        }
+        return content;
+    }
+
+    /**
+     * output = sum(coefficients[j] * inputs[offset + j]) en GF(2^8).
+     */
+    private static void combine(int[] coefficients, byte[][] inputs, int offset, byte[] output) {
+        Arrays.fill(output, (byte) 0);
+        for (int j = 0; j < coefficients.length; j++) {
+            int coefficient = coefficients[j];
+            if (coefficient == 0) continue;
+
+            byte[] mulRow = MUL[coefficient];
+            byte[] input = inputs[offset + j];
+            for (int b = 0; b < output.length; b++) {
+                output[b] ^= mulRow[input[b] & 0xFF];
+            }
+        }
+    }
+
+    /**
+     * Construye una matriz sistemática a partir de una Vandermonde: V * inv(V_superior).
+     * Cualquier subconjunto de k filas sigue siendo invertible.
+     */
+    private static int[][] buildEncodeMatrix(int dataShards, int totalShards) {
+        int[][] vandermonde = new int[totalShards][dataShards];
+        for (int r = 0; r < totalShards; r++) {
+            for (int c = 0; c < dataShards; c++) {
+                vandermonde[r][c] = power(r, c);
+            }
+        }
+
+        int[][] top = Arrays.copyOf(vandermonde, dataShards);
+        int[][] topInverse = invert(top);
+
+        int[][] result = new int[totalShards][dataShards];
+        for (int r = 0; r < totalShards; r++) {
+            for (int c = 0; c < dataShards; c++) {
+                int value = 0;
+                for (int i = 0; i < dataShards; i++) {
+                    value ^= multiply(vandermonde[r][i], topInverse[i][c]);
+                }
+                result[r][c] = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Invierte una matriz cuadrada en GF(2^8) por Gauss-Jordan.
+     */
+    private static int[][] invert(int[][] matrix) {
+        int n = matrix.length;
+        int[][] work = new int[n][2 * n];
+        for (int r = 0; r < n; r++) {
+            System.arraycopy(matrix[r], 0, work[r], 0, n);
+            work[r][n + r] = 1;
+        }
+
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            while (pivot < n && work[pivot][col] == 0) {
+                pivot++;
+            }
+            if (pivot == n) {
+                throw new IllegalArgumentException("Matriz singular");
+            }
+            int[] tmp = work[col];
+            work[col] = work[pivot];
+            work[pivot] = tmp;
+
+            int scale = inverse(work[col][col]);
+            for (int c = 0; c < 2 * n; c++) {
+                work[col][c] = multiply(work[col][c], scale);
+            }
+
+            for (int r = 0; r < n; r++) {
+                int factor = work[r][col];
+                if (r == col || factor == 0) continue;
+                for (int c = 0; c < 2 * n; c++) {
+                    work[r][c] ^= multiply(factor, work[col][c]);
+                }
+            }
+        }
+
+        int[][] result = new int[n][n];
+        for (int r = 0; r < n; r++) {
+            System.arraycopy(work[r], n, result[r], 0, n);
+        }
+        return result;
+    }
+
+    private static int multiply(int a, int b) {
+        return MUL[a][b] & 0xFF;
+    }
+
+    private static int inverse(int a) {
+        return EXP[(FIELD_SIZE - 1) - LOG[a]];
+    }
+
+    private static int power(int a, int n) {
+        if (n == 0) return 1;
+        if (a == 0) return 0;
+        return EXP[(LOG[a] * n) % (FIELD_SIZE - 1)];
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.domain.model;
+
+/**
+ * Contenido almacenado físicamente en los nodos, identificado por su hash SHA-256.
+ * Varios archivos (filas de File) pueden apuntar al mismo blob; refCount cuenta cuántos.
+ * En los nodos el contenido vive bajo el id del primer archivo que lo subió (storageUuid).
+ */
+public class ContentBlob {
+
+    private final String hash;
+    private final String storageUuid;
+    private final Long ownerId;
+    private final long size;
+    private final int refCount;
+
+    public ContentBlob(String hash, String storageUuid, Long ownerId, long size, int refCount) {
+        this.hash = hash;
+        this.storageUuid = storageUuid;
+        this.ownerId = ownerId;
+        this.size = size;
+        this.refCount = refCount;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getStorageUuid() {
+        return storageUuid;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    /**
+     * Id del contenido en los nodos para escrituras y borrados (con prefijo de usuario).
+     */
+    public String getStorageIdWithOwner() {
+        return ownerId + "-" + storageUuid;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.domain.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chunk de un archivo almacenado por contenido.
+ * En los nodos el chunk se guarda una sola vez, con el nombre "chunk-<hash>".
+ */
+public class FileChunk {
+
+    private final int index;
+    private final String hash;
+    private final int size;
+    private final List<Long> nodeIds = new ArrayList<>();
+
+    public FileChunk(int index, String hash, int size) {
+        this.index = index;
+        this.hash = hash;
+        this.size = size;
+    }
+
+    /**
+     * Nombre del chunk en los nodos (compartido entre archivos y usuarios).
+     */
+    public static String storageName(String hash) {
+        return "chunk-" + hash;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public List<Long> getNodeIds() {
+        return nodeIds;
+    }
+
+    public void addNode(Long nodeId) {
+        nodeIds.add(nodeId);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.domain.model;
+
+/**
+ * Codec con el que se guardó un archivo en los nodos y su tamaño físico.
+ * El tamaño lógico (original) es el de File.size.
+ */
+public class FileCompression {
+
+    private final String codec;
+    private final long physicalSize;
+
+    public FileCompression(String codec, long physicalSize) {
+        this.codec = codec;
+        this.physicalSize = physicalSize;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public long getPhysicalSize() {
+        return physicalSize;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.domain.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Distribución de un archivo almacenado con erasure coding:
+ * k shards de datos + m de paridad y el nodo donde vive cada shard.
+ * Los archivos replicados no tienen layout (sus copias se registran en File_Node).
+ */
+public class FileLayout {
+
+    private final String fileId;
+    private final int dataShards;
+    private final int parityShards;
+    private final int shardSize;
+    private final Map<Integer, Long> shardNodes = new TreeMap<>(); // índice de shard -> nodo
+
+    public FileLayout(String fileId, int dataShards, int parityShards, int shardSize) {
+        this.fileId = fileId;
+        this.dataShards = dataShards;
+        this.parityShards = parityShards;
+        this.shardSize = shardSize;
+    }
+
+    /**
+     * Nombre del shard en el nodo: mismo id que el archivo con sufijo de índice.
+     */
+    public static String shardName(String fileId, int shardIndex) {
+        return fileId + ".shard" + shardIndex;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public int getDataShards() {
+        return dataShards;
+    }
+
+    public int getParityShards() {
+        return parityShards;
+    }
+
+    public int getTotalShards() {
+        return dataShards + parityShards;
+    }
+
+    public int getShardSize() {
+        return shardSize;
+    }
+
+    public Map<Integer, Long> getShardNodes() {
+        return shardNodes;
+    }
+
+    public void addShard(int shardIndex, Long nodeId) {
+        shardNodes.put(shardIndex, nodeId);
+    }
+}
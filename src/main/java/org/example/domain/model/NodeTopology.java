@@ -0,0 +1,75 @@
+package org.example.domain.model;
+
+import java.util.Objects;
+
+/**
+ * Dominios de fallo de un nodo: zona, rack y máquina física.
+ * Se escribe como etiqueta "zona/rack/host"; las partes que faltan toman el valor por defecto.
+ */
+public class NodeTopology {
+
+    public static final String DEFAULT = "default";
+
+    private final String zone;
+    private final String rack;
+    private final String host;
+
+    public NodeTopology(String zone, String rack, String host) {
+        this.zone = zone;
+        this.rack = rack;
+        this.host = host;
+    }
+
+    /**
+     * Interpreta una etiqueta "zona/rack/host".
+     * @param defaultHost host a usar si la etiqueta no lo incluye (normalmente la IP del nodo)
+     */
+    public static NodeTopology parse(String label, String defaultHost) {
+        String[] parts = label == null || label.isBlank() ? new String[0] : label.trim().split("/");
+        return new NodeTopology(
+                part(parts, 0, DEFAULT),
+                part(parts, 1, DEFAULT),
+                part(parts, 2, defaultHost));
+    }
+
+    private static String part(String[] parts, int index, String fallback) {
+        return index < parts.length && !parts[index].isBlank() ? parts[index].trim() : fallback;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public String getRack() {
+        return rack;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Rack identificado globalmente (el mismo nombre de rack puede repetirse en otra zona).
+     */
+    public String getRackKey() {
+        return zone + "/" + rack;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NodeTopology)) return false;
+        NodeTopology that = (NodeTopology) o;
+        return zone.equals(that.zone) && rack.equals(that.rack) && host.equals(that.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(zone, rack, host);
+    }
+
+    @Override
+    public String toString() {
+        return zone + "/" + rack + "/" + host;
+    }
+}
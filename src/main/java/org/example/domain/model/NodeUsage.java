@@ -0,0 +1,30 @@
+package org.example.domain.model;
+
+/**
+ * Capacidad y uso de un nodo según la BD: espacio de archivos, shards y chunks que guarda
+ * y número de archivos registrados en File_Node.
+ */
+public class NodeUsage {
+
+    private final long capacity;
+    private final long spaceUsed;
+    private final int fileCount;
+
+    public NodeUsage(long capacity, long spaceUsed, int fileCount) {
+        this.capacity = capacity;
+        this.spaceUsed = spaceUsed;
+        this.fileCount = fileCount;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getSpaceUsed() {
+        return spaceUsed;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+}
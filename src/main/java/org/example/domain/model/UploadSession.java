@@ -0,0 +1,186 @@
+package org.example.domain.model;
+
+import org.example.infrastructure.remote.NodeFileService;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sesión de subida por bloques. El id de la sesión es también el UUID final del archivo.
+ * Cada nodo lleva su propio registro de bloques recibidos, así un reintento
+ * solo escribe en los nodos a los que les falta ese bloque.
+ * Un bloque cuenta como recibido cuando está en al menos writeQuorum nodos.
+ */
+public class UploadSession {
+
+    private final String sessionId;
+    private final Long userId;
+    private final Long ownerId;
+    private final Long directoryId;
+    private final String fileName;
+    private final long totalSize;
+    private final int chunkSize;
+    private final int totalChunks;
+    private final int writeQuorum;
+    private final List<Map.Entry<Long, NodeFileService>> nodes;
+    private final Map<Long, BitSet> chunksByNode = new HashMap<>();
+    private volatile long lastActivity;
+    private boolean committing;
+    private boolean committed;
+
+    public UploadSession(String sessionId, Long userId, Long ownerId, Long directoryId, String fileName,
+                         long totalSize, int chunkSize, int writeQuorum, List<Map.Entry<Long, NodeFileService>> nodes) {
+        this.sessionId = sessionId;
+        this.userId = userId;
+        this.ownerId = ownerId;
+        this.directoryId = directoryId;
+        this.fileName = fileName;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.totalChunks = (int) ((totalSize + chunkSize - 1) / chunkSize);
+        this.writeQuorum = writeQuorum;
+        this.nodes = nodes;
+        for (Map.Entry<Long, NodeFileService> node : nodes) {
+            chunksByNode.put(node.getKey(), new BitSet(totalChunks));
+        }
+        touch();
+    }
+
+    /**
+     * Tamaño esperado de un bloque (el último puede ser más corto).
+     */
+    public int expectedChunkLength(int chunkIndex) {
+        if (chunkIndex == totalChunks - 1) {
+            return (int) (totalSize - (long) chunkIndex * chunkSize);
+        }
+        return chunkSize;
+    }
+
+    public synchronized boolean hasChunk(Long nodeId, int chunkIndex) {
+        return chunksByNode.get(nodeId).get(chunkIndex);
+    }
+
+    public synchronized void markChunk(Long nodeId, int chunkIndex) {
+        chunksByNode.get(nodeId).set(chunkIndex);
+    }
+
+    /**
+     * Bloques recibidos por un nodo.
+     */
+    public synchronized int countChunks(Long nodeId) {
+        return chunksByNode.get(nodeId).cardinality();
+    }
+
+    /**
+     * Un nodo está completo si recibió todos los bloques.
+     */
+    public synchronized boolean isNodeComplete(Long nodeId) {
+        return chunksByNode.get(nodeId).cardinality() == totalChunks;
+    }
+
+    /**
+     * Nodos que tienen el bloque.
+     */
+    public synchronized int countReplicas(int chunkIndex) {
+        int replicas = 0;
+        for (BitSet chunks : chunksByNode.values()) {
+            if (chunks.get(chunkIndex)) {
+                replicas++;
+            }
+        }
+        return replicas;
+    }
+
+    /**
+     * Bloques que están en menos de writeQuorum nodos.
+     */
+    public synchronized int[] getMissingChunks() {
+        int[] missing = new int[totalChunks];
+        int count = 0;
+        for (int chunk = 0; chunk < totalChunks; chunk++) {
+            if (countReplicas(chunk) < writeQuorum) {
+                missing[count++] = chunk;
+            }
+        }
+        return Arrays.copyOf(missing, count);
+    }
+
+    /**
+     * Marca el inicio de un commit.
+     * @return false si ya hay un commit en curso o la sesión ya se confirmó
+     */
+    public synchronized boolean beginCommit() {
+        if (committing || committed) {
+            return false;
+        }
+        committing = true;
+        return true;
+    }
+
+    /**
+     * Marca el fin de un commit; si falló, la sesión sigue abierta para reintentarlo.
+     */
+    public synchronized void endCommit(boolean success) {
+        committing = false;
+        committed = success;
+    }
+
+    public synchronized boolean isCommitting() {
+        return committing;
+    }
+
+    public synchronized boolean isCommitted() {
+        return committed;
+    }
+
+    public void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public Long getDirectoryId() {
+        return directoryId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public int getWriteQuorum() {
+        return writeQuorum;
+    }
+
+    public List<Map.Entry<Long, NodeFileService>> getNodes() {
+        return nodes;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.domain.port;
+
+import org.example.domain.model.File;
+
+/**
+ * Descarga de un archivo que no está guardado como copia completa en un nodo
+ * (erasure coding, chunks) y se reconstruye en memoria.
+ */
+public interface AssembledDownload extends StorageCommand<Boolean> {
+
+    byte[] getContent();
+
+    File getMetadata();
+}
@@ -0,0 +1,85 @@
+package org.example.infrastructure.remote;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.RemoteException;
+import java.util.logging.Logger;
+
+/**
+ * Proxy de NodeFileService que mueve los bytes de uploadFile, downloadFile y downloadFileRange
+ * por el transporte binario del nodo (BulkTransferClient) y deja el resto de llamadas en RMI.
+ * Si el transporte no acepta conexiones la llamada va por RMI y no se vuelve a intentar hasta
+ * pasados RETRY_AFTER_MILLIS; un fallo a mitad de transferencia se lanza como RemoteException
+ * para que lo cuente el circuit breaker del nodo.
+ */
+public final class BulkNodeFileService implements InvocationHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkNodeFileService.class.getName());
+    private static final long RETRY_AFTER_MILLIS = 30_000;
+
+    private final Long nodeId;
+    private final NodeFileService delegate;
+    private final BulkTransferClient client;
+    private volatile long unavailableUntil;
+
+    private BulkNodeFileService(Long nodeId, NodeFileService delegate, BulkTransferClient client) {
+        this.nodeId = nodeId;
+        this.delegate = delegate;
+        this.client = client;
+    }
+
+    /**
+     * Envuelve el stub RMI de un nodo para que sus bytes vayan por el transporte binario.
+     */
+    public static NodeFileService wrap(Long nodeId, NodeFileService stub, BulkTransferClient client) {
+        return (NodeFileService) Proxy.newProxyInstance(
+                NodeFileService.class.getClassLoader(),
+                new Class<?>[]{NodeFileService.class},
+                new BulkNodeFileService(nodeId, stub, client));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // Métodos de Object: no son llamadas remotas
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "NodeFileService[Node-" + nodeId + ", transporte " + client.getEndpoint() + "]";
+            }
+        }
+
+        if (System.currentTimeMillis() >= unavailableUntil) {
+            try {
+                switch (method.getName()) {
+                    case "uploadFile":
+                        return client.upload((String) args[0], (byte[]) args[1]);
+                    case "downloadFile":
+                        return client.download((String) args[0]);
+                    case "downloadFileRange":
+                        return client.download((String) args[0], (Long) args[1], (Integer) args[2]);
+                    default:
+                        break;
+                }
+            } catch (BulkTransferClient.BulkConnectException e) {
+                unavailableUntil = System.currentTimeMillis() + RETRY_AFTER_MILLIS;
+                LOGGER.warning("Transporte de Node-" + nodeId + " no disponible, usando RMI durante " +
+                        RETRY_AFTER_MILLIS / 1000 + "s: " + e.getMessage());
+            } catch (IOException e) {
+                throw new RemoteException("Error de transporte con Node-" + nodeId + " en " + method.getName(), e);
+            }
+        }
+
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
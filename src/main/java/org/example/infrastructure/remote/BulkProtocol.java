@@ -0,0 +1,128 @@
+package org.example.infrastructure.remote;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocolo binario del transporte de bytes entre el servidor y los nodos.
+ * Cada petición es una cabecera seguida, en las subidas, de exactamente length bytes de contenido:
+ *
+ *   petición:  magic(int) op(byte) nameLength(short) name(UTF-8) offset(long) length(long) [contenido]
+ *   respuesta: status(byte) length(long) [contenido]
+ *
+ * La conexión admite varias peticiones seguidas. El contenido viaja tal cual, sin serializar,
+ * así que el nodo puede enviarlo con FileChannel.transferTo y escribirlo al archivo sin pasar por el heap.
+ * La primera petición de cada conexión es OP_HELLO con el secreto compartido en el campo name;
+ * si el nodo no lo acepta responde STATUS_UNAUTHORIZED y cierra la conexión.
+ */
+final class BulkProtocol {
+
+    static final int MAGIC = 0x424C4B31; // "BLK1"
+
+    static final byte OP_UPLOAD = 1;
+    // Lee length bytes desde offset (length < 0: hasta el final del archivo)
+    static final byte OP_DOWNLOAD = 2;
+    // Saludo inicial con el token (name = token, offset y length sin uso)
+    static final byte OP_HELLO = 3;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_NOT_FOUND = 1;
+    static final byte STATUS_ERROR = 2;
+    static final byte STATUS_UNAUTHORIZED = 3;
+
+    static final int RESPONSE_BYTES = 1 + Long.BYTES;
+    private static final int MAX_NAME_BYTES = Short.MAX_VALUE;
+
+    private BulkProtocol() {
+    }
+
+    /**
+     * Cabecera de una petición, lista para escribir.
+     */
+    static ByteBuffer request(byte op, String name, long offset, long length) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Nombre demasiado largo: " + nameBytes.length + " bytes");
+        }
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + 1 + Short.BYTES + nameBytes.length + 2 * Long.BYTES);
+        header.putInt(MAGIC).put(op).putShort((short) nameBytes.length).put(nameBytes).putLong(offset).putLong(length);
+        return header.flip();
+    }
+
+    /**
+     * Cabecera de una respuesta, lista para escribir.
+     */
+    static ByteBuffer response(byte status, long length) {
+        return ByteBuffer.allocate(RESPONSE_BYTES).put(status).putLong(length).flip();
+    }
+
+    /**
+     * Lee exactamente buffer.remaining() bytes (nunca más, para no consumir contenido que venga detrás).
+     * @return false si el canal se cerró antes del primer byte
+     */
+    static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        boolean started = false;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (!started) {
+                    return false;
+                }
+                throw new EOFException("Conexión cerrada a mitad de mensaje");
+            }
+            started = true;
+        }
+        return true;
+    }
+
+    static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Petición leída del canal.
+     */
+    static final class Request {
+        final byte op;
+        final String name;
+        final long offset;
+        final long length;
+
+        private Request(byte op, String name, long offset, long length) {
+            this.op = op;
+            this.name = name;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * @return null si el otro extremo cerró la conexión entre peticiones
+         */
+        static Request read(ReadableByteChannel channel) throws IOException {
+            ByteBuffer prefix = ByteBuffer.allocate(Integer.BYTES + 1 + Short.BYTES);
+            if (!readFully(channel, prefix)) {
+                return null;
+            }
+            prefix.flip();
+            if (prefix.getInt() != MAGIC) {
+                throw new IOException("Cabecera de transporte inválida");
+            }
+            byte op = prefix.get();
+            int nameLength = Short.toUnsignedInt(prefix.getShort());
+
+            ByteBuffer rest = ByteBuffer.allocate(nameLength + 2 * Long.BYTES);
+            if (!readFully(channel, rest)) {
+                throw new EOFException("Conexión cerrada a mitad de cabecera");
+            }
+            rest.flip();
+            byte[] nameBytes = new byte[nameLength];
+            rest.get(nameBytes);
+            return new Request(op, new String(nameBytes, StandardCharsets.UTF_8), rest.getLong(), rest.getLong());
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package org.example.infrastructure.remote;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cliente del transporte de bytes de un nodo (ver BulkProtocol y BulkTransferServer).
+ * Mantiene unas pocas conexiones abiertas para reutilizarlas; una conexión que falla a mitad
+ * de mensaje se cierra, nunca vuelve al pool.
+ * Cada conexión nueva se presenta con el token compartido (OP_HELLO).
+ * Los errores al conectar, incluido un token rechazado, se lanzan como BulkConnectException para
+ * que el llamador pueda usar RMI.
+ * Cada lectura o escritura en el socket tiene un plazo (ioTimeoutMillis, ver IoWatchdog): si el nodo
+ * deja de responder la conexión se cierra y la operación falla con SocketTimeoutException.
+ * Las escrituras grandes se parten en trozos de IO_SLICE_BYTES para que el plazo sea por trozo.
+ */
+public class BulkTransferClient {
+
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final int SOCKET_BUFFER_BYTES = 1024 * 1024;
+    private static final int IO_SLICE_BYTES = 1024 * 1024;
+
+    /**
+     * No se pudo abrir la conexión (el nodo no tiene el transporte activo o no es alcanzable).
+     */
+    public static class BulkConnectException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public BulkConnectException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final String token;
+    private final int connectTimeoutMillis;
+    private final int ioTimeoutMillis;
+    private final ConcurrentLinkedDeque<SocketChannel> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    // Métricas
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong transfers = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    /**
+     * @param token secreto compartido con el BulkTransferServer del nodo (vacío si no usa)
+     * @param ioTimeoutMillis plazo de cada lectura o escritura en el socket (0 sin límite)
+     */
+    public BulkTransferClient(String host, int port, String token, int connectTimeoutMillis, int ioTimeoutMillis) {
+        this.address = InetSocketAddress.createUnresolved(host, port);
+        this.token = token != null ? token : "";
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.ioTimeoutMillis = ioTimeoutMillis;
+    }
+
+    public String getEndpoint() {
+        return address.getHostString() + ":" + address.getPort();
+    }
+
+    /**
+     * Guarda un archivo en el nodo.
+     * @return false si el nodo no pudo escribirlo
+     */
+    public boolean upload(String name, byte[] content) throws IOException {
+        return withConnection(channel -> upload(channel, name, content));
+    }
+
+    private boolean upload(SocketChannel channel, String name, byte[] content) throws IOException {
+        try {
+            // Cabecera y contenido en escrituras agrupadas, sin copiar el contenido
+            ByteBuffer body = ByteBuffer.wrap(content);
+            ByteBuffer[] message = {BulkProtocol.request(BulkProtocol.OP_UPLOAD, name, 0, content.length), body};
+            while (message[0].hasRemaining() || body.position() < content.length) {
+                body.limit(Math.min(content.length, body.position() + IO_SLICE_BYTES));
+                timed(channel, () -> channel.write(message));
+            }
+            bytesSent.addAndGet(content.length);
+
+            ByteBuffer response = readResponse(channel);
+            release(channel);
+            return response.get() == BulkProtocol.STATUS_OK;
+
+        } catch (IOException | RuntimeException e) {
+            close(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Lee un archivo completo del nodo.
+     * @return null si el archivo no existe
+     */
+    public byte[] download(String name) throws IOException {
+        return download(name, 0, -1);
+    }
+
+    /**
+     * Lee hasta length bytes desde offset (length < 0: hasta el final).
+     * @return null si el archivo no existe
+     */
+    public byte[] download(String name, long offset, int length) throws IOException {
+        return withConnection(channel -> download(channel, name, offset, length));
+    }
+
+    private byte[] download(SocketChannel channel, String name, long offset, int length) throws IOException {
+        try {
+            long size = requestDownload(channel, name, offset, length);
+            if (size < 0) {
+                release(channel);
+                return null;
+            }
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("Archivo demasiado grande para un byte[]: " + name + " (" + size + " bytes)");
+            }
+
+            byte[] content = new byte[(int) size];
+            if (!readFully(channel, ByteBuffer.wrap(content)) && size > 0) {
+                throw new IOException("El nodo " + getEndpoint() + " cerró la conexión");
+            }
+            bytesReceived.addAndGet(size);
+            release(channel);
+            return content;
+
+        } catch (IOException | RuntimeException e) {
+            close(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Abre una lectura en streaming de un archivo desde offset hasta el final: el contenido se lee
+     * del socket a medida que se consume, sin tenerlo entero en memoria.
+     * La conexión vuelve al pool al leer el último byte; si el stream se cierra antes, se descarta.
+     * @return null si el archivo no existe
+     */
+    public InputStream openDownload(String name, long offset) throws IOException {
+        return withConnection(channel -> openDownload(channel, name, offset));
+    }
+
+    private InputStream openDownload(SocketChannel channel, String name, long offset) throws IOException {
+        long size;
+        try {
+            size = requestDownload(channel, name, offset, -1);
+        } catch (IOException | RuntimeException e) {
+            close(channel);
+            throw e;
+        }
+        if (size < 0) {
+            release(channel);
+            return null;
+        }
+        return new ChannelInputStream(channel, size);
+    }
+
+    /**
+     * Envía una petición de lectura y devuelve los bytes que vienen detrás (-1 si no existe).
+     */
+    private long requestDownload(SocketChannel channel, String name, long offset, long length) throws IOException {
+        ByteBuffer request = BulkProtocol.request(BulkProtocol.OP_DOWNLOAD, name, offset, length);
+        while (request.hasRemaining()) {
+            timed(channel, () -> channel.write(request));
+        }
+        ByteBuffer response = readResponse(channel);
+        byte status = response.get();
+        long size = response.getLong();
+        if (status == BulkProtocol.STATUS_NOT_FOUND) {
+            return -1;
+        }
+        if (status != BulkProtocol.STATUS_OK) {
+            throw new IOException("El nodo " + getEndpoint() + " no pudo leer " + name);
+        }
+        return size;
+    }
+
+    private ByteBuffer readResponse(SocketChannel channel) throws IOException {
+        ByteBuffer response = ByteBuffer.allocate(BulkProtocol.RESPONSE_BYTES);
+        if (!readFully(channel, response)) {
+            throw new IOException("El nodo " + getEndpoint() + " cerró la conexión");
+        }
+        transfers.incrementAndGet();
+        return response.flip();
+    }
+
+    /**
+     * Como BulkProtocol.readFully, con el plazo aplicado a cada lectura.
+     */
+    private boolean readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        boolean started = false;
+        while (buffer.hasRemaining()) {
+            if (timed(channel, () -> channel.read(buffer)) < 0) {
+                if (!started) {
+                    return false;
+                }
+                throw new EOFException("Conexión cerrada a mitad de mensaje");
+            }
+            started = true;
+        }
+        return true;
+    }
+
+    /**
+     * Lectura o escritura sobre el socket.
+     */
+    private interface Io {
+        long run() throws IOException;
+    }
+
+    /**
+     * Ejecuta una operación de E/S con el plazo ioTimeoutMillis; si vence, el IoWatchdog cierra
+     * el socket y se lanza SocketTimeoutException.
+     */
+    private long timed(SocketChannel channel, Io io) throws IOException {
+        IoWatchdog.Deadline deadline = IoWatchdog.begin(channel, "transporte " + getEndpoint(), ioTimeoutMillis);
+        try {
+            return io.run();
+        } catch (IOException e) {
+            if (deadline != null && deadline.isExpired()) {
+                SocketTimeoutException timeout = new SocketTimeoutException(
+                        "Sin respuesta del transporte de " + getEndpoint() + " en " + ioTimeoutMillis + " ms");
+                timeout.initCause(e);
+                throw timeout;
+            }
+            throw e;
+        } finally {
+            IoWatchdog.end(deadline);
+        }
+    }
+
+    /**
+     * Operación sobre una conexión; debe devolverla al pool o cerrarla.
+     */
+    private interface Exchange<T> {
+        T run(SocketChannel channel) throws IOException;
+    }
+
+    /**
+     * Ejecuta la operación sobre una conexión libre o, si no hay, sobre una nueva.
+     * Si falla una conexión reutilizada (el nodo pudo cerrarla mientras estaba libre)
+     * se reintenta una vez con una conexión nueva; un timeout no se reintenta.
+     */
+    private <T> T withConnection(Exchange<T> exchange) throws IOException {
+        SocketChannel pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            if (pooled.isOpen()) {
+                try {
+                    return exchange.run(pooled);
+                } catch (SocketTimeoutException e) {
+                    throw e;
+                } catch (IOException e) {
+                    break;
+                }
+            }
+        }
+        return exchange.run(connect());
+    }
+
+    private SocketChannel connect() throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().setSendBufferSize(SOCKET_BUFFER_BYTES);
+            channel.socket().setReceiveBufferSize(SOCKET_BUFFER_BYTES);
+            channel.socket().connect(new InetSocketAddress(address.getHostString(), address.getPort()), connectTimeoutMillis);
+            hello(channel);
+        } catch (BulkConnectException e) {
+            close(channel);
+            throw e;
+        } catch (IOException e) {
+            close(channel);
+            throw new BulkConnectException("No se pudo conectar con el transporte de " + getEndpoint(), e);
+        }
+        connectionsOpened.incrementAndGet();
+        return channel;
+    }
+
+    /**
+     * Presenta el token en una conexión recién abierta.
+     */
+    private void hello(SocketChannel channel) throws IOException {
+        ByteBuffer request = BulkProtocol.request(BulkProtocol.OP_HELLO, token, 0, 0);
+        while (request.hasRemaining()) {
+            timed(channel, () -> channel.write(request));
+        }
+        ByteBuffer response = ByteBuffer.allocate(BulkProtocol.RESPONSE_BYTES);
+        if (!readFully(channel, response)) {
+            throw new IOException("El nodo " + getEndpoint() + " cerró la conexión");
+        }
+        if (response.flip().get() != BulkProtocol.STATUS_OK) {
+            throw new BulkConnectException("El transporte de " + getEndpoint() + " rechazó el token", null);
+        }
+    }
+
+    private void release(SocketChannel channel) {
+        if (idleCount.incrementAndGet() <= MAX_IDLE_CONNECTIONS) {
+            idle.offerFirst(channel);
+        } else {
+            idleCount.decrementAndGet();
+            close(channel);
+        }
+    }
+
+    private static void close(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Cierra las conexiones libres.
+     */
+    public void shutdown() {
+        SocketChannel channel;
+        while ((channel = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            close(channel);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d transferencias, %d conexiones, enviado=%.1f MB, recibido=%.1f MB",
+                getEndpoint(), transfers.get(), connectionsOpened.get(),
+                bytesSent.get() / 1048576.0, bytesReceived.get() / 1048576.0);
+    }
+
+    /**
+     * Contenido de una respuesta leído directamente del socket.
+     */
+    private final class ChannelInputStream extends InputStream {
+        private final SocketChannel channel;
+        private long remaining;
+        private boolean closed;
+
+        ChannelInputStream(SocketChannel channel, long size) {
+            this.channel = channel;
+            this.remaining = size;
+            if (size == 0) {
+                finish();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed && remaining > 0) {
+                throw new IOException("Stream cerrado");
+            }
+            if (remaining == 0) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+
+            int n;
+            try {
+                ByteBuffer target = ByteBuffer.wrap(b, off, (int) Math.min(len, remaining));
+                n = (int) timed(channel, () -> channel.read(target));
+            } catch (IOException e) {
+                abort();
+                throw e;
+            }
+            if (n < 0) {
+                abort();
+                throw new IOException("El nodo " + getEndpoint() + " cerró la conexión con " + remaining + " bytes pendientes");
+            }
+
+            remaining -= n;
+            bytesReceived.addAndGet(n);
+            if (remaining == 0) {
+                finish();
+            }
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(remaining, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                // Quedan bytes en el socket: la conexión no se puede reutilizar
+                abort();
+            }
+        }
+
+        private void finish() {
+            closed = true;
+            release(channel);
+        }
+
+        private void abort() {
+            closed = true;
+            BulkTransferClient.close(channel);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package org.example.infrastructure.remote;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lado del nodo del transporte de bytes (ver BulkProtocol): sirve el mismo directorio de
+ * almacenamiento que usa su NodeFileService, con los nombres resueltos relativos a él.
+ * Las lecturas salen del archivo al socket con FileChannel.transferTo y las escrituras entran por
+ * un buffer directo de la conexión, sin pasar por el heap; el control (listar, mover, borrar...) sigue por RMI.
+ * Una subida se escribe en un temporal y se mueve al final, así nunca se lee un archivo a medias.
+ *
+ * Escucha solo en la dirección indicada y cada conexión debe presentar el token compartido antes
+ * de cualquier petición (ver BulkProtocol.OP_HELLO), igual que nodes.registration.token en el
+ * registro de nodos. Sin token solo se permite escuchar en loopback.
+ *
+ * Se arranca desde el proceso del nodo (new BulkTransferServer(raíz, dirección, puerto, token).start())
+ * o aparte:
+ *
+ *   java -Dstorage.bulk.bindAddress=10.0.1.5 -Dstorage.bulk.token=... \
+ *        org.example.infrastructure.remote.BulkTransferServer <raíz> <puerto>
+ */
+public class BulkTransferServer {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkTransferServer.class.getName());
+    private static final int SOCKET_BUFFER_BYTES = 1024 * 1024;
+    // Plazo para que una conexión nueva presente el token
+    private static final long HELLO_TIMEOUT_MILLIS = 10_000;
+
+    private final Path root;
+    private final InetAddress bindAddress;
+    private final int port;
+    private final byte[] token;
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "BulkTransfer-Connection");
+        t.setDaemon(true);
+        return t;
+    });
+    private ServerSocketChannel serverChannel;
+    private Thread acceptThread;
+
+    /**
+     * @param bindAddress dirección en la que escuchar
+     * @param token secreto compartido con el servidor (null o vacío solo si bindAddress es loopback)
+     */
+    public BulkTransferServer(Path root, InetAddress bindAddress, int port, String token) {
+        if ((token == null || token.isEmpty()) && !bindAddress.isLoopbackAddress()) {
+            throw new IllegalArgumentException("El transporte en " + bindAddress.getHostAddress() +
+                    " requiere un token (storage.bulk.token)");
+        }
+        this.root = root.toAbsolutePath().normalize();
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.token = token != null ? token.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Uso: BulkTransferServer <directorio de almacenamiento> <puerto>");
+            System.err.println("     -Dstorage.bulk.bindAddress=<ip> (por defecto 127.0.0.1) -Dstorage.bulk.token=<secreto>");
+            System.exit(1);
+        }
+        BulkTransferServer server = new BulkTransferServer(Paths.get(args[0]),
+                InetAddress.getByName(System.getProperty("storage.bulk.bindAddress", "127.0.0.1")),
+                Integer.parseInt(args[1]), System.getProperty("storage.bulk.token"));
+        server.start();
+        server.acceptThread.join();
+    }
+
+    public synchronized void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().setReceiveBufferSize(SOCKET_BUFFER_BYTES);
+        serverChannel.bind(new InetSocketAddress(bindAddress, port));
+
+        acceptThread = new Thread(this::acceptLoop, "BulkTransfer-Accept");
+        acceptThread.start();
+        LOGGER.info("BulkTransferServer escuchando en " + bindAddress.getHostAddress() + ":" + getPort() +
+                ", raíz " + root + (token.length > 0 ? ", con token" : ""));
+    }
+
+    /**
+     * Puerto en el que escucha (útil si se arrancó con el puerto 0).
+     */
+    public int getPort() {
+        return serverChannel != null ? serverChannel.socket().getLocalPort() : port;
+    }
+
+    public synchronized void shutdown() {
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Error cerrando BulkTransferServer", e);
+        }
+        connectionExecutor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.socket().setTcpNoDelay(true);
+                channel.socket().setSendBufferSize(SOCKET_BUFFER_BYTES);
+                connectionExecutor.execute(() -> serve(channel));
+            } catch (IOException e) {
+                if (serverChannel.isOpen()) {
+                    LOGGER.log(Level.WARNING, "Error aceptando conexión de transporte", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Atiende las peticiones de una conexión hasta que el cliente la cierra.
+     */
+    private void serve(SocketChannel channel) {
+        // transferFrom desde un socket copia de 8 KB en 8 KB; con un buffer directo propio se hacen menos llamadas
+        ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(SOCKET_BUFFER_BYTES);
+        try (channel) {
+            if (!authenticate(channel)) {
+                return;
+            }
+            BulkProtocol.Request request;
+            while ((request = BulkProtocol.Request.read(channel)) != null) {
+                switch (request.op) {
+                    case BulkProtocol.OP_DOWNLOAD:
+                        sendFile(channel, request);
+                        break;
+                    case BulkProtocol.OP_UPLOAD:
+                        receiveFile(channel, request, receiveBuffer);
+                        break;
+                    default:
+                        throw new IOException("Operación de transporte desconocida: " + request.op);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Conexión de transporte cerrada con error", e);
+        }
+    }
+
+    /**
+     * Lee el saludo de la conexión y comprueba el token.
+     * @return false si no se presentó o no coincide (ya se respondió STATUS_UNAUTHORIZED)
+     */
+    private boolean authenticate(SocketChannel channel) throws IOException {
+        IoWatchdog.Deadline deadline = IoWatchdog.begin(channel, "saludo de transporte", HELLO_TIMEOUT_MILLIS);
+        BulkProtocol.Request hello;
+        try {
+            hello = BulkProtocol.Request.read(channel);
+        } finally {
+            IoWatchdog.end(deadline);
+        }
+        if (hello == null) {
+            return false;
+        }
+
+        boolean accepted = hello.op == BulkProtocol.OP_HELLO
+                && (token.length == 0 || MessageDigest.isEqual(token, hello.name.getBytes(StandardCharsets.UTF_8)));
+        if (!accepted) {
+            LOGGER.warning("Conexión de transporte rechazada desde " + channel.getRemoteAddress() + ": token inválido");
+            BulkProtocol.writeFully(channel, BulkProtocol.response(BulkProtocol.STATUS_UNAUTHORIZED, 0));
+            return false;
+        }
+        BulkProtocol.writeFully(channel, BulkProtocol.response(BulkProtocol.STATUS_OK, 0));
+        return true;
+    }
+
+    private void sendFile(SocketChannel channel, BulkProtocol.Request request) throws IOException {
+        Path file = resolve(request.name);
+        if (file == null || !Files.isRegularFile(file)) {
+            BulkProtocol.writeFully(channel, BulkProtocol.response(BulkProtocol.STATUS_NOT_FOUND, 0));
+            return;
+        }
+
+        FileChannel source;
+        try {
+            source = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            BulkProtocol.writeFully(channel, BulkProtocol.response(BulkProtocol.STATUS_NOT_FOUND, 0));
+            return;
+        }
+
+        try (source) {
+            long size = source.size();
+            long position = Math.min(Math.max(request.offset, 0), size);
+            long remaining = request.length < 0 ? size - position : Math.min(request.length, size - position);
+            BulkProtocol.writeFully(channel, BulkProtocol.response(BulkProtocol.STATUS_OK, remaining));
+
+            // Del page cache al socket sin copiar al heap
+            while (remaining > 0) {
+                long sent = source.transferTo(position, remaining, channel);
+                if (sent <= 0) {
+                    // El archivo se truncó a mitad de envío: el cliente verá la conexión cerrada
+                    throw new IOException("Archivo truncado durante el envío: " + file);
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private void receiveFile(SocketChannel channel, BulkProtocol.Request request, ByteBuffer buffer) throws IOException {
+        if (request.length < 0) {
+            throw new IOException("Longitud de subida inválida: " + request.length);
+        }
+        Path file = resolve(request.name);
+        if (file == null) {
+            // Consumir el contenido para que la conexión siga sirviendo
+            discard(channel, request.length);
+            BulkProtocol.writeFully(channel, BulkProtocol.response(BulkProtocol.STATUS_ERROR, 0));
+            return;
+        }
+
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), ".bulk-", ".tmp");
+        try {
+            try (FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long remaining = request.length;
+                while (remaining > 0) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+                    if (channel.read(buffer) < 0) {
+                        throw new EOFException("Conexión cerrada a mitad de la subida de " + request.name);
+                    }
+                    remaining -= buffer.flip().remaining();
+                    BulkProtocol.writeFully(target, buffer);
+                }
+            }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        BulkProtocol.writeFully(channel, BulkProtocol.response(BulkProtocol.STATUS_OK, 0));
+    }
+
+    private static void discard(SocketChannel channel, long length) throws IOException {
+        ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+        while (length > 0) {
+            scratch.clear().limit((int) Math.min(scratch.capacity(), length));
+            int read = channel.read(scratch);
+            if (read < 0) {
+                throw new EOFException("Conexión cerrada a mitad de una subida");
+            }
+            length -= read;
+        }
+    }
+
+    /**
+     * Ruta de un nombre dentro de la raíz (null si se sale de ella).
+     */
+    private Path resolve(String name) {
+        String relative = name.startsWith("/") ? name.substring(1) : name;
+        if (relative.isEmpty()) {
+            return null;
+        }
+        Path path = root.resolve(relative).normalize();
+        return path.startsWith(root) && !path.equals(root) ? path : null;
+    }
+}
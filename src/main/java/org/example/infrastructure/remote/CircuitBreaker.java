@@ -0,0 +1,129 @@
+package org.example.infrastructure.remote;
+
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker de un nodo.
+ * CLOSED: las llamadas pasan; tras failureThreshold fallos seguidos se abre.
+ * OPEN: las llamadas fallan al instante sin tocar la red; pasado openMillis, o en cuanto
+ * el prober de salud ve responder al nodo, pasa a HALF_OPEN.
+ * HALF_OPEN: deja pasar una sola llamada de prueba; si va bien se cierra, si falla se vuelve a abrir.
+ * Como NodeSelector no envía tráfico nuevo a un nodo que no está CLOSED, la siguiente respuesta
+ * del prober cuenta como prueba superada y también cierra el circuito.
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    // Protegidos por this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        if (failureThreshold < 1 || openMillis < 0) {
+            throw new IllegalArgumentException("Configuración de circuit breaker inválida: " + failureThreshold + "/" + openMillis);
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Pide permiso para hacer una llamada.
+     * @return false si el circuito está abierto (o ya hay una llamada de prueba en curso)
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+
+        // HALF_OPEN: una sola llamada de prueba a la vez
+        if (trialInFlight) {
+            return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+
+    /**
+     * La llamada terminó y el nodo respondió (aunque sea con un error de la aplicación).
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * La llamada falló por el transporte (nodo caído, conexión rechazada, timeout...).
+     */
+    public synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            open();
+        }
+    }
+
+    /**
+     * El prober de salud vio responder al nodo: si estaba abierto se permite una llamada de prueba,
+     * y si ya estaba en HALF_OPEN sin ninguna en curso la respuesta cuenta como prueba y se cierra.
+     */
+    public synchronized void onProbeSuccess() {
+        if (state == State.OPEN) {
+            transition(State.HALF_OPEN);
+        } else if (state == State.HALF_OPEN && !trialInFlight) {
+            consecutiveFailures = 0;
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * El prober de salud no obtuvo respuesta: el nodo deja de recibir tráfico al instante.
+     */
+    public synchronized void onProbeFailure() {
+        if (state != State.OPEN) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * true si el nodo puede recibir tráfico normal (circuito cerrado).
+     */
+    public synchronized boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    private void open() {
+        openedAt = System.currentTimeMillis();
+        trialInFlight = false;
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            LOGGER.warning("Circuito de " + name + ": " + state + " -> " + next);
+            state = next;
+        }
+    }
+}
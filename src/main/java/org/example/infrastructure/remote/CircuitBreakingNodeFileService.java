@@ -0,0 +1,70 @@
+package org.example.infrastructure.remote;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.RemoteException;
+import java.rmi.ServerError;
+import java.rmi.ServerException;
+
+/**
+ * Proxy de NodeFileService que pasa cada llamada por el circuit breaker del nodo.
+ * Cuenta como fallo cualquier RemoteException del transporte; ServerException y ServerError
+ * significan que el nodo respondió (con un error propio) y cuentan como éxito.
+ */
+public final class CircuitBreakingNodeFileService implements InvocationHandler {
+
+    private final Long nodeId;
+    private final NodeFileService delegate;
+    private final CircuitBreaker breaker;
+
+    private CircuitBreakingNodeFileService(Long nodeId, NodeFileService delegate, CircuitBreaker breaker) {
+        this.nodeId = nodeId;
+        this.delegate = delegate;
+        this.breaker = breaker;
+    }
+
+    /**
+     * Envuelve el stub de un nodo con su circuit breaker.
+     */
+    public static NodeFileService wrap(Long nodeId, NodeFileService stub, CircuitBreaker breaker) {
+        return (NodeFileService) Proxy.newProxyInstance(
+                NodeFileService.class.getClassLoader(),
+                new Class<?>[]{NodeFileService.class},
+                new CircuitBreakingNodeFileService(nodeId, stub, breaker));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // Métodos de Object: no son llamadas remotas
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "NodeFileService[Node-" + nodeId + ", " + breaker.getState() + "]";
+            }
+        }
+
+        if (!breaker.tryAcquire()) {
+            throw new NodeUnavailableException("Node-" + nodeId + " no disponible (circuito abierto)");
+        }
+
+        try {
+            Object result = method.invoke(delegate, args);
+            breaker.onSuccess();
+            return result;
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RemoteException && !(cause instanceof ServerException || cause instanceof ServerError)) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            throw cause;
+        }
+    }
+}
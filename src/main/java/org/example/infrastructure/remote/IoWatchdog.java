@@ -0,0 +1,97 @@
+package org.example.infrastructure.remote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Timeout a nivel de socket para las operaciones de E/S bloqueantes que no lo tienen
+ * (escrituras de un Socket, lecturas y escrituras de un SocketChannel bloqueante).
+ * Cada operación se registra con un plazo; si sigue bloqueada al vencer, se cierra su socket
+ * y la llamada en curso (RMI o transporte) falla en vez de dejar el hilo colgado.
+ * Un timeout del llamador (orTimeout, future.get) no cancela la llamada RMI; esto sí.
+ */
+final class IoWatchdog {
+
+    private static final Logger LOGGER = Logger.getLogger(IoWatchdog.class.getName());
+    private static final long CHECK_INTERVAL_MILLIS = 500;
+
+    private static final IoWatchdog INSTANCE = new IoWatchdog();
+
+    /**
+     * Operación en curso; se termina con IoWatchdog.end.
+     */
+    static final class Deadline {
+        private final Closeable target;
+        private final String description;
+        private final long expiresAtNanos;
+        private volatile boolean expired;
+
+        private Deadline(Closeable target, String description, long timeoutMillis) {
+            this.target = target;
+            this.description = description;
+            this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        }
+
+        /**
+         * true si el socket se cerró por vencer el plazo.
+         */
+        boolean isExpired() {
+            return expired;
+        }
+    }
+
+    private final Set<Deadline> pending = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "IoWatchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private IoWatchdog() {
+        timer.scheduleWithFixedDelay(this::closeExpired, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra una operación que debe terminar en timeoutMillis.
+     * @return null si timeoutMillis <= 0 (sin plazo)
+     */
+    static Deadline begin(Closeable target, String description, long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            return null;
+        }
+        Deadline deadline = new Deadline(target, description, timeoutMillis);
+        INSTANCE.pending.add(deadline);
+        return deadline;
+    }
+
+    /**
+     * Marca la operación como terminada (acepta null).
+     */
+    static void end(Deadline deadline) {
+        if (deadline != null) {
+            INSTANCE.pending.remove(deadline);
+        }
+    }
+
+    private void closeExpired() {
+        long now = System.nanoTime();
+        for (Deadline deadline : pending) {
+            if (now - deadline.expiresAtNanos >= 0 && pending.remove(deadline)) {
+                deadline.expired = true;
+                LOGGER.warning("Timeout de E/S en " + deadline.description + ", cerrando la conexión");
+                try {
+                    deadline.target.close();
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.FINE, "Error cerrando " + deadline.description, e);
+                }
+            }
+        }
+    }
+}
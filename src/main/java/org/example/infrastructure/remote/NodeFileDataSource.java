@@ -0,0 +1,105 @@
+package org.example.infrastructure.remote;
+
+import jakarta.activation.DataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataSource de solo lectura respaldado por un archivo en los nodos.
+ * Cada llamada a getInputStream abre una lectura nueva: en streaming por el transporte binario
+ * de la primera réplica que lo tenga y responda, o por bloques con downloadFileRange probando
+ * las réplicas en orden (ver NodeFileInputStream).
+ */
+public class NodeFileDataSource implements DataSource {
+
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    /**
+     * Réplica del archivo: su stub y, si lo tiene activo, su transporte binario.
+     */
+    public static final class Replica {
+        private final NodeFileService node;
+        private final BulkTransferClient bulkClient;
+
+        /**
+         * @param bulkClient transporte binario del nodo (null para leer solo por RMI)
+         */
+        public Replica(NodeFileService node, BulkTransferClient bulkClient) {
+            this.node = node;
+            this.bulkClient = bulkClient;
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final String filePath;
+    private final String name;
+    private final long size;
+
+    public NodeFileDataSource(NodeFileService node, String filePath, String name, long size) {
+        this(node, null, filePath, name, size);
+    }
+
+    /**
+     * @param bulkClient transporte binario del nodo (null para leer solo por RMI)
+     */
+    public NodeFileDataSource(NodeFileService node, BulkTransferClient bulkClient, String filePath, String name, long size) {
+        this(List.of(new Replica(node, bulkClient)), filePath, name, size);
+    }
+
+    /**
+     * @param replicas réplicas del archivo en orden de preferencia (p. ej. NodeSelector.rankReplicasForRead)
+     */
+    public NodeFileDataSource(List<Replica> replicas, String filePath, String name, long size) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("Sin réplicas para " + filePath);
+        }
+        this.replicas = List.copyOf(replicas);
+        this.filePath = filePath;
+        this.name = name;
+        this.size = size;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.bulkClient == null) {
+                continue;
+            }
+            try {
+                InputStream stream = replica.bulkClient.openDownload(filePath, 0);
+                if (stream != null) {
+                    return stream;
+                }
+            } catch (IOException e) {
+                // Sin transporte binario o réplica caída: probar la siguiente
+            }
+        }
+
+        List<NodeFileService> nodes = new ArrayList<>();
+        for (Replica replica : replicas) {
+            nodes.add(replica.node);
+        }
+        NodeFileInputStream stream = new NodeFileInputStream(nodes, filePath, size);
+        stream.open();
+        return stream;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        throw new IOException("NodeFileDataSource es de solo lectura");
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.infrastructure.remote;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * InputStream que lee un archivo de un nodo por bloques usando downloadFileRange.
+ * Solo mantiene un bloque en memoria a la vez, sin importar el tamaño del archivo.
+ * Con varias réplicas, si una falla se pide el mismo bloque a la siguiente (failover por bloque).
+ */
+public class NodeFileInputStream extends InputStream {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024; // 1MB
+
+    private final List<NodeFileService> nodes;
+    private int current;
+    private final String filePath;
+    private final long size;
+    private final int chunkSize;
+
+    private byte[] chunk = new byte[0];
+    private int chunkPos;
+    private long offset;
+    private boolean closed;
+
+    public NodeFileInputStream(NodeFileService node, String filePath, long size) {
+        this(node, filePath, size, DEFAULT_CHUNK_SIZE);
+    }
+
+    public NodeFileInputStream(NodeFileService node, String filePath, long size, int chunkSize) {
+        this(List.of(node), filePath, size, chunkSize);
+    }
+
+    /**
+     * @param nodes réplicas del archivo en orden de preferencia
+     */
+    public NodeFileInputStream(List<NodeFileService> nodes, String filePath, long size) {
+        this(nodes, filePath, size, DEFAULT_CHUNK_SIZE);
+    }
+
+    public NodeFileInputStream(List<NodeFileService> nodes, String filePath, long size, int chunkSize) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Sin réplicas para " + filePath);
+        }
+        this.nodes = nodes;
+        this.filePath = filePath;
+        this.size = size;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return chunk[chunkPos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, chunk.length - chunkPos);
+        System.arraycopy(chunk, chunkPos, b, off, n);
+        chunkPos += n;
+        return n;
+    }
+
+    /**
+     * Trae el primer bloque ya, para que un fallo de todas las réplicas se vea al abrir el stream
+     * y no a mitad de la respuesta.
+     */
+    public void open() throws IOException {
+        fill();
+    }
+
+    @Override
+    public int available() {
+        return chunk.length - chunkPos;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        chunk = new byte[0];
+    }
+
+    /**
+     * Trae el siguiente bloque del nodo si el actual ya se consumió.
+     * @return false si se llegó al final del archivo
+     */
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("Stream cerrado: " + filePath);
+        }
+        if (chunkPos < chunk.length) {
+            return true;
+        }
+        if (offset >= size) {
+            return false;
+        }
+
+        int length = (int) Math.min(chunkSize, size - offset);
+        IOException failure;
+        while (true) {
+            try {
+                byte[] block = nodes.get(current).downloadFileRange(filePath, offset, length);
+                if (block != null && block.length > 0) {
+                    chunk = block;
+                    break;
+                }
+                failure = new IOException("El nodo devolvió un bloque vacío para " + filePath + " en offset " + offset);
+            } catch (RemoteException e) {
+                failure = new IOException("Error leyendo " + filePath + " en offset " + offset, e);
+            }
+            // Probar el mismo bloque en la siguiente réplica
+            if (current + 1 >= nodes.size()) {
+                throw failure;
+            }
+            current++;
+        }
+
+        chunkPos = 0;
+        offset += chunk.length;
+        return true;
+    }
+}
@@ -11,10 +11,14 @@ public interface NodeFileService extends Remote {
 
     // Subir/almacenar archivos
     boolean uploadFile(String fileId, byte[] content) throws RemoteException;
+    // Escribe un bloque en la posición offset (crea el archivo si no existe, admite escrituras en cualquier orden)
+    boolean uploadFileChunk(String fileId, long offset, byte[] chunk) throws RemoteException;
 
     // Leer/descargar archivos
     byte[] downloadFile(String filePath) throws RemoteException;
     List<byte[]> downloadFiles(List<String> filePaths) throws RemoteException;
+    // Lee hasta length bytes desde offset (menos al final del archivo, vacío si offset >= tamaño)
+    byte[] downloadFileRange(String filePath, long offset, int length) throws RemoteException;
 
     // Mover/renombrar archivos o directorios
     boolean moveFile(String sourcePath, String destinationPath) throws RemoteException;
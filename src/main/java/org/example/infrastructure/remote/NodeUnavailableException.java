@@ -0,0 +1,15 @@
+package org.example.infrastructure.remote;
+
+import java.rmi.RemoteException;
+
+/**
+ * Llamada rechazada sin ir a la red porque el circuito del nodo está abierto.
+ */
+public class NodeUnavailableException extends RemoteException {
+
+    private static final long serialVersionUID = 1L;
+
+    public NodeUnavailableException(String message) {
+        super(message);
+    }
+}
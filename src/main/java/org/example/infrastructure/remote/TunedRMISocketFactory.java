@@ -0,0 +1,379 @@
+package org.example.infrastructure.remote;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.Remote;
+import java.rmi.server.RMISocketFactory;
+import java.rmi.server.RemoteObject;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fábrica de sockets RMI de este proceso: ajusta los buffers TCP, Nagle y keep-alive de cada
+ * conexión a los nodos, pone un timeout real de conexión y de escritura y lleva estadísticas por endpoint
+ * (host:puerto) de las conexiones abiertas y de cuánto se reutilizan.
+ * RMI ya reutiliza las conexiones libres; esta fábrica solo decide cómo se crean y lo mide.
+ * Se aplica a los stubs exportados sin fábrica de cliente propia (el caso de los nodos).
+ * Las lecturas ya tienen el timeout de RMI (sun.rmi.transport.tcp.responseTimeout); el de escritura
+ * cubre a un nodo que deja de leer a mitad de una subida, que si no bloquearía el hilo indefinidamente.
+ *
+ *   -Drmi.socket.factory=true             (false deja los sockets por defecto de RMI)
+ *   -Drmi.socket.connectTimeoutMs=10000
+ *   -Drmi.socket.writeTimeoutMs=60000     (una escritura bloqueada más tiempo cierra la conexión; 0 sin límite)
+ *   -Drmi.socket.bufferBytes=1048576      (SO_SNDBUF/SO_RCVBUF; 0 deja los del sistema)
+ *   -Drmi.socket.bufferBytes.<host>=...   (valor para un host concreto)
+ *   -Drmi.socket.tcpNoDelay=true
+ *   -Drmi.socket.keepAlive=true
+ */
+public class TunedRMISocketFactory extends RMISocketFactory {
+
+    private static final Logger LOGGER = Logger.getLogger(TunedRMISocketFactory.class.getName());
+
+    // "endpoint:[host:puerto]" en la descripción de la referencia de un stub
+    private static final Pattern ENDPOINT_PATTERN = Pattern.compile("endpoint:\\[([^\\]]+)\\]");
+    // Mensaje de ping de JRMP (comprobación de una conexión libre antes de reutilizarla)
+    private static final int JRMP_PING = 0x52;
+
+    private static volatile TunedRMISocketFactory installed;
+
+    /**
+     * Estadísticas de las conexiones a un endpoint.
+     * Las llamadas se estiman por los cambios de sentido en el socket: cada petición que el cliente
+     * escribe tras leer una respuesta cuenta como un intercambio, menos el del saludo inicial de JRMP
+     * y los pings con los que RMI comprueba una conexión libre antes de reutilizarla.
+     */
+    public static final class EndpointStats {
+        private final String endpoint;
+        private final AtomicLong opened = new AtomicLong();
+        private final AtomicLong closed = new AtomicLong();
+        private final AtomicLong failedConnects = new AtomicLong();
+        private final AtomicLong exchanges = new AtomicLong();
+        private final AtomicLong bytesSent = new AtomicLong();
+        private final AtomicLong bytesReceived = new AtomicLong();
+        private final AtomicLong connectNanos = new AtomicLong();
+
+        private EndpointStats(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getOpened() {
+            return opened.get();
+        }
+
+        /**
+         * Conexiones abiertas ahora mismo (en uso o libres en el pool de RMI).
+         */
+        public long getActive() {
+            return opened.get() - closed.get();
+        }
+
+        public long getFailedConnects() {
+            return failedConnects.get();
+        }
+
+        /**
+         * Llamadas estimadas hechas por las conexiones a este endpoint.
+         */
+        public long getCalls() {
+            return Math.max(0, exchanges.get() - opened.get());
+        }
+
+        /**
+         * Llamadas por conexión abierta (1 = ninguna reutilización).
+         */
+        public double getReuseRatio() {
+            long connections = opened.get();
+            return connections > 0 ? (double) getCalls() / connections : 0.0;
+        }
+
+        public long getBytesSent() {
+            return bytesSent.get();
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived.get();
+        }
+
+        public double getAverageConnectMillis() {
+            long connections = opened.get();
+            return connections > 0 ? connectNanos.get() / 1e6 / connections : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: conexiones=%d (activas=%d, fallidas=%d), llamadas≈%d, reutilización=%.1f, " +
+                            "conexión media=%.1f ms, enviado=%.1f MB, recibido=%.1f MB",
+                    endpoint, getOpened(), getActive(), getFailedConnects(), getCalls(), getReuseRatio(),
+                    getAverageConnectMillis(), bytesSent.get() / 1048576.0, bytesReceived.get() / 1048576.0);
+        }
+    }
+
+    private final int connectTimeoutMillis;
+    private final int writeTimeoutMillis;
+    private final int defaultBufferBytes;
+    private final boolean tcpNoDelay;
+    private final boolean keepAlive;
+    private final Map<String, EndpointStats> statsByEndpoint = new ConcurrentHashMap<>();
+
+    public TunedRMISocketFactory(int connectTimeoutMillis, int writeTimeoutMillis, int defaultBufferBytes,
+                                 boolean tcpNoDelay, boolean keepAlive) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.defaultBufferBytes = defaultBufferBytes;
+        this.tcpNoDelay = tcpNoDelay;
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Crea la fábrica a partir de las propiedades del sistema y la instala como fábrica global de RMI.
+     * Debe llamarse antes de la primera llamada RMI del proceso.
+     * @return la fábrica instalada, o null si está desactivada o ya había otra instalada
+     */
+    public static TunedRMISocketFactory installFromSystemProperties() {
+        if (!Boolean.parseBoolean(System.getProperty("rmi.socket.factory", "true"))) {
+            LOGGER.info("TunedRMISocketFactory desactivada, usando los sockets por defecto de RMI");
+            return null;
+        }
+
+        TunedRMISocketFactory factory = new TunedRMISocketFactory(
+                Integer.getInteger("rmi.socket.connectTimeoutMs", 10_000),
+                Integer.getInteger("rmi.socket.writeTimeoutMs", 60_000),
+                Integer.getInteger("rmi.socket.bufferBytes", 1024 * 1024),
+                Boolean.parseBoolean(System.getProperty("rmi.socket.tcpNoDelay", "true")),
+                Boolean.parseBoolean(System.getProperty("rmi.socket.keepAlive", "true")));
+        try {
+            RMISocketFactory.setSocketFactory(factory);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Ya hay una fábrica de sockets RMI instalada", e);
+            return null;
+        }
+
+        installed = factory;
+        LOGGER.info("TunedRMISocketFactory: connectTimeout=" + factory.connectTimeoutMillis + " ms, writeTimeout=" +
+                factory.writeTimeoutMillis + " ms, buffers=" +
+                (factory.defaultBufferBytes > 0 ? (factory.defaultBufferBytes >> 10) + " KB" : "sistema") +
+                ", tcpNoDelay=" + factory.tcpNoDelay + ", keepAlive=" + factory.keepAlive);
+        return factory;
+    }
+
+    /**
+     * Fábrica instalada en este proceso (null si no hay).
+     */
+    public static TunedRMISocketFactory getInstalled() {
+        return installed;
+    }
+
+    /**
+     * Endpoint (host:puerto) al que conecta un stub RMI.
+     * @return null si el stub no es un stub RMI estándar
+     */
+    public static String endpointOf(Remote stub) {
+        try {
+            Object ref = stub;
+            if (Proxy.isProxyClass(stub.getClass())) {
+                ref = Proxy.getInvocationHandler(stub);
+            }
+            if (!(ref instanceof RemoteObject) || ((RemoteObject) ref).getRef() == null) {
+                return null;
+            }
+            Matcher matcher = ENDPOINT_PATTERN.matcher(((RemoteObject) ref).getRef().remoteToString());
+            return matcher.find() ? matcher.group(1) : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        EndpointStats stats = statsByEndpoint.computeIfAbsent(host + ":" + port, EndpointStats::new);
+
+        // Los buffers se fijan antes de conectar para que TCP negocie la ventana con ellos
+        TrackedSocket socket = new TrackedSocket(stats, writeTimeoutMillis);
+        int bufferBytes = bufferBytesFor(host);
+        if (bufferBytes > 0) {
+            socket.setSendBufferSize(bufferBytes);
+            socket.setReceiveBufferSize(bufferBytes);
+        }
+        socket.setTcpNoDelay(tcpNoDelay);
+        socket.setKeepAlive(keepAlive);
+
+        long start = System.nanoTime();
+        try {
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+        } catch (IOException e) {
+            stats.failedConnects.incrementAndGet();
+            socket.close();
+            throw e;
+        }
+        stats.connectNanos.addAndGet(System.nanoTime() - start);
+        stats.opened.incrementAndGet();
+        return socket;
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port) throws IOException {
+        ServerSocket serverSocket = new ServerSocket();
+        if (defaultBufferBytes > 0) {
+            serverSocket.setReceiveBufferSize(defaultBufferBytes);
+        }
+        serverSocket.bind(new InetSocketAddress(port));
+        return serverSocket;
+    }
+
+    /**
+     * Estadísticas de un endpoint (null si nunca se conectó a él).
+     */
+    public EndpointStats getStats(String endpoint) {
+        return endpoint != null ? statsByEndpoint.get(endpoint) : null;
+    }
+
+    /**
+     * Estadísticas de todos los endpoints, ordenadas por endpoint.
+     */
+    public Map<String, EndpointStats> getStats() {
+        return new TreeMap<>(statsByEndpoint);
+    }
+
+    /**
+     * Imprime las estadísticas de conexiones por endpoint.
+     */
+    public void printStats() {
+        StringBuilder sb = new StringBuilder("\n=== Conexiones RMI ===\n");
+        for (EndpointStats stats : getStats().values()) {
+            sb.append("  ").append(stats).append("\n");
+        }
+        LOGGER.info(sb.toString());
+    }
+
+    private int bufferBytesFor(String host) {
+        return Integer.getInteger("rmi.socket.bufferBytes." + host, defaultBufferBytes);
+    }
+
+    /**
+     * Socket que registra bytes, intercambios y cierre en las estadísticas de su endpoint,
+     * y se cierra si una escritura queda bloqueada más de writeTimeoutMillis.
+     */
+    private static final class TrackedSocket extends Socket {
+        private final EndpointStats stats;
+        private final int writeTimeoutMillis;
+        private final String writeDescription;
+        private volatile boolean writing;
+        private int burstBytes;
+        private int burstFirstByte;
+        private boolean closeRecorded;
+        private InputStream inputStream;
+        private OutputStream outputStream;
+
+        TrackedSocket(EndpointStats stats, int writeTimeoutMillis) {
+            this.stats = stats;
+            this.writeTimeoutMillis = writeTimeoutMillis;
+            this.writeDescription = "escritura RMI a " + stats.endpoint;
+        }
+
+        @Override
+        public synchronized InputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new FilterInputStream(super.getInputStream()) {
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        if (b >= 0) {
+                            received(1);
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = super.read(b, off, len);
+                        if (n > 0) {
+                            received(n);
+                        }
+                        return n;
+                    }
+                };
+            }
+            return inputStream;
+        }
+
+        @Override
+        public synchronized OutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new FilterOutputStream(super.getOutputStream()) {
+                    @Override
+                    public void write(int b) throws IOException {
+                        sent(b, 1);
+                        IoWatchdog.Deadline deadline = IoWatchdog.begin(TrackedSocket.this, writeDescription, writeTimeoutMillis);
+                        try {
+                            out.write(b);
+                        } finally {
+                            IoWatchdog.end(deadline);
+                        }
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        if (len > 0) {
+                            sent(b[off], len);
+                        }
+                        IoWatchdog.Deadline deadline = IoWatchdog.begin(TrackedSocket.this, writeDescription, writeTimeoutMillis);
+                        try {
+                            out.write(b, off, len);
+                        } finally {
+                            IoWatchdog.end(deadline);
+                        }
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!closeRecorded && isConnected()) {
+                    closeRecorded = true;
+                    stats.closed.incrementAndGet();
+                }
+            }
+        }
+
+        private void sent(int firstByte, int bytes) {
+            if (!writing) {
+                writing = true;
+                burstBytes = 0;
+                burstFirstByte = firstByte & 0xFF;
+                stats.exchanges.incrementAndGet();
+            }
+            burstBytes += bytes;
+            stats.bytesSent.addAndGet(bytes);
+        }
+
+        private void received(int bytes) {
+            if (writing && burstBytes == 1 && burstFirstByte == JRMP_PING) {
+                stats.exchanges.decrementAndGet();
+            }
+            writing = false;
+            stats.bytesReceived.addAndGet(bytes);
+        }
+    }
+}
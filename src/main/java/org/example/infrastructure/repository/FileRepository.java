@@ -1,10 +1,19 @@
 package org.example.infrastructure.repository;
 
+import org.example.domain.model.ContentBlob;
 import org.example.domain.model.File;
+import org.example.domain.model.FileChunk;
+import org.example.domain.model.FileCompression;
+import org.example.domain.model.FileLayout;
+import org.example.domain.model.NodeTopology;
+import org.example.domain.model.NodeUsage;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 import static com.sun.xml.ws.spi.db.BindingContextFactory.LOGGER;
@@ -196,6 +205,24 @@ public class FileRepository {
         return true;
     }
 
+    /**
+     * Deshace el registro de un archivo que no llegó a completarse (réplicas, compresión y fila de File).
+     */
+    public void deleteFileMetadata(String fileUuid) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM File_Node WHERE file_uuid = ?")) {
+            stmt.setString(1, fileUuid);
+            stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM File_Compression WHERE file_uuid = ?")) {
+            stmt.setString(1, fileUuid);
+            stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM File WHERE uuid = ?")) {
+            stmt.setString(1, fileUuid);
+            stmt.executeUpdate();
+        }
+    }
+
     public File findByUuid(String fileUuid) throws SQLException {
         String sql = "SELECT uuid, name, size, directory_id, owner_id FROM File WHERE uuid = ?";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -568,6 +595,70 @@ public class FileRepository {
         return files;
     }
 
+    /**
+     * Obtiene el nombre de un directorio.
+     * @return null si no existe
+     */
+    public String getDirectoryName(Long directoryId) throws SQLException {
+        String sql = "SELECT name FROM Directory WHERE id = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, directoryId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("name");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Calcula la ruta de cada directorio relativa a rootId ("" para el propio root, "a/b" para un nieto),
+     * subiendo por father_id. Los directorios que no cuelgan de rootId no aparecen en el resultado.
+     */
+    public Map<Long, String> getRelativeDirectoryPaths(Long rootId, Collection<Long> directoryIds) throws SQLException {
+        String sql = "SELECT name, father_id FROM Directory WHERE id = ?";
+        Map<Long, String> names = new HashMap<>();
+        Map<Long, Long> parents = new HashMap<>();
+        Map<Long, String> paths = new HashMap<>();
+        paths.put(rootId, "");
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (Long directoryId : directoryIds) {
+                // Subir hasta un directorio con ruta conocida (o hasta la raíz del árbol)
+                List<Long> chain = new ArrayList<>();
+                Long current = directoryId;
+                while (current != null && !paths.containsKey(current) && !chain.contains(current)) {
+                    chain.add(current);
+                    if (!names.containsKey(current)) {
+                        stmt.setLong(1, current);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            if (!rs.next()) {
+                                break;
+                            }
+                            names.put(current, rs.getString("name"));
+                            parents.put(current, rs.getObject("father_id", Long.class));
+                        }
+                    }
+                    current = parents.get(current);
+                }
+
+                if (current == null || !paths.containsKey(current)) {
+                    continue;
+                }
+
+                // Bajar asignando rutas
+                for (int i = chain.size() - 1; i >= 0; i--) {
+                    Long id = chain.get(i);
+                    String parentPath = paths.get(parents.get(id));
+                    paths.put(id, parentPath.isEmpty() ? names.get(id) : parentPath + "/" + names.get(id));
+                }
+            }
+        }
+
+        return paths;
+    }
+
 
     // --------- METODOS RELACIONADOS A LOS NODOS DE ALMACENAMIENTO
 
@@ -587,6 +678,55 @@ public class FileRepository {
     }
 
 
+    /**
+     * Guarda (o actualiza) la topología de un nodo.
+     */
+    public void upsertNodeTopology(Long nodeId, NodeTopology topology) throws SQLException {
+        String sql = "INSERT INTO Node_Topology (node_id, zone, rack, host) VALUES (?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE zone = VALUES(zone), rack = VALUES(rack), host = VALUES(host)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, nodeId);
+            stmt.setString(2, topology.getZone());
+            stmt.setString(3, topology.getRack());
+            stmt.setString(4, topology.getHost());
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Obtiene la topología de un nodo.
+     * @return null si el nodo no tiene topología registrada
+     */
+    public NodeTopology findNodeTopology(Long nodeId) throws SQLException {
+        String sql = "SELECT zone, rack, host FROM Node_Topology WHERE node_id = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, nodeId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new NodeTopology(rs.getString("zone"), rs.getString("rack"), rs.getString("host"));
+                }
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Obtiene la topología de todos los nodos que la tienen registrada, en una sola consulta.
+     */
+    public Map<Long, NodeTopology> findAllNodeTopologies() throws SQLException {
+        String sql = "SELECT node_id, zone, rack, host FROM Node_Topology";
+        Map<Long, NodeTopology> topologies = new HashMap<>();
+        try (PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                topologies.put(rs.getLong("node_id"),
+                        new NodeTopology(rs.getString("zone"), rs.getString("rack"), rs.getString("host")));
+            }
+        }
+        return topologies;
+    }
+
     public String registerFileNode(String fileUuid, Long nodeId) throws SQLException {
         String sql = "{CALL register_file_node(?, ?)}";
         try (CallableStatement stmt = connection.prepareCall(sql)) {
@@ -622,19 +762,21 @@ public class FileRepository {
 
 
     /**
-     * Obtiene el espacio total usado por un nodo (suma de tamaños de archivos).
+     * Obtiene el espacio total usado por un nodo (suma de tamaños de archivos,
+     * más los shards y chunks que guarda).
      * @param nodeId ID del nodo
      * @return Espacio usado en bytes
      */
     public long getNodeSpaceUsed(Long nodeId) throws SQLException {
         String sql = "{CALL get_node_space_used(?)}";
+        long spaceUsed = 0;
 
         try (CallableStatement stmt = connection.prepareCall(sql)) {
             stmt.setLong(1, nodeId);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getLong("space_used");
+                    spaceUsed = rs.getLong("space_used");
                 }
             }
         } catch (SQLException e) {
@@ -642,7 +784,45 @@ public class FileRepository {
             throw e;
         }
 
-        return 0;
+        spaceUsed += sumForNode("SELECT COALESCE(SUM(l.shard_size), 0) FROM File_Shard s " +
+                "JOIN File_Layout l ON l.file_uuid = s.file_uuid WHERE s.node_id = ?", nodeId);
+        spaceUsed += sumForNode("SELECT COALESCE(SUM(c.size), 0) FROM Chunk_Node cn " +
+                "JOIN Chunk c ON c.hash = cn.hash WHERE cn.node_id = ?", nodeId);
+        return spaceUsed;
+    }
+
+    private long sumForNode(String sql, Long nodeId) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, nodeId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Obtiene la capacidad y el uso de todos los nodos en una sola consulta: lo mismo que
+     * getNodeCapacity, getNodeSpaceUsed y countFilesByNode, agrupado por nodo.
+     * Las réplicas comprimidas cuentan por su tamaño físico (File_Compression), igual que
+     * UploadFileCommand al registrar la subida (recordFileUpload con los bytes guardados).
+     * Los archivos deduplicados comparten el contenido guardado (Content_Blob.storage_uuid) y
+     * cuentan una sola vez por nodo, tanto en espacio como en número de archivos.
+     * Usa el procedimiento get_all_node_usage (sql/storage_procedures.sql).
+     */
+    public Map<Long, NodeUsage> findAllNodeUsage() throws SQLException {
+        String sql = "{CALL get_all_node_usage()}";
+        Map<Long, NodeUsage> usage = new HashMap<>();
+        try (CallableStatement stmt = connection.prepareCall(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                usage.put(rs.getLong("node_id"),
+                        new NodeUsage(rs.getLong("capacity"), rs.getLong("space_used"), rs.getInt("file_count")));
+            }
+        } catch (SQLException e) {
+            System.err.println("ERROR findAllNodeUsage: " + e.getMessage());
+            throw e;
+        }
+        return usage;
     }
 
     /**
@@ -693,4 +873,369 @@ public class FileRepository {
         return 0;
     }
 
+
+    // --------- METODOS RELACIONADOS A ERASURE CODING
+
+
+    /**
+     * Registra el layout de un archivo con erasure coding.
+     */
+    public void registerFileLayout(String fileUuid, int dataShards, int parityShards, int shardSize) throws SQLException {
+        String sql = "INSERT INTO File_Layout (file_uuid, data_shards, parity_shards, shard_size) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, fileUuid);
+            stmt.setInt(2, dataShards);
+            stmt.setInt(3, parityShards);
+            stmt.setInt(4, shardSize);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Registra en qué nodo quedó almacenado un shard.
+     */
+    public void registerFileShard(String fileUuid, int shardIndex, Long nodeId) throws SQLException {
+        String sql = "INSERT INTO File_Shard (file_uuid, shard_index, node_id) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, fileUuid);
+            stmt.setInt(2, shardIndex);
+            stmt.setLong(3, nodeId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Obtiene el layout de un archivo con sus shards.
+     * @return null si el archivo está replicado (no tiene layout)
+     */
+    public FileLayout findFileLayout(String fileUuid) throws SQLException {
+        FileLayout layout = null;
+
+        String sql = "SELECT data_shards, parity_shards, shard_size FROM File_Layout WHERE file_uuid = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, fileUuid);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    layout = new FileLayout(
+                            fileUuid,
+                            rs.getInt("data_shards"),
+                            rs.getInt("parity_shards"),
+                            rs.getInt("shard_size")
+                    );
+                }
+            }
+        }
+
+        if (layout == null) {
+            return null;
+        }
+
+        String shardsSql = "SELECT shard_index, node_id FROM File_Shard WHERE file_uuid = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(shardsSql)) {
+            stmt.setString(1, fileUuid);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    layout.addShard(rs.getInt("shard_index"), rs.getLong("node_id"));
+                }
+            }
+        }
+
+        return layout;
+    }
+
+
+    // --------- METODOS RELACIONADOS A DEDUPLICACION DE CONTENIDO
+
+
+    /**
+     * Busca un blob por el hash SHA-256 de su contenido.
+     * @return null si el contenido no está almacenado
+     */
+    public ContentBlob findBlobByHash(String hash) throws SQLException {
+        String sql = "SELECT hash, storage_uuid, owner_id, size, ref_count FROM Content_Blob WHERE hash = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapBlob(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene el blob al que apunta un archivo.
+     * @return null si el archivo no está deduplicado (contenido propio)
+     */
+    public ContentBlob findBlobByFile(String fileUuid) throws SQLException {
+        String sql = "SELECT cb.hash, cb.storage_uuid, cb.owner_id, cb.size, cb.ref_count " +
+                "FROM File_Blob fb JOIN Content_Blob cb ON cb.hash = fb.hash WHERE fb.file_uuid = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, fileUuid);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapBlob(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resuelve el id bajo el que está guardado el contenido de un archivo en los nodos.
+     * Para archivos deduplicados es el del blob; para el resto, el propio uuid.
+     */
+    public String resolveStorageUuid(String fileUuid) throws SQLException {
+        ContentBlob blob = findBlobByFile(fileUuid);
+        return blob != null ? blob.getStorageUuid() : fileUuid;
+    }
+
+    /**
+     * Registra un blob nuevo con una referencia (la del archivo que lo subió).
+     */
+    public void registerBlob(String hash, String storageUuid, Long ownerId, long size) throws SQLException {
+        String sql = "INSERT INTO Content_Blob (hash, storage_uuid, owner_id, size, ref_count) VALUES (?, ?, ?, ?, 1)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            stmt.setString(2, storageUuid);
+            stmt.setLong(3, ownerId);
+            stmt.setLong(4, size);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Suma una referencia a un blob existente.
+     * @return false si el blob ya no existe (fue liberado mientras tanto)
+     */
+    public boolean acquireBlob(String hash) throws SQLException {
+        String sql = "UPDATE Content_Blob SET ref_count = ref_count + 1 WHERE hash = ? AND ref_count > 0";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Asocia un archivo al blob que contiene su contenido.
+     */
+    public void registerFileBlob(String fileUuid, String hash) throws SQLException {
+        String sql = "INSERT INTO File_Blob (file_uuid, hash) VALUES (?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, fileUuid);
+            stmt.setString(2, hash);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Obtiene algún archivo que siga apuntando al blob (para localizar sus réplicas).
+     */
+    public String findBlobReferrer(String hash) throws SQLException {
+        String sql = "SELECT file_uuid FROM File_Blob WHERE hash = ? LIMIT 1";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("file_uuid");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Quita la referencia de un archivo a su blob.
+     * @return true si era la última referencia: el blob se eliminó y hay que borrar el contenido de los nodos
+     */
+    public boolean releaseBlob(String fileUuid, String hash) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM File_Blob WHERE file_uuid = ?")) {
+            stmt.setString(1, fileUuid);
+            stmt.executeUpdate();
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "UPDATE Content_Blob SET ref_count = ref_count - 1 WHERE hash = ?")) {
+            stmt.setString(1, hash);
+            stmt.executeUpdate();
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "DELETE FROM Content_Blob WHERE hash = ? AND ref_count <= 0")) {
+            stmt.setString(1, hash);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    private ContentBlob mapBlob(ResultSet rs) throws SQLException {
+        return new ContentBlob(
+                rs.getString("hash"),
+                rs.getString("storage_uuid"),
+                rs.getLong("owner_id"),
+                rs.getLong("size"),
+                rs.getInt("ref_count")
+        );
+    }
+
+
+    // --------- METODOS RELACIONADOS A CHUNKS
+
+
+    /**
+     * Suma una referencia a un chunk ya almacenado.
+     * @return false si el chunk no existe (hay que subirlo)
+     */
+    public boolean acquireChunk(String hash) throws SQLException {
+        String sql = "UPDATE Chunk SET ref_count = ref_count + 1 WHERE hash = ? AND ref_count > 0";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Registra un chunk recién subido con una referencia.
+     * Si otra subida lo registró a la vez, solo suma la referencia (el contenido es el mismo).
+     */
+    public void registerChunk(String hash, int size) throws SQLException {
+        String sql = "INSERT INTO Chunk (hash, size, ref_count) VALUES (?, ?, 1) " +
+                "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            stmt.setInt(2, size);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Registra que un nodo guarda un chunk.
+     */
+    public void registerChunkNode(String hash, Long nodeId) throws SQLException {
+        String sql = "INSERT IGNORE INTO Chunk_Node (hash, node_id) VALUES (?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            stmt.setLong(2, nodeId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Registra la lista ordenada de chunks de un archivo.
+     */
+    public void registerFileChunks(String fileUuid, List<String> hashes) throws SQLException {
+        String sql = "INSERT INTO File_Chunk (file_uuid, chunk_index, hash) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < hashes.size(); i++) {
+                stmt.setString(1, fileUuid);
+                stmt.setInt(2, i);
+                stmt.setString(3, hashes.get(i));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Obtiene los chunks de un archivo, en orden, con los nodos que guardan cada uno.
+     * @return lista vacía si el archivo no está almacenado por chunks
+     */
+    public List<FileChunk> findFileChunks(String fileUuid) throws SQLException {
+        String sql = "SELECT fc.chunk_index, fc.hash, c.size, cn.node_id FROM File_Chunk fc " +
+                "JOIN Chunk c ON c.hash = fc.hash " +
+                "LEFT JOIN Chunk_Node cn ON cn.hash = fc.hash " +
+                "WHERE fc.file_uuid = ? ORDER BY fc.chunk_index";
+        List<FileChunk> chunks = new ArrayList<>();
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, fileUuid);
+            try (ResultSet rs = stmt.executeQuery()) {
+                FileChunk current = null;
+                while (rs.next()) {
+                    int index = rs.getInt("chunk_index");
+                    if (current == null || current.getIndex() != index) {
+                        current = new FileChunk(index, rs.getString("hash"), rs.getInt("size"));
+                        chunks.add(current);
+                    }
+                    long nodeId = rs.getLong("node_id");
+                    if (!rs.wasNull()) {
+                        current.addNode(nodeId);
+                    }
+                }
+            }
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Obtiene los nodos que guardan un chunk.
+     */
+    public List<Long> getChunkNodes(String hash) throws SQLException {
+        String sql = "SELECT node_id FROM Chunk_Node WHERE hash = ?";
+        List<Long> nodeIds = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    nodeIds.add(rs.getLong("node_id"));
+                }
+            }
+        }
+        return nodeIds;
+    }
+
+    /**
+     * Quita una referencia a un chunk.
+     * @return true si era la última: el chunk (y sus filas de Chunk_Node) se eliminó
+     *         y hay que borrar el contenido de los nodos
+     */
+    public boolean releaseChunk(String hash) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "UPDATE Chunk SET ref_count = ref_count - 1 WHERE hash = ?")) {
+            stmt.setString(1, hash);
+            stmt.executeUpdate();
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "DELETE FROM Chunk WHERE hash = ? AND ref_count <= 0")) {
+            stmt.setString(1, hash);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+
+    // --------- METODOS RELACIONADOS A COMPRESION
+
+
+    /**
+     * Registra el codec con el que se guardó un archivo y su tamaño en los nodos.
+     */
+    public void registerFileCompression(String fileUuid, String codec, long physicalSize) throws SQLException {
+        String sql = "INSERT INTO File_Compression (file_uuid, codec, physical_size) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, fileUuid);
+            stmt.setString(2, codec);
+            stmt.setLong(3, physicalSize);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Obtiene la compresión de un archivo.
+     * @return null si el archivo se guardó sin comprimir
+     */
+    public FileCompression findFileCompression(String fileUuid) throws SQLException {
+        String sql = "SELECT codec, physical_size FROM File_Compression WHERE file_uuid = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, fileUuid);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new FileCompression(rs.getString("codec"), rs.getLong("physical_size"));
+                }
+            }
+        }
+        return null;
+    }
+
 }
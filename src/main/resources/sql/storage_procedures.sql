@@ -0,0 +1,54 @@
+-- Procedimientos almacenados de las tablas de almacenamiento (sql/storage_schema.sql).
+-- Los del esquema base (get_node_capacity, get_node_space_used, count_files_by_node, ...) no
+-- están en este repositorio.
+--
+-- No se aplica automáticamente. Ejecutar a mano con el cliente de MySQL, después de
+-- storage_schema.sql:
+--
+--   mysql -u <usuario> -p <base> < src/main/resources/sql/storage_procedures.sql
+
+DELIMITER //
+
+-- Capacidad y uso de todos los nodos en una sola consulta (FileRepository.findAllNodeUsage).
+-- space_used suma las réplicas completas, los shards y los chunks de cada nodo:
+--   - una réplica comprimida cuenta por su tamaño físico (File_Compression.physical_size);
+--   - los archivos deduplicados apuntan al mismo contenido (Content_Blob.storage_uuid) y
+--     cuentan una sola vez por nodo, también en file_count.
+DROP PROCEDURE IF EXISTS get_all_node_usage //
+CREATE PROCEDURE get_all_node_usage()
+BEGIN
+    SELECT n.id AS node_id,
+           n.free_space AS capacity,
+           COALESCE(fn.space_used, 0) + COALESCE(sh.space_used, 0) + COALESCE(ch.space_used, 0) AS space_used,
+           COALESCE(fn.file_count, 0) AS file_count
+    FROM Node n
+    LEFT JOIN (
+        SELECT st.node_id, SUM(st.bytes) AS space_used, COUNT(*) AS file_count
+        FROM (
+            SELECT fn.node_id,
+                   COALESCE(cb.storage_uuid, f.uuid) AS storage_uuid,
+                   MAX(COALESCE(fc.physical_size, f.size)) AS bytes
+            FROM File_Node fn
+            JOIN File f ON f.uuid = fn.file_uuid
+            LEFT JOIN File_Compression fc ON fc.file_uuid = f.uuid
+            LEFT JOIN File_Blob fb ON fb.file_uuid = f.uuid
+            LEFT JOIN Content_Blob cb ON cb.hash = fb.hash
+            GROUP BY fn.node_id, COALESCE(cb.storage_uuid, f.uuid)
+        ) st
+        GROUP BY st.node_id
+    ) fn ON fn.node_id = n.id
+    LEFT JOIN (
+        SELECT s.node_id, SUM(l.shard_size) AS space_used
+        FROM File_Shard s
+        JOIN File_Layout l ON l.file_uuid = s.file_uuid
+        GROUP BY s.node_id
+    ) sh ON sh.node_id = n.id
+    LEFT JOIN (
+        SELECT cn.node_id, SUM(c.size) AS space_used
+        FROM Chunk_Node cn
+        JOIN Chunk c ON c.hash = cn.hash
+        GROUP BY cn.node_id
+    ) ch ON ch.node_id = n.id;
+END //
+
+DELIMITER ;
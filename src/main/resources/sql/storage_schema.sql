@@ -0,0 +1,87 @@
+-- Tablas de almacenamiento que usa FileRepository además del esquema base (User, Directory,
+-- File, Node, File_Node y sus procedimientos almacenados), que no está en este repositorio.
+--
+-- No se aplica automáticamente. Ejecutar a mano con el cliente de MySQL, sobre una base que ya
+-- tenga el esquema base y antes de arrancar el servidor con las funciones de almacenamiento:
+--
+--   mysql -u <usuario> -p <base> < src/main/resources/sql/storage_schema.sql
+--
+-- Las filas hijas de File se borran en cascada con el archivo; FileRepository.deleteFileMetadata
+-- borra además File_Node y File_Compression antes de File por uuid.
+-- Los procedimientos almacenados de estas tablas están en storage_procedures.sql.
+
+-- Zona, rack y máquina de cada nodo (NodeService, NodeSelector.getTopology)
+CREATE TABLE Node_Topology (
+    node_id BIGINT       PRIMARY KEY,
+    zone    VARCHAR(64)  NOT NULL,
+    rack    VARCHAR(64)  NOT NULL,
+    host    VARCHAR(255) NOT NULL,
+    FOREIGN KEY (node_id) REFERENCES Node (id) ON DELETE CASCADE
+);
+
+-- Erasure coding: parámetros del archivo y nodo de cada shard
+CREATE TABLE File_Layout (
+    file_uuid     VARCHAR(36) PRIMARY KEY,
+    data_shards   INT         NOT NULL,
+    parity_shards INT         NOT NULL,
+    shard_size    INT         NOT NULL,
+    FOREIGN KEY (file_uuid) REFERENCES File (uuid) ON DELETE CASCADE
+);
+
+CREATE TABLE File_Shard (
+    file_uuid   VARCHAR(36) NOT NULL,
+    shard_index INT         NOT NULL,
+    node_id     BIGINT      NOT NULL,
+    PRIMARY KEY (file_uuid, shard_index),
+    FOREIGN KEY (file_uuid) REFERENCES File (uuid) ON DELETE CASCADE,
+    FOREIGN KEY (node_id) REFERENCES Node (id)
+);
+
+-- Deduplicación de archivos completos por SHA-256.
+-- File_Blob -> Content_Blob no va en cascada: al liberar la última referencia se borra
+-- la fila de File_Blob antes que el blob.
+CREATE TABLE Content_Blob (
+    hash         CHAR(64)    PRIMARY KEY,
+    storage_uuid VARCHAR(36) NOT NULL,
+    owner_id     BIGINT      NOT NULL,
+    size         BIGINT      NOT NULL,
+    ref_count    INT         NOT NULL
+);
+
+CREATE TABLE File_Blob (
+    file_uuid VARCHAR(36) PRIMARY KEY,
+    hash      CHAR(64)    NOT NULL,
+    FOREIGN KEY (file_uuid) REFERENCES File (uuid) ON DELETE CASCADE,
+    FOREIGN KEY (hash) REFERENCES Content_Blob (hash)
+);
+
+-- Chunking por contenido: cada chunk se guarda una vez por hash
+CREATE TABLE Chunk (
+    hash      CHAR(64) PRIMARY KEY,
+    size      INT      NOT NULL,
+    ref_count INT      NOT NULL
+);
+
+CREATE TABLE Chunk_Node (
+    hash    CHAR(64) NOT NULL,
+    node_id BIGINT   NOT NULL,
+    PRIMARY KEY (hash, node_id),
+    INDEX idx_chunk_node_node (node_id),
+    FOREIGN KEY (hash) REFERENCES Chunk (hash) ON DELETE CASCADE
+);
+
+CREATE TABLE File_Chunk (
+    file_uuid   VARCHAR(36) NOT NULL,
+    chunk_index INT         NOT NULL,
+    hash        CHAR(64)    NOT NULL,
+    PRIMARY KEY (file_uuid, chunk_index),
+    FOREIGN KEY (file_uuid) REFERENCES File (uuid) ON DELETE CASCADE
+);
+
+-- Compresión transparente de archivos replicados
+CREATE TABLE File_Compression (
+    file_uuid     VARCHAR(36) PRIMARY KEY,
+    codec         VARCHAR(16) NOT NULL,
+    physical_size BIGINT      NOT NULL,
+    FOREIGN KEY (file_uuid) REFERENCES File (uuid) ON DELETE CASCADE
+);
@@ -0,0 +1,136 @@
+package org.example.application.service;
+
+import org.example.domain.model.NodeTopology;
+import org.example.domain.model.NodeUsage;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Altas y bajas en caliente sobre un NodeSelector que empieza sin nodos.
+ */
+class NodeMembershipServiceTest {
+
+    private static final String ENDPOINT = "localhost:1200";
+
+    /**
+     * Repositorio sin BD: ningún nodo tiene métricas ni topología guardadas.
+     */
+    static class EmptyRepository extends FileRepository {
+        EmptyRepository() {
+            super(null);
+        }
+
+        @Override
+        public Map<Long, NodeTopology> findAllNodeTopologies() {
+            return Map.of();
+        }
+
+        @Override
+        public Map<Long, NodeUsage> findAllNodeUsage() {
+            return Map.of();
+        }
+
+        @Override
+        public NodeTopology findNodeTopology(Long nodeId) {
+            return null;
+        }
+
+        @Override
+        public long getNodeCapacity(Long nodeId) {
+            return 1L << 30;
+        }
+
+        @Override
+        public long getNodeSpaceUsed(Long nodeId) {
+            return 0;
+        }
+
+        @Override
+        public int countFilesByNode(Long nodeId) {
+            return 0;
+        }
+    }
+
+    /**
+     * Registro RMI simulado que publica siempre los nodos 1 y 2.
+     */
+    static class FixedRegistry extends NodeService {
+        FixedRegistry(FileRepository fileRepository) {
+            super(fileRepository);
+        }
+
+        @Override
+        public Map<Long, NodeFileService> discoverNode(String host, int port) {
+            return Map.of(1L, stub(), 2L, stub());
+        }
+    }
+
+    private static NodeFileService stub() {
+        return (NodeFileService) Proxy.newProxyInstance(
+                NodeFileService.class.getClassLoader(),
+                new Class<?>[]{NodeFileService.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private NodeSelector nodeSelector;
+    private NodeMembershipService membership;
+
+    @BeforeEach
+    void setUp() {
+        FileRepository repository = new EmptyRepository();
+        nodeSelector = new NodeSelector(Map.of(), repository, new StoragePolicy(2, 1, 1));
+        membership = new NodeMembershipService(new FixedRegistry(repository), nodeSelector, List.of(ENDPOINT), 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        membership.shutdown();
+        nodeSelector.shutdown();
+    }
+
+    @Test
+    void startsEmptyAndJoinsOnRescan() {
+        assertTrue(nodeSelector.getAllNodes().isEmpty());
+        assertTrue(nodeSelector.selectNodesForUpload(1024).isEmpty());
+
+        membership.rescan();
+        assertTrue(nodeSelector.isMember(1L));
+        assertTrue(nodeSelector.isMember(2L));
+    }
+
+    @Test
+    void rescanSkipsDeregisteredNode() {
+        membership.rescan();
+        assertTrue(membership.deregisterNode(1L));
+
+        // El registro sigue publicando Node-1 (y Node-2, que sigue siendo miembro)
+        membership.rescan();
+        assertFalse(nodeSelector.isMember(1L));
+        assertTrue(nodeSelector.isMember(2L));
+    }
+
+    @Test
+    void explicitRegisterReadmitsDeregisteredNode() {
+        membership.rescan();
+        membership.deregisterNode(1L);
+
+        assertEquals(List.of(1L, 2L), membership.registerNode("localhost", 1200).stream().sorted().toList());
+        assertTrue(nodeSelector.isMember(1L));
+
+        membership.rescan();
+        assertTrue(nodeSelector.isMember(1L));
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.domain.command;
+
+import org.example.domain.model.File;
+import org.example.infrastructure.remote.CircuitBreaker;
+import org.example.infrastructure.remote.CircuitBreakingNodeFileService;
+import org.example.infrastructure.remote.NodeFileService;
+import org.example.infrastructure.repository.FileRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lectura de rangos con la primera réplica con el circuito abierto.
+ */
+class DownloadFileRangeCommandTest {
+
+    private static final byte[] DATA = "0123456789abcdefghij".getBytes();
+
+    /**
+     * Repositorio en memoria con un único archivo.
+     */
+    private static final FileRepository REPOSITORY = new FileRepository(null) {
+        @Override
+        public File findByUuid(String fileUuid) {
+            return "f1".equals(fileUuid) ? new File("f1", "f1.bin", DATA.length, 1L, 1L) : null;
+        }
+
+        @Override
+        public String resolveStorageUuid(String fileUuid) {
+            return fileUuid;
+        }
+    };
+
+    private static NodeFileService serving() {
+        return (NodeFileService) Proxy.newProxyInstance(
+                NodeFileService.class.getClassLoader(),
+                new Class<?>[]{NodeFileService.class},
+                (proxy, method, args) -> {
+                    long offset = (Long) args[1];
+                    int length = (Integer) args[2];
+                    return Arrays.copyOfRange(DATA, (int) offset, (int) offset + length);
+                });
+    }
+
+    private static NodeFileService openCircuit(Long nodeId) {
+        CircuitBreaker breaker = new CircuitBreaker("Node-" + nodeId, 1, 60_000);
+        breaker.onFailure();
+        return CircuitBreakingNodeFileService.wrap(nodeId, serving(), breaker);
+    }
+
+    @Test
+    void readsRangeFromNextReplicaWhenFirstIsOpen() {
+        List<Map.Entry<Long, NodeFileService>> replicas = List.of(
+                Map.entry(1L, openCircuit(1L)), Map.entry(2L, serving()));
+
+        DownloadFileRangeCommand command = new DownloadFileRangeCommand(replicas, REPOSITORY, "f1", 5, 100);
+        assertTrue(command.execute());
+        assertArrayEquals(Arrays.copyOfRange(DATA, 5, DATA.length), command.getContent());
+    }
+
+    @Test
+    void failsWhenNoReplicaAnswers() {
+        List<Map.Entry<Long, NodeFileService>> replicas = List.of(
+                Map.entry(1L, openCircuit(1L)), Map.entry(2L, openCircuit(2L)));
+
+        assertFalse(new DownloadFileRangeCommand(replicas, REPOSITORY, "f1", 0, 4).execute());
+    }
+}
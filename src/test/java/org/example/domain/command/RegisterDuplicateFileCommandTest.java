@@ -0,0 +1,86 @@
+package org.example.domain.command;
+
+import org.example.domain.model.ContentBlob;
+import org.example.domain.model.File;
+import org.example.domain.model.FileCompression;
+import org.example.infrastructure.repository.FileRepository;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Registro de un duplicado que falla después de crear la metadata.
+ */
+class RegisterDuplicateFileCommandTest {
+
+    /**
+     * Repositorio en memoria que falla al registrar la réplica y anota las operaciones de limpieza.
+     */
+    static class FailingRepository extends FileRepository {
+        final List<String> calls = new ArrayList<>();
+
+        FailingRepository() {
+            super(null);
+        }
+
+        @Override
+        public String findBlobReferrer(String hash) {
+            return "original";
+        }
+
+        @Override
+        public List<Long> getNodesByFile(String fileUuid) {
+            return List.of(1L, 2L);
+        }
+
+        @Override
+        public boolean acquireBlob(String hash) {
+            return true;
+        }
+
+        @Override
+        public boolean uploadFile(File file) {
+            calls.add("uploadFile");
+            return true;
+        }
+
+        @Override
+        public void registerFileBlob(String fileUuid, String hash) {
+        }
+
+        @Override
+        public FileCompression findFileCompression(String fileUuid) {
+            return null;
+        }
+
+        @Override
+        public String registerFileNode(String fileUuid, Long nodeId) throws SQLException {
+            throw new SQLException("conexión perdida");
+        }
+
+        @Override
+        public boolean releaseBlob(String fileUuid, String hash) {
+            calls.add("releaseBlob");
+            return false;
+        }
+
+        @Override
+        public void deleteFileMetadata(String fileUuid) {
+            calls.add("deleteFileMetadata");
+        }
+    }
+
+    @Test
+    void failureAfterMetadataDeletesIt() {
+        FailingRepository repository = new FailingRepository();
+        ContentBlob blob = new ContentBlob("abc", "original", 1L, 10, 1);
+
+        assertFalse(new RegisterDuplicateFileCommand(blob, "copia.txt", 1L, 1L, repository).execute());
+        assertEquals(List.of("uploadFile", "releaseBlob", "deleteFileMetadata"), repository.calls);
+    }
+}
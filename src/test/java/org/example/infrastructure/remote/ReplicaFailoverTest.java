@@ -0,0 +1,87 @@
+package org.example.infrastructure.remote;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Lectura por streaming con la primera réplica con el circuito abierto.
+ */
+class ReplicaFailoverTest {
+
+    private static final byte[] DATA = "contenido de prueba para el failover entre réplicas".getBytes();
+
+    /**
+     * Stub que sirve DATA por rangos y cuenta las llamadas.
+     */
+    static NodeFileService serving(byte[] data, AtomicInteger calls) {
+        return (NodeFileService) Proxy.newProxyInstance(
+                NodeFileService.class.getClassLoader(),
+                new Class<?>[]{NodeFileService.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("downloadFileRange")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    calls.incrementAndGet();
+                    long offset = (Long) args[1];
+                    int length = (Integer) args[2];
+                    int end = (int) Math.min(data.length, offset + length);
+                    return Arrays.copyOfRange(data, (int) offset, end);
+                });
+    }
+
+    /**
+     * Stub envuelto en un breaker ya abierto: falla sin llegar al nodo.
+     */
+    static NodeFileService openCircuit(Long nodeId, AtomicInteger calls) {
+        CircuitBreaker breaker = new CircuitBreaker("Node-" + nodeId, 1, 60_000);
+        breaker.onFailure();
+        return CircuitBreakingNodeFileService.wrap(nodeId, serving(DATA, calls), breaker);
+    }
+
+    @Test
+    void inputStreamSkipsOpenFirstReplica() throws Exception {
+        AtomicInteger firstCalls = new AtomicInteger();
+        AtomicInteger secondCalls = new AtomicInteger();
+        List<NodeFileService> nodes = List.of(openCircuit(1L, firstCalls), serving(DATA, secondCalls));
+
+        try (NodeFileInputStream in = new NodeFileInputStream(nodes, "uuid", DATA.length, 8)) {
+            assertArrayEquals(DATA, in.readAllBytes());
+        }
+        assertEquals(0, firstCalls.get());
+        assertEquals((DATA.length + 7) / 8, secondCalls.get());
+    }
+
+    @Test
+    void dataSourceOpensFromSecondReplica() throws Exception {
+        AtomicInteger firstCalls = new AtomicInteger();
+        AtomicInteger secondCalls = new AtomicInteger();
+        NodeFileDataSource source = new NodeFileDataSource(List.of(
+                new NodeFileDataSource.Replica(openCircuit(1L, firstCalls), null),
+                new NodeFileDataSource.Replica(serving(DATA, secondCalls), null)),
+                "uuid", "archivo.txt", DATA.length);
+
+        try (InputStream in = source.getInputStream()) {
+            assertArrayEquals(DATA, in.readAllBytes());
+        }
+        assertEquals(0, firstCalls.get());
+    }
+
+    @Test
+    void failsWhenEveryReplicaIsOpen() {
+        List<NodeFileService> nodes = List.of(openCircuit(1L, new AtomicInteger()),
+                openCircuit(2L, new AtomicInteger()));
+
+        NodeFileInputStream in = new NodeFileInputStream(nodes, "uuid", DATA.length);
+        assertThrows(IOException.class, in::open);
+    }
+}